@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.demo.particles;
+
+import android.graphics.PointF;
+import android.util.Log;
+
+import com.funzio.pure2D.gl.gl10.BlendModes;
+import com.funzio.pure2D.particles.nova.NovaConfig;
+import com.funzio.pure2D.particles.nova.NovaEmitter;
+import com.funzio.pure2D.particles.nova.NovaFactory;
+import com.funzio.pure2D.particles.nova.NovaParticle;
+import com.funzio.pure2D.particles.nova.batch.ParticleBatch;
+import com.funzio.pure2D.particles.nova.vo.NovaEmitterVO;
+import com.funzio.pure2D.particles.nova.vo.NovaParticleVO;
+import com.funzio.pure2D.particles.nova.vo.NovaVO;
+
+/**
+ * A simple benchmark for spawning the particles of a NovaVO, in particles per second. It compares resolving the properties from the raw lists and names against the compiled tables, and then
+ * measures the full spawn of the object and batch particles. Call {@link #runAll(NovaVO, int)} from a test app and check the log.
+ * 
+ * @author long
+ * @see NovaVO#compile()
+ */
+public class NovaSpawnBenchmark {
+    private static final String TAG = NovaSpawnBenchmark.class.getSimpleName();
+
+    public static final int MODE_LISTS = 0;
+    public static final int MODE_TABLES = 1;
+    public static final int MODE_OBJECTS = 2;
+    public static final int MODE_BATCH = 3;
+
+    private static final String[] MODE_NAMES = {
+            "Lists", "Tables", "Objects", "Batch"
+    };
+
+    // keep the batch in a realistic size
+    private static final int BATCH_LIMIT = 1000;
+
+    // prevent the resolving loops from being optimized away
+    private static float sSink;
+
+    /**
+     * Spawn the particles of an emitter with a mode.
+     * 
+     * @param mode
+     * @param novaVO
+     * @param emitterVO
+     * @param count the number of particles per run
+     * @param iterations the number of timed runs, after a warm-up run
+     * @return the result
+     */
+    public static Result run(final int mode, final NovaVO novaVO, final NovaEmitterVO emitterVO, final int count, final int iterations) {
+        final Result result = new Result();
+        result.mode = mode;
+        result.numParticles = count;
+
+        final int numVOs = emitterVO.particles.size();
+        if (numVOs == 0) {
+            return result;
+        }
+
+        // pool as many as the runs need
+        final BenchmarkFactory factory = mode == MODE_OBJECTS ? new BenchmarkFactory(novaVO, Math.max(novaVO.pool_size, 1)) : null;
+        final NovaEmitter emitter = factory != null ? factory.createEmitter(emitterVO, new PointF()) : null;
+        final ParticleBatch batch = mode == MODE_BATCH ? new ParticleBatch(null, null) : null;
+
+        long totalTime = 0;
+        for (int n = 0; n <= iterations; n++) {
+            final long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                final NovaParticleVO vo = emitterVO.particles.get(i % numVOs);
+                switch (mode) {
+                    case MODE_LISTS:
+                        resolveLists(novaVO, vo, i);
+                        break;
+
+                    case MODE_TABLES:
+                        resolveTables(vo, i);
+                        break;
+
+                    case MODE_OBJECTS:
+                        final NovaParticle particle = factory.spawn(emitter, vo, i);
+                        // recycle, same as NovaEmitter.onParticleFinish()
+                        particle.onRemoved();
+                        if (factory.getParticlePool() != null) {
+                            factory.getParticlePool().release(particle);
+                        }
+                        break;
+
+                    case MODE_BATCH:
+                        if (batch.getNumParticles() >= BATCH_LIMIT) {
+                            batch.clear();
+                        }
+                        batch.spawn(vo, i, 0, 0, null, vo.getAnimatorVO(i));
+                        break;
+                }
+            }
+
+            // skip the warm-up
+            if (n > 0) {
+                totalTime += System.nanoTime() - start;
+            }
+        }
+
+        if (factory != null) {
+            factory.dispose();
+        }
+        if (batch != null) {
+            batch.dispose();
+        }
+
+        final float seconds = (iterations > 0 ? totalTime / iterations : 1) / 1000000000f;
+        result.time = seconds * 1000;
+        result.rate = seconds > 0 ? count / seconds : 0;
+
+        return result;
+    }
+
+    /**
+     * Run all the modes on all the emitters of a NovaVO, and log the results.
+     * 
+     * @param novaVO
+     * @param count the number of particles per run
+     * @return the report
+     */
+    public static String runAll(final NovaVO novaVO, final int count) {
+        final StringBuilder report = new StringBuilder();
+        if (novaVO.emitters == null) {
+            return "";
+        }
+
+        for (final NovaEmitterVO emitterVO : novaVO.emitters) {
+            for (int mode = MODE_LISTS; mode <= MODE_BATCH; mode++) {
+                final Result result = run(mode, novaVO, emitterVO, count, 3);
+                final String line = emitterVO.name + ", " + result.toString();
+                Log.i(TAG, line);
+                report.append(line).append('\n');
+            }
+        }
+
+        return report.toString();
+    }
+
+    /**
+     * Resolve the properties the way NovaParticle used to, from the lists and names
+     */
+    private static void resolveLists(final NovaVO novaVO, final NovaParticleVO vo, final int emitIndex) {
+        float sum = NovaConfig.getInt(vo.x, emitIndex, 0) + NovaConfig.getInt(vo.y, emitIndex, 0);
+        sum += NovaConfig.getFloat(vo.z, emitIndex, 0);
+        sum += NovaConfig.getFloat(vo.scale_x, emitIndex, 1) + NovaConfig.getFloat(vo.scale_y, emitIndex, 1);
+        sum += NovaConfig.getFloat(vo.skew_x, emitIndex, 0) + NovaConfig.getFloat(vo.skew_y, emitIndex, 0);
+        sum += NovaConfig.getFloat(vo.rotation, emitIndex, 0) + NovaConfig.getFloat(vo.alpha, emitIndex, 1);
+        sum += NovaConfig.getInt(vo.start_frame, emitIndex, 0);
+        if (NovaConfig.getColor(vo.color, emitIndex, null) != null) {
+            sum++;
+        }
+        if (BlendModes.getBlendFunc(NovaConfig.getString(vo.blend_mode, emitIndex)) != null) {
+            sum++;
+        }
+        if (vo.animator != null && !vo.animator.isEmpty() && novaVO.getAnimatorVO(NovaConfig.getString(vo.animator, emitIndex)) != null) {
+            sum++;
+        }
+        if (vo.motion_trail != null && !vo.motion_trail.isEmpty() && novaVO.getMotionTrailVO(NovaConfig.getString(vo.motion_trail, emitIndex)) != null) {
+            sum++;
+        }
+        if (vo.loop_mode != null) {
+            sum += NovaConfig.getLoopMode(NovaConfig.getString(vo.loop_mode, emitIndex));
+        }
+        sSink += sum;
+    }
+
+    /**
+     * Resolve the same properties from the compiled tables
+     */
+    private static void resolveTables(final NovaParticleVO vo, final int emitIndex) {
+        float sum = vo.getX(emitIndex) + vo.getY(emitIndex);
+        sum += vo.getZ(emitIndex);
+        sum += vo.getScaleX(emitIndex) + vo.getScaleY(emitIndex);
+        sum += vo.getSkewX(emitIndex) + vo.getSkewY(emitIndex);
+        sum += vo.getRotation(emitIndex) + vo.getAlpha(emitIndex);
+        sum += vo.getStartFrame(emitIndex);
+        if (vo.getColor(emitIndex) != null) {
+            sum++;
+        }
+        if (vo.getBlendFunc(emitIndex) != null) {
+            sum++;
+        }
+        if (vo.getAnimatorVO(emitIndex) != null) {
+            sum++;
+        }
+        if (vo.getMotionTrailVO(emitIndex) != null) {
+            sum++;
+        }
+        sum += vo.getLoopMode(emitIndex);
+        sSink += sum;
+    }
+
+    /**
+     * Exposes the particle creation to the benchmark
+     */
+    private static class BenchmarkFactory extends NovaFactory {
+        public BenchmarkFactory(final NovaVO novaVO, final int poolSize) {
+            super(novaVO, null, poolSize);
+        }
+
+        public NovaParticle spawn(final NovaEmitter emitter, final NovaParticleVO particleVO, final int emitIndex) {
+            return createParticle(emitter, particleVO, emitIndex);
+        }
+    }
+
+    public static class Result {
+        public int mode;
+        public int numParticles;
+        public float time; // ms
+        public float rate; // particles per second
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d particles, time: %.2fms, %.0f particles/s", MODE_NAMES[mode], numParticles, time, rate);
+        }
+    }
+}
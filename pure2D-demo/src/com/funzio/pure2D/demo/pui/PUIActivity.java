@@ -26,6 +26,7 @@ import android.os.Bundle;
 import android.view.MotionEvent;
 import android.view.View;
 
+import com.funzio.pure2D.BaseScene;
 import com.funzio.pure2D.DisplayObject;
 import com.funzio.pure2D.Scene;
 import com.funzio.pure2D.demo.Pure2DDemoApplication;
@@ -70,6 +71,16 @@ public class PUIActivity extends StageActivity {
             }
         });
 
+        // touches are dispatched on GL thread
+        mScene.setUnhandledTouchListener(new BaseScene.UnhandledTouchListener() {
+
+            @Override
+            public void onUnhandledTouchEvent(final Scene scene, final MotionEvent event) {
+                if (event.getAction() == MotionEvent.ACTION_DOWN) {
+                    addObject(event.getX(), event.getY());
+                }
+            }
+        });
     }
 
     @Override
@@ -107,17 +118,7 @@ public class PUIActivity extends StageActivity {
     @Override
     public boolean onTouch(final View v, final MotionEvent event) {
 
-        if (!mScene.onTouchEvent(event)) {
-            if (event.getAction() == MotionEvent.ACTION_DOWN) {
-                mStage.queueEvent(new Runnable() {
-
-                    @Override
-                    public void run() {
-                        addObject(event.getX(), event.getY());
-                    }
-                });
-            }
-        }
+        mScene.onTouchEvent(event);
 
         return true;
     }
@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.demo.software;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import android.opengl.GLSurfaceView.Renderer;
+
+/**
+ * Drives a Renderer against a {@link SoftwareGL10} without a GPU, for golden-image comparisons and CPU benchmarks of the render paths. Images are read and written as binary PPM,
+ * which any image viewer can open.
+ * <p>
+ * A Scene still needs the Android framework: BaseScene uses Log, SystemClock and android.graphics.Matrix, which throw "Stub!" from the plain android.jar. Run it on a device or an
+ * emulator, where only the GPU is replaced. On a plain JVM, only Renderers that do not touch the framework can be driven.
+ * </p>
+ * 
+ * @author long
+ */
+public class RenderHarness {
+    private final Renderer mRenderer;
+    private final SoftwareGL10 mGL;
+    private boolean mStarted = false;
+
+    public RenderHarness(final Renderer renderer, final int width, final int height) {
+        mRenderer = renderer;
+        mGL = new SoftwareGL10(width, height);
+    }
+
+    public SoftwareGL10 getGL() {
+        return mGL;
+    }
+
+    public Renderer getRenderer() {
+        return mRenderer;
+    }
+
+    /**
+     * Simulate the surface creation and sizing. Called automatically by {@link #drawFrames(int)}.
+     */
+    public void start() {
+        if (mStarted) {
+            return;
+        }
+        mStarted = true;
+
+        mRenderer.onSurfaceCreated(mGL, null);
+        mRenderer.onSurfaceChanged(mGL, mGL.getWidth(), mGL.getHeight());
+    }
+
+    /**
+     * Draw a number of frames
+     * 
+     * @param numFrames
+     * @return the time spent, in nanoseconds
+     */
+    public long drawFrames(final int numFrames) {
+        start();
+
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < numFrames; i++) {
+            mRenderer.onDrawFrame(mGL);
+        }
+
+        return System.nanoTime() - startTime;
+    }
+
+    /**
+     * @return a copy of the frame buffer, as ARGB with the rows top-down
+     */
+    public int[] capture() {
+        return mGL.getPixels(null);
+    }
+
+    /**
+     * Compare 2 images, ignoring alpha.
+     * 
+     * @param expected
+     * @param actual
+     * @param tolerance the maximum difference allowed per channel
+     * @return the number of pixels that differ
+     */
+    public static int compare(final int[] expected, final int[] actual, final int tolerance) {
+        if (expected.length != actual.length) {
+            return Math.max(expected.length, actual.length);
+        }
+
+        int numDiffs = 0;
+        int e, a;
+        for (int i = 0; i < expected.length; i++) {
+            e = expected[i];
+            a = actual[i];
+            if (Math.abs(((e >> 16) & 0xFF) - ((a >> 16) & 0xFF)) > tolerance || Math.abs(((e >> 8) & 0xFF) - ((a >> 8) & 0xFF)) > tolerance || Math.abs((e & 0xFF) - (a & 0xFF)) > tolerance) {
+                numDiffs++;
+            }
+        }
+
+        return numDiffs;
+    }
+
+    /**
+     * Write an image as binary PPM (P6), dropping alpha.
+     * 
+     * @param pixels ARGB, rows top-down
+     * @param width
+     * @param height
+     * @param out
+     * @throws IOException
+     */
+    public static void writePPM(final int[] pixels, final int width, final int height, final OutputStream out) throws IOException {
+        final BufferedOutputStream bos = new BufferedOutputStream(out);
+        bos.write(("P6\n" + width + " " + height + "\n255\n").getBytes("US-ASCII"));
+        int color;
+        for (int i = 0; i < width * height; i++) {
+            color = pixels[i];
+            bos.write((color >> 16) & 0xFF);
+            bos.write((color >> 8) & 0xFF);
+            bos.write(color & 0xFF);
+        }
+        bos.flush();
+    }
+
+    /**
+     * Read a binary PPM (P6) image with 8-bit channels.
+     * 
+     * @param in
+     * @param size the output width and height, can be null
+     * @return the ARGB pixels, rows top-down and fully opaque
+     * @throws IOException
+     */
+    public static int[] readPPM(final InputStream in, final int[] size) throws IOException {
+        final BufferedInputStream bis = new BufferedInputStream(in);
+        if (!"P6".equals(readToken(bis))) {
+            throw new IOException("Not a binary PPM");
+        }
+        final int width = Integer.parseInt(readToken(bis));
+        final int height = Integer.parseInt(readToken(bis));
+        if (Integer.parseInt(readToken(bis)) != 255) {
+            throw new IOException("Only 8-bit PPM is supported");
+        }
+
+        final int[] pixels = new int[width * height];
+        int r, g, b;
+        for (int i = 0; i < pixels.length; i++) {
+            r = bis.read();
+            g = bis.read();
+            b = bis.read();
+            if (b < 0) {
+                throw new IOException("Unexpected end of PPM");
+            }
+            pixels[i] = 0xFF000000 | (r << 16) | (g << 8) | b;
+        }
+
+        if (size != null) {
+            size[0] = width;
+            size[1] = height;
+        }
+
+        return pixels;
+    }
+
+    /**
+     * Read a header token, skipping whitespace and comments. Consumes the single whitespace after the token.
+     */
+    private static String readToken(final InputStream in) throws IOException {
+        final StringBuilder builder = new StringBuilder();
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (c == '#' && builder.length() == 0) {
+                // skip the comment line
+                while ((c = in.read()) >= 0 && c != '\n') {
+                }
+            } else if (Character.isWhitespace(c)) {
+                if (builder.length() > 0) {
+                    break;
+                }
+            } else {
+                builder.append((char) c);
+            }
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,2021 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.demo.software;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * A pure-Java stand-in for the subset of GL10 that Pure2D uses, rasterizing into an int[] frame buffer. It supports the matrix stacks, client arrays, glDrawArrays() and
+ * glDrawElements() for all primitives, 2D textures, scissor, alpha, depth and stencil tests, blending and color masks. It is meant for off-device tests and benchmarks, not for
+ * pixel-exact conformance.
+ * <p>
+ * Limitations: there is no clipping against the near plane (primitives behind the eye are dropped), no mipmapping (the magnification filter is always used), no lighting, fog
+ * or compressed textures, and lines are 1 pixel wide. Calls made through the static GLES11/GLUtils classes (VBOs, Bitmap uploads, separate blend functions) do not reach this
+ * object; use {@link #setTexturePixels(int, int[], int, int)} to feed Bitmap pixels.
+ * </p>
+ * 
+ * @author long
+ */
+public class SoftwareGL10 implements GL10 {
+    public static final String VENDOR = "Pure2D";
+    public static final String RENDERER = "Pure2D Software Renderer";
+    public static final String VERSION = "OpenGL ES-CM 1.0";
+    public static final String EXTENSIONS = "GL_OES_texture_npot GL_OES_element_index_uint";
+
+    public static final int MAX_TEXTURE_SIZE = 4096;
+    public static final int MAX_MODELVIEW_STACK_DEPTH = 32;
+    public static final int MAX_PROJECTION_STACK_DEPTH = 4;
+    public static final int MAX_TEXTURE_STACK_DEPTH = 4;
+
+    // GL11 and extension constants
+    private static final int GL_UNSIGNED_INT = 0x1405;
+    private static final int GL_VIEWPORT = 0x0BA2;
+    private static final int GL_SCISSOR_BOX = 0x0C10;
+    private static final int GL_COLOR_WRITEMASK = 0x0C23;
+    private static final int GL_DEPTH_WRITEMASK = 0x0B72;
+    private static final int GL_TEXTURE_BINDING_2D = 0x8069;
+
+    private static final float FIXED_TO_FLOAT = 1f / 65536f;
+
+    // frame buffer, rows are bottom-up like GL
+    private final int mWidth;
+    private final int mHeight;
+    private final int[] mColorBuffer;
+    private final float[] mDepthBuffer;
+    private final byte[] mStencilBuffer;
+
+    // matrices
+    private final MatrixStack mModelView = new MatrixStack(MAX_MODELVIEW_STACK_DEPTH);
+    private final MatrixStack mProjection = new MatrixStack(MAX_PROJECTION_STACK_DEPTH);
+    private final MatrixStack mTextureMatrix = new MatrixStack(MAX_TEXTURE_STACK_DEPTH);
+    private MatrixStack mCurrentMatrix = mModelView;
+    private final float[] mMVP = new float[16];
+    private final float[] mScratchMatrix = new float[16];
+
+    // client arrays
+    private final ClientArray mVertexArray = new ClientArray();
+    private final ClientArray mColorArray = new ClientArray();
+    private final ClientArray mTexCoordArray = new ClientArray();
+
+    // current values
+    private final float[] mCurrentColor = {
+            1, 1, 1, 1
+    };
+    private final float[] mCurrentTexCoord = {
+            0, 0, 0, 1
+    };
+
+    // capabilities
+    private boolean mTextureEnabled = false;
+    private boolean mBlendEnabled = false;
+    private boolean mAlphaTestEnabled = false;
+    private boolean mDepthTestEnabled = false;
+    private boolean mScissorTestEnabled = false;
+    private boolean mStencilTestEnabled = false;
+    private boolean mCullFaceEnabled = false;
+
+    // fragment state
+    private int mBlendSrc = GL10.GL_ONE;
+    private int mBlendDst = GL10.GL_ZERO;
+    private int mAlphaFunc = GL10.GL_ALWAYS;
+    private float mAlphaRef = 0;
+    private int mDepthFunc = GL10.GL_LESS;
+    private boolean mDepthMask = true;
+    private float mClearDepth = 1;
+    private final boolean[] mColorMask = {
+            true, true, true, true
+    };
+    private final float[] mClearColor = new float[4];
+    private int mStencilFunc = GL10.GL_ALWAYS;
+    private int mStencilRef = 0;
+    private int mStencilValueMask = 0xFF;
+    private int mStencilWriteMask = 0xFF;
+    private int mStencilFail = GL10.GL_KEEP;
+    private int mStencilZFail = GL10.GL_KEEP;
+    private int mStencilZPass = GL10.GL_KEEP;
+    private int mClearStencil = 0;
+    private int mFrontFace = GL10.GL_CCW;
+    private int mCullFace = GL10.GL_BACK;
+    private float mPointSize = 1;
+    private float mLineWidth = 1;
+    private int mUnpackAlignment = 4;
+    private int mPackAlignment = 4;
+
+    // viewport and scissor
+    private final int[] mViewport = new int[4];
+    private final int[] mScissor = new int[4];
+    private int mClipLeft, mClipBottom, mClipRight, mClipTop;
+
+    // textures
+    private final HashMap<Integer, SoftTexture> mTextures = new HashMap<Integer, SoftTexture>();
+    private SoftTexture mTexture;
+    private int mTextureID = 0;
+    private int mTextureIDCounter = 0;
+    private int mTextureEnvMode = GL10.GL_MODULATE;
+
+    // errors
+    private int mError = GL10.GL_NO_ERROR;
+
+    // scratch vertices for primitive assembly
+    private final Vertex mV0 = new Vertex();
+    private final Vertex mV1 = new Vertex();
+    private final Vertex mV2 = new Vertex();
+    private final float[] mFragment = new float[4];
+    private final float[] mTexel = new float[4];
+
+    // stats
+    private long mNumFragments = 0;
+
+    public SoftwareGL10(final int width, final int height) {
+        mWidth = width;
+        mHeight = height;
+        mColorBuffer = new int[width * height];
+        mDepthBuffer = new float[width * height];
+        mStencilBuffer = new byte[width * height];
+
+        mViewport[2] = mScissor[2] = width;
+        mViewport[3] = mScissor[3] = height;
+        Arrays.fill(mDepthBuffer, 1f);
+        updateClipRect();
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * @return the color buffer, as ARGB values with the rows bottom-up
+     */
+    public int[] getColorBuffer() {
+        return mColorBuffer;
+    }
+
+    /**
+     * @param x
+     * @param y from the bottom, like GL
+     * @return the ARGB value at the specified location
+     */
+    public int getPixel(final int x, final int y) {
+        return mColorBuffer[y * mWidth + x];
+    }
+
+    /**
+     * Copy the color buffer with the rows top-down, like a Bitmap.
+     * 
+     * @param pixels the destination, can be null
+     * @return the ARGB pixels
+     */
+    public int[] getPixels(int[] pixels) {
+        if (pixels == null || pixels.length < mColorBuffer.length) {
+            pixels = new int[mColorBuffer.length];
+        }
+        for (int y = 0; y < mHeight; y++) {
+            System.arraycopy(mColorBuffer, y * mWidth, pixels, (mHeight - 1 - y) * mWidth, mWidth);
+        }
+        return pixels;
+    }
+
+    /**
+     * @return the number of fragments that passed all the tests, since created
+     */
+    public long getNumFragments() {
+        return mNumFragments;
+    }
+
+    /**
+     * Upload ARGB pixels, such as from Bitmap.getPixels(), into the specified texture. This is the headless replacement for GLUtils.texImage2D().
+     * 
+     * @param textureID
+     * @param pixels ARGB, rows top-down
+     * @param width
+     * @param height
+     */
+    public void setTexturePixels(final int textureID, final int[] pixels, final int width, final int height) {
+        final SoftTexture texture = mTextures.get(textureID);
+        if (texture == null) {
+            setError(GL10.GL_INVALID_VALUE);
+            return;
+        }
+
+        texture.allocate(width, height, GL10.GL_RGBA);
+        System.arraycopy(pixels, 0, texture.mPixels, 0, width * height);
+    }
+
+    private void setError(final int error) {
+        // first error wins
+        if (mError == GL10.GL_NO_ERROR) {
+            mError = error;
+        }
+    }
+
+    private void updateClipRect() {
+        mClipLeft = Math.max(0, mViewport[0]);
+        mClipBottom = Math.max(0, mViewport[1]);
+        mClipRight = Math.min(mWidth, mViewport[0] + mViewport[2]);
+        mClipTop = Math.min(mHeight, mViewport[1] + mViewport[3]);
+        if (mScissorTestEnabled) {
+            mClipLeft = Math.max(mClipLeft, mScissor[0]);
+            mClipBottom = Math.max(mClipBottom, mScissor[1]);
+            mClipRight = Math.min(mClipRight, mScissor[0] + mScissor[2]);
+            mClipTop = Math.min(mClipTop, mScissor[1] + mScissor[3]);
+        }
+    }
+
+    /*
+     * Matrices
+     */
+
+    public void glMatrixMode(final int mode) {
+        if (mode == GL10.GL_MODELVIEW) {
+            mCurrentMatrix = mModelView;
+        } else if (mode == GL10.GL_PROJECTION) {
+            mCurrentMatrix = mProjection;
+        } else if (mode == GL10.GL_TEXTURE) {
+            mCurrentMatrix = mTextureMatrix;
+        } else {
+            setError(GL10.GL_INVALID_ENUM);
+        }
+    }
+
+    public void glPushMatrix() {
+        if (!mCurrentMatrix.push()) {
+            setError(GL10.GL_STACK_OVERFLOW);
+        }
+    }
+
+    public void glPopMatrix() {
+        if (!mCurrentMatrix.pop()) {
+            setError(GL10.GL_STACK_UNDERFLOW);
+        }
+    }
+
+    public void glLoadIdentity() {
+        mCurrentMatrix.loadIdentity();
+    }
+
+    public void glLoadMatrixf(final float[] m, final int offset) {
+        System.arraycopy(m, offset, mCurrentMatrix.mValues, mCurrentMatrix.mTop, 16);
+        mCurrentMatrix.mIdentity = false;
+    }
+
+    public void glLoadMatrixf(final FloatBuffer m) {
+        for (int i = 0; i < 16; i++) {
+            mCurrentMatrix.mValues[mCurrentMatrix.mTop + i] = m.get(m.position() + i);
+        }
+        mCurrentMatrix.mIdentity = false;
+    }
+
+    public void glLoadMatrixx(final int[] m, final int offset) {
+        for (int i = 0; i < 16; i++) {
+            mCurrentMatrix.mValues[mCurrentMatrix.mTop + i] = m[offset + i] * FIXED_TO_FLOAT;
+        }
+        mCurrentMatrix.mIdentity = false;
+    }
+
+    public void glLoadMatrixx(final IntBuffer m) {
+        for (int i = 0; i < 16; i++) {
+            mCurrentMatrix.mValues[mCurrentMatrix.mTop + i] = m.get(m.position() + i) * FIXED_TO_FLOAT;
+        }
+        mCurrentMatrix.mIdentity = false;
+    }
+
+    public void glMultMatrixf(final float[] m, final int offset) {
+        mCurrentMatrix.multiply(m, offset);
+    }
+
+    public void glMultMatrixf(final FloatBuffer m) {
+        for (int i = 0; i < 16; i++) {
+            mScratchMatrix[i] = m.get(m.position() + i);
+        }
+        mCurrentMatrix.multiply(mScratchMatrix, 0);
+    }
+
+    public void glMultMatrixx(final int[] m, final int offset) {
+        for (int i = 0; i < 16; i++) {
+            mScratchMatrix[i] = m[offset + i] * FIXED_TO_FLOAT;
+        }
+        mCurrentMatrix.multiply(mScratchMatrix, 0);
+    }
+
+    public void glMultMatrixx(final IntBuffer m) {
+        for (int i = 0; i < 16; i++) {
+            mScratchMatrix[i] = m.get(m.position() + i) * FIXED_TO_FLOAT;
+        }
+        mCurrentMatrix.multiply(mScratchMatrix, 0);
+    }
+
+    public void glTranslatef(final float x, final float y, final float z) {
+        setIdentity(mScratchMatrix);
+        mScratchMatrix[12] = x;
+        mScratchMatrix[13] = y;
+        mScratchMatrix[14] = z;
+        mCurrentMatrix.multiply(mScratchMatrix, 0);
+    }
+
+    public void glTranslatex(final int x, final int y, final int z) {
+        glTranslatef(x * FIXED_TO_FLOAT, y * FIXED_TO_FLOAT, z * FIXED_TO_FLOAT);
+    }
+
+    public void glScalef(final float x, final float y, final float z) {
+        setIdentity(mScratchMatrix);
+        mScratchMatrix[0] = x;
+        mScratchMatrix[5] = y;
+        mScratchMatrix[10] = z;
+        mCurrentMatrix.multiply(mScratchMatrix, 0);
+    }
+
+    public void glScalex(final int x, final int y, final int z) {
+        glScalef(x * FIXED_TO_FLOAT, y * FIXED_TO_FLOAT, z * FIXED_TO_FLOAT);
+    }
+
+    public void glRotatef(final float angle, float x, float y, float z) {
+        final float length = (float) Math.sqrt(x * x + y * y + z * z);
+        if (length == 0) {
+            return;
+        }
+        x /= length;
+        y /= length;
+        z /= length;
+
+        final double radians = Math.toRadians(angle);
+        final float c = (float) Math.cos(radians);
+        final float s = (float) Math.sin(radians);
+        final float nc = 1 - c;
+
+        final float[] m = mScratchMatrix;
+        m[0] = x * x * nc + c;
+        m[1] = y * x * nc + z * s;
+        m[2] = x * z * nc - y * s;
+        m[3] = 0;
+        m[4] = x * y * nc - z * s;
+        m[5] = y * y * nc + c;
+        m[6] = y * z * nc + x * s;
+        m[7] = 0;
+        m[8] = x * z * nc + y * s;
+        m[9] = y * z * nc - x * s;
+        m[10] = z * z * nc + c;
+        m[11] = 0;
+        m[12] = m[13] = m[14] = 0;
+        m[15] = 1;
+        mCurrentMatrix.multiply(m, 0);
+    }
+
+    public void glRotatex(final int angle, final int x, final int y, final int z) {
+        glRotatef(angle * FIXED_TO_FLOAT, x * FIXED_TO_FLOAT, y * FIXED_TO_FLOAT, z * FIXED_TO_FLOAT);
+    }
+
+    public void glOrthof(final float left, final float right, final float bottom, final float top, final float zNear, final float zFar) {
+        if (left == right || bottom == top || zNear == zFar) {
+            setError(GL10.GL_INVALID_VALUE);
+            return;
+        }
+
+        final float[] m = mScratchMatrix;
+        setIdentity(m);
+        m[0] = 2 / (right - left);
+        m[5] = 2 / (top - bottom);
+        m[10] = -2 / (zFar - zNear);
+        m[12] = -(right + left) / (right - left);
+        m[13] = -(top + bottom) / (top - bottom);
+        m[14] = -(zFar + zNear) / (zFar - zNear);
+        mCurrentMatrix.multiply(m, 0);
+    }
+
+    public void glOrthox(final int left, final int right, final int bottom, final int top, final int zNear, final int zFar) {
+        glOrthof(left * FIXED_TO_FLOAT, right * FIXED_TO_FLOAT, bottom * FIXED_TO_FLOAT, top * FIXED_TO_FLOAT, zNear * FIXED_TO_FLOAT, zFar * FIXED_TO_FLOAT);
+    }
+
+    public void glFrustumf(final float left, final float right, final float bottom, final float top, final float zNear, final float zFar) {
+        if (zNear <= 0 || zFar <= 0 || left == right || bottom == top || zNear == zFar) {
+            setError(GL10.GL_INVALID_VALUE);
+            return;
+        }
+
+        final float[] m = mScratchMatrix;
+        Arrays.fill(m, 0);
+        m[0] = 2 * zNear / (right - left);
+        m[5] = 2 * zNear / (top - bottom);
+        m[8] = (right + left) / (right - left);
+        m[9] = (top + bottom) / (top - bottom);
+        m[10] = -(zFar + zNear) / (zFar - zNear);
+        m[11] = -1;
+        m[14] = -2 * zFar * zNear / (zFar - zNear);
+        mCurrentMatrix.multiply(m, 0);
+    }
+
+    public void glFrustumx(final int left, final int right, final int bottom, final int top, final int zNear, final int zFar) {
+        glFrustumf(left * FIXED_TO_FLOAT, right * FIXED_TO_FLOAT, bottom * FIXED_TO_FLOAT, top * FIXED_TO_FLOAT, zNear * FIXED_TO_FLOAT, zFar * FIXED_TO_FLOAT);
+    }
+
+    /*
+     * Client arrays
+     */
+
+    public void glEnableClientState(final int array) {
+        setClientState(array, true);
+    }
+
+    public void glDisableClientState(final int array) {
+        setClientState(array, false);
+    }
+
+    private void setClientState(final int array, final boolean enabled) {
+        if (array == GL10.GL_VERTEX_ARRAY) {
+            mVertexArray.mEnabled = enabled;
+        } else if (array == GL10.GL_COLOR_ARRAY) {
+            mColorArray.mEnabled = enabled;
+        } else if (array == GL10.GL_TEXTURE_COORD_ARRAY) {
+            mTexCoordArray.mEnabled = enabled;
+        } else if (array != GL10.GL_NORMAL_ARRAY) {
+            setError(GL10.GL_INVALID_ENUM);
+        }
+    }
+
+    public void glVertexPointer(final int size, final int type, final int stride, final Buffer pointer) {
+        mVertexArray.set(size, type, stride, pointer);
+    }
+
+    public void glColorPointer(final int size, final int type, final int stride, final Buffer pointer) {
+        mColorArray.set(size, type, stride, pointer);
+    }
+
+    public void glTexCoordPointer(final int size, final int type, final int stride, final Buffer pointer) {
+        mTexCoordArray.set(size, type, stride, pointer);
+    }
+
+    public void glNormalPointer(final int type, final int stride, final Buffer pointer) {
+        // no lighting
+    }
+
+    public void glColor4f(final float red, final float green, final float blue, final float alpha) {
+        mCurrentColor[0] = red;
+        mCurrentColor[1] = green;
+        mCurrentColor[2] = blue;
+        mCurrentColor[3] = alpha;
+    }
+
+    public void glColor4x(final int red, final int green, final int blue, final int alpha) {
+        glColor4f(red * FIXED_TO_FLOAT, green * FIXED_TO_FLOAT, blue * FIXED_TO_FLOAT, alpha * FIXED_TO_FLOAT);
+    }
+
+    public void glMultiTexCoord4f(final int target, final float s, final float t, final float r, final float q) {
+        mCurrentTexCoord[0] = s;
+        mCurrentTexCoord[1] = t;
+        mCurrentTexCoord[2] = r;
+        mCurrentTexCoord[3] = q;
+    }
+
+    public void glMultiTexCoord4x(final int target, final int s, final int t, final int r, final int q) {
+        glMultiTexCoord4f(target, s * FIXED_TO_FLOAT, t * FIXED_TO_FLOAT, r * FIXED_TO_FLOAT, q * FIXED_TO_FLOAT);
+    }
+
+    public void glNormal3f(final float nx, final float ny, final float nz) {
+        // no lighting
+    }
+
+    public void glNormal3x(final int nx, final int ny, final int nz) {
+        // no lighting
+    }
+
+    /*
+     * Drawing
+     */
+
+    public void glDrawArrays(final int mode, final int first, final int count) {
+        if (count < 0 || first < 0) {
+            setError(GL10.GL_INVALID_VALUE);
+            return;
+        }
+
+        drawPrimitives(mode, count, first, null, 0);
+    }
+
+    public void glDrawElements(final int mode, final int count, final int type, final Buffer indices) {
+        if (count < 0) {
+            setError(GL10.GL_INVALID_VALUE);
+            return;
+        }
+        if (type != GL10.GL_UNSIGNED_BYTE && type != GL10.GL_UNSIGNED_SHORT && type != GL_UNSIGNED_INT) {
+            setError(GL10.GL_INVALID_ENUM);
+            return;
+        }
+        if (indices == null) {
+            // element buffer objects are not supported
+            setError(GL10.GL_INVALID_OPERATION);
+            return;
+        }
+
+        drawPrimitives(mode, count, 0, indices, type);
+    }
+
+    private void drawPrimitives(final int mode, final int count, final int first, final Buffer indices, final int indexType) {
+        if (!mVertexArray.mEnabled || mVertexArray.mBuffer == null) {
+            return;
+        }
+
+        // model-view-projection
+        multiply(mProjection.mValues, mProjection.mTop, mModelView.mValues, mModelView.mTop, mMVP);
+
+        switch (mode) {
+            case GL10.GL_POINTS:
+                for (int i = 0; i < count; i++) {
+                    fetchVertex(vertexAt(i, first, indices, indexType), mV0);
+                    drawPoint(mV0);
+                }
+                break;
+
+            case GL10.GL_LINES:
+                for (int i = 0; i + 1 < count; i += 2) {
+                    fetchVertex(vertexAt(i, first, indices, indexType), mV0);
+                    fetchVertex(vertexAt(i + 1, first, indices, indexType), mV1);
+                    drawLine(mV0, mV1);
+                }
+                break;
+
+            case GL10.GL_LINE_STRIP:
+            case GL10.GL_LINE_LOOP:
+                for (int i = 0; i + 1 < count; i++) {
+                    fetchVertex(vertexAt(i, first, indices, indexType), mV0);
+                    fetchVertex(vertexAt(i + 1, first, indices, indexType), mV1);
+                    drawLine(mV0, mV1);
+                }
+                if (mode == GL10.GL_LINE_LOOP && count > 2) {
+                    fetchVertex(vertexAt(count - 1, first, indices, indexType), mV0);
+                    fetchVertex(vertexAt(0, first, indices, indexType), mV1);
+                    drawLine(mV0, mV1);
+                }
+                break;
+
+            case GL10.GL_TRIANGLES:
+                for (int i = 0; i + 2 < count; i += 3) {
+                    fetchVertex(vertexAt(i, first, indices, indexType), mV0);
+                    fetchVertex(vertexAt(i + 1, first, indices, indexType), mV1);
+                    fetchVertex(vertexAt(i + 2, first, indices, indexType), mV2);
+                    drawTriangle(mV0, mV1, mV2);
+                }
+                break;
+
+            case GL10.GL_TRIANGLE_STRIP:
+                for (int i = 0; i + 2 < count; i++) {
+                    // keep the winding consistent
+                    fetchVertex(vertexAt((i & 1) == 0 ? i : i + 1, first, indices, indexType), mV0);
+                    fetchVertex(vertexAt((i & 1) == 0 ? i + 1 : i, first, indices, indexType), mV1);
+                    fetchVertex(vertexAt(i + 2, first, indices, indexType), mV2);
+                    drawTriangle(mV0, mV1, mV2);
+                }
+                break;
+
+            case GL10.GL_TRIANGLE_FAN:
+                for (int i = 1; i + 1 < count; i++) {
+                    fetchVertex(vertexAt(0, first, indices, indexType), mV0);
+                    fetchVertex(vertexAt(i, first, indices, indexType), mV1);
+                    fetchVertex(vertexAt(i + 1, first, indices, indexType), mV2);
+                    drawTriangle(mV0, mV1, mV2);
+                }
+                break;
+
+            default:
+                setError(GL10.GL_INVALID_ENUM);
+        }
+    }
+
+    private static int vertexAt(final int i, final int first, final Buffer indices, final int indexType) {
+        if (indices == null) {
+            return first + i;
+        }
+
+        if (indices instanceof ShortBuffer) {
+            final ShortBuffer buffer = (ShortBuffer) indices;
+            return buffer.get(buffer.position() + i) & 0xFFFF;
+        } else if (indices instanceof IntBuffer) {
+            final IntBuffer buffer = (IntBuffer) indices;
+            return buffer.get(buffer.position() + i);
+        } else if (indices instanceof ByteBuffer) {
+            final ByteBuffer buffer = (ByteBuffer) indices;
+            if (indexType == GL10.GL_UNSIGNED_BYTE) {
+                return buffer.get(buffer.position() + i) & 0xFF;
+            } else if (indexType == GL10.GL_UNSIGNED_SHORT) {
+                return buffer.getShort(buffer.position() + i * 2) & 0xFFFF;
+            } else {
+                return buffer.getInt(buffer.position() + i * 4);
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Transform a vertex into window coordinates and collect its attributes.
+     */
+    private void fetchVertex(final int index, final Vertex out) {
+        final ClientArray va = mVertexArray;
+        final float x = va.get(index, 0);
+        final float y = va.get(index, 1);
+        final float z = va.mSize > 2 ? va.get(index, 2) : 0;
+        final float w = va.mSize > 3 ? va.get(index, 3) : 1;
+
+        final float[] m = mMVP;
+        final float cx = m[0] * x + m[4] * y + m[8] * z + m[12] * w;
+        final float cy = m[1] * x + m[5] * y + m[9] * z + m[13] * w;
+        final float cz = m[2] * x + m[6] * y + m[10] * z + m[14] * w;
+        final float cw = m[3] * x + m[7] * y + m[11] * z + m[15] * w;
+
+        out.mW = cw;
+        if (cw > 0) {
+            final float invW = 1 / cw;
+            out.mInvW = invW;
+            out.mX = mViewport[0] + (cx * invW + 1) * 0.5f * mViewport[2];
+            out.mY = mViewport[1] + (cy * invW + 1) * 0.5f * mViewport[3];
+            out.mZ = (cz * invW + 1) * 0.5f;
+        }
+
+        // color
+        if (mColorArray.mEnabled && mColorArray.mBuffer != null) {
+            out.mR = mColorArray.get(index, 0);
+            out.mG = mColorArray.get(index, 1);
+            out.mB = mColorArray.get(index, 2);
+            out.mA = mColorArray.mSize > 3 ? mColorArray.get(index, 3) : 1;
+        } else {
+            out.mR = mCurrentColor[0];
+            out.mG = mCurrentColor[1];
+            out.mB = mCurrentColor[2];
+            out.mA = mCurrentColor[3];
+        }
+
+        // texture coordinates
+        float s, t;
+        if (mTexCoordArray.mEnabled && mTexCoordArray.mBuffer != null) {
+            s = mTexCoordArray.get(index, 0);
+            t = mTexCoordArray.get(index, 1);
+        } else {
+            s = mCurrentTexCoord[0];
+            t = mCurrentTexCoord[1];
+        }
+        if (!mTextureMatrix.mIdentity) {
+            final float[] tm = mTextureMatrix.mValues;
+            final int o = mTextureMatrix.mTop;
+            final float ts = tm[o] * s + tm[o + 4] * t + tm[o + 12];
+            t = tm[o + 1] * s + tm[o + 5] * t + tm[o + 13];
+            s = ts;
+        }
+        out.mS = s;
+        out.mT = t;
+    }
+
+    private void drawPoint(final Vertex v) {
+        if (v.mW <= 0) {
+            return;
+        }
+
+        final int size = Math.max(1, Math.round(mPointSize));
+        final int x0 = (int) Math.floor(v.mX - size * 0.5f + 0.5f);
+        final int y0 = (int) Math.floor(v.mY - size * 0.5f + 0.5f);
+        for (int y = y0; y < y0 + size; y++) {
+            for (int x = x0; x < x0 + size; x++) {
+                if (x >= mClipLeft && x < mClipRight && y >= mClipBottom && y < mClipTop) {
+                    shadeFragment(x, y, v.mZ, v.mR, v.mG, v.mB, v.mA, v.mS, v.mT);
+                }
+            }
+        }
+    }
+
+    private void drawLine(final Vertex v0, final Vertex v1) {
+        if (v0.mW <= 0 || v1.mW <= 0) {
+            return;
+        }
+
+        final float dx = v1.mX - v0.mX;
+        final float dy = v1.mY - v0.mY;
+        final int steps = (int) Math.ceil(Math.max(Math.abs(dx), Math.abs(dy)));
+        if (steps == 0) {
+            return;
+        }
+
+        // the last pixel is left for the next segment
+        float f;
+        int x, y;
+        for (int i = 0; i < steps; i++) {
+            f = (float) i / steps;
+            x = (int) Math.floor(v0.mX + dx * f);
+            y = (int) Math.floor(v0.mY + dy * f);
+            if (x >= mClipLeft && x < mClipRight && y >= mClipBottom && y < mClipTop) {
+                shadeFragment(x, y, lerp(v0.mZ, v1.mZ, f), lerp(v0.mR, v1.mR, f), lerp(v0.mG, v1.mG, f), lerp(v0.mB, v1.mB, f), lerp(v0.mA, v1.mA, f), lerp(v0.mS, v1.mS, f), lerp(v0.mT, v1.mT, f));
+            }
+        }
+    }
+
+    private void drawTriangle(final Vertex v0, Vertex v1, Vertex v2) {
+        // no near-plane clipping
+        if (v0.mW <= 0 || v1.mW <= 0 || v2.mW <= 0) {
+            return;
+        }
+
+        float area = (v1.mX - v0.mX) * (v2.mY - v0.mY) - (v2.mX - v0.mX) * (v1.mY - v0.mY);
+        if (area == 0) {
+            return;
+        }
+
+        // face culling
+        if (mCullFaceEnabled) {
+            final boolean front = (area > 0) == (mFrontFace == GL10.GL_CCW);
+            if (mCullFace == GL10.GL_FRONT_AND_BACK || (mCullFace == GL10.GL_BACK && !front) || (mCullFace == GL10.GL_FRONT && front)) {
+                return;
+            }
+        }
+
+        // make it counter-clockwise
+        if (area < 0) {
+            final Vertex temp = v1;
+            v1 = v2;
+            v2 = temp;
+            area = -area;
+        }
+
+        // bounding box
+        final int minX = Math.max(mClipLeft, (int) Math.floor(Math.min(v0.mX, Math.min(v1.mX, v2.mX))));
+        final int maxX = Math.min(mClipRight - 1, (int) Math.ceil(Math.max(v0.mX, Math.max(v1.mX, v2.mX))));
+        final int minY = Math.max(mClipBottom, (int) Math.floor(Math.min(v0.mY, Math.min(v1.mY, v2.mY))));
+        final int maxY = Math.min(mClipTop - 1, (int) Math.ceil(Math.max(v0.mY, Math.max(v1.mY, v2.mY))));
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+
+        // top-left fill rule, so shared edges are not drawn twice
+        final boolean tl0 = isTopLeft(v1, v2);
+        final boolean tl1 = isTopLeft(v2, v0);
+        final boolean tl2 = isTopLeft(v0, v1);
+
+        final float invArea = 1 / area;
+        float px, py, e0, e1, e2, l0, l1, l2, w;
+        for (int y = minY; y <= maxY; y++) {
+            py = y + 0.5f;
+            for (int x = minX; x <= maxX; x++) {
+                px = x + 0.5f;
+
+                e0 = edge(v1, v2, px, py);
+                if (e0 < 0 || (e0 == 0 && !tl0)) {
+                    continue;
+                }
+                e1 = edge(v2, v0, px, py);
+                if (e1 < 0 || (e1 == 0 && !tl1)) {
+                    continue;
+                }
+                e2 = edge(v0, v1, px, py);
+                if (e2 < 0 || (e2 == 0 && !tl2)) {
+                    continue;
+                }
+
+                // perspective-correct barycentric weights
+                l0 = e0 * invArea * v0.mInvW;
+                l1 = e1 * invArea * v1.mInvW;
+                l2 = e2 * invArea * v2.mInvW;
+                w = 1 / (l0 + l1 + l2);
+                l0 *= w;
+                l1 *= w;
+                l2 *= w;
+
+                shadeFragment(x, y, //
+                        (e0 * v0.mZ + e1 * v1.mZ + e2 * v2.mZ) * invArea, //
+                        l0 * v0.mR + l1 * v1.mR + l2 * v2.mR, //
+                        l0 * v0.mG + l1 * v1.mG + l2 * v2.mG, //
+                        l0 * v0.mB + l1 * v1.mB + l2 * v2.mB, //
+                        l0 * v0.mA + l1 * v1.mA + l2 * v2.mA, //
+                        l0 * v0.mS + l1 * v1.mS + l2 * v2.mS, //
+                        l0 * v0.mT + l1 * v1.mT + l2 * v2.mT);
+            }
+        }
+    }
+
+    private static float edge(final Vertex a, final Vertex b, final float px, final float py) {
+        return (b.mX - a.mX) * (py - a.mY) - (b.mY - a.mY) * (px - a.mX);
+    }
+
+    private static boolean isTopLeft(final Vertex a, final Vertex b) {
+        // counter-clockwise with y up: top edges go left, left edges go down
+        final float dy = b.mY - a.mY;
+        return dy < 0 || (dy == 0 && b.mX < a.mX);
+    }
+
+    private static float lerp(final float a, final float b, final float f) {
+        return a + (b - a) * f;
+    }
+
+    /**
+     * Texture, test, blend and write a fragment. The location is already clipped.
+     */
+    private void shadeFragment(final int x, final int y, final float z, final float r, final float g, final float b, final float a, final float s, final float t) {
+        final int index = y * mWidth + x;
+
+        // fragment color
+        final float[] frag = mFragment;
+        frag[0] = r;
+        frag[1] = g;
+        frag[2] = b;
+        frag[3] = a;
+
+        // texturing
+        if (mTextureEnabled && mTexture != null && mTexture.mPixels != null) {
+            mTexture.sample(s, t, mTexel);
+            applyTexEnv(frag, mTexel, mTexture.mFormat);
+        }
+
+        // alpha test
+        if (mAlphaTestEnabled && !compare(mAlphaFunc, clamp(frag[3]), mAlphaRef)) {
+            return;
+        }
+
+        // stencil and depth tests
+        if (mStencilTestEnabled) {
+            final int stencil = mStencilBuffer[index] & 0xFF;
+            if (!compare(mStencilFunc, mStencilRef & mStencilValueMask, stencil & mStencilValueMask)) {
+                updateStencil(index, stencil, mStencilFail);
+                return;
+            }
+            if (mDepthTestEnabled && !compare(mDepthFunc, z, mDepthBuffer[index])) {
+                updateStencil(index, stencil, mStencilZFail);
+                return;
+            }
+            updateStencil(index, stencil, mStencilZPass);
+        } else if (mDepthTestEnabled && !compare(mDepthFunc, z, mDepthBuffer[index])) {
+            return;
+        }
+        if (mDepthTestEnabled && mDepthMask) {
+            mDepthBuffer[index] = z;
+        }
+
+        // blending
+        final int dst = mColorBuffer[index];
+        float sr = clamp(frag[0]), sg = clamp(frag[1]), sb = clamp(frag[2]), sa = clamp(frag[3]);
+        if (mBlendEnabled) {
+            final float dr = ((dst >> 16) & 0xFF) / 255f;
+            final float dg = ((dst >> 8) & 0xFF) / 255f;
+            final float db = (dst & 0xFF) / 255f;
+            final float da = (dst >>> 24) / 255f;
+
+            final float nr = sr * blendFactor(mBlendSrc, 0, sr, sa, dr, da) + dr * blendFactor(mBlendDst, 0, sr, sa, dr, da);
+            final float ng = sg * blendFactor(mBlendSrc, 1, sg, sa, dg, da) + dg * blendFactor(mBlendDst, 1, sg, sa, dg, da);
+            final float nb = sb * blendFactor(mBlendSrc, 2, sb, sa, db, da) + db * blendFactor(mBlendDst, 2, sb, sa, db, da);
+            final float na = sa * blendFactor(mBlendSrc, 3, sa, sa, da, da) + da * blendFactor(mBlendDst, 3, sa, sa, da, da);
+            sr = clamp(nr);
+            sg = clamp(ng);
+            sb = clamp(nb);
+            sa = clamp(na);
+        }
+
+        // color mask
+        final int ca = mColorMask[3] ? Math.round(sa * 255) : dst >>> 24;
+        final int cr = mColorMask[0] ? Math.round(sr * 255) : (dst >> 16) & 0xFF;
+        final int cg = mColorMask[1] ? Math.round(sg * 255) : (dst >> 8) & 0xFF;
+        final int cb = mColorMask[2] ? Math.round(sb * 255) : dst & 0xFF;
+        mColorBuffer[index] = (ca << 24) | (cr << 16) | (cg << 8) | cb;
+
+        mNumFragments++;
+    }
+
+    private void applyTexEnv(final float[] frag, final float[] texel, final int format) {
+        final boolean hasColor = format != GL10.GL_ALPHA;
+        final boolean hasAlpha = format != GL10.GL_RGB && format != GL10.GL_LUMINANCE;
+
+        switch (mTextureEnvMode) {
+            case GL10.GL_REPLACE:
+                if (hasColor) {
+                    frag[0] = texel[0];
+                    frag[1] = texel[1];
+                    frag[2] = texel[2];
+                }
+                if (hasAlpha) {
+                    frag[3] = texel[3];
+                }
+                break;
+
+            case GL10.GL_DECAL:
+                final float at = hasAlpha ? texel[3] : 1;
+                frag[0] = frag[0] * (1 - at) + texel[0] * at;
+                frag[1] = frag[1] * (1 - at) + texel[1] * at;
+                frag[2] = frag[2] * (1 - at) + texel[2] * at;
+                break;
+
+            case GL10.GL_ADD:
+                if (hasColor) {
+                    frag[0] += texel[0];
+                    frag[1] += texel[1];
+                    frag[2] += texel[2];
+                }
+                if (hasAlpha) {
+                    frag[3] *= texel[3];
+                }
+                break;
+
+            default:
+                // modulate
+                if (hasColor) {
+                    frag[0] *= texel[0];
+                    frag[1] *= texel[1];
+                    frag[2] *= texel[2];
+                }
+                if (hasAlpha) {
+                    frag[3] *= texel[3];
+                }
+        }
+    }
+
+    private static float blendFactor(final int factor, final int channel, final float src, final float srcAlpha, final float dst, final float dstAlpha) {
+        switch (factor) {
+            case GL10.GL_ZERO:
+                return 0;
+            case GL10.GL_ONE:
+                return 1;
+            case GL10.GL_SRC_COLOR:
+                return src;
+            case GL10.GL_ONE_MINUS_SRC_COLOR:
+                return 1 - src;
+            case GL10.GL_DST_COLOR:
+                return dst;
+            case GL10.GL_ONE_MINUS_DST_COLOR:
+                return 1 - dst;
+            case GL10.GL_SRC_ALPHA:
+                return srcAlpha;
+            case GL10.GL_ONE_MINUS_SRC_ALPHA:
+                return 1 - srcAlpha;
+            case GL10.GL_DST_ALPHA:
+                return dstAlpha;
+            case GL10.GL_ONE_MINUS_DST_ALPHA:
+                return 1 - dstAlpha;
+            case GL10.GL_SRC_ALPHA_SATURATE:
+                return channel == 3 ? 1 : Math.min(srcAlpha, 1 - dstAlpha);
+            default:
+                return 1;
+        }
+    }
+
+    private void updateStencil(final int index, final int stencil, final int op) {
+        int value;
+        switch (op) {
+            case GL10.GL_ZERO:
+                value = 0;
+                break;
+            case GL10.GL_REPLACE:
+                value = mStencilRef;
+                break;
+            case GL10.GL_INCR:
+                value = Math.min(0xFF, stencil + 1);
+                break;
+            case GL10.GL_DECR:
+                value = Math.max(0, stencil - 1);
+                break;
+            case GL10.GL_INVERT:
+                value = ~stencil;
+                break;
+            default:
+                // keep
+                return;
+        }
+
+        mStencilBuffer[index] = (byte) ((stencil & ~mStencilWriteMask) | (value & mStencilWriteMask));
+    }
+
+    private static boolean compare(final int func, final float value, final float ref) {
+        switch (func) {
+            case GL10.GL_NEVER:
+                return false;
+            case GL10.GL_LESS:
+                return value < ref;
+            case GL10.GL_EQUAL:
+                return value == ref;
+            case GL10.GL_LEQUAL:
+                return value <= ref;
+            case GL10.GL_GREATER:
+                return value > ref;
+            case GL10.GL_NOTEQUAL:
+                return value != ref;
+            case GL10.GL_GEQUAL:
+                return value >= ref;
+            default:
+                return true;
+        }
+    }
+
+    private static float clamp(final float value) {
+        return value < 0 ? 0 : value > 1 ? 1 : value;
+    }
+
+    /*
+     * Frame buffer
+     */
+
+    public void glClear(final int mask) {
+        // clear respects scissor and masks, not the viewport
+        int left = 0, bottom = 0, right = mWidth, top = mHeight;
+        if (mScissorTestEnabled) {
+            left = Math.max(0, mScissor[0]);
+            bottom = Math.max(0, mScissor[1]);
+            right = Math.min(mWidth, mScissor[0] + mScissor[2]);
+            top = Math.min(mHeight, mScissor[1] + mScissor[3]);
+        }
+
+        final int clearColor = packColor(mClearColor[0], mClearColor[1], mClearColor[2], mClearColor[3]);
+        final int colorMask = (mColorMask[3] ? 0xFF000000 : 0) | (mColorMask[0] ? 0xFF0000 : 0) | (mColorMask[1] ? 0xFF00 : 0) | (mColorMask[2] ? 0xFF : 0);
+        int index;
+        for (int y = bottom; y < top; y++) {
+            for (int x = left; x < right; x++) {
+                index = y * mWidth + x;
+                if ((mask & GL10.GL_COLOR_BUFFER_BIT) != 0) {
+                    mColorBuffer[index] = (mColorBuffer[index] & ~colorMask) | (clearColor & colorMask);
+                }
+                if ((mask & GL10.GL_DEPTH_BUFFER_BIT) != 0 && mDepthMask) {
+                    mDepthBuffer[index] = mClearDepth;
+                }
+                if ((mask & GL10.GL_STENCIL_BUFFER_BIT) != 0) {
+                    mStencilBuffer[index] = (byte) ((mStencilBuffer[index] & ~mStencilWriteMask) | (mClearStencil & mStencilWriteMask));
+                }
+            }
+        }
+    }
+
+    public void glClearColor(final float red, final float green, final float blue, final float alpha) {
+        mClearColor[0] = clamp(red);
+        mClearColor[1] = clamp(green);
+        mClearColor[2] = clamp(blue);
+        mClearColor[3] = clamp(alpha);
+    }
+
+    public void glClearColorx(final int red, final int green, final int blue, final int alpha) {
+        glClearColor(red * FIXED_TO_FLOAT, green * FIXED_TO_FLOAT, blue * FIXED_TO_FLOAT, alpha * FIXED_TO_FLOAT);
+    }
+
+    public void glClearDepthf(final float depth) {
+        mClearDepth = clamp(depth);
+    }
+
+    public void glClearDepthx(final int depth) {
+        glClearDepthf(depth * FIXED_TO_FLOAT);
+    }
+
+    public void glClearStencil(final int s) {
+        mClearStencil = s;
+    }
+
+    public void glReadPixels(final int x, final int y, final int width, final int height, final int format, final int type, final Buffer pixels) {
+        if (format != GL10.GL_RGBA || type != GL10.GL_UNSIGNED_BYTE) {
+            setError(GL10.GL_INVALID_OPERATION);
+            return;
+        }
+
+        final int rowBytes = align(width * 4, mPackAlignment);
+        int color, offset;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                final int px = x + col, py = y + row;
+                color = (px >= 0 && px < mWidth && py >= 0 && py < mHeight) ? mColorBuffer[py * mWidth + px] : 0;
+                offset = row * rowBytes + col * 4;
+                putByte(pixels, offset, (color >> 16) & 0xFF);
+                putByte(pixels, offset + 1, (color >> 8) & 0xFF);
+                putByte(pixels, offset + 2, color & 0xFF);
+                putByte(pixels, offset + 3, color >>> 24);
+            }
+        }
+    }
+
+    public void glViewport(final int x, final int y, final int width, final int height) {
+        if (width < 0 || height < 0) {
+            setError(GL10.GL_INVALID_VALUE);
+            return;
+        }
+
+        mViewport[0] = x;
+        mViewport[1] = y;
+        mViewport[2] = width;
+        mViewport[3] = height;
+        updateClipRect();
+    }
+
+    public void glScissor(final int x, final int y, final int width, final int height) {
+        if (width < 0 || height < 0) {
+            setError(GL10.GL_INVALID_VALUE);
+            return;
+        }
+
+        mScissor[0] = x;
+        mScissor[1] = y;
+        mScissor[2] = width;
+        mScissor[3] = height;
+        updateClipRect();
+    }
+
+    public void glFinish() {
+        // synchronous
+    }
+
+    public void glFlush() {
+        // synchronous
+    }
+
+    /*
+     * Capabilities and fragment state
+     */
+
+    public void glEnable(final int cap) {
+        setCapability(cap, true);
+    }
+
+    public void glDisable(final int cap) {
+        setCapability(cap, false);
+    }
+
+    private void setCapability(final int cap, final boolean enabled) {
+        switch (cap) {
+            case GL10.GL_TEXTURE_2D:
+                mTextureEnabled = enabled;
+                break;
+            case GL10.GL_BLEND:
+                mBlendEnabled = enabled;
+                break;
+            case GL10.GL_ALPHA_TEST:
+                mAlphaTestEnabled = enabled;
+                break;
+            case GL10.GL_DEPTH_TEST:
+                mDepthTestEnabled = enabled;
+                break;
+            case GL10.GL_SCISSOR_TEST:
+                mScissorTestEnabled = enabled;
+                updateClipRect();
+                break;
+            case GL10.GL_STENCIL_TEST:
+                mStencilTestEnabled = enabled;
+                break;
+            case GL10.GL_CULL_FACE:
+                mCullFaceEnabled = enabled;
+                break;
+            default:
+                // lighting, fog, dithering, multisampling... are ignored
+        }
+    }
+
+    public void glBlendFunc(final int sfactor, final int dfactor) {
+        mBlendSrc = sfactor;
+        mBlendDst = dfactor;
+    }
+
+    public void glAlphaFunc(final int func, final float ref) {
+        mAlphaFunc = func;
+        mAlphaRef = clamp(ref);
+    }
+
+    public void glAlphaFuncx(final int func, final int ref) {
+        glAlphaFunc(func, ref * FIXED_TO_FLOAT);
+    }
+
+    public void glDepthFunc(final int func) {
+        mDepthFunc = func;
+    }
+
+    public void glDepthMask(final boolean flag) {
+        mDepthMask = flag;
+    }
+
+    public void glDepthRangef(final float zNear, final float zFar) {
+        // default range only
+    }
+
+    public void glDepthRangex(final int zNear, final int zFar) {
+        // default range only
+    }
+
+    public void glColorMask(final boolean red, final boolean green, final boolean blue, final boolean alpha) {
+        mColorMask[0] = red;
+        mColorMask[1] = green;
+        mColorMask[2] = blue;
+        mColorMask[3] = alpha;
+    }
+
+    public void glStencilFunc(final int func, final int ref, final int mask) {
+        mStencilFunc = func;
+        mStencilRef = ref;
+        mStencilValueMask = mask;
+    }
+
+    public void glStencilMask(final int mask) {
+        mStencilWriteMask = mask;
+    }
+
+    public void glStencilOp(final int fail, final int zfail, final int zpass) {
+        mStencilFail = fail;
+        mStencilZFail = zfail;
+        mStencilZPass = zpass;
+    }
+
+    public void glFrontFace(final int mode) {
+        mFrontFace = mode;
+    }
+
+    public void glCullFace(final int mode) {
+        mCullFace = mode;
+    }
+
+    public void glLineWidth(final float width) {
+        if (width <= 0) {
+            setError(GL10.GL_INVALID_VALUE);
+            return;
+        }
+        mLineWidth = width;
+    }
+
+    public void glLineWidthx(final int width) {
+        glLineWidth(width * FIXED_TO_FLOAT);
+    }
+
+    public void glPointSize(final float size) {
+        if (size <= 0) {
+            setError(GL10.GL_INVALID_VALUE);
+            return;
+        }
+        mPointSize = size;
+    }
+
+    public void glPointSizex(final int size) {
+        glPointSize(size * FIXED_TO_FLOAT);
+    }
+
+    public void glShadeModel(final int mode) {
+        // always smooth
+    }
+
+    public void glHint(final int target, final int mode) {
+        // ignored
+    }
+
+    public void glLogicOp(final int opcode) {
+        // not supported
+    }
+
+    public void glPolygonOffset(final float factor, final float units) {
+        // not supported
+    }
+
+    public void glPolygonOffsetx(final int factor, final int units) {
+        // not supported
+    }
+
+    public void glSampleCoverage(final float value, final boolean invert) {
+        // no multisampling
+    }
+
+    public void glSampleCoveragex(final int value, final boolean invert) {
+        // no multisampling
+    }
+
+    public void glPixelStorei(final int pname, final int param) {
+        if (param != 1 && param != 2 && param != 4 && param != 8) {
+            setError(GL10.GL_INVALID_VALUE);
+            return;
+        }
+
+        if (pname == GL10.GL_UNPACK_ALIGNMENT) {
+            mUnpackAlignment = param;
+        } else if (pname == GL10.GL_PACK_ALIGNMENT) {
+            mPackAlignment = param;
+        } else {
+            setError(GL10.GL_INVALID_ENUM);
+        }
+    }
+
+    /*
+     * Textures
+     */
+
+    public void glActiveTexture(final int texture) {
+        // single texture unit
+    }
+
+    public void glClientActiveTexture(final int texture) {
+        // single texture unit
+    }
+
+    public void glGenTextures(final int n, final int[] textures, final int offset) {
+        for (int i = 0; i < n; i++) {
+            textures[offset + i] = ++mTextureIDCounter;
+            mTextures.put(mTextureIDCounter, new SoftTexture());
+        }
+    }
+
+    public void glGenTextures(final int n, final IntBuffer textures) {
+        for (int i = 0; i < n; i++) {
+            textures.put(textures.position() + i, ++mTextureIDCounter);
+            mTextures.put(mTextureIDCounter, new SoftTexture());
+        }
+    }
+
+    public void glDeleteTextures(final int n, final int[] textures, final int offset) {
+        for (int i = 0; i < n; i++) {
+            deleteTexture(textures[offset + i]);
+        }
+    }
+
+    public void glDeleteTextures(final int n, final IntBuffer textures) {
+        for (int i = 0; i < n; i++) {
+            deleteTexture(textures.get(textures.position() + i));
+        }
+    }
+
+    private void deleteTexture(final int id) {
+        if (mTextures.remove(id) != null && mTextureID == id) {
+            mTextureID = 0;
+            mTexture = null;
+        }
+    }
+
+    public void glBindTexture(final int target, final int texture) {
+        mTextureID = texture;
+        if (texture == 0) {
+            mTexture = null;
+        } else {
+            mTexture = mTextures.get(texture);
+            if (mTexture == null) {
+                // binding an unknown name creates it
+                mTexture = new SoftTexture();
+                mTextures.put(texture, mTexture);
+            }
+        }
+    }
+
+    public void glTexParameterf(final int target, final int pname, final float param) {
+        glTexParameterx(target, pname, (int) param);
+    }
+
+    public void glTexParameterx(final int target, final int pname, final int param) {
+        if (mTexture == null) {
+            return;
+        }
+
+        switch (pname) {
+            case GL10.GL_TEXTURE_MIN_FILTER:
+                mTexture.mMinFilter = param;
+                break;
+            case GL10.GL_TEXTURE_MAG_FILTER:
+                mTexture.mMagFilter = param;
+                break;
+            case GL10.GL_TEXTURE_WRAP_S:
+                mTexture.mWrapS = param;
+                break;
+            case GL10.GL_TEXTURE_WRAP_T:
+                mTexture.mWrapT = param;
+                break;
+            default:
+                // such as GL_GENERATE_MIPMAP
+        }
+    }
+
+    public void glTexEnvf(final int target, final int pname, final float param) {
+        glTexEnvx(target, pname, (int) param);
+    }
+
+    public void glTexEnvfv(final int target, final int pname, final float[] params, final int offset) {
+        glTexEnvx(target, pname, (int) params[offset]);
+    }
+
+    public void glTexEnvfv(final int target, final int pname, final FloatBuffer params) {
+        glTexEnvx(target, pname, (int) params.get(params.position()));
+    }
+
+    public void glTexEnvx(final int target, final int pname, final int param) {
+        if (pname == GL10.GL_TEXTURE_ENV_MODE) {
+            mTextureEnvMode = param;
+        }
+    }
+
+    public void glTexEnvxv(final int target, final int pname, final int[] params, final int offset) {
+        glTexEnvx(target, pname, params[offset]);
+    }
+
+    public void glTexEnvxv(final int target, final int pname, final IntBuffer params) {
+        glTexEnvx(target, pname, params.get(params.position()));
+    }
+
+    public void glTexImage2D(final int target, final int level, final int internalformat, final int width, final int height, final int border, final int format, final int type, final Buffer pixels) {
+        if (mTexture == null) {
+            setError(GL10.GL_INVALID_OPERATION);
+            return;
+        }
+        if (width < 0 || height < 0 || width > MAX_TEXTURE_SIZE || height > MAX_TEXTURE_SIZE || border != 0) {
+            setError(GL10.GL_INVALID_VALUE);
+            return;
+        }
+        if (level > 0) {
+            // no mipmapping
+            return;
+        }
+
+        mTexture.allocate(width, height, format);
+        if (pixels != null) {
+            unpackPixels(mTexture, 0, 0, width, height, format, type, pixels);
+        }
+    }
+
+    public void glTexSubImage2D(final int target, final int level, final int xoffset, final int yoffset, final int width, final int height, final int format, final int type, final Buffer pixels) {
+        if (mTexture == null || mTexture.mPixels == null) {
+            setError(GL10.GL_INVALID_OPERATION);
+            return;
+        }
+        if (xoffset < 0 || yoffset < 0 || xoffset + width > mTexture.mWidth || yoffset + height > mTexture.mHeight) {
+            setError(GL10.GL_INVALID_VALUE);
+            return;
+        }
+        if (level > 0) {
+            return;
+        }
+
+        unpackPixels(mTexture, xoffset, yoffset, width, height, format, type, pixels);
+    }
+
+    public void glCopyTexImage2D(final int target, final int level, final int internalformat, final int x, final int y, final int width, final int height, final int border) {
+        if (mTexture == null) {
+            setError(GL10.GL_INVALID_OPERATION);
+            return;
+        }
+        if (level > 0) {
+            return;
+        }
+
+        mTexture.allocate(width, height, internalformat);
+        copyPixels(0, 0, x, y, width, height);
+    }
+
+    public void glCopyTexSubImage2D(final int target, final int level, final int xoffset, final int yoffset, final int x, final int y, final int width, final int height) {
+        if (mTexture == null || mTexture.mPixels == null) {
+            setError(GL10.GL_INVALID_OPERATION);
+            return;
+        }
+        if (level > 0) {
+            return;
+        }
+
+        copyPixels(xoffset, yoffset, x, y, width, height);
+    }
+
+    private void copyPixels(final int xoffset, final int yoffset, final int x, final int y, final int width, final int height) {
+        int tx, ty;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                tx = xoffset + col;
+                ty = yoffset + row;
+                final int px = x + col, py = y + row;
+                if (tx < mTexture.mWidth && ty < mTexture.mHeight && px >= 0 && px < mWidth && py >= 0 && py < mHeight) {
+                    mTexture.mPixels[ty * mTexture.mWidth + tx] = mColorBuffer[py * mWidth + px];
+                }
+            }
+        }
+    }
+
+    public void glCompressedTexImage2D(final int target, final int level, final int internalformat, final int width, final int height, final int border, final int imageSize, final Buffer data) {
+        // no compressed formats are advertised
+        setError(GL10.GL_INVALID_ENUM);
+    }
+
+    public void glCompressedTexSubImage2D(final int target, final int level, final int xoffset, final int yoffset, final int width, final int height, final int format, final int imageSize, final Buffer data) {
+        setError(GL10.GL_INVALID_ENUM);
+    }
+
+    /**
+     * Decode client pixels into the ARGB storage of a texture.
+     */
+    private void unpackPixels(final SoftTexture texture, final int xoffset, final int yoffset, final int width, final int height, final int format, final int type, final Buffer pixels) {
+        final int bytesPerPixel;
+        if (type == GL10.GL_UNSIGNED_BYTE) {
+            if (format == GL10.GL_RGBA) {
+                bytesPerPixel = 4;
+            } else if (format == GL10.GL_RGB) {
+                bytesPerPixel = 3;
+            } else if (format == GL10.GL_LUMINANCE_ALPHA) {
+                bytesPerPixel = 2;
+            } else {
+                bytesPerPixel = 1;
+            }
+        } else if (type == GL10.GL_UNSIGNED_SHORT_5_6_5 || type == GL10.GL_UNSIGNED_SHORT_4_4_4_4 || type == GL10.GL_UNSIGNED_SHORT_5_5_5_1) {
+            bytesPerPixel = 2;
+        } else {
+            setError(GL10.GL_INVALID_ENUM);
+            return;
+        }
+
+        final int rowBytes = align(width * bytesPerPixel, mUnpackAlignment);
+        int offset, r, g, b, a, v;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                offset = row * rowBytes + col * bytesPerPixel;
+                if (type == GL10.GL_UNSIGNED_BYTE) {
+                    switch (format) {
+                        case GL10.GL_RGBA:
+                            r = getByte(pixels, offset);
+                            g = getByte(pixels, offset + 1);
+                            b = getByte(pixels, offset + 2);
+                            a = getByte(pixels, offset + 3);
+                            break;
+                        case GL10.GL_RGB:
+                            r = getByte(pixels, offset);
+                            g = getByte(pixels, offset + 1);
+                            b = getByte(pixels, offset + 2);
+                            a = 0xFF;
+                            break;
+                        case GL10.GL_LUMINANCE_ALPHA:
+                            r = g = b = getByte(pixels, offset);
+                            a = getByte(pixels, offset + 1);
+                            break;
+                        case GL10.GL_ALPHA:
+                            r = g = b = 0xFF;
+                            a = getByte(pixels, offset);
+                            break;
+                        default:
+                            // luminance
+                            r = g = b = getByte(pixels, offset);
+                            a = 0xFF;
+                    }
+                } else {
+                    v = getShort(pixels, offset);
+                    if (type == GL10.GL_UNSIGNED_SHORT_5_6_5) {
+                        r = expand(v >> 11, 5);
+                        g = expand((v >> 5) & 0x3F, 6);
+                        b = expand(v & 0x1F, 5);
+                        a = 0xFF;
+                    } else if (type == GL10.GL_UNSIGNED_SHORT_4_4_4_4) {
+                        r = expand(v >> 12, 4);
+                        g = expand((v >> 8) & 0xF, 4);
+                        b = expand((v >> 4) & 0xF, 4);
+                        a = expand(v & 0xF, 4);
+                    } else {
+                        r = expand(v >> 11, 5);
+                        g = expand((v >> 6) & 0x1F, 5);
+                        b = expand((v >> 1) & 0x1F, 5);
+                        a = (v & 1) != 0 ? 0xFF : 0;
+                    }
+                }
+
+                texture.mPixels[(yoffset + row) * texture.mWidth + xoffset + col] = (a << 24) | (r << 16) | (g << 8) | b;
+            }
+        }
+    }
+
+    private static int expand(final int value, final int bits) {
+        return (value * 255 + ((1 << bits) - 1) / 2) / ((1 << bits) - 1);
+    }
+
+    private static int align(final int bytes, final int alignment) {
+        return (bytes + alignment - 1) / alignment * alignment;
+    }
+
+    /**
+     * Read a byte from a client buffer. Int and short buffers are read in little-endian, like native memory.
+     */
+    private static int getByte(final Buffer buffer, final int byteOffset) {
+        if (buffer instanceof ByteBuffer) {
+            final ByteBuffer bytes = (ByteBuffer) buffer;
+            return bytes.get(bytes.position() + byteOffset) & 0xFF;
+        } else if (buffer instanceof IntBuffer) {
+            final IntBuffer ints = (IntBuffer) buffer;
+            return (ints.get(ints.position() + byteOffset / 4) >> ((byteOffset & 3) * 8)) & 0xFF;
+        } else if (buffer instanceof ShortBuffer) {
+            final ShortBuffer shorts = (ShortBuffer) buffer;
+            return (shorts.get(shorts.position() + byteOffset / 2) >> ((byteOffset & 1) * 8)) & 0xFF;
+        }
+
+        return 0;
+    }
+
+    private static int getShort(final Buffer buffer, final int byteOffset) {
+        if (buffer instanceof ShortBuffer) {
+            final ShortBuffer shorts = (ShortBuffer) buffer;
+            return shorts.get(shorts.position() + byteOffset / 2) & 0xFFFF;
+        } else if (buffer instanceof ByteBuffer) {
+            final ByteBuffer bytes = (ByteBuffer) buffer;
+            return bytes.getShort(bytes.position() + byteOffset) & 0xFFFF;
+        }
+
+        return getByte(buffer, byteOffset) | (getByte(buffer, byteOffset + 1) << 8);
+    }
+
+    private static void putByte(final Buffer buffer, final int byteOffset, final int value) {
+        if (buffer instanceof ByteBuffer) {
+            final ByteBuffer bytes = (ByteBuffer) buffer;
+            bytes.put(bytes.position() + byteOffset, (byte) value);
+        } else if (buffer instanceof IntBuffer) {
+            final IntBuffer ints = (IntBuffer) buffer;
+            final int index = ints.position() + byteOffset / 4;
+            final int shift = (byteOffset & 3) * 8;
+            ints.put(index, (ints.get(index) & ~(0xFF << shift)) | ((value & 0xFF) << shift));
+        }
+    }
+
+    private static int packColor(final float r, final float g, final float b, final float a) {
+        return (Math.round(a * 255) << 24) | (Math.round(r * 255) << 16) | (Math.round(g * 255) << 8) | Math.round(b * 255);
+    }
+
+    /*
+     * Queries
+     */
+
+    public int glGetError() {
+        final int error = mError;
+        mError = GL10.GL_NO_ERROR;
+        return error;
+    }
+
+    public void glGetIntegerv(final int pname, final int[] params, final int offset) {
+        switch (pname) {
+            case GL10.GL_MAX_TEXTURE_SIZE:
+                params[offset] = MAX_TEXTURE_SIZE;
+                break;
+            case GL10.GL_MAX_MODELVIEW_STACK_DEPTH:
+                params[offset] = MAX_MODELVIEW_STACK_DEPTH;
+                break;
+            case GL10.GL_MAX_PROJECTION_STACK_DEPTH:
+                params[offset] = MAX_PROJECTION_STACK_DEPTH;
+                break;
+            case GL10.GL_MAX_TEXTURE_STACK_DEPTH:
+                params[offset] = MAX_TEXTURE_STACK_DEPTH;
+                break;
+            case GL10.GL_MAX_TEXTURE_UNITS:
+                params[offset] = 1;
+                break;
+            case GL10.GL_MAX_VIEWPORT_DIMS:
+                params[offset] = mWidth;
+                params[offset + 1] = mHeight;
+                break;
+            case GL_VIEWPORT:
+                System.arraycopy(mViewport, 0, params, offset, 4);
+                break;
+            case GL_SCISSOR_BOX:
+                System.arraycopy(mScissor, 0, params, offset, 4);
+                break;
+            case GL_COLOR_WRITEMASK:
+                for (int i = 0; i < 4; i++) {
+                    params[offset + i] = mColorMask[i] ? 1 : 0;
+                }
+                break;
+            case GL_DEPTH_WRITEMASK:
+                params[offset] = mDepthMask ? 1 : 0;
+                break;
+            case GL_TEXTURE_BINDING_2D:
+                params[offset] = mTextureID;
+                break;
+            case GL10.GL_RED_BITS:
+            case GL10.GL_GREEN_BITS:
+            case GL10.GL_BLUE_BITS:
+            case GL10.GL_ALPHA_BITS:
+            case GL10.GL_STENCIL_BITS:
+                params[offset] = 8;
+                break;
+            case GL10.GL_DEPTH_BITS:
+                params[offset] = 24;
+                break;
+            default:
+                setError(GL10.GL_INVALID_ENUM);
+        }
+    }
+
+    public void glGetIntegerv(final int pname, final IntBuffer params) {
+        final int[] values = new int[4];
+        glGetIntegerv(pname, values, 0);
+        for (int i = 0; i < params.remaining() && i < 4; i++) {
+            params.put(params.position() + i, values[i]);
+        }
+    }
+
+    public String glGetString(final int name) {
+        switch (name) {
+            case GL10.GL_VENDOR:
+                return VENDOR;
+            case GL10.GL_RENDERER:
+                return RENDERER;
+            case GL10.GL_VERSION:
+                return VERSION;
+            case GL10.GL_EXTENSIONS:
+                return EXTENSIONS;
+            default:
+                setError(GL10.GL_INVALID_ENUM);
+                return null;
+        }
+    }
+
+    /*
+     * Lighting, fog and materials are not supported
+     */
+
+    public void glFogf(final int pname, final float param) {
+    }
+
+    public void glFogfv(final int pname, final float[] params, final int offset) {
+    }
+
+    public void glFogfv(final int pname, final FloatBuffer params) {
+    }
+
+    public void glFogx(final int pname, final int param) {
+    }
+
+    public void glFogxv(final int pname, final int[] params, final int offset) {
+    }
+
+    public void glFogxv(final int pname, final IntBuffer params) {
+    }
+
+    public void glLightModelf(final int pname, final float param) {
+    }
+
+    public void glLightModelfv(final int pname, final float[] params, final int offset) {
+    }
+
+    public void glLightModelfv(final int pname, final FloatBuffer params) {
+    }
+
+    public void glLightModelx(final int pname, final int param) {
+    }
+
+    public void glLightModelxv(final int pname, final int[] params, final int offset) {
+    }
+
+    public void glLightModelxv(final int pname, final IntBuffer params) {
+    }
+
+    public void glLightf(final int light, final int pname, final float param) {
+    }
+
+    public void glLightfv(final int light, final int pname, final float[] params, final int offset) {
+    }
+
+    public void glLightfv(final int light, final int pname, final FloatBuffer params) {
+    }
+
+    public void glLightx(final int light, final int pname, final int param) {
+    }
+
+    public void glLightxv(final int light, final int pname, final int[] params, final int offset) {
+    }
+
+    public void glLightxv(final int light, final int pname, final IntBuffer params) {
+    }
+
+    public void glMaterialf(final int face, final int pname, final float param) {
+    }
+
+    public void glMaterialfv(final int face, final int pname, final float[] params, final int offset) {
+    }
+
+    public void glMaterialfv(final int face, final int pname, final FloatBuffer params) {
+    }
+
+    public void glMaterialx(final int face, final int pname, final int param) {
+    }
+
+    public void glMaterialxv(final int face, final int pname, final int[] params, final int offset) {
+    }
+
+    public void glMaterialxv(final int face, final int pname, final IntBuffer params) {
+    }
+
+    /*
+     * Helpers
+     */
+
+    private static void setIdentity(final float[] m) {
+        Arrays.fill(m, 0);
+        m[0] = m[5] = m[10] = m[15] = 1;
+    }
+
+    /**
+     * result = a * b, column-major
+     */
+    private static void multiply(final float[] a, final int aOffset, final float[] b, final int bOffset, final float[] result) {
+        for (int col = 0; col < 4; col++) {
+            for (int row = 0; row < 4; row++) {
+                result[col * 4 + row] = a[aOffset + row] * b[bOffset + col * 4] //
+                        + a[aOffset + 4 + row] * b[bOffset + col * 4 + 1] //
+                        + a[aOffset + 8 + row] * b[bOffset + col * 4 + 2] //
+                        + a[aOffset + 12 + row] * b[bOffset + col * 4 + 3];
+            }
+        }
+    }
+
+    private static class MatrixStack {
+        private final float[] mValues;
+        private final float[] mProduct = new float[16];
+        private final int mMaxDepth;
+        private int mTop = 0;
+        private boolean mIdentity = true;
+
+        public MatrixStack(final int maxDepth) {
+            mMaxDepth = maxDepth;
+            mValues = new float[16 * maxDepth];
+            loadIdentity();
+        }
+
+        public void loadIdentity() {
+            Arrays.fill(mValues, mTop, mTop + 16, 0);
+            mValues[mTop] = mValues[mTop + 5] = mValues[mTop + 10] = mValues[mTop + 15] = 1;
+            mIdentity = true;
+        }
+
+        public void multiply(final float[] m, final int offset) {
+            SoftwareGL10.multiply(mValues, mTop, m, offset, mProduct);
+            System.arraycopy(mProduct, 0, mValues, mTop, 16);
+            mIdentity = false;
+        }
+
+        public boolean push() {
+            if (mTop + 16 >= mMaxDepth * 16) {
+                return false;
+            }
+            System.arraycopy(mValues, mTop, mValues, mTop + 16, 16);
+            mTop += 16;
+            return true;
+        }
+
+        public boolean pop() {
+            if (mTop == 0) {
+                return false;
+            }
+            mTop -= 16;
+            // conservative
+            mIdentity = false;
+            return true;
+        }
+    }
+
+    private static class ClientArray {
+        private boolean mEnabled = false;
+        private int mSize;
+        private int mType;
+        private int mStride;
+        private Buffer mBuffer;
+
+        public void set(final int size, final int type, final int stride, final Buffer buffer) {
+            mSize = size;
+            mType = type;
+            mStride = stride;
+            mBuffer = buffer;
+        }
+
+        /**
+         * @return the specified component of a vertex, normalized for unsigned bytes (colors)
+         */
+        public float get(final int vertex, final int component) {
+            if (mBuffer instanceof FloatBuffer) {
+                final FloatBuffer buffer = (FloatBuffer) mBuffer;
+                final int stride = mStride == 0 ? mSize : mStride / 4;
+                return buffer.get(buffer.position() + vertex * stride + component);
+            } else if (mBuffer instanceof IntBuffer) {
+                final IntBuffer buffer = (IntBuffer) mBuffer;
+                final int stride = mStride == 0 ? mSize : mStride / 4;
+                final int value = buffer.get(buffer.position() + vertex * stride + component);
+                return mType == GL10.GL_FLOAT ? Float.intBitsToFloat(value) : value * FIXED_TO_FLOAT;
+            } else if (mBuffer instanceof ShortBuffer) {
+                final ShortBuffer buffer = (ShortBuffer) mBuffer;
+                final int stride = mStride == 0 ? mSize : mStride / 2;
+                return buffer.get(buffer.position() + vertex * stride + component);
+            } else if (mBuffer instanceof ByteBuffer) {
+                final ByteBuffer buffer = (ByteBuffer) mBuffer;
+                final int typeSize = (mType == GL10.GL_BYTE || mType == GL10.GL_UNSIGNED_BYTE) ? 1 : mType == GL10.GL_SHORT ? 2 : 4;
+                final int stride = mStride == 0 ? mSize * typeSize : mStride;
+                final int offset = buffer.position() + vertex * stride + component * typeSize;
+                switch (mType) {
+                    case GL10.GL_FLOAT:
+                        return buffer.getFloat(offset);
+                    case GL10.GL_FIXED:
+                        return buffer.getInt(offset) * FIXED_TO_FLOAT;
+                    case GL10.GL_SHORT:
+                        return buffer.getShort(offset);
+                    case GL10.GL_UNSIGNED_BYTE:
+                        return (buffer.get(offset) & 0xFF) / 255f;
+                    default:
+                        return buffer.get(offset);
+                }
+            }
+
+            return 0;
+        }
+    }
+
+    private static class Vertex {
+        // window coordinates and depth
+        private float mX, mY, mZ;
+        // clip w
+        private float mW, mInvW;
+        private float mR, mG, mB, mA;
+        private float mS, mT;
+    }
+
+    private static class SoftTexture {
+        private int mWidth;
+        private int mHeight;
+        private int mFormat = GL10.GL_RGBA;
+        private int[] mPixels;
+        private int mMinFilter = GL10.GL_NEAREST_MIPMAP_LINEAR;
+        private int mMagFilter = GL10.GL_LINEAR;
+        private int mWrapS = GL10.GL_REPEAT;
+        private int mWrapT = GL10.GL_REPEAT;
+
+        public void allocate(final int width, final int height, final int format) {
+            mWidth = width;
+            mHeight = height;
+            mFormat = format;
+            if (mPixels == null || mPixels.length != width * height) {
+                mPixels = new int[width * height];
+            } else {
+                Arrays.fill(mPixels, 0);
+            }
+        }
+
+        /**
+         * Sample with the magnification filter, no mipmapping.
+         */
+        public void sample(final float s, final float t, final float[] out) {
+            if (mWidth == 0 || mHeight == 0) {
+                out[0] = out[1] = out[2] = out[3] = 1;
+                return;
+            }
+
+            if (mMagFilter == GL10.GL_NEAREST) {
+                final int x = wrap((int) Math.floor(s * mWidth), mWidth, mWrapS);
+                final int y = wrap((int) Math.floor(t * mHeight), mHeight, mWrapT);
+                unpack(mPixels[y * mWidth + x], out, 1);
+                return;
+            }
+
+            // bilinear
+            final float u = s * mWidth - 0.5f;
+            final float v = t * mHeight - 0.5f;
+            final int x0 = (int) Math.floor(u);
+            final int y0 = (int) Math.floor(v);
+            final float fx = u - x0;
+            final float fy = v - y0;
+            final int xa = wrap(x0, mWidth, mWrapS), xb = wrap(x0 + 1, mWidth, mWrapS);
+            final int ya = wrap(y0, mHeight, mWrapT), yb = wrap(y0 + 1, mHeight, mWrapT);
+
+            out[0] = out[1] = out[2] = out[3] = 0;
+            unpack(mPixels[ya * mWidth + xa], out, (1 - fx) * (1 - fy));
+            unpack(mPixels[ya * mWidth + xb], out, fx * (1 - fy));
+            unpack(mPixels[yb * mWidth + xa], out, (1 - fx) * fy);
+            unpack(mPixels[yb * mWidth + xb], out, fx * fy);
+        }
+
+        private static int wrap(final int coord, final int size, final int mode) {
+            if (mode == GL10.GL_REPEAT) {
+                final int m = coord % size;
+                return m < 0 ? m + size : m;
+            }
+
+            // clamp to edge
+            return coord < 0 ? 0 : coord >= size ? size - 1 : coord;
+        }
+
+        /**
+         * Accumulate a weighted texel. Weight 1 replaces the output.
+         */
+        private static void unpack(final int argb, final float[] out, final float weight) {
+            final float f = weight / 255f;
+            if (weight == 1) {
+                out[0] = ((argb >> 16) & 0xFF) * f;
+                out[1] = ((argb >> 8) & 0xFF) * f;
+                out[2] = (argb & 0xFF) * f;
+                out[3] = (argb >>> 24) * f;
+            } else {
+                out[0] += ((argb >> 16) & 0xFF) * f;
+                out[1] += ((argb >> 8) & 0xFF) * f;
+                out[2] += (argb & 0xFF) * f;
+                out[3] += (argb >>> 24) * f;
+            }
+        }
+    }
+}
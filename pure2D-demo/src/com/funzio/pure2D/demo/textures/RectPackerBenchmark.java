@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.demo.textures;
+
+import java.util.Random;
+
+import android.graphics.Rect;
+import android.util.Log;
+
+import com.funzio.pure2D.utils.RectPacker;
+
+/**
+ * A simple benchmark for the {@link RectPacker} strategies, with glyph and sprite size distributions. Call {@link #runAll(int, boolean)} from a test app and check the log.
+ * 
+ * @author long
+ */
+public class RectPackerBenchmark {
+    private static final String TAG = RectPackerBenchmark.class.getSimpleName();
+
+    private static final int[] STRATEGIES = {
+            RectPacker.STRATEGY_HOT_POINTS, RectPacker.STRATEGY_SKYLINE, RectPacker.STRATEGY_MAX_RECTS
+    };
+    private static final String[] STRATEGY_NAMES = {
+            "HotPoints", "Skyline", "MaxRects"
+    };
+
+    /**
+     * Create the sizes of CJK-like glyphs, nearly square and all similar.
+     * 
+     * @param count
+     * @param fontSize
+     * @param seed
+     * @return the sizes as [w0, h0, w1, h1...]
+     */
+    public static int[] createGlyphSizes(final int count, final int fontSize, final long seed) {
+        final Random random = new Random(seed);
+        final int[] sizes = new int[count * 2];
+        for (int i = 0; i < count; i++) {
+            sizes[i * 2] = fontSize - fontSize / 8 + random.nextInt(fontSize / 4 + 1);
+            sizes[i * 2 + 1] = fontSize - fontSize / 8 + random.nextInt(fontSize / 4 + 1);
+        }
+
+        return sizes;
+    }
+
+    /**
+     * Create the sizes of game sprites, mostly small with a few big ones.
+     * 
+     * @param count
+     * @param maxSize
+     * @param seed
+     * @return the sizes as [w0, h0, w1, h1...]
+     */
+    public static int[] createSpriteSizes(final int count, final int maxSize, final long seed) {
+        final Random random = new Random(seed);
+        final int[] sizes = new int[count * 2];
+        for (int i = 0; i < count; i++) {
+            // skewed towards the small sizes
+            final float scale = random.nextFloat() * random.nextFloat();
+            sizes[i * 2] = 8 + Math.round(scale * (maxSize - 8) * (0.5f + random.nextFloat() * 0.5f));
+            sizes[i * 2 + 1] = 8 + Math.round(scale * (maxSize - 8) * (0.5f + random.nextFloat() * 0.5f));
+        }
+
+        return sizes;
+    }
+
+    /**
+     * Pack the sizes with a strategy.
+     * 
+     * @param strategy
+     * @param sizes [w0, h0, w1, h1...]
+     * @param maxWidth
+     * @param forcePO2
+     * @param iterations the number of timed runs, after a warm-up run
+     * @return the result of the last run
+     */
+    public static Result run(final int strategy, final int[] sizes, final int maxWidth, final boolean forcePO2, final int iterations) {
+        final RectPacker packer = new RectPacker(maxWidth, forcePO2, strategy);
+        packer.setRotationEnabled(false);
+        final int count = sizes.length / 2;
+
+        final Result result = new Result();
+        result.strategy = strategy;
+        result.numRects = count;
+
+        float totalTime = 0;
+        for (int n = 0; n <= iterations; n++) {
+            packer.reset();
+            int failed = 0;
+            for (int i = 0; i < count; i++) {
+                final Rect rect = packer.occupy(sizes[i * 2], sizes[i * 2 + 1]);
+                if (rect == null) {
+                    failed++;
+                }
+            }
+
+            // skip the warm-up
+            if (n > 0) {
+                totalTime += packer.getPackingTime();
+            }
+            result.numFailed = failed;
+        }
+
+        result.width = packer.getWidth();
+        result.height = packer.getHeight();
+        result.occupancy = packer.getOccupancy();
+        result.time = iterations > 0 ? totalTime / iterations : packer.getPackingTime();
+
+        return result;
+    }
+
+    /**
+     * Run all the strategies on the glyph and sprite distributions, and log the results.
+     * 
+     * @param maxWidth
+     * @param forcePO2
+     * @return the report
+     */
+    public static String runAll(final int maxWidth, final boolean forcePO2) {
+        final StringBuilder report = new StringBuilder();
+        final int[][] sets = {
+                createGlyphSizes(2000, 24, 1), createSpriteSizes(300, 256, 2)
+        };
+        final String[] setNames = {
+                "2000 glyphs", "300 sprites"
+        };
+
+        for (int s = 0; s < sets.length; s++) {
+            for (int i = 0; i < STRATEGIES.length; i++) {
+                final Result result = run(STRATEGIES[i], sets[s], maxWidth, forcePO2, 3);
+                final String line = setNames[s] + ", " + result.toString();
+                Log.i(TAG, line);
+                report.append(line).append('\n');
+            }
+        }
+
+        return report.toString();
+    }
+
+    public static class Result {
+        public int strategy;
+        public int numRects;
+        public int numFailed;
+        public int width;
+        public int height;
+        public float occupancy;
+        public float time; // ms
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d x %d, occupancy: %.1f%%, time: %.2fms, failed: %d/%d", STRATEGY_NAMES[strategy], width, height, occupancy * 100, time, numFailed, numRects);
+        }
+    }
+}
@@ -124,6 +124,10 @@ public abstract class BaseDisplayObject implements DisplayObject {
     // rect and bounds
     protected int mInvalidateFlags = 0;
     protected Matrix mMatrix;
+    // cached local transformation, for both drawing and bounds
+    protected Matrix mLocalMatrix;
+    protected float[] mLocalMatrixValues;
+    private boolean mLocalMatrixInvalidated = true;
     protected boolean mAutoUpdateBounds = false;
     // global bounds
     protected RectF mBounds = new RectF(-mOrigin.x, -mOrigin.y, -mOrigin.x + mSize.x - 1, -mOrigin.y + mSize.y - 1);
@@ -174,7 +178,7 @@ public abstract class BaseDisplayObject implements DisplayObject {
         final GL10 gl = glState.mGL;
 
         // keep the model matrix
-        gl.glPushMatrix();
+        glState.pushMatrix();
 
         // perspective projection
         if (mPerspectiveEnabled) {
@@ -203,36 +207,42 @@ public abstract class BaseDisplayObject implements DisplayObject {
             }
         }
 
-        // translating
-        if (mPosition.x != 0 || mPosition.y != 0 || mZ != 0) {
-            gl.glTranslatef(mPosition.x, mPosition.y, mZ);
-        }
+        if (mRotation == 0 || isRotation2D()) {
+            // use the cached local matrix, one call instead of the whole chain
+            if (mLocalMatrixInvalidated || mLocalMatrixValues == null) {
+                validateLocalMatrix();
+            }
+            gl.glMultMatrixf(mLocalMatrixValues, 0);
+        } else {
+            // translating
+            if (mPosition.x != 0 || mPosition.y != 0 || mZ != 0) {
+                gl.glTranslatef(mPosition.x, mPosition.y, mZ);
+            }
 
-        if (mPivot.x != 0 || mPivot.y != 0) {
-            gl.glTranslatef(mPivot.x, mPivot.x, 0);
-        }
+            if (mPivot.x != 0 || mPivot.y != 0) {
+                gl.glTranslatef(mPivot.x, mPivot.y, 0);
+            }
 
-        // scaling
-        if (mScale.x != 1 || mScale.y != 1) {
-            gl.glScalef(mScale.x, mScale.y, 0);
-        }
-        // rotating
-        if (mRotation != 0) {
+            // scaling
+            if (mScale.x != 1 || mScale.y != 1) {
+                gl.glScalef(mScale.x, mScale.y, 0);
+            }
+            // rotating, 3D
             gl.glRotatef(mRotation, mRotationVectorX, mRotationVectorY, mRotationVectorZ);
-        }
 
-        // extra transformation
-        if (mHasTransformValues) {
-            gl.glMultMatrixf(mTransformMatrixValues, 0);
-        }
+            // extra transformation
+            if (mHasTransformValues) {
+                gl.glMultMatrixf(mTransformMatrixValues, 0);
+            }
 
-        if (mPivot.x != 0 || mPivot.y != 0) {
-            gl.glTranslatef(-mPivot.x, -mPivot.x, 0);
-        }
+            if (mPivot.x != 0 || mPivot.y != 0) {
+                gl.glTranslatef(-mPivot.x, -mPivot.y, 0);
+            }
 
-        // shift off the origin
-        if (mHasOrigin) {
-            gl.glTranslatef(-mOrigin.x, -mOrigin.y, 0);
+            // shift off the origin
+            if (mHasOrigin) {
+                gl.glTranslatef(-mOrigin.x, -mOrigin.y, 0);
+            }
         }
 
         // check and turn on depth test
@@ -273,7 +283,7 @@ public abstract class BaseDisplayObject implements DisplayObject {
             mPerspectiveProjecting = false; // unflag
         }
         // restore the model matrix
-        gl.glPopMatrix();
+        glState.popMatrix();
 
         // debug global bounds
         if ((debugFlags & Pure2D.DEBUG_FLAG_GLOBAL_BOUNDS) != 0) {
@@ -289,10 +299,10 @@ public abstract class BaseDisplayObject implements DisplayObject {
     protected void drawBounds(final GLState glState) {
         if (mBounds.width() > 0 && mBounds.height() > 0) {
             final GL10 gl = glState.mGL;
-            gl.glPushMatrix();
+            glState.pushMatrix();
             gl.glLoadIdentity();
             Pure2D.drawDebugRect(glState, mBounds.left, mBounds.bottom, mBounds.right, mBounds.top, Pure2D.DEBUG_FLAG_GLOBAL_BOUNDS);
-            gl.glPopMatrix();
+            glState.popMatrix();
         }
     }
 
@@ -332,12 +342,20 @@ public abstract class BaseDisplayObject implements DisplayObject {
                 // get values
                 Pure2DUtils.getMatrix3DValues(mTransformMatrix, mTransformMatrixValues);
             }
+
+            // local matrix depends on the transform matrix
+            mLocalMatrixInvalidated = true;
         }
 
         // update bounds for the children to calculate their bounds correctly
         if ((mAutoUpdateBounds || Pure2D.AUTO_UPDATE_BOUNDS) && (mInvalidateFlags & BOUNDS) != 0) {
             // re-cal the matrix
             updateBounds();
+
+            // let the parent know, for spatial indexing
+            if (mParent != null) {
+                mParent.onChildBoundsUpdated(this);
+            }
         }
 
         // now update children
@@ -360,6 +378,9 @@ public abstract class BaseDisplayObject implements DisplayObject {
         // invalidate generally, NOT!
         // mInvalidateFlags = ALL;
 
+        // position, rotation or scale might have been changed directly
+        mLocalMatrixInvalidated = true;
+
         if (mParent != null) {
             mParent.invalidate(CHILDREN);
         }
@@ -371,6 +392,10 @@ public abstract class BaseDisplayObject implements DisplayObject {
     public void invalidate(final int flags) {
         mInvalidateFlags |= flags;
 
+        if ((flags & LOCAL_MATRIX) != 0) {
+            mLocalMatrixInvalidated = true;
+        }
+
         if (mParent != null) {
             mParent.invalidate(CHILDREN);
         }
@@ -987,70 +1012,24 @@ public abstract class BaseDisplayObject implements DisplayObject {
      * Find the global bounds of this object that takes position, scale, rotation, skew... into account. Used mainly for Camera clipping and bounds hit-testing.
      */
     public RectF updateBounds() {
-        boolean changed = false;
-
         // init
         if (mMatrix == null) {
             mMatrix = new Matrix();
-            changed = true;
         }
         final Matrix parentMatrix = getParentMatrix();
 
-        if (mHasTransformValues) {
-            mMatrix.setTranslate(-mOrigin.x - mPivot.x, -mOrigin.y - mPivot.y);
-            mMatrix.postConcat(mTransformMatrix);
-            mMatrix.postTranslate(mOrigin.x + mPivot.x, mOrigin.y + mPivot.y);
-            // flag
-            changed = true;
-        }
-
-        // rotation first
-        if (mRotation != 0 && (mRotationVectorX == 0 && mRotationVectorY == 0 && mRotationVectorZ == 1)) {
-            if (changed) {
-                mMatrix.postRotate(mRotation, mOrigin.x + mPivot.x, mOrigin.y + mPivot.y);
-            } else {
-                mMatrix.setRotate(mRotation, mOrigin.x + mPivot.x, mOrigin.y + mPivot.y);
-            }
-            // flag
-            changed = true;
-        }
-
-        // scale next
-        if (mScale.x != 1 || mScale.y != 1) {
-            if (changed) {
-                mMatrix.postScale(mScale.x, mScale.y, mOrigin.x + mPivot.x, mOrigin.y + mPivot.y);
-            } else {
-                mMatrix.setScale(mScale.x, mScale.y, mOrigin.x + mPivot.x, mOrigin.y + mPivot.y);
-                // flag
-                changed = true;
-            }
-        }
-
-        // translate later
-        if ((mPosition.x - mOrigin.x) != 0 || (mPosition.y - mOrigin.y) != 0) {
-            if (changed) {
-                mMatrix.postTranslate(mPosition.x - mOrigin.x, mPosition.y - mOrigin.y);
-            } else {
-                mMatrix.setTranslate(mPosition.x - mOrigin.x, mPosition.y - mOrigin.y);
-                // flag
-                changed = true;
-
-                if (parentMatrix == null) {
-                    onPreConcatParentMatrix();
-                    // easy case: only translation needs to be applied. No need to use matrix!
-                    mBounds.left = mPosition.x - mOrigin.x;
-                    mBounds.top = mPosition.y - mOrigin.y;
-                    mBounds.right = mBounds.left + mSize.x - 1;
-                    mBounds.bottom = mBounds.top + mSize.y - 1;
-                    // done, no need to go further!
-                    return mBounds;
-                }
-            }
-        } else {
-            if (!changed) {
-                // reset to identity
-                mMatrix.reset();
-            }
+        // start with the cached local matrix
+        mMatrix.set(getLocalMatrix());
+
+        if (parentMatrix == null && !mHasTransformValues && (mRotation == 0 || !isRotation2D()) && mScale.x == 1 && mScale.y == 1) {
+            onPreConcatParentMatrix();
+            // easy case: only translation needs to be applied. No need to use matrix!
+            mBounds.left = mPosition.x - mOrigin.x;
+            mBounds.top = mPosition.y - mOrigin.y;
+            mBounds.right = mBounds.left + mSize.x - 1;
+            mBounds.bottom = mBounds.top + mSize.y - 1;
+            // done, no need to go further!
+            return mBounds;
         }
 
         // prepare to map to the matrix
@@ -1060,18 +1039,15 @@ public abstract class BaseDisplayObject implements DisplayObject {
         mBounds.bottom = mSize.y - 1;
 
         onPreConcatParentMatrix();
-        // find the bounds
-        if (changed || parentMatrix != null) {
-
-            // apply the parent's matrix
-            if (parentMatrix != null) {
-                mMatrix.postConcat(parentMatrix);
-            }
 
-            // apply to the bounds
-            mMatrix.mapRect(mBounds);
+        // apply the parent's matrix
+        if (parentMatrix != null) {
+            mMatrix.postConcat(parentMatrix);
         }
 
+        // find the bounds
+        mMatrix.mapRect(mBounds);
+
         return mBounds;
     }
 
@@ -1079,6 +1055,87 @@ public abstract class BaseDisplayObject implements DisplayObject {
         // TODO override
     }
 
+    /**
+     * Get the 2D transformation of this object relative to its parent. The matrix is cached and only re-calculated when position, scale, rotation, skew, origin or pivot changes.
+     * 
+     * @return the local matrix
+     */
+    public Matrix getLocalMatrix() {
+        if (mLocalMatrixInvalidated || mLocalMatrix == null) {
+            validateLocalMatrix();
+        }
+
+        return mLocalMatrix;
+    }
+
+    /**
+     * Re-calculate the local matrix and its GL values. This matches what {@link #drawStart(GLState)} used to apply to the model-view matrix.
+     */
+    protected void validateLocalMatrix() {
+        if (mLocalMatrix == null) {
+            mLocalMatrix = new Matrix();
+        }
+
+        // shift off the origin and pivot
+        mLocalMatrix.setTranslate(-mOrigin.x - mPivot.x, -mOrigin.y - mPivot.y);
+
+        // extra transformation
+        if (mHasTransformValues) {
+            mLocalMatrix.postConcat(mTransformMatrix);
+        }
+
+        // rotating, 2D only
+        if (mRotation != 0 && isRotation2D()) {
+            mLocalMatrix.postRotate(mRotation);
+        }
+
+        // scaling
+        final boolean scaled = mScale.x != 1 || mScale.y != 1;
+        if (scaled) {
+            mLocalMatrix.postScale(mScale.x, mScale.y);
+        }
+
+        // translating
+        mLocalMatrix.postTranslate(mPosition.x + mPivot.x, mPosition.y + mPivot.y);
+
+        // convert to GL's column-major 4x4 matrix
+        if (mLocalMatrixValues == null) {
+            mLocalMatrixValues = new float[16];
+        }
+        mLocalMatrix.getValues(mLocalMatrixValues);
+        final float scaleX = mLocalMatrixValues[Matrix.MSCALE_X];
+        final float skewX = mLocalMatrixValues[Matrix.MSKEW_X];
+        final float transX = mLocalMatrixValues[Matrix.MTRANS_X];
+        final float skewY = mLocalMatrixValues[Matrix.MSKEW_Y];
+        final float scaleY = mLocalMatrixValues[Matrix.MSCALE_Y];
+        final float transY = mLocalMatrixValues[Matrix.MTRANS_Y];
+        mLocalMatrixValues[0] = scaleX;
+        mLocalMatrixValues[1] = skewY;
+        mLocalMatrixValues[2] = 0;
+        mLocalMatrixValues[3] = 0;
+        mLocalMatrixValues[4] = skewX;
+        mLocalMatrixValues[5] = scaleY;
+        mLocalMatrixValues[6] = 0;
+        mLocalMatrixValues[7] = 0;
+        mLocalMatrixValues[8] = 0;
+        mLocalMatrixValues[9] = 0;
+        mLocalMatrixValues[10] = scaled ? 0 : 1; // same as glScalef(sx, sy, 0)
+        mLocalMatrixValues[11] = 0;
+        mLocalMatrixValues[12] = transX;
+        mLocalMatrixValues[13] = transY;
+        mLocalMatrixValues[14] = mZ;
+        mLocalMatrixValues[15] = 1;
+
+        mLocalMatrixInvalidated = false;
+    }
+
+    /**
+     * @return true if the rotation is around the z-axis only
+     */
+    protected boolean isRotation2D() {
+        return mRotationVectorX == 0 && mRotationVectorY == 0 && mRotationVectorZ == 1;
+    }
+
     final public Matrix getMatrix() {
         return mMatrix;
     }
@@ -1138,6 +1195,8 @@ public abstract class BaseDisplayObject implements DisplayObject {
         mTransformMatrix = null;
         mTransformMatrixValues = null;
         mGlobalPosition = null;
+        mLocalMatrix = null;
+        mLocalMatrixValues = null;
     }
 
     /**
@@ -1268,7 +1327,7 @@ public abstract class BaseDisplayObject implements DisplayObject {
 
         final String rotation = xmlParser.getAttributeValue(null, ATT_ROTATION);
         if (rotation != null) {
-            mRotation = Float.valueOf(rotation);
+            setRotation(Float.valueOf(rotation));
         }
 
         final String blendMode = xmlParser.getAttributeValue(null, ATT_BLEND_MODE);
@@ -47,7 +47,10 @@ import com.funzio.pure2D.exceptions.Pure2DException;
 import com.funzio.pure2D.gl.GLColor;
 import com.funzio.pure2D.gl.gl10.BlendFunc;
 import com.funzio.pure2D.gl.gl10.GLState;
+import com.funzio.pure2D.gl.gl10.GLStats;
+import com.funzio.pure2D.gl.gl10.QuadBatch;
 import com.funzio.pure2D.gl.gl10.textures.TextureManager;
+import com.funzio.pure2D.ui.TouchQueue;
 import com.funzio.pure2D.ui.UITextureManager;
 
 /**
@@ -93,13 +96,25 @@ public class BaseScene implements Scene {
     private int mAxisSystem = AXIS_BOTTOM_LEFT;
 
     // UI
-    private final Object mUILock = new Object();
     private boolean mUIEnabled = false;
     private ArrayList<Touchable> mVisibleTouchables;
-    private ArrayList<PointF> mTouchedPoints = new ArrayList<PointF>();
+    // touched points for the UI thread
+    private final PointF[] mTouchedPoints = new PointF[TouchQueue.MAX_POINTERS];
     private int mPointerCount = 0;
+    // touch events to dispatch on the GL thread
+    private final TouchQueue mTouchQueue = new TouchQueue();
+    private TouchQueue.TouchEvent mDispatchingTouch;
+    private Thread mGLThread;
+    private UnhandledTouchListener mUnhandledTouchListener;
+
+    // batching
+    private boolean mBatchingEnabled = false;
+    private QuadBatch mQuadBatch;
 
     public BaseScene() {
+        for (int i = 0; i < mTouchedPoints.length; i++) {
+            mTouchedPoints[i] = new PointF();
+        }
     }
 
     /**
@@ -224,6 +239,7 @@ public class BaseScene implements Scene {
     @Override
     public void onSurfaceCreated(final GL10 gl, final EGLConfig config) {
         Log.v(TAG, "onSurfaceCreated()");
+        mGLThread = Thread.currentThread();
         // this might help but I have not seen any difference yet!
         // Thread.currentThread().setPriority(Thread.MAX_PRIORITY);
 
@@ -366,8 +382,24 @@ public class BaseScene implements Scene {
         }
         DisplayObject child;
 
+        // dispatch the touches against the last visible touchables
+        if (mUIEnabled) {
+            dispatchTouchEvents();
+        } else if (mTouchQueue.size() > 0) {
+            mTouchQueue.clear();
+        }
+
+        // upload the decoded textures, spread across frames
+        if (mTextureManager != null && mTextureManager.processUploads() > 0) {
+            invalidate();
+        }
+
+        final GLStats stats = mGLState.getStats();
+
         // pause check
         if (!mPaused) {
+            final long updateStart = System.nanoTime();
+
             // delta time
             final long now = SystemClock.elapsedRealtime();
             // final float delta = ((now - mStartTime) / 1000000f);
@@ -433,10 +465,14 @@ public class BaseScene implements Scene {
 
             // update texture manager
             mTextureManager.update((int) delta);
+
+            stats.setUpdateTime(System.nanoTime() - updateStart);
         }
 
         // draw children if needed
         if (mInvalidated > 0 || mRenderContinueously) {
+            final long drawStart = System.nanoTime();
+
             // camera
             if (mCamera != null) {
                 // validate the camera
@@ -448,30 +484,31 @@ public class BaseScene implements Scene {
                 gl.glClear(GL10.GL_COLOR_BUFFER_BIT | GL10.GL_DEPTH_BUFFER_BIT);
             }
 
+            // batching
+            final QuadBatch batch = validateQuadBatch();
+
             if (mUIEnabled) {
-                // lock the array
-                synchronized (mUILock) {
-                    if (mVisibleTouchables == null) {
-                        mVisibleTouchables = new ArrayList<Touchable>();
-                    } else {
-                        mVisibleTouchables.clear();
-                    }
+                // no lock needed, touches are dispatched on this thread
+                if (mVisibleTouchables == null) {
+                    mVisibleTouchables = new ArrayList<Touchable>();
+                } else {
+                    mVisibleTouchables.clear();
+                }
 
-                    for (int i = 0; i < mNumChildren; i++) {
-                        child = mChildren.get(i);
-                        if (child.shouldDraw(getCameraRect())) {
-                            // draw frame, check alpha for optimization
-                            child.draw(mGLState);
-
-                            // stack the visible child
-                            if (child instanceof Touchable && ((Touchable) child).isTouchable()) {
-                                float childZ = child.getZ();
-                                int j = mVisibleTouchables.size();
-                                while (j > 0 && ((DisplayObject) mVisibleTouchables.get(j - 1)).getZ() > childZ) {
-                                    j--;
-                                }
-                                mVisibleTouchables.add(j, (Touchable) child);
+                for (int i = 0; i < mNumChildren; i++) {
+                    child = mChildren.get(i);
+                    if (child.shouldDraw(getCameraRect())) {
+                        // draw frame, check alpha for optimization
+                        drawChild(child, batch);
+
+                        // stack the visible child
+                        if (child instanceof Touchable && ((Touchable) child).isTouchable()) {
+                            float childZ = child.getZ();
+                            int j = mVisibleTouchables.size();
+                            while (j > 0 && ((DisplayObject) mVisibleTouchables.get(j - 1)).getZ() > childZ) {
+                                j--;
                             }
+                            mVisibleTouchables.add(j, (Touchable) child);
                         }
                     }
                 }
@@ -480,17 +517,26 @@ public class BaseScene implements Scene {
                     child = mChildren.get(i);
                     if (child.shouldDraw(getCameraRect())) {
                         // draw frame
-                        child.draw(mGLState);
+                        drawChild(child, batch);
                     }
                 }
             }
 
+            if (batch != null) {
+                // flush the remaining quads
+                batch.flush();
+            }
+
             // camera
             if (mCamera != null) {
                 // validate the camera
                 mCamera.unapply(mGLState);
             }
 
+            // per-frame stats
+            stats.setDrawTime(System.nanoTime() - drawStart);
+            stats.endFrame();
+
             // validate state
             // mGLState.validate();
 
@@ -499,6 +545,68 @@ public class BaseScene implements Scene {
         }
     }
 
+    /**
+     * Draw a child, batch it if possible
+     * 
+     * @param child
+     * @param batch can be null
+     */
+    private void drawChild(final DisplayObject child, final QuadBatch batch) {
+        if (batch == null || !(child instanceof Batchable) || !((Batchable) child).batch(batch)) {
+            if (batch != null) {
+                // flush the pending quads before drawing normally
+                batch.flush();
+            }
+
+            child.draw(mGLState);
+        }
+    }
+
+    /**
+     * Create or release the quad batch based on the batching flag. Called on GL thread.
+     * 
+     * @return the current batch, null if batching is disabled
+     */
+    private QuadBatch validateQuadBatch() {
+        if (mBatchingEnabled) {
+            if (mQuadBatch == null) {
+                mQuadBatch = new QuadBatch(mGLState);
+            }
+            mQuadBatch.resetStats();
+        } else if (mQuadBatch != null) {
+            mQuadBatch.dispose();
+            mQuadBatch = null;
+        }
+
+        mGLState.setQuadBatch(mQuadBatch);
+        return mQuadBatch;
+    }
+
+    public boolean isBatchingEnabled() {
+        return mBatchingEnabled;
+    }
+
+    /**
+     * Enable/disable the batching render mode. When enabled, consecutive Batchable children that share the same Texture, BlendFunc and Color are transformed on CPU and drawn with a
+     * single draw call. Masks, perspective-enabled objects and cached groups automatically fall back to normal drawing.
+     * 
+     * @param batchingEnabled
+     * @see Batchable
+     * @see QuadBatch
+     */
+    public void setBatchingEnabled(final boolean batchingEnabled) {
+        mBatchingEnabled = batchingEnabled;
+
+        invalidate();
+    }
+
+    /**
+     * @return the quad batch, null if batching is disabled. Useful for checking the number of draw calls and batched quads of the last frame.
+     */
+    public QuadBatch getQuadBatch() {
+        return mQuadBatch;
+    }
+
     public void pause() {
         if (mPaused) {
             return;
@@ -736,6 +844,15 @@ public class BaseScene implements Scene {
         return true;
     }
 
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.containers.Container#onChildBoundsUpdated(com.funzio.pure2D.DisplayObject)
+     */
+    @Override
+    public void onChildBoundsUpdated(final DisplayObject child) {
+        // TODO nothing
+    }
+
     /**
      * Swap the indeces of 2 children. This can be used for display ordering.
      * 
@@ -1075,7 +1192,7 @@ public class BaseScene implements Scene {
      * @hide
      */
     public PointF getTouchedPoint() {
-        return mTouchedPoints.get(0);
+        return getTouchedPoint(0);
     }
 
     /**
@@ -1084,7 +1201,12 @@ public class BaseScene implements Scene {
      * @hide
      */
     public PointF getTouchedPoint(final int pointerIndex) {
-        return mTouchedPoints.get(pointerIndex);
+        // touchables are called on the GL thread
+        if (mDispatchingTouch != null && Thread.currentThread() == mGLThread) {
+            return mDispatchingTouch.getGlobalPoint(pointerIndex);
+        }
+
+        return mTouchedPoints[pointerIndex];
     }
 
     /**
@@ -1093,38 +1215,85 @@ public class BaseScene implements Scene {
      * @hide
      */
     public int getPointerCount() {
+        if (mDispatchingTouch != null && Thread.currentThread() == mGLThread) {
+            return mDispatchingTouch.getPointerCount();
+        }
+
         return mPointerCount;
     }
 
     /**
-     * Note: This is called from UI-Thread
+     * Note: This is called from UI-Thread. The event is queued and dispatched to the touchables on the GL-Thread at the start of the next frame.
+     * 
+     * @return true if the event has been queued
+     * @see #setUnhandledTouchListener(UnhandledTouchListener)
      */
     public boolean onTouchEvent(final MotionEvent event) {
         if (mUIEnabled) {
-            // NOTE: event is NOT safe to queue because it's recycled by Android. So we do this approach...
-            // lock the array
-            synchronized (mUILock) {
-                mTouchedPoints.clear();
-                mPointerCount = event.getPointerCount();
-                for (int i = 0; i < mPointerCount; i++) {
-                    // FIXME optimize this with pool
-                    final PointF p = new PointF();
-                    screenToGlobal(event.getX(i), event.getY(i), p);
-                    mTouchedPoints.add(p);
-                }
+            // for the UI thread
+            mPointerCount = Math.min(event.getPointerCount(), TouchQueue.MAX_POINTERS);
+            for (int i = 0; i < mPointerCount; i++) {
+                screenToGlobal(event.getX(i), event.getY(i), mTouchedPoints[i]);
+            }
 
-                if (mVisibleTouchables != null) {
-                    // start from front to back
-                    for (int i = mVisibleTouchables.size() - 1; i >= 0; i--) {
-                        if (mVisibleTouchables.get(i).onTouchEvent(event)) {
-                            return true;
-                        }
+            // NOTE: event is NOT safe to queue because it's recycled by Android, the queue makes a copy
+            return mTouchQueue.offer(event);
+        }
+
+        return false;
+    }
+
+    /**
+     * Dispatch the queued touch events, from front to back. This is called on GL-Thread.
+     */
+    private void dispatchTouchEvents() {
+        TouchQueue.TouchEvent touch;
+        while ((touch = mTouchQueue.peek()) != null) {
+            // convert the points with the current camera
+            final int pointerCount = touch.getPointerCount();
+            for (int i = 0; i < pointerCount; i++) {
+                final PointF screen = touch.getScreenPoint(i);
+                screenToGlobal(screen.x, screen.y, touch.getGlobalPoint(i));
+            }
+
+            mDispatchingTouch = touch;
+            final MotionEvent event = touch.getEvent();
+            boolean handled = false;
+            if (mVisibleTouchables != null) {
+                // start from front to back
+                for (int i = mVisibleTouchables.size() - 1; i >= 0; i--) {
+                    if (mVisibleTouchables.get(i).onTouchEvent(event)) {
+                        handled = true;
+                        break;
                     }
                 }
             }
+
+            if (!handled && mUnhandledTouchListener != null) {
+                mUnhandledTouchListener.onUnhandledTouchEvent(this, event);
+            }
+            mDispatchingTouch = null;
+
+            mTouchQueue.release();
         }
+    }
 
-        return false;
+    /**
+     * @return the queue of touch events, useful for the latency metrics
+     */
+    public TouchQueue getTouchQueue() {
+        return mTouchQueue;
+    }
+
+    public UnhandledTouchListener getUnhandledTouchListener() {
+        return mUnhandledTouchListener;
+    }
+
+    /**
+     * Set a listener to be called, on GL-Thread, when a touch event is not handled by any touchable
+     */
+    public void setUnhandledTouchListener(final UnhandledTouchListener listener) {
+        mUnhandledTouchListener = listener;
     }
 
     @Override
@@ -1208,4 +1377,11 @@ public class BaseScene implements Scene {
             }
         }
     }
+
+    public interface UnhandledTouchListener {
+        /**
+         * Called on GL-Thread when none of the touchables handles the event
+         */
+        public void onUnhandledTouchEvent(final Scene scene, final MotionEvent event);
+    }
 }
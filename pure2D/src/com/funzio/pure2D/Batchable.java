@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D;
+
+import com.funzio.pure2D.gl.gl10.QuadBatch;
+import com.funzio.pure2D.gl.gl10.QuadCollector;
+
+/**
+ * @author long
+ * @category Objects that can be drawn into a {@link QuadBatch} or any other {@link QuadCollector} instead of issuing their own draw call.
+ */
+public interface Batchable {
+
+    /**
+     * @return true if this object can currently be batched. Masks, perspective projection and custom drawing should return false.
+     */
+    public boolean isBatchable();
+
+    /**
+     * Push this object's quad into the batch, in the space of the current model-view matrix.
+     * 
+     * @param batch
+     * @return false if the object couldn't be batched and needs to be drawn normally
+     */
+    public boolean batch(QuadCollector batch);
+}
@@ -324,7 +324,7 @@ public class Camera implements Manipulatable {
         gl.glMatrixMode(GL10.GL_PROJECTION);
         // Reset the projection matrix
         // gl.glLoadIdentity();
-        gl.glPushMatrix();
+        glState.pushMatrix();
         // camera view and axis system
         glState.setProjection(mAxisSystem, mZoomRect.left, mZoomRect.right, mZoomRect.top, mZoomRect.bottom);
 
@@ -343,7 +343,7 @@ public class Camera implements Manipulatable {
         final GL10 gl = glState.mGL;
         // Select the projection matrix
         gl.glMatrixMode(GL10.GL_PROJECTION);
-        gl.glPopMatrix();
+        glState.popMatrix();
 
         // set matrix back to model view
         gl.glMatrixMode(GL10.GL_MODELVIEW);
@@ -60,6 +60,7 @@ public interface InvalidateFlags {
 
     // combined flags
     public static final int TRANSFORM_MATRIX = SKEW;
+    public static final int LOCAL_MATRIX = ORIGIN | POSITION | SCALE | ROTATION | PIVOT | TRANSFORM_MATRIX;
     public static final int BOUNDS = ORIGIN | POSITION | ROTATION | SCALE | SIZE | PIVOT | TRANSFORM_MATRIX | PARENT | PARENT_BOUNDS;
     public static final int VISUAL = VISIBILITY | COLOR | ALPHA | BLEND | TEXTURE | TEXTURE_COORDS | PERSPECTIVE | DEPTH | FRAME | VERTICES;
     public static final int ALL = BOUNDS | VISUAL | CHILDREN;
@@ -95,7 +95,7 @@ public class PerspectiveCamera extends Camera {
         gl.glMatrixMode(GL10.GL_PROJECTION);
         // Reset the projection matrix
         // gl.glLoadIdentity();
-        gl.glPushMatrix();
+        glState.pushMatrix();
 
         // perspective projection
         // TODO: use glState.setProjection() instead
@@ -25,6 +25,7 @@
 package com.funzio.pure2D;
 
 import javax.microedition.khronos.opengles.GL10;
+import javax.microedition.khronos.opengles.GL11;
 
 import android.util.Log;
 
@@ -46,11 +47,14 @@ public class Pure2D {
     public static boolean GL_NPOT_TEXTURE_SUPPORTED = false;
     public static boolean GL_FBO_SUPPORTED = false;
     public static boolean GL_VBO_SUPPORTED = false;
+    public static boolean GL_ELEMENT_INDEX_UINT_SUPPORTED = false;
     public static boolean GL_STENCIL8_SUPPORTED = false;
     public static boolean GL_DEPTH24_SUPPORTED = false;
+    public static boolean GL_POINT_SPRITE_SUPPORTED = false;
     public static int GL_MAX_TEXTURE_SIZE = 0;
     public static int GL_MAX_MODELVIEW_STACK_DEPTH = 0;
     public static int GL_MAX_PROJECTION_STACK_DEPTH = 0;
+    public static int GL_MAX_POINT_SIZE = 1;
     public static final float GL_PERSPECTIVE_FOVY = 53.125f; // this perfectly matches the ortho projection, try 53.075f
 
     // for non-pure2d engine to plug in
@@ -108,8 +112,10 @@ public class Pure2D {
 
         GL_FBO_SUPPORTED = GL_EXTENSIONS.contains("GL_OES_framebuffer_object");
         GL_VBO_SUPPORTED = GL_EXTENSIONS.contains("GL_ARB_vertex_buffer_object");
+        GL_ELEMENT_INDEX_UINT_SUPPORTED = GL_EXTENSIONS.contains("GL_OES_element_index_uint");
         GL_STENCIL8_SUPPORTED = GL_EXTENSIONS.contains("GL_OES_stencil8");
         GL_DEPTH24_SUPPORTED = GL_EXTENSIONS.contains("GL_OES_depth24");
+        GL_POINT_SPRITE_SUPPORTED = GL_EXTENSIONS.contains("GL_OES_point_sprite") && GL_EXTENSIONS.contains("GL_OES_point_size_array") && gl instanceof GL11;
 
         // find max texture size
         final int[] scratch = new int[1];
@@ -122,10 +128,17 @@ public class Pure2D {
         gl.glGetIntegerv(GL10.GL_MAX_PROJECTION_STACK_DEPTH, scratch, 0);
         GL_MAX_PROJECTION_STACK_DEPTH = scratch[0];
 
+        // find max point size, for point sprites
+        final int[] range = new int[2];
+        gl.glGetIntegerv(GL10.GL_ALIASED_POINT_SIZE_RANGE, range, 0);
+        GL_MAX_POINT_SIZE = range[1];
+
         Log.i(TAG, "initGLProperties():\n" //
                 + "Version: " + VERSION + "\n" //
                 + GL_EXTENSIONS + "\n" //
                 + "NPOT Texture: " + GL_NPOT_TEXTURE_SUPPORTED + "\n" //
+                + "Element Index UINT: " + GL_ELEMENT_INDEX_UINT_SUPPORTED + "\n" //
+                + "Point Sprite: " + GL_POINT_SPRITE_SUPPORTED + "\n" //
                 + "GL_MAX_TEXTURE_SIZE: " + GL_MAX_TEXTURE_SIZE);
     }
 
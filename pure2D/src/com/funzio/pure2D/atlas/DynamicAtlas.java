@@ -0,0 +1,628 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.atlas;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.microedition.khronos.opengles.GL10;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.opengl.GLUtils;
+import android.util.Log;
+
+import com.funzio.pure2D.Pure2D;
+import com.funzio.pure2D.Scene;
+import com.funzio.pure2D.gl.gl10.FrameBuffer;
+import com.funzio.pure2D.gl.gl10.GLState;
+import com.funzio.pure2D.gl.gl10.textures.BufferTexture;
+import com.funzio.pure2D.gl.gl10.textures.Texture;
+import com.funzio.pure2D.gl.gl10.textures.TextureManager;
+import com.funzio.pure2D.utils.MaxRectsPacker;
+import com.funzio.pure2D.utils.Pure2DUtils;
+
+/**
+ * A runtime atlas that packs loose bitmaps such as avatars, icons and text into shared texture pages, so the objects using them can be batched. Removed frames give their space
+ * back to the page, and a page that gets too fragmented is compacted into a fresh page a few frames at a time by {@link #update()}. Compacting copies the pixels on the GPU,
+ * so it needs Frame Buffer support.
+ * <p>
+ * NOTE: All the methods MUST be called on GL Thread. The pages cannot be reloaded, the frames need to be added again after the GL Surface is re-created.
+ * </p>
+ * 
+ * @author long
+ */
+public class DynamicAtlas {
+    public static final String TAG = DynamicAtlas.class.getSimpleName();
+
+    public static final int DEFAULT_PAGE_SIZE = 1024;
+    public static final float DEFAULT_COMPACT_THRESHOLD = 0.5f;
+
+    // sort by the long side, biggest first, for better packing
+    private static final Comparator<Frame> COMPARATOR = new Comparator<Frame>() {
+        public int compare(final Frame left, final Frame right) {
+            return Math.max(right.mSlot.width(), right.mSlot.height()) - Math.max(left.mSlot.width(), left.mSlot.height());
+        }
+    };
+
+    private final GLState mGLState;
+    private final int mPageSize;
+    private int mPadding = 1;
+    private int mMaxPages = 0;
+    private float mCompactThreshold = DEFAULT_COMPACT_THRESHOLD;
+    private float mCompactMinFreeRatio = 0.25f;
+    private int mCompactFramesPerUpdate = 8;
+
+    private final ArrayList<Page> mPages = new ArrayList<Page>();
+    private final HashMap<String, Frame> mNamedFrames = new HashMap<String, Frame>();
+
+    // compacting
+    private Page mCompactSource;
+    private Page mCompactTarget;
+    private final ArrayList<Frame> mCompactFrames = new ArrayList<Frame>();
+    private final ArrayList<AtlasFrame> mMovedFrames = new ArrayList<AtlasFrame>();
+    private int mNumCompactions = 0;
+
+    private final Rect mTempRect = new Rect();
+    // transparent texels for clearing the padding
+    private ByteBuffer mClearBuffer;
+    private Listener mListener;
+
+    public DynamicAtlas(final GLState glState) {
+        this(glState, DEFAULT_PAGE_SIZE);
+    }
+
+    public DynamicAtlas(final GLState glState, final int pageSize) {
+        mGLState = glState;
+
+        int size = Pure2D.GL_NPOT_TEXTURE_SUPPORTED ? pageSize : Pure2DUtils.getNextPO2(pageSize);
+        if (Pure2D.GL_MAX_TEXTURE_SIZE > 0 && size > Pure2D.GL_MAX_TEXTURE_SIZE) {
+            size = Pure2D.GL_MAX_TEXTURE_SIZE;
+        }
+        mPageSize = size;
+    }
+
+    /**
+     * Pack a bitmap into one of the pages. The bitmap is only uploaded, it is not recycled or kept.
+     * 
+     * @param name the frame name, can be null. If a frame with the same name already exists, that frame is returned instead.
+     * @param bitmap
+     * @return the frame, or null if the bitmap does not fit
+     */
+    public AtlasFrame add(final String name, final Bitmap bitmap) {
+        if (name != null) {
+            final Frame existing = mNamedFrames.get(name);
+            if (existing != null) {
+                return existing;
+            }
+        }
+
+        final int width = bitmap.getWidth();
+        final int height = bitmap.getHeight();
+        final int slotWidth = width + mPadding * 2;
+        final int slotHeight = height + mPadding * 2;
+        if (slotWidth > mPageSize || slotHeight > mPageSize) {
+            Log.e(TAG, String.format("add(): %s is too big for the pages, %d x %d", name, width, height));
+            return null;
+        }
+
+        // find a page that has room
+        Page page = null;
+        final int numPages = mPages.size();
+        for (int i = 0; i < numPages; i++) {
+            final Page candidate = mPages.get(i);
+            if (candidate != mCompactSource && candidate.mPacker.occupy(slotWidth, slotHeight, mTempRect)) {
+                page = candidate;
+                break;
+            }
+        }
+
+        if (page == null) {
+            // all full
+            if (mMaxPages > 0 && numPages >= mMaxPages) {
+                Log.w(TAG, "add(): Ran out of pages! " + name);
+                return null;
+            }
+
+            page = createPage();
+            if (page == null) {
+                return null;
+            }
+            mPages.add(page);
+            page.mPacker.occupy(slotWidth, slotHeight, mTempRect);
+        }
+
+        // upload
+        Bitmap source = bitmap;
+        if (bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
+            // the pages are RGBA
+            source = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+        }
+        mGLState.bindTexture(page.mTexture);
+        // new pages are undefined and freed slots are stale, the padding must be transparent to prevent bleeding
+        clearPadding(mTempRect);
+        GLUtils.texSubImage2D(GL10.GL_TEXTURE_2D, 0, mTempRect.left + mPadding, mTempRect.top + mPadding, source);
+        if (source != bitmap) {
+            source.recycle();
+        }
+
+        // create the frame
+        final Frame frame = new Frame(page, page.mNextIndex++, name, mTempRect, mPadding);
+        page.addFrame(frame);
+        if (name != null) {
+            mNamedFrames.put(name, frame);
+        }
+
+        return frame;
+    }
+
+    public AtlasFrame getFrame(final String name) {
+        return mNamedFrames.get(name);
+    }
+
+    public boolean remove(final String name) {
+        final Frame frame = mNamedFrames.get(name);
+        return frame != null && remove(frame);
+    }
+
+    /**
+     * Remove a frame and give its space back to the page.
+     * 
+     * @param atlasFrame
+     * @return true if the frame was in this atlas
+     */
+    public boolean remove(final AtlasFrame atlasFrame) {
+        if (!(atlasFrame instanceof Frame)) {
+            return false;
+        }
+
+        final Frame frame = (Frame) atlasFrame;
+        final Page page = frame.mPage;
+        if (page == null || !page.removeFrame(frame)) {
+            return false;
+        }
+
+        frame.mPage = null;
+        if (frame.mName != null && mNamedFrames.get(frame.mName) == frame) {
+            mNamedFrames.remove(frame.mName);
+        }
+        page.mPacker.free(frame.mSlot);
+
+        // was waiting to be moved?
+        if (page == mCompactSource && mCompactFrames.remove(frame)) {
+            mCompactTarget.mPacker.free(frame.mTargetSlot);
+        }
+
+        if (page.getNumFrames() == 0 && page != mCompactSource && page != mCompactTarget) {
+            // no longer needed
+            mPages.remove(page);
+            page.unload(mGLState);
+        }
+
+        return true;
+    }
+
+    /**
+     * Remove all the frames and pages
+     */
+    public void removeAll() {
+        final int numPages = mPages.size();
+        for (int i = 0; i < numPages; i++) {
+            mPages.get(i).unload(mGLState);
+        }
+
+        reset();
+    }
+
+    /**
+     * Forget all the frames and pages without touching GL, such as after the GL Surface is lost.
+     */
+    public void reset() {
+        mPages.clear();
+        mNamedFrames.clear();
+        mCompactFrames.clear();
+        mCompactSource = mCompactTarget = null;
+    }
+
+    /**
+     * Compact the fragmented pages, a few frames at a time. This MUST be called on GL Thread, once per frame.
+     * 
+     * @return the number of frames moved
+     */
+    public int update() {
+        if (mCompactSource == null) {
+            // find the most fragmented page
+            Page worst = null;
+            float worstFragmentation = mCompactThreshold;
+            final int numPages = mPages.size();
+            for (int i = 0; i < numPages; i++) {
+                final Page page = mPages.get(i);
+                if (page.mNumFramesAtFailedCompact == page.getNumFrames()) {
+                    // nothing changed since the last failed attempt
+                    continue;
+                }
+
+                final MaxRectsPacker packer = page.mPacker;
+                final float fragmentation = packer.getFragmentation();
+                if (fragmentation > worstFragmentation && packer.getFreeArea() >= mCompactMinFreeRatio * mPageSize * mPageSize) {
+                    worst = page;
+                    worstFragmentation = fragmentation;
+                }
+            }
+
+            if (worst == null || !startCompact(worst)) {
+                return 0;
+            }
+        }
+
+        return moveFrames(mCompactFramesPerUpdate);
+    }
+
+    /**
+     * Compact all the fragmented pages right away. This MUST be called on GL Thread.
+     */
+    public void compact() {
+        while (update() > 0) {
+            // until done
+        }
+    }
+
+    private boolean startCompact(final Page source) {
+        if (!FrameBuffer.isSupported()) {
+            source.mNumFramesAtFailedCompact = source.getNumFrames();
+            return false;
+        }
+
+        final Page target = createPage();
+        if (target == null) {
+            source.mNumFramesAtFailedCompact = source.getNumFrames();
+            return false;
+        }
+
+        // collect the frames
+        final List<AtlasFrame> frames = source.mMasterFrameSet.mFrames;
+        final int numFrames = frames.size();
+        for (int i = 0; i < numFrames; i++) {
+            mCompactFrames.add((Frame) frames.get(i));
+        }
+        Collections.sort(mCompactFrames, COMPARATOR);
+
+        // re-pack into the target page
+        for (int i = 0; i < numFrames; i++) {
+            final Frame frame = mCompactFrames.get(i);
+            if (!target.mPacker.occupy(frame.mSlot.width(), frame.mSlot.height(), frame.mTargetSlot)) {
+                // not better than before
+                Log.w(TAG, "startCompact(): Failed to re-pack " + numFrames + " frames!");
+                mCompactFrames.clear();
+                target.unload(mGLState);
+                source.mNumFramesAtFailedCompact = numFrames;
+                return false;
+            }
+        }
+
+        mCompactSource = source;
+        mCompactTarget = target;
+        // the target can take new frames meanwhile
+        mPages.add(target);
+
+        return true;
+    }
+
+    private int moveFrames(final int maxFrames) {
+        final int numFrames = Math.min(maxFrames, mCompactFrames.size());
+        final Page source = mCompactSource;
+        final Page target = mCompactTarget;
+
+        if (numFrames > 0) {
+            if (!source.mFrameBuffer.bind(Scene.AXIS_BOTTOM_LEFT)) {
+                Log.w(TAG, "moveFrames(): Failed to bind the source page!");
+                stopCompact();
+                return 0;
+            }
+
+            // read from the source page, write to the target page
+            mGLState.bindTexture(target.mTexture);
+            for (int i = 0; i < numFrames; i++) {
+                final Frame frame = mCompactFrames.get(i);
+                final Rect from = frame.mSlot;
+                final Rect to = frame.mTargetSlot;
+                mGLState.mGL.glCopyTexSubImage2D(GL10.GL_TEXTURE_2D, 0, to.left, to.top, from.left, from.top, from.width(), from.height());
+            }
+            source.mFrameBuffer.unbind();
+
+            // now switch the frames over
+            mMovedFrames.clear();
+            for (int i = 0; i < numFrames; i++) {
+                final Frame frame = mCompactFrames.get(i);
+                source.removeFrame(frame);
+                frame.moveTo(target, frame.mTargetSlot);
+                target.addFrame(frame);
+                mMovedFrames.add(frame);
+            }
+            mCompactFrames.subList(0, numFrames).clear();
+
+            if (mListener != null) {
+                mListener.onFramesMoved(this, mMovedFrames);
+            }
+        }
+
+        if (mCompactFrames.isEmpty()) {
+            // done, the source is empty
+            mPages.remove(source);
+            source.unload(mGLState);
+            mCompactSource = mCompactTarget = null;
+            mNumCompactions++;
+        }
+
+        return numFrames;
+    }
+
+    private void stopCompact() {
+        final int numFrames = mCompactFrames.size();
+        for (int i = 0; i < numFrames; i++) {
+            mCompactTarget.mPacker.free(mCompactFrames.get(i).mTargetSlot);
+        }
+        mCompactFrames.clear();
+        mCompactSource.mNumFramesAtFailedCompact = mCompactSource.getNumFrames();
+
+        if (mCompactTarget.getNumFrames() == 0) {
+            mPages.remove(mCompactTarget);
+            mCompactTarget.unload(mGLState);
+        }
+        mCompactSource = mCompactTarget = null;
+    }
+
+    /**
+     * Clear the padding around the content of a slot to transparent. The content itself is covered by the bitmap. The page texture must be bound.
+     * 
+     * @param slot
+     */
+    private void clearPadding(final Rect slot) {
+        if (mPadding <= 0) {
+            return;
+        }
+
+        final int width = slot.width();
+        final int height = slot.height();
+        // RGBA, rows are 4-byte aligned
+        final int size = Math.max(width, height) * mPadding * 4;
+        if (mClearBuffer == null || mClearBuffer.capacity() < size) {
+            mClearBuffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        }
+
+        final GL10 gl = mGLState.mGL;
+        // top and bottom, full width
+        gl.glTexSubImage2D(GL10.GL_TEXTURE_2D, 0, slot.left, slot.top, width, mPadding, GL10.GL_RGBA, GL10.GL_UNSIGNED_BYTE, mClearBuffer);
+        gl.glTexSubImage2D(GL10.GL_TEXTURE_2D, 0, slot.left, slot.bottom - mPadding, width, mPadding, GL10.GL_RGBA, GL10.GL_UNSIGNED_BYTE, mClearBuffer);
+        // left and right, in between
+        gl.glTexSubImage2D(GL10.GL_TEXTURE_2D, 0, slot.left, slot.top + mPadding, mPadding, height - mPadding * 2, GL10.GL_RGBA, GL10.GL_UNSIGNED_BYTE, mClearBuffer);
+        gl.glTexSubImage2D(GL10.GL_TEXTURE_2D, 0, slot.right - mPadding, slot.top + mPadding, mPadding, height - mPadding * 2, GL10.GL_RGBA, GL10.GL_UNSIGNED_BYTE, mClearBuffer);
+    }
+
+    private Page createPage() {
+        final FrameBuffer frameBuffer;
+        final BufferTexture texture;
+        if (FrameBuffer.isSupported()) {
+            // so the page can be read back for compacting
+            frameBuffer = new FrameBuffer(mGLState, mPageSize, mPageSize, false);
+            texture = (BufferTexture) frameBuffer.getTexture();
+        } else {
+            frameBuffer = null;
+            texture = mGLState.getTextureManager().createBufferTexture(mPageSize, mPageSize, false);
+        }
+
+        if (texture == null || !texture.isLoaded()) {
+            Log.e(TAG, "createPage(): Failed to create page " + mPageSize + " x " + mPageSize, new Exception());
+            return null;
+        }
+
+        return new Page(mPageSize, texture, frameBuffer);
+    }
+
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+    public int getNumPages() {
+        return mPages.size();
+    }
+
+    public Page getPage(final int index) {
+        return mPages.get(index);
+    }
+
+    public int getNumFrames() {
+        int frames = 0;
+        final int numPages = mPages.size();
+        for (int i = 0; i < numPages; i++) {
+            frames += mPages.get(i).getNumFrames();
+        }
+
+        return frames;
+    }
+
+    /**
+     * @return the number of pages compacted so far
+     */
+    public int getNumCompactions() {
+        return mNumCompactions;
+    }
+
+    public boolean isCompacting() {
+        return mCompactSource != null;
+    }
+
+    public int getPadding() {
+        return mPadding;
+    }
+
+    /**
+     * Set the transparent gap around each frame to avoid bleeding with linear filtering. Only applies to the frames added after this call.
+     * 
+     * @param padding
+     */
+    public void setPadding(final int padding) {
+        mPadding = padding;
+    }
+
+    public int getMaxPages() {
+        return mMaxPages;
+    }
+
+    /**
+     * @param maxPages 0 for unlimited
+     */
+    public void setMaxPages(final int maxPages) {
+        mMaxPages = maxPages;
+    }
+
+    public float getCompactThreshold() {
+        return mCompactThreshold;
+    }
+
+    /**
+     * Set how fragmented a page can get before it is compacted, from 0 to 1.
+     * 
+     * @param threshold
+     * @see MaxRectsPacker#getFragmentation()
+     */
+    public void setCompactThreshold(final float threshold) {
+        mCompactThreshold = threshold;
+    }
+
+    public float getCompactMinFreeRatio() {
+        return mCompactMinFreeRatio;
+    }
+
+    /**
+     * Set the minimum free space of a page, from 0 to 1, for compacting to be worth it.
+     * 
+     * @param ratio
+     */
+    public void setCompactMinFreeRatio(final float ratio) {
+        mCompactMinFreeRatio = ratio;
+    }
+
+    public int getCompactFramesPerUpdate() {
+        return mCompactFramesPerUpdate;
+    }
+
+    public void setCompactFramesPerUpdate(final int frames) {
+        mCompactFramesPerUpdate = frames;
+    }
+
+    public Listener getListener() {
+        return mListener;
+    }
+
+    public void setListener(final Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * A shared texture page
+     */
+    public static class Page extends Atlas {
+        protected final BufferTexture mTexture;
+        protected final FrameBuffer mFrameBuffer;
+        protected final MaxRectsPacker mPacker;
+        protected int mNextIndex = 0;
+        protected int mNumFramesAtFailedCompact = -1;
+
+        protected Page(final int size, final BufferTexture texture, final FrameBuffer frameBuffer) {
+            super(size, size);
+
+            mTexture = texture;
+            mFrameBuffer = frameBuffer;
+            mPacker = new MaxRectsPacker(size, size);
+        }
+
+        protected int getNumFrames() {
+            return mMasterFrameSet.getNumFrames();
+        }
+
+        protected void unload(final GLState glState) {
+            if (mFrameBuffer != null) {
+                mFrameBuffer.unload();
+            }
+            final TextureManager textureManager = glState.getTextureManager();
+            if (textureManager != null) {
+                textureManager.removeTexture(mTexture);
+            }
+            removeAllFrames();
+        }
+
+        public Texture getTexture() {
+            return mTexture;
+        }
+
+        public MaxRectsPacker getPacker() {
+            return mPacker;
+        }
+    }
+
+    /**
+     * A frame that can move between pages
+     */
+    protected static class Frame extends AtlasFrame {
+        protected Page mPage;
+        protected final Rect mSlot = new Rect();
+        protected final Rect mTargetSlot = new Rect();
+        protected final int mPadding;
+
+        protected Frame(final Page page, final int index, final String name, final Rect slot, final int padding) {
+            super(page, index, name == null ? "" : name, new RectF());
+
+            mPadding = padding;
+            moveTo(page, slot);
+        }
+
+        protected void moveTo(final Page page, final Rect slot) {
+            mPage = page;
+            mAtlas = page;
+            mSlot.set(slot);
+
+            setTexture(page.mTexture);
+            // inclusive, excluding the padding
+            setRect(slot.left + mPadding, slot.top + mPadding, slot.right - mPadding - 1, slot.bottom - mPadding - 1);
+        }
+    }
+
+    public static interface Listener {
+        /**
+         * Called when the frames are moved to another page by compacting. The objects using these frames need to re-apply them, such as {@link com.funzio.pure2D.shapes.Sprite#setAtlasFrame(AtlasFrame)}.
+         * 
+         * @param atlas
+         * @param frames
+         */
+        public void onFramesMoved(DynamicAtlas atlas, List<AtlasFrame> frames);
+    }
+}
@@ -45,4 +45,12 @@ public interface Container extends Parentable {
 
     public boolean swapChildren(final DisplayObject child1, final DisplayObject child2);
 
+    /**
+     * Called after a child's bounds have been re-calculated.
+     * 
+     * @param child
+     * @hide For internal use
+     */
+    public void onChildBoundsUpdated(final DisplayObject child);
+
 }
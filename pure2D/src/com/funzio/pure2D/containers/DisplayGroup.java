@@ -26,6 +26,7 @@ package com.funzio.pure2D.containers;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 import android.graphics.PointF;
 import android.graphics.RectF;
@@ -35,18 +36,25 @@ import android.view.MotionEvent;
 import org.xmlpull.v1.XmlPullParser;
 
 import com.funzio.pure2D.BaseDisplayObject;
+import com.funzio.pure2D.Batchable;
 import com.funzio.pure2D.Cacheable;
 import com.funzio.pure2D.DisplayObject;
 import com.funzio.pure2D.Parentable;
 import com.funzio.pure2D.Pure2D;
 import com.funzio.pure2D.Scene;
 import com.funzio.pure2D.Touchable;
+import com.funzio.pure2D.effects.trails.MotionTrailPlot;
 import com.funzio.pure2D.exceptions.Pure2DException;
 import com.funzio.pure2D.geom.Rectangle;
+import com.funzio.pure2D.gl.gl10.BlendFunc;
 import com.funzio.pure2D.gl.gl10.FrameBuffer;
 import com.funzio.pure2D.gl.gl10.GLState;
+import com.funzio.pure2D.gl.gl10.QuadBatch;
+import com.funzio.pure2D.gl.gl10.textures.Texture;
 import com.funzio.pure2D.shapes.DummyDrawer;
+import com.funzio.pure2D.shapes.Shape;
 import com.funzio.pure2D.ui.UIManager;
+import com.funzio.pure2D.uni.UniContainer;
 
 /**
  * @author long
@@ -56,6 +64,8 @@ public class DisplayGroup extends BaseDisplayObject implements Container, Cachea
     protected static final String ATT_TOUCHABLE = "touchable";
     protected static final String ATT_CLIPPING_ENABLED = "clippingEnabled";
     protected static final String ATT_CACHE_ENABLED = "cacheEnabled";
+    protected static final String ATT_SORTING_ENABLED = "sortingEnabled";
+    protected static final String ATT_SORTING_NON_OVERLAPPING = "sortingNonOverlapping";
 
     protected ArrayList<DisplayObject> mChildren = new ArrayList<DisplayObject>();
     protected ArrayList<DisplayObject> mChildrenDisplayOrder = mChildren;
@@ -83,6 +93,18 @@ public class DisplayGroup extends BaseDisplayObject implements Container, Cachea
     protected boolean mWrapContentWidth = false;
     protected boolean mWrapContentHeight = false;
 
+    // render-state sorting
+    protected boolean mSortingEnabled = false;
+    protected boolean mSortingNonOverlapping = false;
+    private ArrayList<DisplayObject> mSortedChildren;
+    private Texture[] mSortTextures;
+    private BlendFunc[] mSortBlendFuncs;
+    private boolean[] mSortAlphaTests;
+    private boolean[] mSortFlags;
+    private int[] mSortIndices;
+    private int mNumTextureBindsSaved = 0;
+    private int mNumBlendSwitchesSaved = 0;
+
     public DisplayGroup() {
         super();
 
@@ -272,6 +294,20 @@ public class DisplayGroup extends BaseDisplayObject implements Container, Cachea
             return false;
         }
 
+        return drawChildren(glState, mChildrenDisplayOrder);
+    }
+
+    /**
+     * Draw the specified children, in order. This also collects the visible touchables.
+     * 
+     * @param glState
+     * @param children
+     * @return
+     */
+    protected boolean drawChildren(final GLState glState, final List<DisplayObject> children) {
+        // optionally reorder by render state
+        final List<DisplayObject> drawChildren = mSortingEnabled ? sortChildren(children) : children;
+
         if (mTouchable) {
             if (mVisibleTouchables == null) {
                 mVisibleTouchables = new ArrayList<Touchable>();
@@ -283,14 +319,24 @@ public class DisplayGroup extends BaseDisplayObject implements Container, Cachea
         // draw the children
         int numVisibles = 0;
         final boolean uiEnabled = mTouchable && mScene != null && mScene.isUIEnabled();
+        // cached children are drawn into the frame buffer directly
+        final QuadBatch batch = mCacheEnabled ? null : glState.getQuadBatch();
         DisplayObject child;
-        final int numChildren = mChildrenDisplayOrder.size();
+        final int numChildren = drawChildren.size();
         for (int i = 0; i < numChildren; i++) {
-            child = mChildrenDisplayOrder.get(i);
+            child = drawChildren.get(i);
 
             if (child.shouldDraw(mScene != null ? mScene.getCameraRect() : null)) {
-                // draw frame, check alpha for optimization
-                child.draw(glState);
+                // try batching first
+                if (batch == null || !(child instanceof Batchable) || !((Batchable) child).batch(batch)) {
+                    if (batch != null) {
+                        // flush the pending quads before drawing normally
+                        batch.flush();
+                    }
+
+                    // draw frame, check alpha for optimization
+                    child.draw(glState);
+                }
 
                 // stack the visible child
                 if (uiEnabled && child instanceof Touchable && ((Touchable) child).isTouchable()) {
@@ -305,9 +351,141 @@ public class DisplayGroup extends BaseDisplayObject implements Container, Cachea
             }
         }
 
+        // flush before the matrix gets restored
+        if (batch != null) {
+            batch.flush();
+        }
+
         return true;
     }
 
+    /**
+     * Reorder the specified children by render state (texture, blend function and alpha test) to minimize the state switches. Only children with the same z-order are swapped, unless
+     * the children are declared non-overlapping. The relative order of the children sharing the same state is kept.
+     * 
+     * @param children
+     * @return the sorted list, which is reused on the next call
+     * @see #setSortingEnabled(boolean)
+     */
+    protected List<DisplayObject> sortChildren(final List<DisplayObject> children) {
+        final int numChildren = children.size();
+        if (mSortedChildren == null) {
+            mSortedChildren = new ArrayList<DisplayObject>(numChildren);
+        } else {
+            mSortedChildren.clear();
+        }
+
+        // grow the key arrays
+        if (mSortFlags == null || mSortFlags.length < numChildren) {
+            final int capacity = Math.max(numChildren, mSortFlags == null ? 16 : mSortFlags.length * 2);
+            mSortTextures = new Texture[capacity];
+            mSortBlendFuncs = new BlendFunc[capacity];
+            mSortAlphaTests = new boolean[capacity];
+            mSortFlags = new boolean[capacity];
+            mSortIndices = new int[capacity];
+        }
+
+        // collect the keys and count the switches in the original order
+        DisplayObject child;
+        int originalBinds = 0, originalBlends = 0;
+        for (int i = 0; i < numChildren; i++) {
+            child = children.get(i);
+            mSortTextures[i] = getSortingTexture(child);
+            mSortBlendFuncs[i] = child.getBlendFunc();
+            mSortAlphaTests[i] = (child instanceof BaseDisplayObject) && ((BaseDisplayObject) child).isAlphaTestEnabled();
+            mSortFlags[i] = false;
+
+            if (i > 0) {
+                if (mSortTextures[i] != mSortTextures[i - 1]) {
+                    originalBinds++;
+                }
+                if (!isSameBlendFunc(mSortBlendFuncs[i], mSortBlendFuncs[i - 1]) || mSortAlphaTests[i] != mSortAlphaTests[i - 1]) {
+                    originalBlends++;
+                }
+            }
+        }
+
+        // bucket each run of children by state, in the order of first appearance
+        int runStart = 0, runEnd, count = 0;
+        float z;
+        while (runStart < numChildren) {
+            runEnd = runStart + 1;
+            if (mSortingNonOverlapping) {
+                runEnd = numChildren;
+            } else {
+                z = children.get(runStart).getZ();
+                while (runEnd < numChildren && children.get(runEnd).getZ() == z) {
+                    runEnd++;
+                }
+            }
+
+            for (int i = runStart; i < runEnd; i++) {
+                if (mSortFlags[i]) {
+                    continue;
+                }
+
+                mSortIndices[count++] = i;
+                // pull the followers with the same state
+                for (int j = i + 1; j < runEnd; j++) {
+                    if (!mSortFlags[j] && mSortTextures[j] == mSortTextures[i] && mSortAlphaTests[j] == mSortAlphaTests[i] && isSameBlendFunc(mSortBlendFuncs[j], mSortBlendFuncs[i])) {
+                        mSortFlags[j] = true;
+                        mSortIndices[count++] = j;
+                    }
+                }
+            }
+
+            runStart = runEnd;
+        }
+
+        // count the switches in the sorted order
+        int sortedBinds = 0, sortedBlends = 0, index, prevIndex = 0;
+        for (int i = 0; i < numChildren; i++) {
+            index = mSortIndices[i];
+            mSortedChildren.add(children.get(index));
+
+            if (i > 0) {
+                if (mSortTextures[index] != mSortTextures[prevIndex]) {
+                    sortedBinds++;
+                }
+                if (!isSameBlendFunc(mSortBlendFuncs[index], mSortBlendFuncs[prevIndex]) || mSortAlphaTests[index] != mSortAlphaTests[prevIndex]) {
+                    sortedBlends++;
+                }
+            }
+            prevIndex = index;
+
+            // release references
+            mSortTextures[index] = null;
+            mSortBlendFuncs[index] = null;
+        }
+
+        mNumTextureBindsSaved = originalBinds - sortedBinds;
+        mNumBlendSwitchesSaved = originalBlends - sortedBlends;
+
+        return mSortedChildren;
+    }
+
+    /**
+     * Get the texture a child would bind, used as the sorting key. Override this for custom children.
+     * 
+     * @param child
+     * @return the texture or null if unknown
+     */
+    protected Texture getSortingTexture(final DisplayObject child) {
+        if (child instanceof Shape) {
+            return ((Shape) child).getTexture();
+        } else if (child instanceof UniContainer) {
+            return ((UniContainer) child).getTexture();
+        } else if (child instanceof MotionTrailPlot) {
+            return ((MotionTrailPlot) child).getTexture();
+        }
+
+        return null;
+    }
+
+    private static boolean isSameBlendFunc(final BlendFunc func1, final BlendFunc func2) {
+        return func1 == null ? func2 == null : func2 != null && func1.equals(func2);
+    }
+
     /**
      * Test to see if a child can be seen in this container.
      * 
@@ -691,6 +869,55 @@ public class DisplayGroup extends BaseDisplayObject implements Container, Cachea
         invalidate(VISUAL);
     }
 
+    public boolean isSortingEnabled() {
+        return mSortingEnabled;
+    }
+
+    /**
+     * Enable/disable render-state sorting. When enabled, the children with the same z-order are drawn grouped by texture, blend function and alpha test to reduce the GL state
+     * switches and let more quads get batched.
+     * 
+     * @param sortingEnabled
+     * @see #setSortingNonOverlapping(boolean)
+     * @see #getNumTextureBindsSaved()
+     */
+    public void setSortingEnabled(final boolean sortingEnabled) {
+        mSortingEnabled = sortingEnabled;
+        mNumTextureBindsSaved = mNumBlendSwitchesSaved = 0;
+
+        invalidate(VISUAL);
+    }
+
+    public boolean isSortingNonOverlapping() {
+        return mSortingNonOverlapping;
+    }
+
+    /**
+     * Declare that the children never overlap, so they can be sorted across different z-orders.
+     * 
+     * @param nonOverlapping
+     * @see #setSortingEnabled(boolean)
+     */
+    public void setSortingNonOverlapping(final boolean nonOverlapping) {
+        mSortingNonOverlapping = nonOverlapping;
+
+        invalidate(VISUAL);
+    }
+
+    /**
+     * @return the number of texture binds saved by sorting on the last frame
+     */
+    public int getNumTextureBindsSaved() {
+        return mNumTextureBindsSaved;
+    }
+
+    /**
+     * @return the number of blend and alpha test switches saved by sorting on the last frame
+     */
+    public int getNumBlendSwitchesSaved() {
+        return mNumBlendSwitchesSaved;
+    }
+
     public boolean isCacheEnabled() {
         return mCacheEnabled;
     }
@@ -816,6 +1043,16 @@ public class DisplayGroup extends BaseDisplayObject implements Container, Cachea
         if (touchable != null) {
             setTouchable(Boolean.valueOf(touchable));
         }
+
+        final String sortingEnabled = xmlParser.getAttributeValue(null, ATT_SORTING_ENABLED);
+        if (sortingEnabled != null) {
+            setSortingEnabled(Boolean.valueOf(sortingEnabled));
+        }
+
+        final String sortingNonOverlapping = xmlParser.getAttributeValue(null, ATT_SORTING_NON_OVERLAPPING);
+        if (sortingNonOverlapping != null) {
+            setSortingNonOverlapping(Boolean.valueOf(sortingNonOverlapping));
+        }
     }
 
     protected void onAddedChild(final DisplayObject child) {
@@ -826,6 +1063,15 @@ public class DisplayGroup extends BaseDisplayObject implements Container, Cachea
         // TODO
     }
 
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.containers.Container#onChildBoundsUpdated(com.funzio.pure2D.DisplayObject)
+     */
+    @Override
+    public void onChildBoundsUpdated(final DisplayObject child) {
+        // TODO
+    }
+
     @Override
     public void onAddedToScene(final Scene scene) {
         super.onAddedToScene(scene);
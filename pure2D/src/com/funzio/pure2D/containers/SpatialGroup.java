@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.containers;
+
+import java.util.ArrayList;
+
+import android.graphics.RectF;
+
+import com.funzio.pure2D.BaseDisplayObject;
+import com.funzio.pure2D.DisplayObject;
+import com.funzio.pure2D.geom.SpatialGrid;
+import com.funzio.pure2D.gl.gl10.GLState;
+
+/**
+ * A group that indexes its children by their global bounds, so only the children around the camera are visited when drawing. Useful for large worlds such as tile maps. Children are re-indexed
+ * when their bounds change, so they are forced to auto-update bounds.
+ * 
+ * @author long
+ */
+public class SpatialGroup extends DisplayGroup {
+
+    protected SpatialGrid<DisplayObject> mSpatialGrid;
+    protected ArrayList<DisplayObject> mVisibleChildren = new ArrayList<DisplayObject>();
+    private boolean mOrderInvalidated = false;
+
+    public SpatialGroup() {
+        this(SpatialGrid.DEFAULT_CELL_SIZE);
+    }
+
+    public SpatialGroup(final float cellSize) {
+        super();
+
+        mSpatialGrid = new SpatialGrid<DisplayObject>(cellSize);
+    }
+
+    @Override
+    protected boolean drawChildren(final GLState glState) {
+        if (mNumChildren == 0) {
+            return false;
+        }
+
+        final RectF cameraRect = mScene != null ? mScene.getCameraRect() : null;
+        // cache needs all the children
+        if (cameraRect == null || mCacheEnabled) {
+            return super.drawChildren(glState);
+        }
+
+        // display order changed?
+        if (mOrderInvalidated) {
+            final int numChildren = mChildrenDisplayOrder.size();
+            for (int i = 0; i < numChildren; i++) {
+                mSpatialGrid.setOrder(mChildrenDisplayOrder.get(i), i);
+            }
+            mOrderInvalidated = false;
+        }
+
+        // only the children around the camera
+        mSpatialGrid.query(cameraRect, mVisibleChildren, true);
+        final boolean result = drawChildren(glState, mVisibleChildren);
+        mVisibleChildren.clear();
+
+        return result;
+    }
+
+    /**
+     * @hide For internal use
+     */
+    @Override
+    public void onChildBoundsUpdated(final DisplayObject child) {
+        if (child.getParent() == this) {
+            mSpatialGrid.put(child, getIndexedBounds(child));
+        }
+    }
+
+    /**
+     * @return the bounds to index the child with, null means always visible
+     */
+    protected RectF getIndexedBounds(final DisplayObject child) {
+        if (child instanceof BaseDisplayObject && ((BaseDisplayObject) child).isBypassCameraClipping()) {
+            return null;
+        }
+
+        return child.getBounds();
+    }
+
+    @Override
+    protected void onAddedChild(final DisplayObject child) {
+        super.onAddedChild(child);
+
+        // needed for re-indexing
+        child.setAutoUpdateBounds(true);
+        mSpatialGrid.put(child, getIndexedBounds(child));
+        mOrderInvalidated = true;
+    }
+
+    @Override
+    protected void onRemovedChild(final DisplayObject child) {
+        super.onRemovedChild(child);
+
+        mSpatialGrid.remove(child);
+        mOrderInvalidated = true;
+    }
+
+    @Override
+    public boolean swapChildren(final DisplayObject child1, final DisplayObject child2) {
+        if (super.swapChildren(child1, child2)) {
+            mOrderInvalidated = true;
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean swapChildren(final int index1, final int index2) {
+        if (super.swapChildren(index1, index2)) {
+            mOrderInvalidated = true;
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean sendChildToTop(final DisplayObject child) {
+        if (super.sendChildToTop(child)) {
+            mOrderInvalidated = true;
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean sendChildToBottom(final DisplayObject child) {
+        if (super.sendChildToBottom(child)) {
+            mOrderInvalidated = true;
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public void setChildrenDisplayOrder(final ArrayList<DisplayObject> childrenDisplayOrder) {
+        super.setChildrenDisplayOrder(childrenDisplayOrder);
+
+        mOrderInvalidated = true;
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+
+        mSpatialGrid.clear();
+        mVisibleChildren.clear();
+    }
+
+    public SpatialGrid<DisplayObject> getSpatialGrid() {
+        return mSpatialGrid;
+    }
+}
@@ -0,0 +1,413 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.containers;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import android.content.res.AssetManager;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.PointF;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.Log;
+
+import com.funzio.pure2D.BaseScene;
+import com.funzio.pure2D.Camera;
+import com.funzio.pure2D.Scene;
+import com.funzio.pure2D.gl.gl10.textures.Texture;
+import com.funzio.pure2D.gl.gl10.textures.TextureLoader;
+import com.funzio.pure2D.gl.gl10.textures.TextureManager;
+import com.funzio.pure2D.gl.gl10.textures.TextureOptions;
+import com.funzio.pure2D.grid.RectGrid;
+import com.funzio.pure2D.shapes.Sprite;
+
+/**
+ * TiledImage shows a very large image as a grid of fixed-size tiles. Only the tiles intersecting the Camera's bounds plus a prefetch margin are decoded, region by region,
+ * and the off-screen tiles are evicted when the number of loaded tiles exceeds the budget. So the GPU memory stays constant regardless of the image size.
+ * 
+ * @author long
+ */
+public class TiledImage extends GridGroup<Sprite> {
+    public static final String TAG = TiledImage.class.getSimpleName();
+    public static final int DEFAULT_TILE_SIZE = 256;
+
+    protected BitmapRegionDecoder mDecoder;
+    protected final int mTileSize;
+    protected final int mImageWidth;
+    protected final int mImageHeight;
+    protected final int mNumCols;
+    protected final int mNumRows;
+    protected TextureOptions mTextureOptions;
+
+    protected float mPrefetchMargin;
+    protected int mMaxTiles = 0; // <= 0 means automatic
+
+    // the cells of the loaded tiles, and when they were last visible
+    private final int[] mLoadedCells;
+    private int mNumLoadedCells = 0;
+    private final int[] mCellStamps;
+    private int mStamp = 0;
+
+    private final Rect mVisibleCells = new Rect();
+    private final Rect mNeededCells = new Rect();
+    private final RectF mViewRect = new RectF();
+    private final PointF mTempGlobal = new PointF();
+    private final PointF mTempLocal = new PointF();
+
+    /**
+     * @param decoder this is recycled when the TiledImage is disposed
+     * @param tileSize
+     */
+    public TiledImage(final BitmapRegionDecoder decoder, final int tileSize) {
+        super(createGrid(decoder, tileSize));
+
+        mDecoder = decoder;
+        mTileSize = tileSize;
+        mImageWidth = decoder.getWidth();
+        mImageHeight = decoder.getHeight();
+        mNumCols = mGrid.getSize().x;
+        mNumRows = mGrid.getSize().y;
+        mPrefetchMargin = tileSize;
+
+        mLoadedCells = new int[mNumCols * mNumRows];
+        mCellStamps = new int[mNumCols * mNumRows];
+
+        setSize(mImageWidth, mImageHeight);
+    }
+
+    private static RectGrid<Sprite> createGrid(final BitmapRegionDecoder decoder, final int tileSize) {
+        final RectGrid<Sprite> grid = new RectGrid<Sprite>((decoder.getWidth() + tileSize - 1) / tileSize, (decoder.getHeight() + tileSize - 1) / tileSize);
+        grid.setCellSize(tileSize, tileSize);
+        return grid;
+    }
+
+    /**
+     * Create a TiledImage from an image in the assets.
+     * 
+     * @param assets
+     * @param filePath
+     * @param tileSize
+     * @return null if failed
+     */
+    public static TiledImage fromAsset(final AssetManager assets, final String filePath, final int tileSize) {
+        InputStream stream = null;
+        try {
+            stream = assets.open(filePath);
+            return new TiledImage(BitmapRegionDecoder.newInstance(stream, false), tileSize);
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to open: " + filePath, e);
+            return null;
+        } finally {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a TiledImage from an image file.
+     * 
+     * @param filePath
+     * @param tileSize
+     * @return null if failed
+     */
+    public static TiledImage fromFile(final String filePath, final int tileSize) {
+        try {
+            return new TiledImage(BitmapRegionDecoder.newInstance(filePath, false), tileSize);
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to open: " + filePath, e);
+            return null;
+        }
+    }
+
+    @Override
+    protected void updateChildren(final int deltaTime) {
+        updateTiles();
+
+        super.updateChildren(deltaTime);
+    }
+
+    /**
+     * Load the tiles around the view and evict the ones far away
+     */
+    protected void updateTiles() {
+        final Scene scene = getScene();
+        if (scene == null || mDecoder == null) {
+            return;
+        }
+        final TextureManager textureManager = scene.getTextureManager();
+        if (textureManager == null) {
+            return;
+        }
+
+        // find the view rect in local coordinates, rotation and scale are not considered
+        if (!findViewRect(scene)) {
+            return;
+        }
+        final boolean flip = scene.getAxisSystem() == Scene.AXIS_BOTTOM_LEFT;
+        findCells(mViewRect, 0, flip, mVisibleCells);
+        findCells(mViewRect, mPrefetchMargin, flip, mNeededCells);
+
+        mStamp++;
+        int cellX, cellY, index;
+        boolean visible;
+        Sprite tile;
+        Texture texture;
+        for (cellY = mNeededCells.top; cellY <= mNeededCells.bottom; cellY++) {
+            for (cellX = mNeededCells.left; cellX <= mNeededCells.right; cellX++) {
+                index = cellY * mNumCols + cellX;
+                visible = cellX >= mVisibleCells.left && cellX <= mVisibleCells.right && cellY >= mVisibleCells.top && cellY <= mVisibleCells.bottom;
+
+                tile = mGrid.getDataAt(cellX, cellY);
+                if (tile == null) {
+                    tile = createTile(cellX, cellY, flip);
+                    addChildAt(tile, cellX, cellY, false);
+                }
+
+                texture = tile.getTexture();
+                if (texture == null) {
+                    texture = loadTile(textureManager, tile, cellX, cellY, visible);
+                } else if (visible && texture.isLoading()) {
+                    // just came into view
+                    textureManager.getLoader().setPriority(texture, TextureLoader.PRIORITY_VISIBLE);
+                }
+
+                if (visible) {
+                    mCellStamps[index] = mStamp;
+                }
+                tile.setVisible(texture.isLoaded());
+            }
+        }
+
+        // budget check
+        final int maxTiles = mMaxTiles > 0 ? mMaxTiles : (mNeededCells.width() + 2) * (mNeededCells.height() + 2);
+        while (mNumLoadedCells > maxTiles) {
+            if (!evictTile(textureManager)) {
+                break;
+            }
+        }
+    }
+
+    private boolean findViewRect(final Scene scene) {
+        final Camera camera = scene.getCamera();
+        RectF view = camera != null ? camera.getBounds() : scene.getCameraRect();
+        if (view == null) {
+            if (scene instanceof BaseScene) {
+                final PointF size = ((BaseScene) scene).getSize();
+                mViewRect.set(0, 0, size.x, size.y);
+                view = mViewRect;
+            } else {
+                return false;
+            }
+        }
+
+        // convert to local
+        mTempGlobal.set(view.left, view.top);
+        globalToLocal(mTempGlobal, mTempLocal);
+        final float x1 = mTempLocal.x + mOrigin.x;
+        final float y1 = mTempLocal.y + mOrigin.y;
+        mTempGlobal.set(view.right, view.bottom);
+        globalToLocal(mTempGlobal, mTempLocal);
+        final float x2 = mTempLocal.x + mOrigin.x;
+        final float y2 = mTempLocal.y + mOrigin.y;
+        mViewRect.set(Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2));
+
+        return true;
+    }
+
+    /**
+     * Find the range of cells (inclusive) intersecting a local rect. The range is empty (left > right) if nothing intersects.
+     */
+    private void findCells(final RectF rect, final float margin, final boolean flip, final Rect cells) {
+        final float top = flip ? mImageHeight - rect.bottom : rect.top;
+        final float bottom = flip ? mImageHeight - rect.top : rect.bottom;
+        cells.left = Math.max(0, (int) Math.floor((rect.left - margin) / mTileSize));
+        cells.right = Math.min(mNumCols - 1, (int) Math.floor((rect.right + margin) / mTileSize));
+        cells.top = Math.max(0, (int) Math.floor((top - margin) / mTileSize));
+        cells.bottom = Math.min(mNumRows - 1, (int) Math.floor((bottom + margin) / mTileSize));
+    }
+
+    protected Sprite createTile(final int cellX, final int cellY, final boolean flip) {
+        final int width = Math.min(mTileSize, mImageWidth - cellX * mTileSize);
+        final int height = Math.min(mTileSize, mImageHeight - cellY * mTileSize);
+
+        final Sprite tile = new Sprite();
+        tile.setSizeToTexture(false);
+        tile.setSize(width, height);
+        // image rows go from top to bottom
+        tile.setPosition(cellX * mTileSize, flip ? mImageHeight - cellY * mTileSize - height : cellY * mTileSize);
+        tile.setVisible(false);
+
+        return tile;
+    }
+
+    protected Texture loadTile(final TextureManager textureManager, final Sprite tile, final int cellX, final int cellY, final boolean visible) {
+        final Rect region = new Rect(cellX * mTileSize, cellY * mTileSize, Math.min(mImageWidth, (cellX + 1) * mTileSize), Math.min(mImageHeight, (cellY + 1) * mTileSize));
+        final Texture texture = textureManager.createRegionTexture(mDecoder, region, mTextureOptions, true);
+        // the tiles have their own budget, see setMaxTiles()
+        texture.setPinned(true);
+        if (!visible) {
+            textureManager.getLoader().setPriority(texture, TextureLoader.PRIORITY_PREFETCH);
+        }
+        tile.setTexture(texture);
+
+        mLoadedCells[mNumLoadedCells++] = cellY * mNumCols + cellX;
+        // not visible yet, but fresher than the evicted ones
+        mCellStamps[cellY * mNumCols + cellX] = mStamp;
+
+        return texture;
+    }
+
+    /**
+     * Evict the least recently visible tile outside the needed range.
+     * 
+     * @return true if a tile was evicted
+     */
+    private boolean evictTile(final TextureManager textureManager) {
+        int oldest = -1;
+        int index, cellX, cellY;
+        for (int i = 0; i < mNumLoadedCells; i++) {
+            index = mLoadedCells[i];
+            cellX = index % mNumCols;
+            cellY = index / mNumCols;
+            if (cellX >= mNeededCells.left && cellX <= mNeededCells.right && cellY >= mNeededCells.top && cellY <= mNeededCells.bottom) {
+                continue;
+            }
+            if (oldest < 0 || mCellStamps[index] < mCellStamps[mLoadedCells[oldest]]) {
+                oldest = i;
+            }
+        }
+
+        if (oldest < 0) {
+            return false;
+        }
+
+        index = mLoadedCells[oldest];
+        mLoadedCells[oldest] = mLoadedCells[--mNumLoadedCells];
+        unloadTile(textureManager, mGrid.getDataAt(index % mNumCols, index / mNumCols));
+
+        return true;
+    }
+
+    private void unloadTile(final TextureManager textureManager, final Sprite tile) {
+        final Texture texture = tile.getTexture();
+        tile.setTexture(null);
+        tile.setVisible(false);
+        if (texture != null && textureManager != null) {
+            textureManager.removeTexture(texture);
+        }
+    }
+
+    /**
+     * Unload all the tiles, they are loaded again when needed.
+     */
+    public void unloadTiles() {
+        final Scene scene = getScene();
+        final TextureManager textureManager = scene != null ? scene.getTextureManager() : null;
+        int index;
+        for (int i = 0; i < mNumLoadedCells; i++) {
+            index = mLoadedCells[i];
+            unloadTile(textureManager, mGrid.getDataAt(index % mNumCols, index / mNumCols));
+        }
+        mNumLoadedCells = 0;
+    }
+
+    @Override
+    public void onRemovedFromScene() {
+        // the textures belong to the scene's manager
+        unloadTiles();
+
+        super.onRemovedFromScene();
+    }
+
+    @Override
+    public void dispose() {
+        unloadTiles();
+
+        super.dispose();
+
+        if (mDecoder != null) {
+            // the tile jobs are cancelled, wait for the one being decoded, if any
+            synchronized (mDecoder) {
+                mDecoder.recycle();
+            }
+            mDecoder = null;
+        }
+    }
+
+    public int getNumLoadedTiles() {
+        return mNumLoadedCells;
+    }
+
+    public int getTileSize() {
+        return mTileSize;
+    }
+
+    public int getImageWidth() {
+        return mImageWidth;
+    }
+
+    public int getImageHeight() {
+        return mImageHeight;
+    }
+
+    public float getPrefetchMargin() {
+        return mPrefetchMargin;
+    }
+
+    /**
+     * @param margin the distance around the view to preload, in pixels
+     */
+    public void setPrefetchMargin(final float margin) {
+        mPrefetchMargin = margin;
+    }
+
+    public int getMaxTiles() {
+        return mMaxTiles;
+    }
+
+    /**
+     * @param maxTiles the max number of loaded tiles, <= 0 for the tiles around the view plus one ring
+     */
+    public void setMaxTiles(final int maxTiles) {
+        mMaxTiles = maxTiles;
+    }
+
+    public TextureOptions getTextureOptions() {
+        return mTextureOptions;
+    }
+
+    /**
+     * @param textureOptions for the tiles loaded after this call, such as inPreferredConfig
+     */
+    public void setTextureOptions(final TextureOptions textureOptions) {
+        mTextureOptions = textureOptions;
+    }
+}
@@ -482,16 +482,16 @@ public class MotionTrailPlot extends BaseDisplayObject implements MotionTrail, S
     public int stack(final GLState glState, final int index, final VertexBuffer vertexBuffer, final ColorBuffer colorBuffer, final TextureCoordBuffer coordBuffer) {
 
         // update vertices
-        ((QuadMeshBuffer) vertexBuffer).setValuesAt(index, mNumPoints, mMeshBuffer.getVertices());
+        ((QuadMeshBuffer) vertexBuffer).setValuesAt(index, mNumPoints, mMeshBuffer, null);
 
         // update colors
         if (mColorBuffer != null) {
-            ((QuadMeshColorBuffer) colorBuffer).setValuesAt(index, mNumPoints, mColorBuffer.getValues());
+            ((QuadMeshColorBuffer) colorBuffer).setValuesAt(index, mNumPoints, mColorBuffer);
         }
 
         // optional
         if (coordBuffer != null && mTextureCoordBuffer != null) {
-            ((QuadMeshTextureCoordBuffer) coordBuffer).setValuesAt(index, mNumPoints, mTextureCoordBuffer.getValues());
+            ((QuadMeshTextureCoordBuffer) coordBuffer).setValuesAt(index, mNumPoints, mTextureCoordBuffer);
         }
 
         return mNumPoints;
@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.geom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import android.graphics.RectF;
+import android.util.SparseArray;
+
+/**
+ * A uniform grid that buckets items by their axis-aligned bounds, for fast rectangle queries such as camera culling. Cells are created lazily so the grid has no fixed size. Items without
+ * bounds are treated as unbounded and always returned by queries.
+ * 
+ * @author long
+ */
+public class SpatialGrid<T> {
+    public static final float DEFAULT_CELL_SIZE = 256;
+
+    // cell coordinates are packed into 16 bits each
+    private static final int MIN_CELL = Short.MIN_VALUE;
+    private static final int MAX_CELL = Short.MAX_VALUE;
+
+    private static final Comparator<Entry<?>> ORDER_COMPARATOR = new Comparator<Entry<?>>() {
+        @Override
+        public int compare(final Entry<?> lhs, final Entry<?> rhs) {
+            return lhs.mOrder < rhs.mOrder ? -1 : (lhs.mOrder == rhs.mOrder ? 0 : 1);
+        }
+    };
+
+    private final float mCellSize;
+    private final SparseArray<ArrayList<Entry<T>>> mCells = new SparseArray<ArrayList<Entry<T>>>();
+    private final HashMap<T, Entry<T>> mEntries = new HashMap<T, Entry<T>>();
+    private final ArrayList<Entry<T>> mUnbounded = new ArrayList<Entry<T>>();
+    private final ArrayList<Entry<T>> mQueryEntries = new ArrayList<Entry<T>>();
+    private int mQueryStamp = 0;
+
+    public SpatialGrid() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public SpatialGrid(final float cellSize) {
+        mCellSize = cellSize;
+    }
+
+    public float getCellSize() {
+        return mCellSize;
+    }
+
+    public int size() {
+        return mEntries.size();
+    }
+
+    public boolean contains(final T item) {
+        return mEntries.containsKey(item);
+    }
+
+    /**
+     * Add or re-bucket an item.
+     * 
+     * @param item
+     * @param bounds the bounds of the item, or null for an unbounded item
+     * @return true if the item has been (re-)bucketed, false if its cells did not change
+     */
+    public boolean put(final T item, final RectF bounds) {
+        Entry<T> entry = mEntries.get(item);
+        if (entry == null) {
+            entry = new Entry<T>(item);
+            mEntries.put(item, entry);
+        } else if (bounds != null && !entry.mUnbounded && entry.mLeft == toCell(bounds.left) && entry.mTop == toCell(bounds.top) && entry.mRight == toCell(bounds.right)
+                && entry.mBottom == toCell(bounds.bottom)) {
+            // same cells, nothing to do
+            return false;
+        } else {
+            unbucket(entry);
+        }
+
+        bucket(entry, bounds);
+
+        return true;
+    }
+
+    public boolean remove(final T item) {
+        final Entry<T> entry = mEntries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+
+        unbucket(entry);
+
+        return true;
+    }
+
+    public void clear() {
+        mCells.clear();
+        mEntries.clear();
+        mUnbounded.clear();
+        mQueryEntries.clear();
+    }
+
+    /**
+     * Set the order of an item, used for sorting the query results
+     * 
+     * @param item
+     * @param order
+     */
+    public void setOrder(final T item, final int order) {
+        final Entry<T> entry = mEntries.get(item);
+        if (entry != null) {
+            entry.mOrder = order;
+        }
+    }
+
+    /**
+     * Find the items whose cells intersect the specified rect, including the unbounded items. Each item is returned once.
+     * 
+     * @param rect
+     * @param result the list to add the items to
+     * @param sorted true to sort the items by their orders
+     * @return the number of items found
+     * @see #setOrder(Object, int)
+     */
+    public int query(final RectF rect, final List<T> result, final boolean sorted) {
+        mQueryStamp++;
+        mQueryEntries.clear();
+
+        // always included
+        final int numUnbounded = mUnbounded.size();
+        for (int i = 0; i < numUnbounded; i++) {
+            mQueryEntries.add(mUnbounded.get(i));
+        }
+
+        final int left = toCell(rect.left);
+        final int top = toCell(rect.top);
+        final int right = toCell(rect.right);
+        final int bottom = toCell(rect.bottom);
+        ArrayList<Entry<T>> cell;
+        Entry<T> entry;
+        for (int cy = top; cy <= bottom; cy++) {
+            for (int cx = left; cx <= right; cx++) {
+                cell = mCells.get(getKey(cx, cy));
+                if (cell == null) {
+                    continue;
+                }
+
+                final int size = cell.size();
+                for (int i = 0; i < size; i++) {
+                    entry = cell.get(i);
+                    // items can span multiple cells
+                    if (entry.mQueryStamp != mQueryStamp) {
+                        entry.mQueryStamp = mQueryStamp;
+                        mQueryEntries.add(entry);
+                    }
+                }
+            }
+        }
+
+        if (sorted) {
+            Collections.sort(mQueryEntries, ORDER_COMPARATOR);
+        }
+
+        final int numFound = mQueryEntries.size();
+        for (int i = 0; i < numFound; i++) {
+            result.add(mQueryEntries.get(i).mItem);
+        }
+        mQueryEntries.clear();
+
+        return numFound;
+    }
+
+    private void bucket(final Entry<T> entry, final RectF bounds) {
+        if (bounds == null) {
+            entry.mUnbounded = true;
+            mUnbounded.add(entry);
+            return;
+        }
+
+        entry.mUnbounded = false;
+        entry.mLeft = toCell(bounds.left);
+        entry.mTop = toCell(bounds.top);
+        entry.mRight = toCell(bounds.right);
+        entry.mBottom = toCell(bounds.bottom);
+
+        ArrayList<Entry<T>> cell;
+        int key;
+        for (int cy = entry.mTop; cy <= entry.mBottom; cy++) {
+            for (int cx = entry.mLeft; cx <= entry.mRight; cx++) {
+                key = getKey(cx, cy);
+                cell = mCells.get(key);
+                if (cell == null) {
+                    cell = new ArrayList<Entry<T>>();
+                    mCells.put(key, cell);
+                }
+                cell.add(entry);
+            }
+        }
+    }
+
+    private void unbucket(final Entry<T> entry) {
+        if (entry.mUnbounded) {
+            mUnbounded.remove(entry);
+            return;
+        }
+
+        ArrayList<Entry<T>> cell;
+        for (int cy = entry.mTop; cy <= entry.mBottom; cy++) {
+            for (int cx = entry.mLeft; cx <= entry.mRight; cx++) {
+                cell = mCells.get(getKey(cx, cy));
+                if (cell != null) {
+                    cell.remove(entry);
+                }
+            }
+        }
+    }
+
+    private int toCell(final float value) {
+        final float cell = (float) Math.floor(value / mCellSize);
+        return cell < MIN_CELL ? MIN_CELL : (cell > MAX_CELL ? MAX_CELL : (int) cell);
+    }
+
+    private static int getKey(final int cx, final int cy) {
+        return (cx << 16) | (cy & 0xFFFF);
+    }
+
+    private static class Entry<T> {
+        private final T mItem;
+        private int mOrder = 0;
+        private int mQueryStamp = 0;
+        private boolean mUnbounded = false;
+        // cell range
+        private int mLeft, mTop, mRight, mBottom;
+
+        public Entry(final T item) {
+            mItem = item;
+        }
+    }
+}
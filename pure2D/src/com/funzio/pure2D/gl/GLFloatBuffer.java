@@ -67,6 +67,89 @@ public class GLFloatBuffer {
         }
     }
 
+    /**
+     * Allocate a new zeroed buffer for writing values directly with the put() methods
+     * 
+     * @param capacity number of floats
+     */
+    public void allocate(final int capacity) {
+        // a float is 4 bytes
+        ByteBuffer bb = ByteBuffer.allocateDirect(capacity * 4);
+        bb.order(ByteOrder.nativeOrder());
+        mBuffer = bb.asFloatBuffer();
+        mCapacity = capacity;
+    }
+
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Write a value directly into the buffer, with an absolute put
+     * 
+     * @param index
+     * @param value
+     */
+    public void put(final int index, final float value) {
+        mBuffer.put(index, value);
+    }
+
+    /**
+     * Write some values directly into the buffer, with a bulk put
+     * 
+     * @param index
+     * @param values
+     * @param srcOffset
+     * @param length
+     */
+    public void put(final int index, final float[] values, final int srcOffset, final int length) {
+        mBuffer.position(index);
+        mBuffer.put(values, srcOffset, length);
+        mBuffer.position(0);
+    }
+
+    /**
+     * Copy some values from another buffer, natively
+     * 
+     * @param index
+     * @param src
+     * @param srcIndex
+     * @param length
+     */
+    public void put(final int index, final GLFloatBuffer src, final int srcIndex, final int length) {
+        final FloatBuffer srcBuffer = src.mBuffer;
+        srcBuffer.limit(srcIndex + length);
+        srcBuffer.position(srcIndex);
+        mBuffer.position(index);
+        mBuffer.put(srcBuffer);
+        mBuffer.position(0);
+        srcBuffer.clear();
+    }
+
+    public float get(final int index) {
+        return mBuffer.get(index);
+    }
+
+    /**
+     * Copy a range of the values into the current buffer, without re-allocating. The whole buffer is reset if the length of the values does not match.
+     * 
+     * @param values
+     * @param start the first value to copy
+     * @param end the last value to copy, exclusive
+     */
+    public void setValuesRange(final float[] values, final int start, final int end) {
+        if (mBuffer == null || values == null || mCapacity != values.length) {
+            setValues(values);
+            return;
+        }
+
+        if (end > start) {
+            mBuffer.position(start);
+            mBuffer.put(values, start, end - start);
+            mBuffer.position(0);
+        }
+    }
+
     public void dispose() {
         // texture coordinates buffer
         if (mBuffer != null) {
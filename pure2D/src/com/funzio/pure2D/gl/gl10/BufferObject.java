@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.gl.gl10;
+
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+
+import javax.microedition.khronos.opengles.GL10;
+
+import android.opengl.GLES11;
+
+/**
+ * A GL buffer object that is allocated once, grown geometrically and updated in place with glBufferSubData(). Requires GLES11.
+ * 
+ * @author long
+ */
+public class BufferObject {
+    private final int mTarget;
+    private final int mUsage;
+
+    private int mID = 0;
+    private int mCapacity = 0; // in bytes
+    private GL10 mGL;
+    private final int[] mScratch = new int[1];
+
+    /**
+     * @param target GL_ARRAY_BUFFER or GL_ELEMENT_ARRAY_BUFFER
+     * @param usage GL_STATIC_DRAW or GL_DYNAMIC_DRAW
+     */
+    public BufferObject(final int target, final int usage) {
+        mTarget = target;
+        mUsage = usage;
+    }
+
+    /**
+     * @return false when the buffer has not been created or the GL context got reset
+     */
+    public boolean verifyGLState(final GLState glState) {
+        return mID != 0 && glState.mGL == mGL;
+    }
+
+    /**
+     * Upload a range of the specified float data. The whole data gets uploaded when the buffer is (re-)allocated. The buffer is left bound.
+     * 
+     * @param glState
+     * @param data
+     * @param start the first float to upload
+     * @param end the last float to upload, exclusive
+     */
+    public void upload(final GLState glState, final FloatBuffer data, final int start, final int end) {
+        upload(glState, data, 4, start, end);
+    }
+
+    /**
+     * Upload a range of the specified data. The whole data gets uploaded when the buffer is (re-)allocated. The buffer is left bound.
+     * 
+     * @param glState
+     * @param data
+     * @param elementSize the size of each element in bytes
+     * @param start the first element to upload
+     * @param end the last element to upload, exclusive
+     */
+    public void upload(final GLState glState, final Buffer data, final int elementSize, final int start, final int end) {
+        final int size = data.capacity() * elementSize;
+
+        if (!verifyGLState(glState)) {
+            // new buffer, the old one is gone with the old context
+            GLES11.glGenBuffers(1, mScratch, 0);
+            mID = mScratch[0];
+            mGL = glState.mGL;
+            mCapacity = 0;
+        }
+
+        GLES11.glBindBuffer(mTarget, mID);
+
+        if (size > mCapacity) {
+            // grow geometrically to avoid re-allocating every time
+            mCapacity = Math.max(size, mCapacity * 2);
+            GLES11.glBufferData(mTarget, mCapacity, null, mUsage);
+
+            // everything is needed
+            data.position(0);
+            GLES11.glBufferSubData(mTarget, 0, size, data);
+        } else if (end > start) {
+            data.position(start);
+            GLES11.glBufferSubData(mTarget, start * elementSize, (end - start) * elementSize, data);
+            data.position(0);
+        }
+    }
+
+    public void bind() {
+        GLES11.glBindBuffer(mTarget, mID);
+    }
+
+    public void unbind() {
+        GLES11.glBindBuffer(mTarget, 0);
+    }
+
+    public void unload() {
+        if (mID != 0) {
+            mScratch[0] = mID;
+            GLES11.glDeleteBuffers(1, mScratch, 0);
+            mID = 0;
+            mCapacity = 0;
+            mGL = null;
+        }
+    }
+
+    public int getID() {
+        return mID;
+    }
+
+    public int getTarget() {
+        return mTarget;
+    }
+
+    public int getUsage() {
+        return mUsage;
+    }
+
+    /**
+     * @return the allocated size in bytes
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+}
@@ -24,8 +24,6 @@
  */
 package com.funzio.pure2D.gl.gl10;
 
-import javax.microedition.khronos.opengles.GL10;
-
 import com.funzio.pure2D.gl.GLColor;
 import com.funzio.pure2D.gl.GLFloatBuffer;
 
@@ -60,7 +58,8 @@ public class ColorBuffer extends GLFloatBuffer {
             // gl.glEnableClientState(GL10.GL_COLOR_ARRAY);
             glState.setColorArrayEnabled(true);
 
-            glState.mGL.glColorPointer(4, GL10.GL_FLOAT, 0, mBuffer);
+            // glState.mGL.glColorPointer(4, GL10.GL_FLOAT, 0, mBuffer);
+            glState.setColorBuffer(this);
         }
     }
 
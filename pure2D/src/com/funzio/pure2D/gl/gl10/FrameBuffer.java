@@ -194,7 +194,7 @@ public class FrameBuffer {
         // back to model
         mGL.glMatrixMode(GL10.GL_MODELVIEW);
         // Reset the modelview matrix
-        mGL.glPushMatrix();
+        mGLState.pushMatrix();
         mGL.glLoadIdentity();
 
         // toggle depth test
@@ -231,7 +231,7 @@ public class FrameBuffer {
         // back to model
         mGL.glMatrixMode(GL10.GL_MODELVIEW);
         // Reset the modelview matrix
-        mGL.glPopMatrix();
+        mGLState.popMatrix();
 
         return true;
     }
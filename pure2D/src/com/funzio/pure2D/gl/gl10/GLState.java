@@ -24,6 +24,8 @@
  */
 package com.funzio.pure2D.gl.gl10;
 
+import java.nio.Buffer;
+
 import javax.microedition.khronos.opengles.GL10;
 import javax.microedition.khronos.opengles.GL11ExtensionPack;
 
@@ -58,6 +60,7 @@ public class GLState {
 
     // array toggles
     private VertexBuffer mVertexBuffer;
+    private ColorBuffer mColorBuffer;
     private boolean mVertexArrayEnabled = false;
     private boolean mDepthTestEnabled = false;
     private boolean mScissorTestEnabled = false;
@@ -83,6 +86,12 @@ public class GLState {
     private TextureManager mTextureManager;
     private int mAxisSystem = Scene.AXIS_BOTTOM_LEFT;
 
+    // batching
+    private QuadBatch mQuadBatch;
+
+    // instrumentation
+    private final GLStats mStats = new GLStats();
+
     // public Camera mCamera;
 
     // private int mInvalidateFlags = 0;
@@ -112,6 +121,7 @@ public class GLState {
         mDepthTestEnabled = false;
         mScissorTestEnabled = false;
 
+        mColorBuffer = null;
         mColorArrayEnabled = false;
         mAlphaTestEnabled = false;
         mColor = new GLColor(1f, 1f, 1f, 1f);
@@ -232,6 +242,7 @@ public class GLState {
 
         // only works for GLES11
         ((GL11ExtensionPack) mGL).glBindFramebufferOES(GL11ExtensionPack.GL_FRAMEBUFFER_OES, mFrameBuffer);
+        mStats.addFrameBufferSwitch();
 
         return true;
     }
@@ -252,6 +263,7 @@ public class GLState {
         // bind to gl
         mTexture = texture;
         mGL.glBindTexture(GL10.GL_TEXTURE_2D, mTexture.mTextureID);
+        mStats.addTextureBind();
 
         return true;
     }
@@ -390,6 +402,20 @@ public class GLState {
         return true;
     }
 
+    public boolean setColorBuffer(final ColorBuffer buffer) {
+        if (buffer != null) {
+            mGL.glColorPointer(4, GL10.GL_FLOAT, 0, buffer.mBuffer);
+        }
+
+        // now keep
+        mColorBuffer = buffer;
+        return true;
+    }
+
+    public ColorBuffer getColorBuffer() {
+        return mColorBuffer;
+    }
+
     /**
      * @return the colorArrayEnabled
      */
@@ -460,6 +486,7 @@ public class GLState {
 
         // apply
         mGL.glColor4f(mColor.r, mColor.g, mColor.b, mColor.a);
+        mStats.addColorChange();
 
         return true;
     }
@@ -476,6 +503,7 @@ public class GLState {
         // apply
         mColor.setValues(r, g, b, a);
         mGL.glColor4f(mColor.r, mColor.g, mColor.b, mColor.a);
+        mStats.addColorChange();
 
         return true;
     }
@@ -510,6 +538,7 @@ public class GLState {
                 } else {
                     GLES11Ext.glBlendFuncSeparateOES(mBlendFunc.src, mBlendFunc.dst, mBlendFunc.src_alpha, mBlendFunc.dst_alpha);
                 }
+                mStats.addBlendChange();
                 return true;
             } else {
                 return false;
@@ -526,10 +555,50 @@ public class GLState {
         } else {
             GLES11Ext.glBlendFuncSeparateOES(blendFunc.src, blendFunc.dst, blendFunc.src_alpha, blendFunc.dst_alpha);
         }
+        mStats.addBlendChange();
 
         return true;
     }
 
+    /**
+     * glPushMatrix() on the current matrix mode, counted in the stats.
+     */
+    public void pushMatrix() {
+        mGL.glPushMatrix();
+        mStats.addMatrixPush();
+    }
+
+    /**
+     * glPopMatrix() on the current matrix mode, counted in the stats.
+     */
+    public void popMatrix() {
+        mGL.glPopMatrix();
+        mStats.addMatrixPop();
+    }
+
+    /**
+     * glDrawArrays(), counted in the stats.
+     */
+    public void drawArrays(final int mode, final int first, final int count) {
+        mGL.glDrawArrays(mode, first, count);
+        mStats.addDrawCall(count);
+    }
+
+    /**
+     * glDrawElements(), counted in the stats.
+     */
+    public void drawElements(final int mode, final int count, final int type, final Buffer indices) {
+        mGL.glDrawElements(mode, count, type, indices);
+        mStats.addDrawCall(count);
+    }
+
+    /**
+     * @return the render statistics of this state
+     */
+    public GLStats getStats() {
+        return mStats;
+    }
+
     public int getError() {
         return mGL.glGetError();
     }
@@ -658,4 +727,22 @@ public class GLState {
     public Stage getStage() {
         return mStage;
     }
+
+    /**
+     * @return the current quad batch, null if batching is disabled
+     * @see com.funzio.pure2D.BaseScene#setBatchingEnabled(boolean)
+     */
+    public QuadBatch getQuadBatch() {
+        return mQuadBatch;
+    }
+
+    /**
+     * For internal use only
+     * 
+     * @hide
+     * @param quadBatch
+     */
+    public void setQuadBatch(final QuadBatch quadBatch) {
+        mQuadBatch = quadBatch;
+    }
 }
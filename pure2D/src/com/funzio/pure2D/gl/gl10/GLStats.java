@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.gl.gl10;
+
+/**
+ * Per-frame render statistics, collected by {@link GLState}. The counters of the current frame are rolled into the last-frame values by {@link #endFrame()}, so the getters
+ * always return a complete frame. Nothing gets allocated while counting.
+ * 
+ * @author long
+ * @see GLState#getStats()
+ */
+public class GLStats {
+
+    // current frame
+    private int mDrawCalls = 0;
+    private int mVertices = 0;
+    private int mTextureBinds = 0;
+    private int mBlendChanges = 0;
+    private int mColorChanges = 0;
+    private int mMatrixPushes = 0;
+    private int mMatrixPops = 0;
+    private int mFrameBufferSwitches = 0;
+
+    // last frame
+    private int mLastDrawCalls = 0;
+    private int mLastVertices = 0;
+    private int mLastTextureBinds = 0;
+    private int mLastBlendChanges = 0;
+    private int mLastColorChanges = 0;
+    private int mLastMatrixPushes = 0;
+    private int mLastMatrixPops = 0;
+    private int mLastFrameBufferSwitches = 0;
+
+    // timings, in nanoseconds
+    private long mUpdateTime = 0;
+    private long mDrawTime = 0;
+    private long mNumFrames = 0;
+
+    /**
+     * @param vertices the number of vertices, or indices for indexed drawing
+     */
+    public void addDrawCall(final int vertices) {
+        mDrawCalls++;
+        mVertices += vertices;
+    }
+
+    public void addTextureBind() {
+        mTextureBinds++;
+    }
+
+    public void addBlendChange() {
+        mBlendChanges++;
+    }
+
+    public void addColorChange() {
+        mColorChanges++;
+    }
+
+    public void addMatrixPush() {
+        mMatrixPushes++;
+    }
+
+    public void addMatrixPop() {
+        mMatrixPops++;
+    }
+
+    public void addFrameBufferSwitch() {
+        mFrameBufferSwitches++;
+    }
+
+    /**
+     * @param nanos the time spent on updating the scene
+     */
+    public void setUpdateTime(final long nanos) {
+        mUpdateTime = nanos;
+    }
+
+    /**
+     * @param nanos the time spent on drawing the scene
+     */
+    public void setDrawTime(final long nanos) {
+        mDrawTime = nanos;
+    }
+
+    /**
+     * Roll the current counters into the last-frame values and start a new frame.
+     */
+    public void endFrame() {
+        mLastDrawCalls = mDrawCalls;
+        mLastVertices = mVertices;
+        mLastTextureBinds = mTextureBinds;
+        mLastBlendChanges = mBlendChanges;
+        mLastColorChanges = mColorChanges;
+        mLastMatrixPushes = mMatrixPushes;
+        mLastMatrixPops = mMatrixPops;
+        mLastFrameBufferSwitches = mFrameBufferSwitches;
+        mNumFrames++;
+
+        mDrawCalls = mVertices = mTextureBinds = mBlendChanges = mColorChanges = mMatrixPushes = mMatrixPops = mFrameBufferSwitches = 0;
+    }
+
+    /**
+     * Clear everything, including the last-frame values.
+     */
+    public void reset() {
+        endFrame();
+        endFrame();
+
+        mUpdateTime = mDrawTime = mNumFrames = 0;
+    }
+
+    public int getDrawCalls() {
+        return mLastDrawCalls;
+    }
+
+    public int getVertices() {
+        return mLastVertices;
+    }
+
+    public int getTextureBinds() {
+        return mLastTextureBinds;
+    }
+
+    public int getBlendChanges() {
+        return mLastBlendChanges;
+    }
+
+    public int getColorChanges() {
+        return mLastColorChanges;
+    }
+
+    public int getMatrixPushes() {
+        return mLastMatrixPushes;
+    }
+
+    public int getMatrixPops() {
+        return mLastMatrixPops;
+    }
+
+    public int getFrameBufferSwitches() {
+        return mLastFrameBufferSwitches;
+    }
+
+    /**
+     * @return the update time of the last frame, in milliseconds
+     */
+    public float getUpdateTime() {
+        return mUpdateTime / 1000000f;
+    }
+
+    /**
+     * @return the draw time of the last frame, in milliseconds
+     */
+    public float getDrawTime() {
+        return mDrawTime / 1000000f;
+    }
+
+    /**
+     * @return the number of frames drawn since the last reset
+     */
+    public long getNumFrames() {
+        return mNumFrames;
+    }
+
+    /**
+     * Append a human-readable summary of the last frame.
+     * 
+     * @param builder
+     * @return the same builder
+     */
+    public StringBuilder appendTo(final StringBuilder builder) {
+        builder.append("draws: ").append(mLastDrawCalls).append(" verts: ").append(mLastVertices);
+        builder.append("\ntex: ").append(mLastTextureBinds).append(" blend: ").append(mLastBlendChanges).append(" color: ").append(mLastColorChanges);
+        builder.append("\npush/pop: ").append(mLastMatrixPushes).append('/').append(mLastMatrixPops).append(" fbo: ").append(mLastFrameBufferSwitches);
+        builder.append("\nupdate: ").append(mUpdateTime / 1000).append("us draw: ").append(mDrawTime / 1000).append("us");
+        return builder;
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder()).toString();
+    }
+}
@@ -72,7 +72,7 @@ public class Projector {
         mGL.glMatrixMode(GL10.GL_PROJECTION);
         // test pushing
         if (mPushMatrixError == 0) {
-            mGL.glPushMatrix(); // see glGetIntegerv(GL_MAX_PROJECTION_STACK_DEPTH, &result, 0);
+            mGLState.pushMatrix(); // see glGetIntegerv(GL_MAX_PROJECTION_STACK_DEPTH, &result, 0);
             // check error
             mPushMatrixError = mGL.glGetError();
         }
@@ -96,7 +96,7 @@ public class Projector {
         // back to model
         mGL.glMatrixMode(GL10.GL_MODELVIEW);
         // Reset the modelview matrix
-        mGL.glPushMatrix();
+        mGLState.pushMatrix();
         mGL.glLoadIdentity();
 
         return true;
@@ -116,7 +116,7 @@ public class Projector {
         mGL.glMatrixMode(GL10.GL_PROJECTION);
         if (mPushMatrixError == 0) {
             // Restore the projection matrix
-            mGL.glPopMatrix();
+            mGLState.popMatrix();
         } else {
             mGL.glLoadIdentity();
             // Use mOriginalProjection instead
@@ -129,7 +129,7 @@ public class Projector {
         // back to model
         mGL.glMatrixMode(GL10.GL_MODELVIEW);
         // Reset the modelview matrix
-        mGL.glPopMatrix();
+        mGLState.popMatrix();
 
         return true;
     }
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.gl.gl10;
+
+import android.graphics.Matrix;
+
+import com.funzio.pure2D.gl.GLColor;
+import com.funzio.pure2D.gl.gl10.textures.QuadMeshTextureCoordBuffer;
+import com.funzio.pure2D.gl.gl10.textures.Texture;
+
+/**
+ * @author long
+ * @category This class collects consecutive quads that share the same Texture, BlendFunc, Color and Alpha-test into a single CPU-transformed vertex stream and flushes them with one
+ *           glDrawElements().
+ * @see com.funzio.pure2D.Batchable
+ */
+public class QuadBatch implements QuadCollector {
+    public static final int DEFAULT_CAPACITY = 256; // quads
+    public static final int MAX_CAPACITY = QuadMeshBuffer.MAX_CELLS_PER_PAGE; // one page per draw call
+
+    private final GLState mGLState;
+    private final QuadMeshBuffer mMeshBuffer;
+    private final QuadMeshTextureCoordBuffer mCoordBuffer;
+    private int mCapacity;
+    private int mNumQuads = 0;
+
+    // state of the current run
+    private Texture mTexture;
+    private BlendFunc mBlendFunc;
+    private final GLColor mColor = new GLColor(1f, 1f, 1f, 1f);
+    private boolean mAlphaTestEnabled = false;
+
+    // scratch
+    private final float[] mVertices = new float[QuadMeshBuffer.NUM_VERTICES_PER_CELL * 2];
+
+    // stats
+    private int mNumDrawCalls = 0;
+    private int mNumBatchedQuads = 0;
+
+    public QuadBatch(final GLState glState) {
+        this(glState, DEFAULT_CAPACITY);
+    }
+
+    public QuadBatch(final GLState glState, final int capacity) {
+        mGLState = glState;
+        mCapacity = Math.min(capacity, MAX_CAPACITY);
+        mMeshBuffer = new QuadMeshBuffer(mCapacity);
+        mCoordBuffer = new QuadMeshTextureCoordBuffer(mCapacity);
+    }
+
+    /**
+     * Add a quad to the batch. The current run is flushed automatically when the state changes.
+     * 
+     * @see com.funzio.pure2D.gl.gl10.QuadCollector#add(com.funzio.pure2D.gl.gl10.textures.Texture, float[], float[], android.graphics.Matrix, com.funzio.pure2D.gl.gl10.BlendFunc,
+     *      com.funzio.pure2D.gl.GLColor, boolean)
+     */
+    public void add(final Texture texture, final float[] coords, final float[] vertices, final Matrix matrix, final BlendFunc blendFunc, final GLColor color, final boolean alphaTestEnabled) {
+        // state check
+        if (mNumQuads > 0 && (texture != mTexture || !isSameBlendFunc(mBlendFunc, blendFunc) || !isSameColor(color) || alphaTestEnabled != mAlphaTestEnabled)) {
+            flush();
+        }
+
+        // start a new run
+        if (mNumQuads == 0) {
+            mTexture = texture;
+            mBlendFunc = blendFunc;
+            mAlphaTestEnabled = alphaTestEnabled;
+            if (color == null) {
+                mColor.setValues(1f, 1f, 1f, 1f);
+            } else {
+                mColor.setValues(color);
+            }
+        }
+
+        // transform on CPU
+        if (matrix != null) {
+            matrix.mapPoints(mVertices, vertices);
+            mMeshBuffer.setValuesAt(mNumQuads, mVertices);
+        } else {
+            mMeshBuffer.setValuesAt(mNumQuads, vertices);
+        }
+
+        if (texture != null) {
+            mCoordBuffer.setRectAt(mNumQuads, coords);
+        }
+
+        mNumQuads++;
+        mNumBatchedQuads++;
+
+        // full?
+        if (mNumQuads == mCapacity) {
+            flush();
+
+            // grow for the next runs
+            if (mCapacity < MAX_CAPACITY) {
+                mCapacity = Math.min(mCapacity * 2, MAX_CAPACITY);
+                mMeshBuffer.setNumCells(mCapacity);
+                mCoordBuffer.setNumCells(mCapacity);
+            }
+        }
+    }
+
+    /**
+     * Draw all the pending quads with one draw call. This needs to be called before the model-view matrix or any GL state changes.
+     * 
+     * @see com.funzio.pure2D.gl.gl10.QuadCollector#flush()
+     */
+    public void flush() {
+        if (mNumQuads == 0) {
+            return;
+        }
+
+        final GLState glState = mGLState;
+        glState.setAlphaTestEnabled(mAlphaTestEnabled);
+        glState.setBlendFunc(mBlendFunc);
+        glState.setColor(mColor);
+        // no color buffer supported
+        glState.setColorArrayEnabled(false);
+
+        // texture
+        if (mTexture != null) {
+            // bind the texture
+            mTexture.bind();
+
+            // apply coords
+            mCoordBuffer.apply(glState);
+        } else {
+            // unbind the texture
+            glState.unbindTexture();
+            glState.setTextureCoordArrayEnabled(false);
+        }
+
+        // flush it out
+        mMeshBuffer.setIndicesNumUsed(mNumQuads * QuadMeshBuffer.NUM_INDICES_PER_CELL);
+        mMeshBuffer.draw(glState);
+        mNumDrawCalls++;
+
+        // reset the run
+        mNumQuads = 0;
+        mTexture = null;
+        mBlendFunc = null;
+    }
+
+    public int getNumPendingQuads() {
+        return mNumQuads;
+    }
+
+    /**
+     * @return number of draw calls issued since {@link #resetStats()}
+     */
+    public int getNumDrawCalls() {
+        return mNumDrawCalls;
+    }
+
+    /**
+     * @return number of quads batched since {@link #resetStats()}
+     */
+    public int getNumBatchedQuads() {
+        return mNumBatchedQuads;
+    }
+
+    public void resetStats() {
+        mNumDrawCalls = 0;
+        mNumBatchedQuads = 0;
+    }
+
+    public void dispose() {
+        mNumQuads = 0;
+        mTexture = null;
+        mBlendFunc = null;
+        mMeshBuffer.dispose();
+        mCoordBuffer.dispose();
+    }
+
+    private boolean isSameColor(final GLColor color) {
+        return color == null ? mColor.equals(1f, 1f, 1f, 1f) : mColor.equals(color);
+    }
+
+    private static boolean isSameBlendFunc(final BlendFunc a, final BlendFunc b) {
+        return a == b || (a != null && b != null && a.equals(b));
+    }
+}
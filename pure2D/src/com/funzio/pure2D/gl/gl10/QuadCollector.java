@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.gl.gl10;
+
+import android.graphics.Matrix;
+
+import com.funzio.pure2D.gl.GLColor;
+import com.funzio.pure2D.gl.gl10.textures.Texture;
+
+/**
+ * @author long
+ * @category A sink of CPU-transformed quads, such as {@link QuadBatch}. Quads are drawn later with as few draw calls as possible.
+ * @see com.funzio.pure2D.Batchable
+ */
+public interface QuadCollector {
+
+    /**
+     * Add a quad to this collector.
+     * 
+     * @param texture can be null
+     * @param coords the texture coordinates, 4 points. Ignored when texture is null
+     * @param vertices the local vertices, 4 points in triangle-strip order
+     * @param matrix the transformation to apply on the vertices, can be null
+     * @param blendFunc null for the default blend func
+     * @param color null for white
+     * @param alphaTestEnabled
+     */
+    public void add(Texture texture, float[] coords, float[] vertices, Matrix matrix, BlendFunc blendFunc, GLColor color, boolean alphaTestEnabled);
+
+    /**
+     * Draw all the pending quads. This needs to be called before the model-view matrix or any GL state changes.
+     */
+    public void flush();
+}
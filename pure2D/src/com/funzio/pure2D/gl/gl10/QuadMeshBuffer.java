@@ -24,7 +24,20 @@
  */
 package com.funzio.pure2D.gl.gl10;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
 import javax.microedition.khronos.opengles.GL10;
+import javax.microedition.khronos.opengles.GL11;
+
+import android.graphics.Matrix;
+import android.opengl.GLES11;
+
+import com.funzio.pure2D.Pure2D;
+import com.funzio.pure2D.gl.gl10.textures.TextureCoordBuffer;
 
 /**
  * @author long
@@ -32,11 +45,27 @@ import javax.microedition.khronos.opengles.GL10;
 public class QuadMeshBuffer extends VertexBuffer {
     public static final int NUM_VERTICES_PER_CELL = 4;
     public static final int NUM_INDICES_PER_CELL = 6;
+    // limited by unsigned short indices
+    public static final int MAX_CELLS_PER_PAGE = 0x10000 / NUM_VERTICES_PER_CELL;
+
+    // GL_OES_element_index_uint
+    private static final int GL_UNSIGNED_INT = 0x1405;
 
-    protected float[] mVertices;
-    protected short[] mIndices;
+    // indices are always the same, shared by all meshes
+    private static ShortBuffer sShortIndices;
+    private static IntBuffer sIntIndices;
+
+    protected IntBuffer mIntIndexBuffer;
     protected int mNumCells = 0;
     protected boolean mInvalidated = false;
+    // the range of values to apply
+    protected int mDirtyStart = 0;
+    protected int mDirtyEnd = 0;
+
+    // optional VBO for streaming vertices
+    protected BufferObject mBufferObject;
+
+    private final float[] mMatrixValues = new float[9];
 
     public QuadMeshBuffer(final int numCells) {
         super(GL10.GL_TRIANGLES, numCells * NUM_VERTICES_PER_CELL);
@@ -46,152 +75,367 @@ public class QuadMeshBuffer extends VertexBuffer {
 
     public void setNumCells(final int numCells) {
         if (numCells > mNumCells) {
-            // final float[] currentVertices = mVertices;
-            mVertices = new float[numCells * NUM_VERTICES_PER_CELL * mVertexPointerSize];
-            mIndices = new short[numCells * NUM_INDICES_PER_CELL];
-
-            // restore values
-            // if (currentVertices != null) {
-            // for (int i = 0; i < currentVertices.length; i++) {
-            // mVertices[i] = currentVertices[i];
-            // }
-            // }
-
-            // indices is always fixed
-            int start = 0;
-            short vertexStart = 0;
-            for (int i = 0; i < numCells; i++) {
-                // first triangle
-                mIndices[start] = vertexStart;
-                mIndices[start + 1] = (short) (vertexStart + 1);
-                mIndices[start + 2] = (short) (vertexStart + 2);
-                // second triangle
-                mIndices[start + 3] = (short) (vertexStart + 2);
-                mIndices[start + 4] = (short) (vertexStart + 1);
-                mIndices[start + 5] = (short) (vertexStart + 3);
-                start += NUM_INDICES_PER_CELL;
-                vertexStart += NUM_VERTICES_PER_CELL;
-            }
-            setIndices(mIndices);
+            // vertices are written directly into a new buffer
+            allocate(numCells * NUM_VERTICES_PER_CELL * mVertexPointerSize);
 
-            mInvalidated = true;
+            invalidateRange(0, getCapacity());
         }
 
         mNumCells = numCells;
         mVerticesNum = numCells * NUM_VERTICES_PER_CELL;
+        // the shared index buffers are resolved when drawing
+        mIndicesNum = numCells * NUM_INDICES_PER_CELL;
     }
 
-    public int getNumCells() {
-        return mNumCells;
+    /**
+     * @param numCells up to {@link #MAX_CELLS_PER_PAGE}
+     * @return the shared short indices for at least the specified number of cells
+     */
+    public static synchronized ShortBuffer getShortIndices(final int numCells) {
+        final int capacity = sShortIndices != null ? sShortIndices.capacity() / NUM_INDICES_PER_CELL : 0;
+        if (numCells > capacity) {
+            // grow geometrically
+            final int newCapacity = Math.min(Math.max(numCells, capacity * 2), MAX_CELLS_PER_PAGE);
+            final ByteBuffer bb = ByteBuffer.allocateDirect(newCapacity * NUM_INDICES_PER_CELL * 2);
+            bb.order(ByteOrder.nativeOrder());
+            sShortIndices = bb.asShortBuffer();
+
+            int vertexStart = 0;
+            for (int i = 0; i < newCapacity; i++) {
+                // first triangle
+                sShortIndices.put((short) vertexStart);
+                sShortIndices.put((short) (vertexStart + 1));
+                sShortIndices.put((short) (vertexStart + 2));
+                // second triangle
+                sShortIndices.put((short) (vertexStart + 2));
+                sShortIndices.put((short) (vertexStart + 1));
+                sShortIndices.put((short) (vertexStart + 3));
+                vertexStart += NUM_VERTICES_PER_CELL;
+            }
+            sShortIndices.flip();
+        }
+
+        return sShortIndices;
     }
 
     /**
-     * @return
+     * @param numCells
+     * @return the shared int indices for at least the specified number of cells. Requires GL_OES_element_index_uint.
      */
-    public float[] getVertices() {
-        return mVertices;
+    protected static synchronized IntBuffer getIntIndices(final int numCells) {
+        final int capacity = sIntIndices != null ? sIntIndices.capacity() / NUM_INDICES_PER_CELL : 0;
+        if (numCells > capacity) {
+            // grow geometrically
+            final int newCapacity = Math.max(numCells, capacity * 2);
+            final ByteBuffer bb = ByteBuffer.allocateDirect(newCapacity * NUM_INDICES_PER_CELL * 4);
+            bb.order(ByteOrder.nativeOrder());
+            sIntIndices = bb.asIntBuffer();
+
+            int vertexStart = 0;
+            for (int i = 0; i < newCapacity; i++) {
+                // first triangle
+                sIntIndices.put(vertexStart);
+                sIntIndices.put(vertexStart + 1);
+                sIntIndices.put(vertexStart + 2);
+                // second triangle
+                sIntIndices.put(vertexStart + 2);
+                sIntIndices.put(vertexStart + 1);
+                sIntIndices.put(vertexStart + 3);
+                vertexStart += NUM_VERTICES_PER_CELL;
+            }
+            sIntIndices.flip();
+        }
+
+        return sIntIndices;
+    }
+
+    public int getNumCells() {
+        return mNumCells;
     }
 
     /**
-     * Sets a Rect at a specified index but doesn't apply untill applyValues() gets called
+     * Sets a Rect at a specified index, written directly into the buffer
      * 
      * @param index
      * @param x
      * @param y
      * @param width
      * @param height
-     * @see #validate()
      */
     public void setRectAt(final int index, final float x, final float y, final float width, final float height) {
 
         final int start = index * NUM_VERTICES_PER_CELL * mVertexPointerSize;
-        mVertices[start] = x;
-        mVertices[start + 1] = y + height;
-        mVertices[start + 2] = x;
-        mVertices[start + 3] = y;
-        mVertices[start + 4] = x + width;
-        mVertices[start + 5] = y + height;
-        mVertices[start + 6] = x + width;
-        mVertices[start + 7] = y;
-
-        mInvalidated = true;
+        mBuffer.put(start, x);
+        mBuffer.put(start + 1, y + height);
+        mBuffer.put(start + 2, x);
+        mBuffer.put(start + 3, y);
+        mBuffer.put(start + 4, x + width);
+        mBuffer.put(start + 5, y + height);
+        mBuffer.put(start + 6, x + width);
+        mBuffer.put(start + 7, y);
+
+        invalidateRange(start, start + 8);
     }
 
     /**
-     * Sets a Rect at a specified index but doesn't apply untill applyValues() gets called
+     * Sets a Rect at a specified index, written directly into the buffer
      * 
      * @param index
      * @param x
      * @param y
      * @param width
      * @param height
-     * @see #validate()
      */
     public void setRectFlipVerticalAt(final int index, final float x, final float y, final float width, final float height) {
 
         final int start = index * NUM_VERTICES_PER_CELL * mVertexPointerSize;
-        mVertices[start + 2] = x;
-        mVertices[start + 3] = y + height;
-        mVertices[start + 0] = x;
-        mVertices[start + 1] = y;
-        mVertices[start + 6] = x + width;
-        mVertices[start + 7] = y + height;
-        mVertices[start + 4] = x + width;
-        mVertices[start + 5] = y;
-
-        mInvalidated = true;
+        mBuffer.put(start + 2, x);
+        mBuffer.put(start + 3, y + height);
+        mBuffer.put(start + 0, x);
+        mBuffer.put(start + 1, y);
+        mBuffer.put(start + 6, x + width);
+        mBuffer.put(start + 7, y + height);
+        mBuffer.put(start + 4, x + width);
+        mBuffer.put(start + 5, y);
+
+        invalidateRange(start, start + 8);
     }
 
     public void setValuesAt(final int index, final float... values) {
 
         final int start = index * NUM_VERTICES_PER_CELL * mVertexPointerSize;
         final int length = values.length;
-        for (int i = 0; i < length; i++) {
-            mVertices[start + i] = values[i];
-        }
+        put(start, values, 0, length);
 
-        mInvalidated = true;
+        invalidateRange(start, start + length);
     }
 
     public void setValuesAt(final int index, final int numCells, final float... values) {
 
         final int start = index * NUM_VERTICES_PER_CELL * mVertexPointerSize;
         final int length = numCells * NUM_VERTICES_PER_CELL * mVertexPointerSize;
-        for (int i = 0; i < length; i++) {
-            mVertices[start + i] = values[i];
-        }
+        put(start, values, 0, length);
 
-        mInvalidated = true;
+        invalidateRange(start, start + length);
     }
 
     public void setValuesAt(final int index, final int numCells, final int srcOffset, final float... values) {
 
         final int start = index * NUM_VERTICES_PER_CELL * mVertexPointerSize;
         final int length = numCells * NUM_VERTICES_PER_CELL * mVertexPointerSize;
-        for (int i = 0; i < length; i++) {
-            mVertices[start + i] = values[srcOffset + i];
+        put(start, values, srcOffset, length);
+
+        invalidateRange(start, start + length);
+    }
+
+    /**
+     * Copy the cells from another mesh, optionally transformed by a 2D matrix. Used for stacking.
+     * 
+     * @param index
+     * @param numCells
+     * @param src
+     * @param matrix can be null
+     */
+    public void setValuesAt(final int index, final int numCells, final QuadMeshBuffer src, final Matrix matrix) {
+
+        final int start = index * NUM_VERTICES_PER_CELL * mVertexPointerSize;
+        final int length = numCells * NUM_VERTICES_PER_CELL * mVertexPointerSize;
+        if (matrix == null || matrix.isIdentity()) {
+            // native copy
+            put(start, src, 0, length);
+        } else {
+            matrix.getValues(mMatrixValues);
+            final float sx = mMatrixValues[Matrix.MSCALE_X], kx = mMatrixValues[Matrix.MSKEW_X], tx = mMatrixValues[Matrix.MTRANS_X];
+            final float ky = mMatrixValues[Matrix.MSKEW_Y], sy = mMatrixValues[Matrix.MSCALE_Y], ty = mMatrixValues[Matrix.MTRANS_Y];
+            final FloatBuffer srcBuffer = src.mBuffer;
+            float x, y;
+            for (int i = 0; i < length; i += 2) {
+                x = srcBuffer.get(i);
+                y = srcBuffer.get(i + 1);
+                mBuffer.put(start + i, sx * x + kx * y + tx);
+                mBuffer.put(start + i + 1, ky * x + sy * y + ty);
+            }
         }
 
-        mInvalidated = true;
+        invalidateRange(start, start + length);
     }
 
     /**
-     * Applies the values set by {@link #setRectAt(int, float...)}
+     * Flag a range of vertex values to be uploaded, for the VBO
+     * 
+     * @param start
+     * @param end exclusive
      */
-    protected void validate() {
+    protected void invalidateRange(final int start, final int end) {
         if (mInvalidated) {
-            setValues(mVertices);
+            if (start < mDirtyStart) {
+                mDirtyStart = start;
+            }
+            if (end > mDirtyEnd) {
+                mDirtyEnd = end;
+            }
+        } else {
+            mDirtyStart = start;
+            mDirtyEnd = end;
+            mInvalidated = true;
+        }
+    }
 
+    /**
+     * The values are already in the buffer, this only resets the changed range
+     */
+    protected void validate() {
+        if (mInvalidated) {
             // unflag
             mInvalidated = false;
         }
     }
 
+    /**
+     * Stream the vertices into a VBO instead of client memory. Requires GLES11.
+     * 
+     * @param usage GL_DYNAMIC_DRAW for vertices that change often, GL_STATIC_DRAW for rarely changed ones, 0 to disable
+     */
+    public void setBufferObjectUsage(final int usage) {
+        if (mBufferObject != null) {
+            if (mBufferObject.getUsage() == usage) {
+                return;
+            }
+            mBufferObject.unload();
+            mBufferObject = null;
+        }
+
+        if (usage != 0) {
+            mBufferObject = new BufferObject(GL11.GL_ARRAY_BUFFER, usage);
+        }
+    }
+
+    public int getBufferObjectUsage() {
+        return mBufferObject != null ? mBufferObject.getUsage() : 0;
+    }
+
     @Override
     public void draw(final GLState glState) {
+        validateBufferObject(glState);
+        if (mBuffer == null) {
+            return;
+        }
+
+        final int numCells = (mIndicesNumUsed > 0 ? Math.min(mIndicesNumUsed, mIndicesNum) : mIndicesNum) / NUM_INDICES_PER_CELL;
+        if (numCells == 0) {
+            return;
+        }
+
+        glState.setVertexArrayEnabled(true);
+
+        if (numCells <= MAX_CELLS_PER_PAGE) {
+            // single page
+            setVertexPointer(glState, 0);
+            if (mIndexBuffer == null || mIndexBuffer.capacity() < numCells * NUM_INDICES_PER_CELL) {
+                mIndexBuffer = getShortIndices(numCells);
+            }
+            glState.drawElements(mPrimitive, numCells * NUM_INDICES_PER_CELL, GL10.GL_UNSIGNED_SHORT, mIndexBuffer);
+        } else if (Pure2D.GL_ELEMENT_INDEX_UINT_SUPPORTED) {
+            // 32 bit indices
+            setVertexPointer(glState, 0);
+            if (mIntIndexBuffer == null || mIntIndexBuffer.capacity() < numCells * NUM_INDICES_PER_CELL) {
+                mIntIndexBuffer = getIntIndices(numCells);
+            }
+            glState.drawElements(mPrimitive, numCells * NUM_INDICES_PER_CELL, GL_UNSIGNED_INT, mIntIndexBuffer);
+        } else {
+            drawPages(glState, numCells);
+        }
+    }
+
+    /**
+     * Draw the cells page by page, offsetting the vertex, color and texture coordinate pointers for each page
+     * 
+     * @param glState
+     * @param numCells
+     */
+    protected void drawPages(final GLState glState, final int numCells) {
+        final TextureCoordBuffer coordBuffer = glState.isTextureCoordArrayEnabled() ? glState.getTextureCoordBuffer() : null;
+        final ColorBuffer colorBuffer = glState.isColorArrayEnabled() ? glState.getColorBuffer() : null;
+        mIndexBuffer = getShortIndices(MAX_CELLS_PER_PAGE);
+
+        int pageCells;
+        for (int cell = 0; cell < numCells; cell += MAX_CELLS_PER_PAGE) {
+            pageCells = Math.min(numCells - cell, MAX_CELLS_PER_PAGE);
+
+            // offset the pointers
+            setVertexPointer(glState, cell * NUM_VERTICES_PER_CELL);
+            if (coordBuffer != null && coordBuffer.mBuffer != null) {
+                coordBuffer.mBuffer.position(cell * NUM_VERTICES_PER_CELL * 2);
+                glState.mGL.glTexCoordPointer(2, GL10.GL_FLOAT, 0, coordBuffer.mBuffer);
+            }
+            if (colorBuffer != null && colorBuffer.mBuffer != null) {
+                colorBuffer.mBuffer.position(cell * NUM_VERTICES_PER_CELL * 4);
+                glState.mGL.glColorPointer(4, GL10.GL_FLOAT, 0, colorBuffer.mBuffer);
+            }
+
+            glState.drawElements(mPrimitive, pageCells * NUM_INDICES_PER_CELL, GL10.GL_UNSIGNED_SHORT, mIndexBuffer);
+        }
+
+        // restore the pointers
+        mBuffer.position(0);
+        glState.setVertexBuffer(null);
+        if (coordBuffer != null && coordBuffer.mBuffer != null) {
+            coordBuffer.mBuffer.position(0);
+            glState.setTextureCoordBuffer(coordBuffer);
+        }
+        if (colorBuffer != null && colorBuffer.mBuffer != null) {
+            colorBuffer.mBuffer.position(0);
+            glState.setColorBuffer(colorBuffer);
+        }
+    }
+
+    /**
+     * Point the vertex array to the specified vertex, either in client memory or in the VBO
+     */
+    private void setVertexPointer(final GLState glState, final int vertexOffset) {
+        if (mBufferObject != null) {
+            mBufferObject.bind();
+            GLES11.glVertexPointer(mVertexPointerSize, GL10.GL_FLOAT, 0, vertexOffset * mVertexPointerSize * 4);
+            // the pointer now refers to the VBO
+            mBufferObject.unbind();
+            glState.setVertexBuffer(null);
+        } else if (vertexOffset == 0) {
+            glState.setVertexBuffer(this);
+        } else {
+            mBuffer.position(vertexOffset * mVertexPointerSize);
+            glState.mGL.glVertexPointer(mVertexPointerSize, GL10.GL_FLOAT, 0, mBuffer);
+        }
+    }
+
+    /**
+     * Upload the changed range to the VBO, if there is one
+     */
+    private void validateBufferObject(final GLState glState) {
+        if (mBufferObject == null) {
+            validate();
+            return;
+        }
+
+        // upload the changed range only
+        final boolean contextLost = !mBufferObject.verifyGLState(glState);
+        final int dirtyStart = mDirtyStart;
+        final int dirtyEnd = mDirtyEnd;
+        final boolean invalidated = mInvalidated;
         validate();
+        if (mBuffer != null && (contextLost || invalidated)) {
+            mBufferObject.upload(glState, mBuffer, dirtyStart, dirtyEnd);
+            mBufferObject.unbind();
+        }
+    }
 
-        super.draw(glState);
+    @Override
+    public void dispose() {
+        super.dispose();
+
+        if (mBufferObject != null) {
+            mBufferObject.unload();
+            mBufferObject = null;
+        }
     }
 
 }
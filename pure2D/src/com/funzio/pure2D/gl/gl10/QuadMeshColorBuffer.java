@@ -33,10 +33,8 @@ public class QuadMeshColorBuffer extends ColorBuffer {
     public static final int NUM_CHANNEL_PER_COLOR = 4;
     public static final int NUM_COLOR_PER_CELL = 4;
 
-    protected float[] mValues;
     protected int mNumCells = 0;
 
-    protected boolean mInvalidated = false;
 
     public QuadMeshColorBuffer(final int numCells) {
         super();
@@ -46,19 +44,13 @@ public class QuadMeshColorBuffer extends ColorBuffer {
 
     public void setNumCells(final int numCells) {
         if (numCells > mNumCells) {
-            mValues = new float[numCells * NUM_CHANNEL_PER_COLOR * NUM_COLOR_PER_CELL];
-
-            int start = 0;
-            for (int i = 0; i < numCells; i++) {
-                for (int j = 0; j < NUM_COLOR_PER_CELL; j++) {
-                    mValues[start++] = 1f;
-                    mValues[start++] = 1f;
-                    mValues[start++] = 1f;
-                    mValues[start++] = 1f;
-                }
-            }
+            // colors are written directly into a new buffer
+            allocate(numCells * NUM_CHANNEL_PER_COLOR * NUM_COLOR_PER_CELL);
 
-            mInvalidated = true;
+            final int capacity = getCapacity();
+            for (int i = 0; i < capacity; i++) {
+                mBuffer.put(i, 1f);
+            }
         }
 
         mNumCells = numCells;
@@ -68,101 +60,69 @@ public class QuadMeshColorBuffer extends ColorBuffer {
         return mNumCells;
     }
 
-    public float[] getValues() {
-        return mValues;
-    }
-
     /**
      * Set color at the specified cell
      * 
      * @param index
      * @param color
-     * @see #validate()
      */
     public void setColorAt(final int index, final GLColor color) {
-
-        int start = index * NUM_CHANNEL_PER_COLOR * NUM_COLOR_PER_CELL;
-        for (int j = 0; j < NUM_COLOR_PER_CELL; j++) {
-            if (color != null) {
-                mValues[start++] = color.r;
-                mValues[start++] = color.g;
-                mValues[start++] = color.b;
-                mValues[start++] = color.a;
-            } else {
-                mValues[start++] = 1f;
-                mValues[start++] = 1f;
-                mValues[start++] = 1f;
-                mValues[start++] = 1f;
-            }
+        if (color != null) {
+            setColorAt(index, color.r, color.g, color.b, color.a);
+        } else {
+            setColorAt(index, 1f, 1f, 1f, 1f);
         }
-
-        mInvalidated = true;
     }
 
     public void setColorAt(final int index, final float r, final float g, final float b, final float a) {
 
-        int start = index * NUM_CHANNEL_PER_COLOR * NUM_COLOR_PER_CELL;
+        final int start = index * NUM_CHANNEL_PER_COLOR * NUM_COLOR_PER_CELL;
+        int i = start;
         for (int j = 0; j < NUM_COLOR_PER_CELL; j++) {
-            mValues[start++] = r;
-            mValues[start++] = g;
-            mValues[start++] = b;
-            mValues[start++] = a;
+            mBuffer.put(i++, r);
+            mBuffer.put(i++, g);
+            mBuffer.put(i++, b);
+            mBuffer.put(i++, a);
         }
-
-        mInvalidated = true;
     }
 
     public void setAlphaAt(final int index, final float alpha) {
 
-        int start = index * NUM_CHANNEL_PER_COLOR * NUM_COLOR_PER_CELL;
+        final int start = index * NUM_CHANNEL_PER_COLOR * NUM_COLOR_PER_CELL;
+        int i = start;
         for (int j = 0; j < NUM_COLOR_PER_CELL; j++) {
-            // mValues[start + 0] = mValues[start + 1] = mValues[start + 2] = mValues[start + 3] = alpha;
-            mValues[start + 3] = alpha;
+            mBuffer.put(i + 3, alpha);
 
-            start += NUM_COLOR_PER_CELL;
+            i += NUM_CHANNEL_PER_COLOR;
         }
-
-        mInvalidated = true;
     }
 
     public void setValuesAt(final int index, final int numCells, final float... values) {
 
-        int start = index * NUM_CHANNEL_PER_COLOR * NUM_COLOR_PER_CELL;
+        final int start = index * NUM_CHANNEL_PER_COLOR * NUM_COLOR_PER_CELL;
         final int length = numCells * NUM_CHANNEL_PER_COLOR * NUM_COLOR_PER_CELL;
-        for (int i = 0; i < length; i++) {
-            mValues[start + i] = values[i];
-        }
-
-        mInvalidated = true;
+        put(start, values, 0, length);
     }
 
     public void setValuesAt(final int index, final int numCells, final int srcOffset, final float... values) {
 
-        int start = index * NUM_CHANNEL_PER_COLOR * NUM_COLOR_PER_CELL;
+        final int start = index * NUM_CHANNEL_PER_COLOR * NUM_COLOR_PER_CELL;
         final int length = numCells * NUM_CHANNEL_PER_COLOR * NUM_COLOR_PER_CELL;
-        for (int i = 0; i < length; i++) {
-            mValues[start + i] = values[srcOffset + i];
-        }
-
-        mInvalidated = true;
+        put(start, values, srcOffset, length);
     }
 
     /**
-     * Applies the values set by {@link #setColorAt(int, float...)}
+     * Copy the cells from another color buffer natively. Used for stacking.
+     * 
+     * @param index
+     * @param numCells
+     * @param src
      */
-    protected void validate() {
-        if (mInvalidated) {
-            setValues(mValues);
+    public void setValuesAt(final int index, final int numCells, final QuadMeshColorBuffer src) {
 
-            mInvalidated = false;
-        }
-    }
-
-    @Override
-    public void apply(final GLState glState) {
-        validate();
-
-        super.apply(glState);
+        final int start = index * NUM_CHANNEL_PER_COLOR * NUM_COLOR_PER_CELL;
+        final int length = numCells * NUM_CHANNEL_PER_COLOR * NUM_COLOR_PER_CELL;
+        put(start, src, 0, length);
     }
 
 }
@@ -31,17 +31,37 @@ import android.opengl.GLES11;
 
 /**
  * @author long
- * @description This is designed for large buffer only and requires GLES11.
+ * @description This is designed for large buffer only and requires GLES11. The GL buffers are allocated once and updated in place, only the changed range of vertices gets uploaded.
  */
 public class VBO extends VertexBuffer {
 
-    private int mVertexID = 0;
-    private int mIndexID = 0;
-    private boolean mInvalidated = false;
-    private final int[] mScratch = new int[1];
+    private BufferObject mVertexObject;
+    private BufferObject mIndexObject;
+    private boolean mIndicesInvalidated;
+    // the range of values to upload, NOTE: no initializers since setValues() gets called by the super constructor
+    private boolean mInvalidated;
+    private int mDirtyStart;
+    private int mDirtyEnd;
 
     public VBO(final int primitive, final int verticesNum, final float... vertices) {
         super(primitive, verticesNum, vertices);
+
+        mVertexObject = new BufferObject(GL11.GL_ARRAY_BUFFER, GLES11.GL_STATIC_DRAW);
+        mIndexObject = new BufferObject(GL11.GL_ELEMENT_ARRAY_BUFFER, GLES11.GL_STATIC_DRAW);
+    }
+
+    /**
+     * @param usage GL_STATIC_DRAW by default, GL_DYNAMIC_DRAW for streaming vertices
+     */
+    public void setUsage(final int usage) {
+        if (mVertexObject.getUsage() != usage) {
+            mVertexObject.unload();
+            mVertexObject = new BufferObject(GL11.GL_ARRAY_BUFFER, usage);
+        }
+    }
+
+    public int getUsage() {
+        return mVertexObject.getUsage();
     }
 
     /*
@@ -52,8 +72,44 @@ public class VBO extends VertexBuffer {
     public void setValues(final float... values) {
         super.setValues(values);
 
-        // flag
-        mInvalidated = true;
+        // flag all
+        invalidateRange(0, mBuffer != null ? mBuffer.capacity() : 0);
+    }
+
+    /**
+     * Update some values in place, only these get uploaded on the next draw
+     * 
+     * @param offset the first value to update
+     * @param values
+     */
+    public void setValuesAt(final int offset, final float... values) {
+        mBuffer.position(offset);
+        mBuffer.put(values);
+        mBuffer.position(0);
+
+        invalidateRange(offset, offset + values.length);
+    }
+
+    protected void invalidateRange(final int start, final int end) {
+        if (mInvalidated) {
+            if (start < mDirtyStart) {
+                mDirtyStart = start;
+            }
+            if (end > mDirtyEnd) {
+                mDirtyEnd = end;
+            }
+        } else {
+            mDirtyStart = start;
+            mDirtyEnd = end;
+            mInvalidated = true;
+        }
+    }
+
+    @Override
+    public void setIndices(final short... indices) {
+        super.setIndices(indices);
+
+        mIndicesInvalidated = true;
     }
 
     /*
@@ -62,84 +118,60 @@ public class VBO extends VertexBuffer {
      */
     @Override
     public void draw(final GLState glState) {
-        glState.setVertexArrayEnabled(true);
-
-        if (mVertexID == 0 || mInvalidated) {
-
-            if (mVertexID != 0) {
-                mScratch[0] = mVertexID;
-                // unload it
-                GLES11.glDeleteBuffers(1, mScratch, 0);
-            }
-            if (mIndexID != 0) {
-                mScratch[0] = mIndexID;
-                // unload it
-                GLES11.glDeleteBuffers(1, mScratch, 0);
-            }
+        if (mBuffer == null) {
+            return;
+        }
 
-            // create new vertex id
-            GLES11.glGenBuffers(1, mScratch, 0);
-            mVertexID = mScratch[0];
-            // bind it
-            GLES11.glBindBuffer(GL11.GL_ARRAY_BUFFER, mVertexID);
-            // load it
-            GLES11.glBufferData(GLES11.GL_ARRAY_BUFFER, mVerticesNum * mVertexPointerSize * 4, mBuffer, GLES11.GL_STATIC_DRAW);
-
-            if (mIndicesNum > 0) {
-                // create new index id
-                GLES11.glGenBuffers(1, mScratch, 0);
-                mIndexID = mScratch[0];
-                // bind it
-                GLES11.glBindBuffer(GL11.GL_ELEMENT_ARRAY_BUFFER, mIndexID);
-                // load it
-                GLES11.glBufferData(GLES11.GL_ELEMENT_ARRAY_BUFFER, mIndicesNum * 2, mIndexBuffer, GLES11.GL_STATIC_DRAW);
-            }
+        glState.setVertexArrayEnabled(true);
 
-            // unflag
+        if (mInvalidated || !mVertexObject.verifyGLState(glState)) {
+            // upload the changed range, the whole buffer when needed
+            mVertexObject.upload(glState, mBuffer, mDirtyStart, mDirtyEnd);
             mInvalidated = false;
         } else {
             // bind vertex buffer
-            GLES11.glBindBuffer(GL11.GL_ARRAY_BUFFER, mVertexID);
+            mVertexObject.bind();
+        }
 
-            if (mIndexID != 0) {
+        final boolean indexed = mIndicesNum > 0;
+        if (indexed) {
+            if (mIndicesInvalidated || !mIndexObject.verifyGLState(glState)) {
+                mIndexObject.upload(glState, mIndexBuffer, 2, 0, mIndexBuffer.capacity());
+                mIndicesInvalidated = false;
+            } else {
                 // bind index buffer
-                GLES11.glBindBuffer(GL11.GL_ELEMENT_ARRAY_BUFFER, mIndexID);
+                mIndexObject.bind();
             }
         }
 
         // Specifies the location and data format of an array of vertex coordinates to use when rendering.
         GLES11.glVertexPointer(mVertexPointerSize, GL11.GL_FLOAT, 0, 0);
+        // the pointer now refers to the VBO
+        glState.setVertexBuffer(null);
 
-        if (mIndicesNum > 0) {
-            GLES11.glDrawElements(mPrimitive, mIndicesNum, GL10.GL_UNSIGNED_SHORT, 0);
+        if (indexed) {
+            final int count = mIndicesNumUsed > 0 ? Math.min(mIndicesNumUsed, mIndicesNum) : mIndicesNum;
+            GLES11.glDrawElements(mPrimitive, count, GL10.GL_UNSIGNED_SHORT, 0);
+            glState.getStats().addDrawCall(count);
         } else {
             GLES11.glDrawArrays(mPrimitive, 0, mVerticesNum);
+            glState.getStats().addDrawCall(mVerticesNum);
         }
 
         // unbind
-        GLES11.glBindBuffer(GL11.GL_ARRAY_BUFFER, 0);
-        if (mIndexID != 0) {
-            GLES11.glBindBuffer(GL11.GL_ELEMENT_ARRAY_BUFFER, 0);
+        mVertexObject.unbind();
+        if (indexed) {
+            mIndexObject.unbind();
         }
     }
 
     public void unload() {
-        if (mVertexID == 0) {
-            mScratch[0] = mVertexID;
-            GLES11.glDeleteBuffers(1, mScratch, 0);
-            mVertexID = 0;
-
-            // check index
-            if (mIndexID != 0) {
-                mScratch[0] = mIndexID;
-                GLES11.glDeleteBuffers(1, mScratch, 0);
-                mIndexID = 0;
-            }
-        }
+        mVertexObject.unload();
+        mIndexObject.unload();
     }
 
     public int getVertexID() {
-        return mVertexID;
+        return mVertexObject.getID();
     }
 
     /*
@@ -123,9 +123,9 @@ public class VertexBuffer extends GLFloatBuffer {
         glState.setVertexBuffer(this);
 
         if (mIndicesNum > 0) {
-            glState.mGL.glDrawElements(mPrimitive, mIndicesNumUsed > 0 ? Math.min(mIndicesNumUsed, mIndicesNum) : mIndicesNum, GL10.GL_UNSIGNED_SHORT, mIndexBuffer);
+            glState.drawElements(mPrimitive, mIndicesNumUsed > 0 ? Math.min(mIndicesNumUsed, mIndicesNum) : mIndicesNum, GL10.GL_UNSIGNED_SHORT, mIndexBuffer);
         } else {
-            glState.mGL.glDrawArrays(mPrimitive, 0, mVerticesNum);
+            glState.drawArrays(mPrimitive, 0, mVerticesNum);
         }
 
         // Disable the vertices buffer.
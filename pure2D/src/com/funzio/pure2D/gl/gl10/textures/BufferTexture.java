@@ -39,6 +39,9 @@ public class BufferTexture extends Texture {
     protected BufferTexture(final GLState glState, final int width, final int height) {
         super(glState);
 
+        // the rendered content cannot be reloaded, never evict
+        mPinned = true;
+
         // create an blank texture
         load(null, Math.round(width), Math.round(height), 0);
     }
@@ -49,6 +52,9 @@ public class BufferTexture extends Texture {
     protected BufferTexture(final GLState glState, final int actualWidth, final int actualHeight, final boolean checkPo2) {
         super(glState);
 
+        // the rendered content cannot be reloaded, never evict
+        mPinned = true;
+
         final int bitmapWidth;
         final int bitmapHeight;
         // check for power of 2
@@ -0,0 +1,378 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.gl.gl10.textures;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * A compressed (or raw) image read from a PKM or KTX container, with its mipmap levels as slices of a single direct buffer.
+ * 
+ * @author long
+ */
+public class CompressedImage {
+    // GL formats
+    public static final int GL_ETC1_RGB8_OES = 0x8D64;
+    public static final int GL_COMPRESSED_RGB8_ETC2 = 0x9274;
+    public static final int GL_COMPRESSED_RGB8_PUNCHTHROUGH_ALPHA1_ETC2 = 0x9276;
+    public static final int GL_COMPRESSED_RGBA8_ETC2_EAC = 0x9278;
+
+    // PKM
+    public static final int PKM_HEADER_SIZE = 16;
+    private static final int PKM_ETC1_RGB = 0;
+    private static final int PKM_ETC2_RGB = 1;
+    private static final int PKM_ETC2_RGBA = 3;
+    private static final int PKM_ETC2_RGBA1 = 4;
+
+    // KTX
+    public static final int KTX_HEADER_SIZE = 64;
+    private static final byte[] KTX_IDENTIFIER = {
+            (byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+    };
+    public static final int KTX_ENDIANNESS = 0x04030201;
+
+    // supported formats of the current GL
+    private static GL10 sFormatsGL;
+    private static int[] sFormats;
+    private static boolean sETC1Extension;
+    public static final String ETC1_EXTENSION = "GL_OES_compressed_ETC1_RGB8_texture";
+
+    private final int mFormat;
+    private final int mType;
+    private final int mWidth;
+    private final int mHeight;
+    private final int[] mLevelWidths;
+    private final int[] mLevelHeights;
+    private final ByteBuffer[] mLevels;
+    private HashMap<String, String> mKeyValues;
+
+    /**
+     * @param format the internal format
+     * @param type 0 if compressed, otherwise the pixel type such as GL_UNSIGNED_BYTE
+     * @param width
+     * @param height
+     * @param numLevels
+     */
+    protected CompressedImage(final int format, final int type, final int width, final int height, final int numLevels) {
+        mFormat = format;
+        mType = type;
+        mWidth = width;
+        mHeight = height;
+        mLevelWidths = new int[numLevels];
+        mLevelHeights = new int[numLevels];
+        mLevels = new ByteBuffer[numLevels];
+    }
+
+    public int getFormat() {
+        return mFormat;
+    }
+
+    /**
+     * @return 0 if compressed, otherwise the GL pixel type
+     */
+    public int getType() {
+        return mType;
+    }
+
+    public boolean isCompressed() {
+        return mType == 0;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public int getNumLevels() {
+        return mLevels.length;
+    }
+
+    public int getLevelWidth(final int level) {
+        return mLevelWidths[level];
+    }
+
+    public int getLevelHeight(final int level) {
+        return mLevelHeights[level];
+    }
+
+    public ByteBuffer getLevel(final int level) {
+        return mLevels[level];
+    }
+
+    /**
+     * @param key
+     * @return the value of a KTX key/value pair, or null
+     */
+    public String getKeyValue(final String key) {
+        return mKeyValues != null ? mKeyValues.get(key) : null;
+    }
+
+    /**
+     * @return the total size of all levels in bytes
+     */
+    public int getDataSize() {
+        int size = 0;
+        for (int i = 0; i < mLevels.length; i++) {
+            size += mLevels[i].remaining();
+        }
+        return size;
+    }
+
+    void setLevel(final int level, final int width, final int height, final ByteBuffer data, final int offset, final int size) {
+        final ByteBuffer slice = data.duplicate();
+        slice.limit(offset + size);
+        slice.position(offset);
+        mLevelWidths[level] = width;
+        mLevelHeights[level] = height;
+        mLevels[level] = slice.slice();
+    }
+
+    /**
+     * Parse a PKM or KTX container.
+     * 
+     * @param data the whole file, starting at position 0
+     * @return the image or null if the format is not recognized
+     */
+    public static CompressedImage parse(final ByteBuffer data) {
+        if (isKTX(data)) {
+            return parseKTX(data);
+        } else if (isPKM(data)) {
+            return parsePKM(data);
+        }
+
+        return null;
+    }
+
+    public static boolean isPKM(final ByteBuffer data) {
+        return data.limit() >= PKM_HEADER_SIZE && data.get(0) == 'P' && data.get(1) == 'K' && data.get(2) == 'M' && data.get(3) == ' ';
+    }
+
+    public static boolean isKTX(final ByteBuffer data) {
+        if (data.limit() < KTX_HEADER_SIZE) {
+            return false;
+        }
+        for (int i = 0; i < KTX_IDENTIFIER.length; i++) {
+            if (data.get(i) != KTX_IDENTIFIER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * PKM: "PKM " + version ("10" or "20") + type + padded width/height + original width/height, all big endian, then a single level.
+     * 
+     * @param data
+     * @return
+     */
+    protected static CompressedImage parsePKM(final ByteBuffer data) {
+        final ByteBuffer header = data.duplicate().order(ByteOrder.BIG_ENDIAN);
+        final int type = header.getShort(6) & 0xFFFF;
+        final int paddedWidth = header.getShort(8) & 0xFFFF;
+        final int paddedHeight = header.getShort(10) & 0xFFFF;
+        final int width = header.getShort(12) & 0xFFFF;
+        final int height = header.getShort(14) & 0xFFFF;
+
+        final int format;
+        int blockSize = ETC1Decoder.BLOCK_SIZE;
+        if (type == PKM_ETC1_RGB) {
+            format = GL_ETC1_RGB8_OES;
+        } else if (type == PKM_ETC2_RGB) {
+            format = GL_COMPRESSED_RGB8_ETC2;
+        } else if (type == PKM_ETC2_RGBA) {
+            format = GL_COMPRESSED_RGBA8_ETC2_EAC;
+            blockSize *= 2;
+        } else if (type == PKM_ETC2_RGBA1) {
+            format = GL_COMPRESSED_RGB8_PUNCHTHROUGH_ALPHA1_ETC2;
+        } else {
+            return null;
+        }
+
+        final int size = (paddedWidth >> 2) * (paddedHeight >> 2) * blockSize;
+        if (PKM_HEADER_SIZE + size > data.limit()) {
+            return null;
+        }
+
+        final CompressedImage image = new CompressedImage(format, 0, width, height, 1);
+        image.setLevel(0, width, height, data, PKM_HEADER_SIZE, size);
+
+        return image;
+    }
+
+    /**
+     * KTX 1.1: 2D, single face, non-array textures only.
+     * 
+     * @param data
+     * @return
+     */
+    protected static CompressedImage parseKTX(final ByteBuffer data) {
+        final ByteBuffer header = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(12) != KTX_ENDIANNESS) {
+            header.order(ByteOrder.BIG_ENDIAN);
+        }
+
+        final int glType = header.getInt(16);
+        final int glInternalFormat = header.getInt(28);
+        final int width = header.getInt(36);
+        final int height = Math.max(1, header.getInt(40));
+        final int depth = header.getInt(44);
+        final int numArrayElements = header.getInt(48);
+        final int numFaces = header.getInt(52);
+        final int numLevels = Math.max(1, header.getInt(56));
+        final int keyValueBytes = header.getInt(60);
+        if (depth > 1 || numArrayElements > 0 || numFaces != 1) {
+            return null;
+        }
+
+        // for uncompressed data, the format is glFormat
+        final int format = glType == 0 ? glInternalFormat : header.getInt(24);
+        final CompressedImage image = new CompressedImage(format, glType, width, height, numLevels);
+        int offset = KTX_HEADER_SIZE;
+        if (keyValueBytes > 0) {
+            if (offset + keyValueBytes > data.limit()) {
+                return null;
+            }
+            image.mKeyValues = parseKeyValues(header, offset, keyValueBytes);
+            offset += keyValueBytes;
+        }
+
+        int size;
+        for (int level = 0; level < numLevels; level++) {
+            if (offset + 4 > data.limit()) {
+                return null;
+            }
+            size = header.getInt(offset);
+            offset += 4;
+            if (offset + size > data.limit()) {
+                return null;
+            }
+            image.setLevel(level, Math.max(1, width >> level), Math.max(1, height >> level), data, offset, size);
+            // mip padding
+            offset += (size + 3) & ~3;
+        }
+
+        return image;
+    }
+
+    private static HashMap<String, String> parseKeyValues(final ByteBuffer data, final int start, final int length) {
+        final HashMap<String, String> keyValues = new HashMap<String, String>();
+        final int end = start + length;
+        int offset = start;
+        int size, i, separator;
+        while (offset + 4 <= end) {
+            size = data.getInt(offset);
+            offset += 4;
+            if (size <= 0 || offset + size > end) {
+                break;
+            }
+
+            // key\0value, the value might be null-terminated too
+            final byte[] bytes = new byte[size];
+            for (i = 0; i < size; i++) {
+                bytes[i] = data.get(offset + i);
+            }
+            separator = 0;
+            while (separator < size && bytes[separator] != 0) {
+                separator++;
+            }
+            if (separator < size) {
+                int valueEnd = size;
+                if (bytes[valueEnd - 1] == 0 && valueEnd - 1 > separator) {
+                    valueEnd--;
+                }
+                keyValues.put(new String(bytes, 0, separator), new String(bytes, separator + 1, valueEnd - separator - 1));
+            }
+
+            offset += (size + 3) & ~3;
+        }
+
+        return keyValues;
+    }
+
+    /**
+     * Check whether the GPU can sample a compressed format natively. This MUST be executed on GL Thread.
+     * 
+     * @param gl
+     * @param format
+     * @return
+     */
+    public static synchronized boolean isFormatSupported(final GL10 gl, final int format) {
+        if (sFormatsGL != gl) {
+            final int[] num = new int[1];
+            gl.glGetIntegerv(GL10.GL_NUM_COMPRESSED_TEXTURE_FORMATS, num, 0);
+            sFormats = new int[num[0]];
+            if (num[0] > 0) {
+                gl.glGetIntegerv(GL10.GL_COMPRESSED_TEXTURE_FORMATS, sFormats, 0);
+            }
+            final String extensions = gl.glGetString(GL10.GL_EXTENSIONS);
+            sETC1Extension = extensions != null && extensions.contains(ETC1_EXTENSION);
+            sFormatsGL = gl;
+        }
+
+        for (int i = 0; i < sFormats.length; i++) {
+            if (sFormats[i] == format) {
+                return true;
+            }
+        }
+
+        // some drivers only advertise the extension
+        return format == GL_ETC1_RGB8_OES && sETC1Extension;
+    }
+
+    /**
+     * Read a stream fully into a direct buffer.
+     * 
+     * @param stream
+     * @param sizeHint the expected size, or 0 if unknown
+     * @return
+     * @throws IOException
+     */
+    public static ByteBuffer readFully(final InputStream stream, final int sizeHint) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(sizeHint, PKM_HEADER_SIZE * 1024));
+        final byte[] chunk = new byte[16 * 1024];
+        int count;
+        while ((count = stream.read(chunk)) > 0) {
+            if (buffer.remaining() < count) {
+                // grow
+                final ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + count));
+                buffer.flip();
+                bigger.put(buffer);
+                buffer = bigger;
+            }
+            buffer.put(chunk, 0, count);
+        }
+        buffer.flip();
+
+        return buffer;
+    }
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.gl.gl10.textures;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import com.funzio.pure2D.gl.gl10.GLState;
+
+/**
+ * A Texture loaded from a PKM or KTX file, uploaded with glCompressedTexImage2D() without any Bitmap decoding. ETC1 data is decoded in software into RGB 565 if the GPU
+ * does not support it.
+ * 
+ * @author long
+ * @see CompressedImage
+ */
+public class CompressedTexture extends Texture {
+    private AssetManager mAssetManager;
+    private String mFilePath;
+    private boolean mIsAsync = false;
+
+    /**
+     * @param glState
+     * @param assetManager null to read from the file system
+     * @param filePath
+     * @param async
+     */
+    protected CompressedTexture(final GLState glState, final AssetManager assetManager, final String filePath, final boolean async) {
+        super(glState);
+
+        mAssetManager = assetManager;
+
+        if (async) {
+            loadAsync(filePath);
+        } else {
+            load(filePath);
+        }
+    }
+
+    /**
+     * Load synchronously. This blocks GL thread until texture is loaded.
+     * 
+     * @param filePath
+     */
+    public void load(final String filePath) {
+        mIsAsync = false;
+        mFilePath = filePath;
+
+        load(read(), 0, 0, 0);
+    }
+
+    /**
+     * Load Asynchronously without block GL thread.
+     * 
+     * @param filePath
+     */
+    public void loadAsync(final String filePath) {
+        mIsAsync = true;
+        mFilePath = filePath;
+
+        decodeAsync(new TextureLoader.Decoder() {
+            @Override
+            public Bitmap decode(final int[] dimensions) {
+                setPendingImage(read());
+                return null;
+            }
+        }, 0);
+    }
+
+    @Override
+    public void reload() {
+        if (mIsAsync) {
+            loadAsync(mFilePath);
+        } else {
+            load(mFilePath);
+        }
+    }
+
+    /**
+     * Read and parse the file, can be called on any thread.
+     * 
+     * @return the image or null if failed
+     */
+    protected CompressedImage read() {
+        InputStream stream = null;
+        try {
+            final int sizeHint;
+            if (mAssetManager != null) {
+                stream = mAssetManager.open(mFilePath);
+                sizeHint = stream.available();
+            } else {
+                final File file = new File(mFilePath);
+                stream = new FileInputStream(file);
+                sizeHint = (int) file.length();
+            }
+
+            final CompressedImage image = CompressedImage.parse(CompressedImage.readFully(stream, sizeHint));
+            if (image == null) {
+                Log.e(TAG, "Unknown compressed texture format: " + mFilePath);
+            }
+            return image;
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to read: " + mFilePath, e);
+            return null;
+        } finally {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return mFilePath;
+    }
+}
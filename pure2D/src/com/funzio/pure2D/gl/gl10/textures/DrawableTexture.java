@@ -24,11 +24,8 @@
  */
 package com.funzio.pure2D.gl.gl10.textures;
 
-import android.annotation.SuppressLint;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
-import android.os.AsyncTask;
-import android.os.Build;
 import android.util.Log;
 
 import com.funzio.pure2D.gl.gl10.GLState;
@@ -91,50 +88,17 @@ public class DrawableTexture extends Texture {
      * @param options
      * @param po2
      */
-    @SuppressLint("NewApi")
     public void loadAsync(final int drawable, final TextureOptions options) {
         mIsAsync = true;
         mDrawable = drawable;
         mOptions = options;
 
-        // AsyncTask can only be initialized on UI Thread, especially on Android 2.2
-        mGLState.getStage().getHandler().post(new Runnable() {
+        decodeAsync(new TextureLoader.Decoder() {
             @Override
-            public void run() {
-                final AsyncLoader loader = new AsyncLoader();
-                if (Build.VERSION.SDK_INT > Build.VERSION_CODES.HONEYCOMB) {
-                    loader.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
-                } else {
-                    loader.execute();
-                }
+            public Bitmap decode(final int[] dimensions) {
+                return Pure2DUtils.getResourceBitmap(mResources, mDrawable, mOptions, dimensions);
             }
-        });
-    }
-
-    private class AsyncLoader extends AsyncTask<Void, Void, Void> {
-        @Override
-        protected Void doInBackground(final Void... params) {
-            final int[] dimensions = new int[2];
-            final Bitmap bitmap = Pure2DUtils.getResourceBitmap(mResources, mDrawable, mOptions, dimensions);
-            mGLState.queueEvent(new Runnable() {
-
-                @Override
-                public void run() {
-                    if (bitmap != null) {
-                        load(bitmap, dimensions[0], dimensions[1], mOptions != null ? mOptions.inMipmaps : 0);
-                        bitmap.recycle();
-                    } else {
-                        Log.e(TAG, "Unable to load bitmap: " + mDrawable);
-                        // callback, regardless whether it's successful or not
-                        if (mListener != null) {
-                            mListener.onTextureLoad(DrawableTexture.this);
-                        }
-                    }
-                }
-            });
-
-            return null;
-        }
+        }, mOptions != null ? mOptions.inMipmaps : 0);
     }
 
     /**
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.gl.gl10.textures;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A pure-Java ETC1 decoder, for the devices that cannot sample ETC1 textures natively.
+ * 
+ * @author long
+ */
+public class ETC1Decoder {
+    public static final int BLOCK_SIZE = 8; // bytes per 4x4 block
+
+    private static final int[][] MODIFIERS = {
+            {
+                    2, 8, -2, -8
+            }, {
+                    5, 17, -5, -17
+            }, {
+                    9, 29, -9, -29
+            }, {
+                    13, 42, -13, -42
+            }, {
+                    18, 60, -18, -60
+            }, {
+                    24, 80, -24, -80
+            }, {
+                    33, 106, -33, -106
+            }, {
+                    47, 183, -47, -183
+            }
+    };
+
+    /**
+     * @param width
+     * @param height
+     * @return the size in bytes of the ETC1 data of the given size
+     */
+    public static int getEncodedSize(final int width, final int height) {
+        return ((width + 3) >> 2) * ((height + 3) >> 2) * BLOCK_SIZE;
+    }
+
+    /**
+     * Decode ETC1 data into ARGB pixels.
+     * 
+     * @param data the blocks, starting at the current position
+     * @param width
+     * @param height
+     * @param output width * height pixels
+     */
+    public static void decode(final ByteBuffer data, final int width, final int height, final int[] output) {
+        final int blocksX = (width + 3) >> 2;
+        final int blocksY = (height + 3) >> 2;
+        final int[] block = new int[16];
+        int offset = data.position();
+        int bx, by, x, y, px, py;
+        for (by = 0; by < blocksY; by++) {
+            for (bx = 0; bx < blocksX; bx++) {
+                decodeBlock(data, offset, block);
+                offset += BLOCK_SIZE;
+
+                // copy the visible pixels
+                for (y = 0; y < 4; y++) {
+                    py = (by << 2) + y;
+                    if (py >= height) {
+                        break;
+                    }
+                    for (x = 0; x < 4; x++) {
+                        px = (bx << 2) + x;
+                        if (px >= width) {
+                            break;
+                        }
+                        output[py * width + px] = block[(y << 2) + x];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Decode ETC1 data into a native-ordered RGB 565 buffer, ready for glTexImage2D() with GL_RGB and GL_UNSIGNED_SHORT_5_6_5. Rows are padded to 4 bytes to match the default
+     * GL_UNPACK_ALIGNMENT.
+     * 
+     * @param data the blocks, starting at the current position
+     * @param width
+     * @param height
+     * @return a direct buffer
+     */
+    public static ByteBuffer decodeRGB565(final ByteBuffer data, final int width, final int height) {
+        final int[] pixels = new int[width * height];
+        decode(data, width, height, pixels);
+
+        final int rowBytes = MipmapGenerator.getRowBytes(width, 2);
+        final ByteBuffer output = ByteBuffer.allocateDirect(rowBytes * height).order(ByteOrder.nativeOrder());
+        int pixel, x, y, i = 0;
+        for (y = 0; y < height; y++) {
+            output.position(y * rowBytes);
+            for (x = 0; x < width; x++) {
+                pixel = pixels[i++];
+                output.putShort((short) (((pixel >> 8) & 0xF800) | ((pixel >> 5) & 0x07E0) | ((pixel >> 3) & 0x001F)));
+            }
+        }
+        output.position(0);
+
+        return output;
+    }
+
+    /**
+     * Decode a single 4x4 block.
+     * 
+     * @param data
+     * @param offset
+     * @param output 16 ARGB pixels, row by row
+     */
+    public static void decodeBlock(final ByteBuffer data, final int offset, final int[] output) {
+        final int high = ((data.get(offset) & 0xFF) << 24) | ((data.get(offset + 1) & 0xFF) << 16) | ((data.get(offset + 2) & 0xFF) << 8) | (data.get(offset + 3) & 0xFF);
+        final int low = ((data.get(offset + 4) & 0xFF) << 24) | ((data.get(offset + 5) & 0xFF) << 16) | ((data.get(offset + 6) & 0xFF) << 8) | (data.get(offset + 7) & 0xFF);
+
+        final int r1, g1, b1, r2, g2, b2;
+        if ((high & 2) != 0) {
+            // differential mode: 5-bit base + 3-bit signed delta
+            final int r = (high >>> 27) & 0x1F;
+            final int g = (high >>> 19) & 0x1F;
+            final int b = (high >>> 11) & 0x1F;
+            r1 = extend5(r);
+            g1 = extend5(g);
+            b1 = extend5(b);
+            r2 = extend5(r + signed3(high >>> 24));
+            g2 = extend5(g + signed3(high >>> 16));
+            b2 = extend5(b + signed3(high >>> 8));
+        } else {
+            // individual mode: two 4-bit colors
+            r1 = extend4((high >>> 28) & 0xF);
+            r2 = extend4((high >>> 24) & 0xF);
+            g1 = extend4((high >>> 20) & 0xF);
+            g2 = extend4((high >>> 16) & 0xF);
+            b1 = extend4((high >>> 12) & 0xF);
+            b2 = extend4((high >>> 8) & 0xF);
+        }
+
+        final int[] table1 = MODIFIERS[(high >>> 5) & 7];
+        final int[] table2 = MODIFIERS[(high >>> 2) & 7];
+        final boolean flip = (high & 1) != 0;
+
+        int x, y, i, index, modifier;
+        boolean second;
+        for (x = 0; x < 4; x++) {
+            for (y = 0; y < 4; y++) {
+                // pixel indices are column major
+                i = (x << 2) + y;
+                index = (((low >>> (16 + i)) & 1) << 1) | ((low >>> i) & 1);
+                second = flip ? y >= 2 : x >= 2;
+                if (second) {
+                    modifier = table2[index];
+                    output[(y << 2) + x] = 0xFF000000 | (clamp(r2 + modifier) << 16) | (clamp(g2 + modifier) << 8) | clamp(b2 + modifier);
+                } else {
+                    modifier = table1[index];
+                    output[(y << 2) + x] = 0xFF000000 | (clamp(r1 + modifier) << 16) | (clamp(g1 + modifier) << 8) | clamp(b1 + modifier);
+                }
+            }
+        }
+    }
+
+    private static int signed3(final int value) {
+        return ((value & 7) << 29) >> 29;
+    }
+
+    private static int extend4(final int value) {
+        return (value << 4) | value;
+    }
+
+    private static int extend5(final int value) {
+        final int v = value & 0x1F;
+        return (v << 3) | (v >> 2);
+    }
+
+    private static int clamp(final int value) {
+        return value < 0 ? 0 : (value > 255 ? 255 : value);
+    }
+}
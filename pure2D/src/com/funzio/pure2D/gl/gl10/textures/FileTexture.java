@@ -24,12 +24,11 @@
  */
 package com.funzio.pure2D.gl.gl10.textures;
 
-import android.annotation.SuppressLint;
+import java.io.File;
+
 import android.graphics.Bitmap;
-import android.os.AsyncTask;
-import android.os.Build;
-import android.util.Log;
 
+import com.funzio.pure2D.Pure2DURI;
 import com.funzio.pure2D.gl.gl10.GLState;
 import com.funzio.pure2D.utils.Pure2DUtils;
 
@@ -41,6 +40,13 @@ public class FileTexture extends Texture {
     private TextureOptions mOptions;
     private boolean mIsAsync = false;
 
+    private final TextureLoader.Decoder mDecoder = new TextureLoader.Decoder() {
+        @Override
+        public Bitmap decode(final int[] dimensions) {
+            return Pure2DUtils.getFileBitmap(mFilePath, mOptions, dimensions);
+        }
+    };
+
     protected FileTexture(final GLState glState, final String filePath, final TextureOptions options) {
         super(glState);
 
@@ -62,18 +68,8 @@ public class FileTexture extends Texture {
         mFilePath = filePath;
         mOptions = options;
 
-        int[] dimensions = new int[2];
-        Bitmap bitmap = Pure2DUtils.getFileBitmap(mFilePath, mOptions, dimensions);
-        if (bitmap != null) {
-            load(bitmap, dimensions[0], dimensions[1], options != null ? options.inMipmaps : 0);
-            bitmap.recycle();
-        } else {
-            Log.e(TAG, "Unable to load bitmap: " + filePath);
-            // callback, regardless whether it's successful or not
-            if (mListener != null) {
-                mListener.onTextureLoad(this);
-            }
-        }
+        final int[] dimensions = new int[2];
+        onDecoded(decodeCached(getCacheSource(), mOptions, mDecoder, dimensions), dimensions, options != null ? options.inMipmaps : 0);
     }
 
     @Override
@@ -92,50 +88,25 @@ public class FileTexture extends Texture {
      * @param options
      * @param po2
      */
-    @SuppressLint("NewApi")
     public void loadAsync(final String filePath, final TextureOptions options) {
         mIsAsync = true;
         mFilePath = filePath;
         mOptions = options;
 
-        // AsyncTask can only be initialized on UI Thread, especially on Android 2.2
-        mGLState.getStage().getHandler().post(new Runnable() {
+        decodeAsync(new TextureLoader.Decoder() {
             @Override
-            public void run() {
-                final AsyncLoader loader = new AsyncLoader();
-                if (Build.VERSION.SDK_INT > Build.VERSION_CODES.HONEYCOMB) {
-                    loader.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
-                } else {
-                    loader.execute();
-                }
+            public Bitmap decode(final int[] dimensions) {
+                return decodeCached(getCacheSource(), mOptions, mDecoder, dimensions);
             }
-        });
+        }, mOptions != null ? mOptions.inMipmaps : 0);
     }
 
-    private class AsyncLoader extends AsyncTask<Void, Void, Void> {
-        @Override
-        protected Void doInBackground(final Void... params) {
-            final int[] dimensions = new int[2];
-            final Bitmap bitmap = Pure2DUtils.getFileBitmap(mFilePath, mOptions, dimensions);
-            mGLState.queueEvent(new Runnable() {
-
-                @Override
-                public void run() {
-                    if (bitmap != null) {
-                        load(bitmap, dimensions[0], dimensions[1], mOptions != null ? mOptions.inMipmaps : 0);
-                        bitmap.recycle();
-                    } else {
-                        Log.e(TAG, "Unable to load bitmap: " + mFilePath);
-                        // callback, regardless whether it's successful or not
-                        if (mListener != null) {
-                            mListener.onTextureLoad(FileTexture.this);
-                        }
-                    }
-                }
-            });
-
-            return null;
-        }
+    /**
+     * @return the disk cache source, which changes when the file changes
+     */
+    protected String getCacheSource() {
+        final File file = new File(mFilePath);
+        return Pure2DURI.FILE + mFilePath + "@" + file.lastModified() + ":" + file.length();
     }
 
     @Override
@@ -0,0 +1,313 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.gl.gl10.textures;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import javax.microedition.khronos.opengles.GL10;
+
+import android.graphics.Bitmap;
+
+import com.funzio.pure2D.utils.Pure2DUtils;
+
+/**
+ * Generates the full mipmap chain of a bitmap on the CPU, for the devices without GL_GENERATE_MIPMAP. Can be called on any thread, such as the decode thread. The levels are
+ * returned as a raw {@link CompressedImage}, which can be uploaded level by level and stored in the {@link TextureDiskCache}.
+ * 
+ * @author long
+ */
+public class MipmapGenerator {
+    public static final int FILTER_BOX = 0; // 2x2 average, fast
+    public static final int FILTER_KAISER = 1; // 6-tap Kaiser-windowed sinc, sharper
+    public static final int FILTER_GL = 2; // GL_GENERATE_MIPMAP on upload, when available
+
+    // Kaiser-windowed sinc for 2:1, taps at source offsets -2..3, in 14-bit fixed point
+    private static final int KAISER_TAPS = 6;
+    private static final int KAISER_SHIFT = 14;
+    private static final int[] KAISER_WEIGHTS = new int[KAISER_TAPS];
+    static {
+        final double alpha = 4;
+        final double radius = 1.5; // in destination pixels
+        final double[] weights = new double[KAISER_TAPS];
+        double sum = 0;
+        for (int i = 0; i < KAISER_TAPS; i++) {
+            // distance from the center of the 2x2 footprint, in destination pixels
+            final double x = (i - 2 - 0.5) / 2;
+            final double sinc = Math.sin(Math.PI * x) / (Math.PI * x);
+            final double ratio = x / radius;
+            weights[i] = sinc * besselI0(alpha * Math.sqrt(1 - ratio * ratio)) / besselI0(alpha);
+            sum += weights[i];
+        }
+        for (int i = 0; i < KAISER_TAPS; i++) {
+            KAISER_WEIGHTS[i] = (int) Math.round(weights[i] / sum * (1 << KAISER_SHIFT));
+        }
+    }
+
+    /**
+     * @param width
+     * @param height
+     * @return the number of levels down to 1x1
+     */
+    public static int getNumLevels(final int width, final int height) {
+        int levels = 1;
+        int size = Math.max(width, height);
+        while (size > 1) {
+            size >>= 1;
+            levels++;
+        }
+        return levels;
+    }
+
+    /**
+     * Generate all the levels of a bitmap. The output keeps the pixel format of the bitmap.
+     * 
+     * @param bitmap
+     * @param filter {@link #FILTER_BOX} or {@link #FILTER_KAISER}
+     * @param po2Padding pad the base level to PO2 with transparent pixels first, for the devices without NPOT support
+     * @return the levels
+     */
+    public static CompressedImage generate(final Bitmap bitmap, final int filter, final boolean po2Padding) {
+        final Bitmap.Config config = bitmap.getConfig();
+        final int format, type;
+        if (config == Bitmap.Config.RGB_565) {
+            format = GL10.GL_RGB;
+            type = GL10.GL_UNSIGNED_SHORT_5_6_5;
+        } else if (config == Bitmap.Config.ARGB_4444) {
+            format = GL10.GL_RGBA;
+            type = GL10.GL_UNSIGNED_SHORT_4_4_4_4;
+        } else if (config == Bitmap.Config.ALPHA_8) {
+            format = GL10.GL_ALPHA;
+            type = GL10.GL_UNSIGNED_BYTE;
+        } else {
+            format = GL10.GL_RGBA;
+            type = GL10.GL_UNSIGNED_BYTE;
+        }
+
+        // filter in premultiplied RGBA
+        final Bitmap source = config == Bitmap.Config.ARGB_8888 ? bitmap : bitmap.copy(Bitmap.Config.ARGB_8888, false);
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final int rowBytes = source.getRowBytes();
+        final byte[] raw = new byte[rowBytes * height];
+        source.copyPixelsToBuffer(ByteBuffer.wrap(raw));
+        if (source != bitmap) {
+            source.recycle();
+        }
+
+        final int levelWidth = po2Padding ? Pure2DUtils.getNextPO2(width) : width;
+        final int levelHeight = po2Padding ? Pure2DUtils.getNextPO2(height) : height;
+        final byte[] pixels;
+        if (levelWidth == width && levelHeight == height && rowBytes == width * 4) {
+            pixels = raw;
+        } else {
+            // copy the rows into the corner, the rest stays transparent
+            pixels = new byte[levelWidth * levelHeight * 4];
+            for (int y = 0; y < height; y++) {
+                System.arraycopy(raw, y * rowBytes, pixels, y * levelWidth * 4, width * 4);
+            }
+        }
+
+        return generate(pixels, levelWidth, levelHeight, format, type, filter);
+    }
+
+    /**
+     * Generate all the levels of premultiplied RGBA pixels.
+     * 
+     * @param pixels the base level, tightly packed RGBA. This is modified!
+     * @param width
+     * @param height
+     * @param format the output format: GL_RGBA, GL_RGB or GL_ALPHA
+     * @param type the output type: GL_UNSIGNED_BYTE, GL_UNSIGNED_SHORT_5_6_5 or GL_UNSIGNED_SHORT_4_4_4_4
+     * @param filter {@link #FILTER_BOX} or {@link #FILTER_KAISER}
+     * @return the levels, with 4-byte aligned rows
+     */
+    public static CompressedImage generate(final byte[] pixels, final int width, final int height, final int format, final int type, final int filter) {
+        final int bytesPerPixel = type != GL10.GL_UNSIGNED_BYTE ? 2 : format == GL10.GL_ALPHA ? 1 : format == GL10.GL_RGB ? 3 : 4;
+        final int numLevels = getNumLevels(width, height);
+
+        // all levels in one buffer
+        int dataSize = 0;
+        for (int level = 0; level < numLevels; level++) {
+            dataSize += getRowBytes(Math.max(1, width >> level), bytesPerPixel) * Math.max(1, height >> level);
+        }
+        final ByteBuffer data = ByteBuffer.allocateDirect(dataSize).order(ByteOrder.nativeOrder());
+        final CompressedImage image = new CompressedImage(format, type, width, height, numLevels);
+
+        byte[] src = pixels;
+        byte[] dst = new byte[Math.max(1, width >> 1) * Math.max(1, height >> 1) * 4];
+        final byte[] temp = filter == FILTER_KAISER ? new byte[Math.max(1, width >> 1) * height * 4] : null;
+        int offset = 0;
+        for (int level = 0; level < numLevels; level++) {
+            final int levelWidth = Math.max(1, width >> level);
+            final int levelHeight = Math.max(1, height >> level);
+            final int size = getRowBytes(levelWidth, bytesPerPixel) * levelHeight;
+
+            data.position(offset);
+            pack(src, levelWidth, levelHeight, format, type, data);
+            image.setLevel(level, levelWidth, levelHeight, data, offset, size);
+            offset += size;
+
+            if (level + 1 < numLevels) {
+                final int nextWidth = Math.max(1, levelWidth >> 1);
+                final int nextHeight = Math.max(1, levelHeight >> 1);
+                if (filter == FILTER_KAISER) {
+                    downsampleKaiser(src, levelWidth, levelHeight, temp, dst, nextWidth, nextHeight);
+                } else {
+                    downsampleBox(src, levelWidth, levelHeight, dst, nextWidth, nextHeight);
+                }
+
+                // swap, the base level buffer is big enough for all the others
+                final byte[] swap = src;
+                src = dst;
+                dst = swap;
+            }
+        }
+        data.position(0);
+
+        return image;
+    }
+
+    static int getRowBytes(final int width, final int bytesPerPixel) {
+        // GL_UNPACK_ALIGNMENT and KTX both use 4
+        return (width * bytesPerPixel + 3) & ~3;
+    }
+
+    private static void downsampleBox(final byte[] src, final int srcWidth, final int srcHeight, final byte[] dst, final int dstWidth, final int dstHeight) {
+        for (int y = 0; y < dstHeight; y++) {
+            final int row0 = Math.min(y * 2, srcHeight - 1) * srcWidth;
+            final int row1 = Math.min(y * 2 + 1, srcHeight - 1) * srcWidth;
+            for (int x = 0; x < dstWidth; x++) {
+                final int x0 = Math.min(x * 2, srcWidth - 1);
+                final int x1 = Math.min(x * 2 + 1, srcWidth - 1);
+                final int p00 = (row0 + x0) * 4;
+                final int p01 = (row0 + x1) * 4;
+                final int p10 = (row1 + x0) * 4;
+                final int p11 = (row1 + x1) * 4;
+                final int d = (y * dstWidth + x) * 4;
+                for (int c = 0; c < 4; c++) {
+                    dst[d + c] = (byte) (((src[p00 + c] & 0xFF) + (src[p01 + c] & 0xFF) + (src[p10 + c] & 0xFF) + (src[p11 + c] & 0xFF) + 2) >> 2);
+                }
+            }
+        }
+    }
+
+    private static void downsampleKaiser(final byte[] src, final int srcWidth, final int srcHeight, final byte[] temp, final byte[] dst, final int dstWidth, final int dstHeight) {
+        final int round = 1 << (KAISER_SHIFT - 1);
+
+        // horizontal: src -> temp (dstWidth x srcHeight)
+        for (int y = 0; y < srcHeight; y++) {
+            final int row = y * srcWidth;
+            for (int x = 0; x < dstWidth; x++) {
+                int r = 0, g = 0, b = 0, a = 0;
+                for (int i = 0; i < KAISER_TAPS; i++) {
+                    final int sx = Math.max(0, Math.min(srcWidth - 1, x * 2 - 2 + i));
+                    final int p = (row + sx) * 4;
+                    final int w = KAISER_WEIGHTS[i];
+                    r += (src[p] & 0xFF) * w;
+                    g += (src[p + 1] & 0xFF) * w;
+                    b += (src[p + 2] & 0xFF) * w;
+                    a += (src[p + 3] & 0xFF) * w;
+                }
+                final int d = (y * dstWidth + x) * 4;
+                temp[d] = clamp((r + round) >> KAISER_SHIFT);
+                temp[d + 1] = clamp((g + round) >> KAISER_SHIFT);
+                temp[d + 2] = clamp((b + round) >> KAISER_SHIFT);
+                temp[d + 3] = clamp((a + round) >> KAISER_SHIFT);
+            }
+        }
+
+        // vertical: temp -> dst
+        for (int y = 0; y < dstHeight; y++) {
+            for (int x = 0; x < dstWidth; x++) {
+                int r = 0, g = 0, b = 0, a = 0;
+                for (int i = 0; i < KAISER_TAPS; i++) {
+                    final int sy = Math.max(0, Math.min(srcHeight - 1, y * 2 - 2 + i));
+                    final int p = (sy * dstWidth + x) * 4;
+                    final int w = KAISER_WEIGHTS[i];
+                    r += (temp[p] & 0xFF) * w;
+                    g += (temp[p + 1] & 0xFF) * w;
+                    b += (temp[p + 2] & 0xFF) * w;
+                    a += (temp[p + 3] & 0xFF) * w;
+                }
+                final int d = (y * dstWidth + x) * 4;
+                final int alpha = Math.max(0, Math.min(255, (a + round) >> KAISER_SHIFT));
+                // premultiplied: the ringing must not push the colors above the alpha
+                dst[d] = (byte) Math.max(0, Math.min(alpha, (r + round) >> KAISER_SHIFT));
+                dst[d + 1] = (byte) Math.max(0, Math.min(alpha, (g + round) >> KAISER_SHIFT));
+                dst[d + 2] = (byte) Math.max(0, Math.min(alpha, (b + round) >> KAISER_SHIFT));
+                dst[d + 3] = (byte) alpha;
+            }
+        }
+    }
+
+    private static byte clamp(final int value) {
+        return (byte) (value < 0 ? 0 : value > 255 ? 255 : value);
+    }
+
+    /**
+     * Write RGBA pixels in the output format, with 4-byte aligned rows
+     */
+    private static void pack(final byte[] src, final int width, final int height, final int format, final int type, final ByteBuffer out) {
+        final int bytesPerPixel = type != GL10.GL_UNSIGNED_BYTE ? 2 : format == GL10.GL_ALPHA ? 1 : format == GL10.GL_RGB ? 3 : 4;
+        final int padding = getRowBytes(width, bytesPerPixel) - width * bytesPerPixel;
+        for (int y = 0; y < height; y++) {
+            int p = y * width * 4;
+            if (type == GL10.GL_UNSIGNED_BYTE && format == GL10.GL_RGBA) {
+                out.put(src, p, width * 4);
+            } else {
+                for (int x = 0; x < width; x++, p += 4) {
+                    final int r = src[p] & 0xFF;
+                    final int g = src[p + 1] & 0xFF;
+                    final int b = src[p + 2] & 0xFF;
+                    final int a = src[p + 3] & 0xFF;
+                    if (type == GL10.GL_UNSIGNED_SHORT_5_6_5) {
+                        out.putShort((short) (((r * 31 + 127) / 255) << 11 | ((g * 63 + 127) / 255) << 5 | ((b * 31 + 127) / 255)));
+                    } else if (type == GL10.GL_UNSIGNED_SHORT_4_4_4_4) {
+                        out.putShort((short) (((r * 15 + 127) / 255) << 12 | ((g * 15 + 127) / 255) << 8 | ((b * 15 + 127) / 255) << 4 | ((a * 15 + 127) / 255)));
+                    } else if (format == GL10.GL_ALPHA) {
+                        out.put((byte) a);
+                    } else {
+                        out.put((byte) r).put((byte) g).put((byte) b);
+                    }
+                }
+            }
+            for (int i = 0; i < padding; i++) {
+                out.put((byte) 0);
+            }
+        }
+    }
+
+    private static double besselI0(final double x) {
+        // power series
+        double sum = 1;
+        double term = 1;
+        for (int k = 1; k < 25; k++) {
+            term *= (x / (2 * k)) * (x / (2 * k));
+            sum += term;
+        }
+        return sum;
+    }
+}
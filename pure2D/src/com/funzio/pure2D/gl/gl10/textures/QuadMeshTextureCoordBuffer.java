@@ -24,8 +24,6 @@
  */
 package com.funzio.pure2D.gl.gl10.textures;
 
-import com.funzio.pure2D.gl.gl10.GLState;
-
 /**
  * @author long.ngo
  */
@@ -33,7 +31,6 @@ public class QuadMeshTextureCoordBuffer extends TextureCoordBuffer {
     public static final int NUM_COORD_PER_CELL = 4 * 2;
 
     protected int mNumCells;
-    protected boolean mInvalidated = false;
 
     protected float mScaleX = 1;
     protected float mScaleY = 1;
@@ -46,17 +43,8 @@ public class QuadMeshTextureCoordBuffer extends TextureCoordBuffer {
 
     public void setNumCells(final int numCells) {
         if (numCells > mNumCells) {
-            // final float[] currentValues = mValues;
-            mValues = new float[numCells * NUM_COORD_PER_CELL];
-
-            // restore values
-            // if (currentValues != null) {
-            // for (int i = 0; i < currentValues.length; i++) {
-            // mValues[i] = currentValues[i];
-            // }
-            // }
-
-            mInvalidated = true;
+            // coordinates are written directly into a new buffer
+            allocate(numCells * NUM_COORD_PER_CELL);
         }
 
         mNumCells = numCells;
@@ -67,130 +55,225 @@ public class QuadMeshTextureCoordBuffer extends TextureCoordBuffer {
     }
 
     /**
-     * Sets a Rect at a specified index but doesn't apply untill applyValues() gets called
+     * Sets a Rect at a specified index, scaled and written directly into the buffer
      * 
      * @param index
      * @param x
      * @param y
      * @param width
      * @param height
-     * @see #validate()
      */
     public void setRectAt(final int index, final float x, final float y, final float width, final float height) {
 
         final int start = index * NUM_COORD_PER_CELL;
-        mValues[start + 0] = x;
-        mValues[start + 1] = y;
-        mValues[start + 2] = x;
-        mValues[start + 3] = (y + height);
-        mValues[start + 4] = (x + width);
-        mValues[start + 5] = y;
-        mValues[start + 6] = (x + width);
-        mValues[start + 7] = (y + height);
-
-        mInvalidated = true;
+        final float x1 = x * mScaleX, x2 = (x + width) * mScaleX;
+        final float y1 = y * mScaleY, y2 = (y + height) * mScaleY;
+        mBuffer.put(start + 0, x1);
+        mBuffer.put(start + 1, y1);
+        mBuffer.put(start + 2, x1);
+        mBuffer.put(start + 3, y2);
+        mBuffer.put(start + 4, x2);
+        mBuffer.put(start + 5, y1);
+        mBuffer.put(start + 6, x2);
+        mBuffer.put(start + 7, y2);
     }
 
     public void setRectFlipVerticalAt(final int index, final float x, final float y, final float width, final float height) {
 
         final int start = index * NUM_COORD_PER_CELL;
-        mValues[start + 0] = x;
-        mValues[start + 1] = (y + height);
-        mValues[start + 2] = x;
-        mValues[start + 3] = y;
-        mValues[start + 4] = (x + width);
-        mValues[start + 5] = (y + height);
-        mValues[start + 6] = (x + width);
-        mValues[start + 7] = y;
-
-        mInvalidated = true;
+        final float x1 = x * mScaleX, x2 = (x + width) * mScaleX;
+        final float y1 = y * mScaleY, y2 = (y + height) * mScaleY;
+        mBuffer.put(start + 0, x1);
+        mBuffer.put(start + 1, y2);
+        mBuffer.put(start + 2, x1);
+        mBuffer.put(start + 3, y1);
+        mBuffer.put(start + 4, x2);
+        mBuffer.put(start + 5, y2);
+        mBuffer.put(start + 6, x2);
+        mBuffer.put(start + 7, y1);
     }
 
     /**
-     * Sets a Rect at a specified index but doesn't apply untill applyValues() gets called
+     * Sets a Rect at a specified index, scaled and written directly into the buffer
      * 
      * @param index
      * @param values
-     * @see #validate()
      */
     public void setRectAt(final int index, final float... values) {
-
-        final int start = index * NUM_COORD_PER_CELL;
-        mValues[start + 0] = values[0];
-        mValues[start + 1] = values[1];
-        mValues[start + 2] = values[2];
-        mValues[start + 3] = values[3];
-        mValues[start + 4] = values[4];
-        mValues[start + 5] = values[5];
-        mValues[start + 6] = values[6];
-        mValues[start + 7] = values[7];
-
-        mInvalidated = true;
+        setValuesAt(index, 1, 0, values);
     }
 
     public void setValuesAt(final int index, final int numCells, final float... values) {
+        setValuesAt(index, numCells, 0, values);
+    }
+
+    public void setValuesAt(final int index, final int numCells, final int srcOffset, final float... values) {
 
         final int start = index * NUM_COORD_PER_CELL;
         final int length = numCells * NUM_COORD_PER_CELL;
-        for (int i = 0; i < length; i++) {
-            mValues[start + i] = values[i];
+        if (mScaleX == 1 && mScaleY == 1) {
+            put(start, values, srcOffset, length);
+        } else {
+            for (int i = 0; i < length; i += 2) {
+                mBuffer.put(start + i, values[srcOffset + i] * mScaleX);
+                mBuffer.put(start + i + 1, values[srcOffset + i + 1] * mScaleY);
+            }
         }
-
-        mInvalidated = true;
     }
 
-    public void setValuesAt(final int index, final int numCells, final int srcOffset, final float... values) {
+    /**
+     * Copy the cells from another coordinate buffer, re-scaled if the scales are different. Used for stacking.
+     * 
+     * @param index
+     * @param numCells
+     * @param src
+     */
+    public void setValuesAt(final int index, final int numCells, final QuadMeshTextureCoordBuffer src) {
 
         final int start = index * NUM_COORD_PER_CELL;
         final int length = numCells * NUM_COORD_PER_CELL;
-        for (int i = 0; i < length; i++) {
-            mValues[start + i] = values[srcOffset + i];
+        if (mScaleX == src.mScaleX && mScaleY == src.mScaleY) {
+            // native copy
+            put(start, src, 0, length);
+        } else {
+            final float sx = mScaleX / src.mScaleX;
+            final float sy = mScaleY / src.mScaleY;
+            for (int i = 0; i < length; i += 2) {
+                mBuffer.put(start + i, src.mBuffer.get(i) * sx);
+                mBuffer.put(start + i + 1, src.mBuffer.get(i + 1) * sy);
+            }
+        }
+    }
+
+    /**
+     * Set the scale applied to the values being written. The current values get re-scaled.
+     * 
+     * @param scaleX
+     * @param scaleY
+     */
+    public void setScale(final float scaleX, final float scaleY) {
+        if (scaleX == mScaleX && scaleY == mScaleY) {
+            return;
         }
 
-        mInvalidated = true;
+        // re-scale the current values
+        scale(scaleX / mScaleX, scaleY / mScaleY);
+
+        mScaleX = scaleX;
+        mScaleY = scaleY;
     }
 
     /**
-     * Applies the values set by {@link #setRectAt(int, float...)}
+     * Scale the current values in the buffer. This does not affect the values written later.
+     * 
+     * @see #setScale(float, float)
      */
-    protected void validate() {
-        if (mInvalidated) {
-
-            // scale the values
-            if (mValues != null && (mScaleX != 1 || mScaleY != 1)) {
-                for (int i = 0; i < mValues.length; i++) {
-                    if (i % 2 == 0) {
-                        mValues[i] *= mScaleX;
-                    } else {
-                        mValues[i] *= mScaleY;
-                    }
-                }
+    @Override
+    public void scale(final float sx, final float sy) {
+        final int capacity = getCapacity();
+        if (mBuffer != null && (sx != 1 || sy != 1)) {
+            for (int i = 0; i < capacity; i += 2) {
+                mBuffer.put(i, mBuffer.get(i) * sx);
+                mBuffer.put(i + 1, mBuffer.get(i + 1) * sy);
             }
+        }
+    }
 
-            setValues(mValues);
+    /**
+     * @return a copy of the values of all the cells, read back from the buffer. Changing it does not affect the buffer.
+     */
+    @Override
+    public float[] getValues() {
+        final int length = mNumCells * NUM_COORD_PER_CELL;
+        if (mValues == null || mValues.length != length) {
+            mValues = new float[length];
+        }
+        mBuffer.position(0);
+        mBuffer.get(mValues, 0, length);
+        mBuffer.position(0);
+
+        return mValues;
+    }
 
-            // unflag
-            mInvalidated = false;
+    /**
+     * Sets the same vertically flipped Rect to all the cells
+     * 
+     * @see #setRectFlipVerticalAt(int, float, float, float, float)
+     */
+    @Override
+    public void setRectFlipVertical(final float x, final float y, final float width, final float height) {
+        for (int i = 0; i < mNumCells; i++) {
+            setRectFlipVerticalAt(i, x, y, width, height);
         }
     }
 
     /**
-     * @param scaleX
-     * @param scaleY
+     * Flips all the cells horizontally
      */
-    public void setScale(final float scaleX, final float scaleY) {
-        mScaleX = scaleX;
-        mScaleY = scaleY;
+    @Override
+    public void flipHorizontal() {
+        for (int start = 0; start < mNumCells * NUM_COORD_PER_CELL; start += NUM_COORD_PER_CELL) {
+            // TL <-> TR
+            swap(start + 0, start + 4);
+            // BL <-> BR
+            swap(start + 2, start + 6);
+        }
+    }
 
-        // unflag
-        mInvalidated = true;
+    /**
+     * Flips all the cells vertically
+     */
+    @Override
+    public void flipVertical() {
+        for (int start = 0; start < mNumCells * NUM_COORD_PER_CELL; start += NUM_COORD_PER_CELL) {
+            // TL <-> BL
+            swap(start + 0, start + 2);
+            // TR <-> BR
+            swap(start + 4, start + 6);
+        }
     }
 
+    /**
+     * Rotates all the cells counter-clockwise
+     */
     @Override
-    public void apply(final GLState glState) {
-        validate();
+    public void rotateCCW() {
+        for (int start = 0; start < mNumCells * NUM_COORD_PER_CELL; start += NUM_COORD_PER_CELL) {
+            final float x0 = mBuffer.get(start + 0);
+            final float y0 = mBuffer.get(start + 1);
+            final float x1 = mBuffer.get(start + 2);
+            final float y1 = mBuffer.get(start + 3);
+
+            // TR
+            mBuffer.put(start + 0, mBuffer.get(start + 4));
+            mBuffer.put(start + 1, mBuffer.get(start + 5));
+            // TL
+            mBuffer.put(start + 2, x0);
+            mBuffer.put(start + 3, y0);
+            // BR
+            mBuffer.put(start + 4, mBuffer.get(start + 6));
+            mBuffer.put(start + 5, mBuffer.get(start + 7));
+            // BL
+            mBuffer.put(start + 6, x1);
+            mBuffer.put(start + 7, y1);
+        }
+    }
+
+    /**
+     * Swap 2 vertices, x and y
+     */
+    private void swap(final int a, final int b) {
+        final float x = mBuffer.get(a);
+        final float y = mBuffer.get(a + 1);
+        mBuffer.put(a, mBuffer.get(b));
+        mBuffer.put(a + 1, mBuffer.get(b + 1));
+        mBuffer.put(b, x);
+        mBuffer.put(b + 1, y);
+    }
 
-        super.apply(glState);
+    @Override
+    public String toString() {
+        return QuadMeshTextureCoordBuffer.class.getSimpleName() + "[cells: " + mNumCells + ", scale: " + mScaleX + ", " + mScaleY + "]";
     }
 
 }
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.gl.gl10.textures;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.util.Log;
+
+import com.funzio.pure2D.gl.gl10.GLState;
+
+/**
+ * A Texture of a rectangular region of a large image, decoded with a BitmapRegionDecoder so the whole image is never in memory. The owner of the BitmapRegionDecoder should
+ * recycle it while holding its lock.
+ * 
+ * @author long
+ */
+public class RegionTexture extends Texture {
+    private BitmapRegionDecoder mRegionDecoder;
+    private Rect mRegion;
+    private TextureOptions mOptions;
+    private boolean mIsAsync = false;
+
+    private final TextureLoader.Decoder mDecoder = new TextureLoader.Decoder() {
+        @Override
+        public Bitmap decode(final int[] dimensions) {
+            final Bitmap bitmap;
+            // the owner recycles the decoder with the same lock
+            synchronized (mRegionDecoder) {
+                if (mRegionDecoder.isRecycled()) {
+                    return null;
+                }
+
+                try {
+                    bitmap = mRegionDecoder.decodeRegion(mRegion, mOptions);
+                } catch (final RuntimeException e) {
+                    Log.e(TAG, "Unable to decode region: " + mRegion, e);
+                    return null;
+                }
+            }
+
+            if (bitmap != null) {
+                dimensions[0] = bitmap.getWidth();
+                dimensions[1] = bitmap.getHeight();
+            }
+            return bitmap;
+        }
+    };
+
+    protected RegionTexture(final GLState glState, final BitmapRegionDecoder regionDecoder, final Rect region, final TextureOptions options, final boolean async) {
+        super(glState);
+
+        mRegionDecoder = regionDecoder;
+
+        if (async) {
+            loadAsync(region, options);
+        } else {
+            load(region, options);
+        }
+    }
+
+    /**
+     * Load synchronously. This blocks GL thread until texture is loaded.
+     * 
+     * @param region
+     * @param options
+     */
+    public void load(final Rect region, final TextureOptions options) {
+        mIsAsync = false;
+        mRegion = region;
+        mOptions = options;
+
+        final int[] dimensions = new int[2];
+        onDecoded(mDecoder.decode(dimensions), dimensions, options != null ? options.inMipmaps : 0);
+    }
+
+    /**
+     * Load Asynchronously without block GL thread.
+     * 
+     * @param region
+     * @param options
+     */
+    public void loadAsync(final Rect region, final TextureOptions options) {
+        mIsAsync = true;
+        mRegion = region;
+        mOptions = options;
+
+        decodeAsync(mDecoder, options != null ? options.inMipmaps : 0);
+    }
+
+    @Override
+    public void reload() {
+        if (mIsAsync) {
+            loadAsync(mRegion, mOptions);
+        } else {
+            load(mRegion, mOptions);
+        }
+    }
+
+    public Rect getRegion() {
+        return mRegion;
+    }
+
+    @Override
+    public String toString() {
+        return mRegion.toShortString();
+    }
+}
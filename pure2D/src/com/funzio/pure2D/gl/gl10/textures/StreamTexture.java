@@ -41,6 +41,9 @@ public class StreamTexture extends Texture {
     protected StreamTexture(final GLState glState, final InputStream stream, final TextureOptions options) {
         super(glState);
 
+        // a stream can only be read once, never evict
+        mPinned = true;
+
         load(stream, options);
     }
 
@@ -24,6 +24,8 @@
  */
 package com.funzio.pure2D.gl.gl10.textures;
 
+import java.nio.ByteBuffer;
+
 import javax.microedition.khronos.opengles.GL10;
 import javax.microedition.khronos.opengles.GL11;
 
@@ -33,6 +35,7 @@ import android.opengl.GLU;
 import android.opengl.GLUtils;
 import android.util.Log;
 
+import com.funzio.pure2D.Pure2D;
 import com.funzio.pure2D.gl.gl10.GLState;
 import com.funzio.pure2D.utils.Pure2DUtils;
 
@@ -51,6 +54,7 @@ public abstract class Texture {
     private int mRepeatS;
     private int mRepeatT;
     private boolean mHasMipmaps = false;
+    private volatile int mMipmapFilter = GL10.GL_LINEAR_MIPMAP_NEAREST;
 
     public int mTextureID = 0; // note: valid texture id can be negative (on Kindle Fire)
     public float mCoordScaleX = 1;
@@ -64,6 +68,21 @@ public abstract class Texture {
     protected int mIdleTime = 0;
     protected boolean mExpired = false;
 
+    // memory budget
+    protected TextureManager mManager;
+    protected boolean mPinned = false;
+    private int mMemorySize = 0; // bytes
+    int mLastBindStamp = 0;
+
+    // sharing
+    String mSharedKey;
+    int mRefCount = 0;
+
+    // async loading
+    TextureLoader.Job mLoadJob;
+    // read by a decoder instead of a Bitmap, handed over on the decoding thread
+    private static final ThreadLocal<CompressedImage> sPendingImage = new ThreadLocal<CompressedImage>();
+
     protected Texture(final GLState glState) {
         mGLState = glState;
         mGL = mGLState.mGL;
@@ -90,23 +109,21 @@ public abstract class Texture {
      * @param mipmaps
      */
     public void load(final Bitmap bitmap, final int actualWidth, final int actualHeight, final int mipmaps) {
-        setBitmapSize(bitmap != null ? bitmap.getWidth() : actualWidth, bitmap != null ? bitmap.getHeight() : actualHeight, actualWidth, actualHeight);
-
-        final int[] ids = new int[1];
-        // clear the previous error(s), to make sure
-        mGLState.clearErrors();
-        mGL.glGenTextures(1, ids, 0);
-        mTextureID = ids[0];
+        final int bitmapWidth = bitmap != null ? bitmap.getWidth() : actualWidth;
+        final int bitmapHeight = bitmap != null ? bitmap.getHeight() : actualHeight;
+        // pad to PO2 on upload, instead of a PO2 Bitmap copy
+        final boolean padding = bitmap != null && needsPo2Padding(bitmapWidth, bitmapHeight);
+        final int width = padding ? Pure2DUtils.getNextPO2(bitmapWidth) : bitmapWidth;
+        final int height = padding ? Pure2DUtils.getNextPO2(bitmapHeight) : bitmapHeight;
+        setBitmapSize(width, height, padding && actualWidth == 0 ? bitmapWidth : actualWidth, padding && actualHeight == 0 ? bitmapHeight : actualHeight);
 
-        int error = mGL.glGetError();
         if (LOG_ENABLED) {
-            Log.v(TAG, String.format("load(%s, %d, %d); id: %d, error: %d", bitmap, actualWidth, actualHeight, mTextureID, error));
+            Log.v(TAG, String.format("load(%s, %d, %d)", bitmap, actualWidth, actualHeight));
         }
 
         // error checking
-        if (error == 0 && mTextureID != 0) {
-            // mGL.glBindTexture(GL10.GL_TEXTURE_2D, mTextureID);
-            mGLState.bindTexture(this);
+        if (generateTexture()) {
+            boolean hasMipmaps = false;
 
             // load the bitmap into gl
             if (bitmap == null) {
@@ -118,35 +135,351 @@ public abstract class Texture {
                     // auto generate mipmaps
                     mGL.glTexParameterf(GL11.GL_TEXTURE_2D, GL11.GL_GENERATE_MIPMAP, GL11.GL_TRUE);
                     if (mGL.glGetError() == 0) {
-                        mHasMipmaps = true;
+                        hasMipmaps = true;
+                    }
+                }
+                if (padding) {
+                    // allocate the PO2 texture then upload bitmap into the corner
+                    final int format = GLUtils.getInternalFormat(bitmap);
+                    final int type = GLUtils.getType(bitmap);
+                    mGL.glTexImage2D(GL10.GL_TEXTURE_2D, 0, format, width, height, 0, format, type, null);
+                    GLUtils.texSubImage2D(GL10.GL_TEXTURE_2D, 0, 0, 0, bitmap);
+                    clearPo2Padding(bitmapWidth, bitmapHeight, width, height, format, type);
+                } else {
+                    // upload bitmap
+                    GLUtils.texImage2D(GL10.GL_TEXTURE_2D, 0, bitmap, 0);
+                }
+
+                if (mipmaps > 0 && !hasMipmaps) {
+                    // no GL_GENERATE_MIPMAP, generate the other levels on the CPU instead
+                    final CompressedImage image = MipmapGenerator.generate(bitmap, MipmapGenerator.FILTER_BOX, padding);
+                    final int numLevels = image.getNumLevels();
+                    for (int level = 1; level < numLevels; level++) {
+                        mGL.glTexImage2D(GL10.GL_TEXTURE_2D, level, image.getFormat(), image.getLevelWidth(level), image.getLevelHeight(level), 0, image.getFormat(), image.getType(), image.getLevel(level));
                     }
+                    hasMipmaps = true;
+                }
+            }
+
+            final int size = width * height * getBytesPerPixel(bitmap);
+            onUploaded(hasMipmaps ? size * 4 / 3 : size, hasMipmaps);
+        }
+
+        // callback, regardless whether it's successful or not
+        if (mListener != null) {
+            mListener.onTextureLoad(this);
+        }
+    }
+
+    /**
+     * Load a compressed or raw image with all its levels. This MUST be executed on GL Thread.
+     * 
+     * @param image
+     * @param actualWidth 0 to use the image's width
+     * @param actualHeight 0 to use the image's height
+     * @param mipmaps to generate the mipmaps of a single-level image
+     * @see CompressedImage
+     */
+    public void load(final CompressedImage image, final int actualWidth, final int actualHeight, final int mipmaps) {
+        if (image == null) {
+            Log.e(TAG, "Unable to load image: " + this);
+            // callback, regardless whether it's successful or not
+            if (mListener != null) {
+                mListener.onTextureLoad(this);
+            }
+            return;
+        }
+
+        // raw pixels might need PO2 padding too
+        final boolean padding = !image.isCompressed() && image.getNumLevels() == 1 && needsPo2Padding(image.getWidth(), image.getHeight());
+        final int width = padding ? Pure2DUtils.getNextPO2(image.getWidth()) : image.getWidth();
+        final int height = padding ? Pure2DUtils.getNextPO2(image.getHeight()) : image.getHeight();
+        setBitmapSize(width, height, padding && actualWidth == 0 ? image.getWidth() : actualWidth, padding && actualHeight == 0 ? image.getHeight() : actualHeight);
+
+        if (LOG_ENABLED) {
+            Log.v(TAG, String.format("load(%s, %d, %d)", image, actualWidth, actualHeight));
+        }
+
+        if (generateTexture()) {
+            final int format = image.getFormat();
+            final boolean supported = !image.isCompressed() || CompressedImage.isFormatSupported(mGL, format);
+            final int numLevels = image.getNumLevels();
+            boolean hasMipmaps = numLevels > 1;
+            if (!hasMipmaps && mipmaps > 0 && !image.isCompressed() && mGL instanceof GL11) {
+                // auto generate mipmaps
+                mGL.glTexParameterf(GL11.GL_TEXTURE_2D, GL11.GL_GENERATE_MIPMAP, GL11.GL_TRUE);
+                hasMipmaps = mGL.glGetError() == 0;
+            }
+
+            int memorySize = 0;
+            int level;
+            ByteBuffer data;
+            for (level = 0; level < numLevels; level++) {
+                data = image.getLevel(level);
+                if (padding) {
+                    mGL.glTexImage2D(GL10.GL_TEXTURE_2D, 0, format, width, height, 0, format, image.getType(), null);
+                    mGL.glTexSubImage2D(GL10.GL_TEXTURE_2D, 0, 0, 0, image.getWidth(), image.getHeight(), format, image.getType(), data);
+                    clearPo2Padding(image.getWidth(), image.getHeight(), width, height, format, image.getType());
+                    memorySize += data.remaining() / (image.getWidth() * image.getHeight()) * width * height;
+                } else if (!image.isCompressed()) {
+                    mGL.glTexImage2D(GL10.GL_TEXTURE_2D, level, format, image.getLevelWidth(level), image.getLevelHeight(level), 0, format, image.getType(), data);
+                    memorySize += data.remaining();
+                } else if (supported) {
+                    mGL.glCompressedTexImage2D(GL10.GL_TEXTURE_2D, level, format, image.getLevelWidth(level), image.getLevelHeight(level), 0, data.remaining(), data);
+                    memorySize += data.remaining();
+                } else if (format == CompressedImage.GL_ETC1_RGB8_OES) {
+                    // software fallback
+                    final ByteBuffer pixels = ETC1Decoder.decodeRGB565(data, image.getLevelWidth(level), image.getLevelHeight(level));
+                    mGL.glTexImage2D(GL10.GL_TEXTURE_2D, level, GL10.GL_RGB, image.getLevelWidth(level), image.getLevelHeight(level), 0, GL10.GL_RGB, GL10.GL_UNSIGNED_SHORT_5_6_5, pixels);
+                    memorySize += pixels.capacity();
+                } else {
+                    Log.e(TAG, "Unsupported compressed format: 0x" + Integer.toHexString(format) + ", " + this);
+                    break;
                 }
-                // upload bitmap
-                GLUtils.texImage2D(GL10.GL_TEXTURE_2D, 0, bitmap, 0);
             }
 
-            // default filters
-            if (mHasMipmaps) {
-                mGL.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_MIN_FILTER, GL10.GL_LINEAR_MIPMAP_NEAREST);
+            // an incomplete chain, keep the base level only
+            if (level > 0 && level < numLevels) {
+                hasMipmaps = false;
+            }
+
+            if (level > 0) {
+                onUploaded(hasMipmaps && numLevels == 1 ? memorySize * 4 / 3 : memorySize, hasMipmaps);
             } else {
-                setFilters(mMinFilter, mMagFilter);
+                unload();
             }
+        }
+
+        // callback, regardless whether it's successful or not
+        if (mListener != null) {
+            mListener.onTextureLoad(this);
+        }
+    }
 
-            // mGL.glBindTexture(GL10.GL_TEXTURE_2D, 0);
-            // mGLState.unbindTexture();
+    /**
+     * @param width
+     * @param height
+     * @return true if a texture of this size must be padded to PO2 because NPOT textures are not supported
+     */
+    protected static boolean needsPo2Padding(final int width, final int height) {
+        return !Pure2D.GL_NPOT_TEXTURE_SUPPORTED && (!Pure2DUtils.isPO2(width) || !Pure2DUtils.isPO2(height));
+    }
 
-            // unexpire
-            mExpired = false;
-            mIdleTime = 0;
+    /**
+     * Clear the column and row right next to the content of a padded texture, so linear filtering at the edges does not pick up undefined texels.
+     * 
+     * @param width content width
+     * @param height content height
+     * @param po2Width
+     * @param po2Height
+     * @param format
+     * @param type
+     */
+    private void clearPo2Padding(final int width, final int height, final int po2Width, final int po2Height, final int format, final int type) {
+        // 4 bytes per pixel covers any format and the default unpack alignment
+        final ByteBuffer zeros = ByteBuffer.allocateDirect(Math.max(po2Width, height) * 4);
+        if (width < po2Width) {
+            mGL.glTexSubImage2D(GL10.GL_TEXTURE_2D, 0, width, 0, 1, height, format, type, zeros);
+        }
+        if (height < po2Height) {
+            mGL.glTexSubImage2D(GL10.GL_TEXTURE_2D, 0, 0, height, po2Width, 1, format, type, zeros);
+        }
+    }
+
+    /**
+     * Generate a new texture id and bind it. This MUST be executed on GL Thread.
+     * 
+     * @return true if successful
+     */
+    protected boolean generateTexture() {
+        final int[] ids = new int[1];
+        // clear the previous error(s), to make sure
+        mGLState.clearErrors();
+        mGL.glGenTextures(1, ids, 0);
+        mTextureID = ids[0];
+
+        final int error = mGL.glGetError();
+        if (LOG_ENABLED) {
+            Log.v(TAG, String.format("generateTexture(); id: %d, error: %d", mTextureID, error));
+        }
+
+        if (error == 0 && mTextureID != 0) {
+            // mGL.glBindTexture(GL10.GL_TEXTURE_2D, mTextureID);
+            mGLState.bindTexture(this);
+            return true;
         } else {
             Log.e(TAG, "Failed to generate Texture: " + GLU.gluErrorString(error), new Exception());
             // TODO maybe throw an Exception here
+            return false;
         }
+    }
 
-        // callback, regardless whether it's successful or not
-        if (mListener != null) {
-            mListener.onTextureLoad(this);
+    /**
+     * Called after the pixels are uploaded to the bound texture id, to apply the filters and account the GPU memory. This MUST be executed on GL Thread.
+     * 
+     * @param memorySize in bytes
+     * @param hasMipmaps
+     */
+    protected void onUploaded(final int memorySize, final boolean hasMipmaps) {
+        mHasMipmaps = hasMipmaps;
+
+        // default filters
+        if (mHasMipmaps) {
+            mGL.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_MIN_FILTER, mMipmapFilter);
+        } else {
+            setFilters(mMinFilter, mMagFilter);
+        }
+
+        // mGL.glBindTexture(GL10.GL_TEXTURE_2D, 0);
+        // mGLState.unbindTexture();
+
+        // unexpire
+        mExpired = false;
+        mIdleTime = 0;
+
+        // account the GPU memory, this might evict other textures but not the fresh ones
+        if (mManager != null) {
+            mLastBindStamp = ++mManager.mBindStamp;
         }
+        setMemorySize(memorySize);
+    }
+
+    /**
+     * Decode a bitmap on the background decode pool then upload it on GL thread, within the per-frame upload budget of the TextureManager.
+     * 
+     * @param decoder
+     * @param mipmaps
+     * @see TextureLoader
+     */
+    protected void decodeAsync(final TextureLoader.Decoder decoder, final int mipmaps) {
+        // replace the pending one
+        if (mLoadJob != null) {
+            TextureLoader.cancel(mLoadJob);
+        }
+
+        final TextureManager manager = mGLState.getTextureManager();
+        if (manager != null) {
+            mLoadJob = TextureLoader.decode(this, decoder, mipmaps, manager.getLoadPriority(), manager.getLoader());
+        } else {
+            mLoadJob = TextureLoader.decode(this, decoder, mipmaps, TextureLoader.PRIORITY_VISIBLE, null);
+        }
+    }
+
+    /**
+     * Called on GL Thread when the bitmap from {@link #decodeAsync(TextureLoader.Decoder, int)} is ready.
+     * 
+     * @param bitmap
+     * @param dimensions
+     * @param mipmaps
+     */
+    protected void onDecoded(final Bitmap bitmap, final int[] dimensions, final int mipmaps) {
+        onDecoded(takePendingImage(), bitmap, dimensions, mipmaps);
+    }
+
+    /**
+     * Called on GL Thread when the image or bitmap from {@link #decodeAsync(TextureLoader.Decoder, int)} is ready.
+     * 
+     * @param image the image set by the decoder, if any
+     * @param bitmap
+     * @param dimensions
+     * @param mipmaps
+     */
+    protected void onDecoded(final CompressedImage image, final Bitmap bitmap, final int[] dimensions, final int mipmaps) {
+        if (image != null) {
+            load(image, dimensions[0], dimensions[1], mipmaps);
+            if (bitmap != null) {
+                bitmap.recycle();
+            }
+        } else if (bitmap != null) {
+            load(bitmap, dimensions[0], dimensions[1], mipmaps);
+            bitmap.recycle();
+        } else {
+            Log.e(TAG, "Unable to load bitmap: " + this);
+            // callback, regardless whether it's successful or not
+            if (mListener != null) {
+                mListener.onTextureLoad(this);
+            }
+        }
+    }
+
+    /**
+     * Decode a bitmap through the disk cache of the TextureManager, if any. On a cache hit, the raw pixels are memory-mapped into the pending image and null is
+     * returned. Same for the mipmaps generated on the CPU, see {@link TextureOptions#inMipmapFilter}. Can be called on any thread.
+     * 
+     * @param source the unique source such as the uri, including anything that changes the content
+     * @param options
+     * @param decoder
+     * @param dimensions output of the actual width and height
+     * @return the decoded Bitmap, null if failed or cached
+     * @see TextureDiskCache
+     */
+    protected Bitmap decodeCached(final String source, final TextureOptions options, final TextureLoader.Decoder decoder, final int[] dimensions) {
+        // mipmaps generated on this thread instead of GL_GENERATE_MIPMAP
+        final boolean cpuMipmaps = options != null && options.inMipmaps > 0 && options.inMipmapFilter != MipmapGenerator.FILTER_GL;
+        if (options != null) {
+            mMipmapFilter = options.inMipmapMinFilter;
+        }
+
+        final TextureManager manager = mGLState.getTextureManager();
+        final TextureDiskCache cache = manager != null ? manager.getDiskCache() : null;
+        String key = null;
+        if (cache != null) {
+            key = cache.getKey(source, options);
+            final CompressedImage image = cache.read(key, dimensions);
+            if (image != null) {
+                setPendingImage(image);
+                return null;
+            }
+        }
+
+        final Bitmap bitmap = decoder.decode(dimensions);
+        if (bitmap != null && cpuMipmaps) {
+            // the padded levels need the actual size
+            if (dimensions[0] == 0 || dimensions[1] == 0) {
+                dimensions[0] = bitmap.getWidth();
+                dimensions[1] = bitmap.getHeight();
+            }
+            final CompressedImage image = MipmapGenerator.generate(bitmap, options.inMipmapFilter, needsPo2Padding(bitmap.getWidth(), bitmap.getHeight()));
+            bitmap.recycle();
+            if (cache != null) {
+                cache.write(key, image, dimensions[0], dimensions[1]);
+            }
+            setPendingImage(image);
+            return null;
+        }
+
+        if (bitmap != null && cache != null) {
+            cache.write(key, bitmap, dimensions[0], dimensions[1]);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Hand a CompressedImage over instead of a Bitmap. This MUST be called from a {@link TextureLoader.Decoder}, on the decoding thread, before returning.
+     * 
+     * @param image
+     * @see #onDecoded(Bitmap, int[], int)
+     */
+    protected static void setPendingImage(final CompressedImage image) {
+        sPendingImage.set(image);
+    }
+
+    /**
+     * @return the image set by the decoder on the current thread, if any
+     */
+    static CompressedImage takePendingImage() {
+        final CompressedImage image = sPendingImage.get();
+        if (image != null) {
+            sPendingImage.set(null);
+        }
+        return image;
+    }
+
+    /**
+     * @return true if this texture is being decoded or waiting for upload
+     */
+    public boolean isLoading() {
+        return mLoadJob != null;
     }
 
     protected void setBitmapSize(final int bitmapWidth, final int bitmapHeight, final int actualWidth, final int actualHeight) {
@@ -161,6 +494,24 @@ public abstract class Texture {
         return mSize;
     }
 
+    public int getMipmapFilter() {
+        return mMipmapFilter;
+    }
+
+    /**
+     * Set the min filter used when this texture has mipmaps, such as GL_LINEAR_MIPMAP_LINEAR for trilinear filtering.
+     * 
+     * @param minFilter
+     */
+    public void setMipmapFilter(final int minFilter) {
+        mMipmapFilter = minFilter;
+
+        if (mTextureID != 0 && mHasMipmaps) {
+            mGLState.bindTexture(this);
+            mGL.glTexParameterf(GL10.GL_TEXTURE_2D, GL10.GL_TEXTURE_MIN_FILTER, minFilter);
+        }
+    }
+
     public void setFilters(final int minFilter, final int magFilter) {
         mMinFilter = minFilter;
         mMagFilter = magFilter;
@@ -198,13 +549,17 @@ public abstract class Texture {
 
     public void bind() {
 
-        // if previously expired, auto reload it!
+        // if previously expired or evicted, auto reload it!
         if (mExpired && mTextureID == 0) {
             reload();
 
             // unexpire
             mExpired = false;
             mIdleTime = 0;
+
+            if (mManager != null) {
+                mManager.onTextureReloaded(this);
+            }
         }
 
         if (mTextureID != 0) {
@@ -213,6 +568,9 @@ public abstract class Texture {
 
             // no longer idle
             mIdleTime = 0;
+            if (mManager != null) {
+                mLastBindStamp = ++mManager.mBindStamp;
+            }
         } else {
             // texture is not ready, notify the glstate
             mGLState.unbindTexture();
@@ -244,6 +602,8 @@ public abstract class Texture {
             // now unbind me
             mGLState.unbindTexture();
         }
+
+        setMemorySize(0);
     }
 
     public int getTextureID() {
@@ -261,6 +621,7 @@ public abstract class Texture {
         if (mGL != mGLState.mGL) {
             mGL = mGLState.mGL;
             mTextureID = 0; // clear the previous id
+            setMemorySize(0); // gone with the old context
 
             // reload now
             reload();
@@ -320,6 +681,63 @@ public abstract class Texture {
         return mExpired;
     }
 
+    /**
+     * Unload this texture and flag it as expired, so the next {@link #bind()} reloads it. Used by TextureManager to enforce the memory budget.
+     */
+    void evict() {
+        unload();
+        mExpired = true;
+    }
+
+    public boolean isPinned() {
+        return mPinned;
+    }
+
+    /**
+     * Pin/unpin this Texture. Pinned textures are never evicted by the memory budget.
+     * 
+     * @param pinned
+     * @see TextureManager#setMemoryBudget(int)
+     */
+    public void setPinned(final boolean pinned) {
+        mPinned = pinned;
+    }
+
+    /**
+     * @return the estimated GPU memory used by this Texture, in bytes. 0 if not loaded.
+     */
+    public int getMemorySize() {
+        return mMemorySize;
+    }
+
+    private void setMemorySize(final int size) {
+        final int delta = size - mMemorySize;
+        mMemorySize = size;
+
+        if (delta != 0 && mManager != null) {
+            mManager.onTextureMemoryChanged(this, delta);
+        }
+    }
+
+    void setManager(final TextureManager manager) {
+        mManager = manager;
+    }
+
+    /**
+     * @param bitmap
+     * @return the number of bytes per pixel GLUtils.texImage2D() allocates for the bitmap, RGBA8888 for blank textures
+     */
+    protected static int getBytesPerPixel(final Bitmap bitmap) {
+        final Bitmap.Config config = bitmap != null ? bitmap.getConfig() : null;
+        if (config == Bitmap.Config.ALPHA_8) {
+            return 1;
+        } else if (config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444) {
+            return 2;
+        }
+
+        return 4;
+    }
+
     @Override
     public String toString() {
         return "Texture {id: " + mTextureID + ", size: " + mSize.x + " x " + mSize.y + "}";
@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.gl.gl10.textures;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.microedition.khronos.opengles.GL10;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+/**
+ * An on-disk cache of decoded texture pixels, already scaled, PO2-padded and premultiplied. The blobs are stored as raw KTX files. They are memory-mapped on later loads
+ * and passed straight to glTexImage2D(), which skips the PNG/JPEG decoding on warm starts.
+ * 
+ * @author long
+ * @see Texture#decodeCached(String, TextureOptions, TextureLoader.Decoder, int[])
+ */
+public class TextureDiskCache {
+    public static final String TAG = TextureDiskCache.class.getSimpleName();
+    public static final String EXTENSION = ".ktx";
+
+    private static final String KEY_ACTUAL_SIZE = "pure2D.actualSize";
+
+    private final File mDir;
+    private String mVersion = "";
+
+    private int mNumHits = 0;
+    private int mNumMisses = 0;
+
+    /**
+     * @param dir the cache directory, such as a sub-directory of Context.getCacheDir()
+     */
+    public TextureDiskCache(final File dir) {
+        mDir = dir;
+        if (!mDir.exists() && !mDir.mkdirs()) {
+            Log.e(TAG, "Unable to create: " + mDir);
+        }
+    }
+
+    /**
+     * @param source the unique source, such as the uri
+     * @param options
+     * @return the cache key
+     */
+    public String getKey(final String source, final TextureOptions options) {
+        final String text = mVersion + "|" + source + "|" + (options != null ? options.getCacheKey() : "");
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.getBytes());
+            final StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (int i = 0; i < digest.length; i++) {
+                sb.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(text.hashCode());
+        }
+    }
+
+    /**
+     * Memory-map a cached blob. Can be called on any thread.
+     * 
+     * @param key
+     * @param dimensions output of the actual width and height
+     * @return the image or null if not cached
+     */
+    public CompressedImage read(final String key, final int[] dimensions) {
+        final File file = getFile(key);
+        if (!file.exists()) {
+            mNumMisses++;
+            return null;
+        }
+
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            final FileChannel channel = raf.getChannel();
+            // the mapping stays valid after the channel is closed
+            final ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            final CompressedImage image = CompressedImage.parse(data);
+            final String actualSize = image != null ? image.getKeyValue(KEY_ACTUAL_SIZE) : null;
+            if (actualSize == null) {
+                throw new IOException("Invalid cache file");
+            }
+
+            final int comma = actualSize.indexOf(',');
+            dimensions[0] = Integer.parseInt(actualSize.substring(0, comma));
+            dimensions[1] = Integer.parseInt(actualSize.substring(comma + 1));
+            mNumHits++;
+
+            return image;
+        } catch (Exception e) {
+            Log.w(TAG, "Unable to read: " + file, e);
+            file.delete();
+            mNumMisses++;
+            return null;
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the pixels of a decoded Bitmap. Only ARGB_8888, RGB_565, ARGB_4444 and ALPHA_8 are supported. Can be called on any thread.
+     * 
+     * @param key
+     * @param bitmap
+     * @param actualWidth
+     * @param actualHeight
+     * @return true if written
+     */
+    public boolean write(final String key, final Bitmap bitmap, final int actualWidth, final int actualHeight) {
+        final Bitmap.Config config = bitmap.getConfig();
+        final int format, type, typeSize;
+        if (config == Bitmap.Config.ARGB_8888) {
+            format = GL10.GL_RGBA;
+            type = GL10.GL_UNSIGNED_BYTE;
+            typeSize = 1;
+        } else if (config == Bitmap.Config.RGB_565) {
+            format = GL10.GL_RGB;
+            type = GL10.GL_UNSIGNED_SHORT_5_6_5;
+            typeSize = 2;
+        } else if (config == Bitmap.Config.ARGB_4444) {
+            format = GL10.GL_RGBA;
+            type = GL10.GL_UNSIGNED_SHORT_4_4_4_4;
+            typeSize = 2;
+        } else if (config == Bitmap.Config.ALPHA_8) {
+            format = GL10.GL_ALPHA;
+            type = GL10.GL_UNSIGNED_BYTE;
+            typeSize = 1;
+        } else {
+            return false;
+        }
+
+        final int width = bitmap.getWidth();
+        final int height = bitmap.getHeight();
+        final int imageSize = bitmap.getRowBytes() * height;
+        // rows must be tightly packed and 4-byte aligned, the default GL_UNPACK_ALIGNMENT
+        final int bytesPerPixel = format == GL10.GL_RGBA && typeSize == 1 ? 4 : typeSize;
+        if (bitmap.getRowBytes() != width * bytesPerPixel || bitmap.getRowBytes() % 4 != 0) {
+            return false;
+        }
+
+        final ByteBuffer pixels = ByteBuffer.allocateDirect(imageSize).order(ByteOrder.nativeOrder());
+        bitmap.copyPixelsToBuffer(pixels);
+        pixels.flip();
+
+        return write(key, format, type, typeSize, width, height, new ByteBuffer[] {
+            pixels
+        }, actualWidth, actualHeight);
+    }
+
+    /**
+     * Write all the levels of a raw image, such as the mipmaps from {@link MipmapGenerator}. Can be called on any thread.
+     * 
+     * @param key
+     * @param image
+     * @param actualWidth
+     * @param actualHeight
+     * @return true if written
+     */
+    public boolean write(final String key, final CompressedImage image, final int actualWidth, final int actualHeight) {
+        if (image.isCompressed()) {
+            return false;
+        }
+
+        final int numLevels = image.getNumLevels();
+        final ByteBuffer[] levels = new ByteBuffer[numLevels];
+        for (int i = 0; i < numLevels; i++) {
+            levels[i] = image.getLevel(i).duplicate();
+        }
+
+        return write(key, image.getFormat(), image.getType(), image.getType() == GL10.GL_UNSIGNED_BYTE ? 1 : 2, image.getWidth(), image.getHeight(), levels, actualWidth, actualHeight);
+    }
+
+    private boolean write(final String key, final int format, final int type, final int typeSize, final int width, final int height, final ByteBuffer[] levels, final int actualWidth, final int actualHeight) {
+        // key/value: size + key\0value\0 + padding
+        final byte[] keyValue = (KEY_ACTUAL_SIZE + "\0" + actualWidth + "," + actualHeight + "\0").getBytes();
+        final int keyValueBytes = 4 + ((keyValue.length + 3) & ~3);
+
+        final ByteBuffer header = ByteBuffer.allocate(CompressedImage.KTX_HEADER_SIZE + keyValueBytes).order(ByteOrder.nativeOrder());
+        header.put(new byte[] {
+                (byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte) 0xBB, '\r', '\n', 0x1A, '\n'
+        });
+        header.putInt(CompressedImage.KTX_ENDIANNESS);
+        header.putInt(type);
+        header.putInt(typeSize);
+        header.putInt(format); // glFormat
+        header.putInt(format); // glInternalFormat
+        header.putInt(format); // glBaseInternalFormat
+        header.putInt(width);
+        header.putInt(height);
+        header.putInt(0); // depth
+        header.putInt(0); // array elements
+        header.putInt(1); // faces
+        header.putInt(levels.length); // mipmap levels
+        header.putInt(keyValueBytes);
+        header.putInt(keyValue.length);
+        header.put(keyValue);
+        header.position(0);
+
+        // write to a temp file then rename, so readers never see a partial file
+        final File file = getFile(key);
+        final File temp = new File(file.getPath() + ".tmp");
+        final ByteBuffer imageSize = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder());
+        FileOutputStream stream = null;
+        try {
+            stream = new FileOutputStream(temp);
+            final FileChannel channel = stream.getChannel();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            for (int i = 0; i < levels.length; i++) {
+                // the level sizes are 4-byte aligned already, no mip padding needed
+                imageSize.clear();
+                imageSize.putInt(levels[i].remaining());
+                imageSize.flip();
+                while (imageSize.hasRemaining()) {
+                    channel.write(imageSize);
+                }
+                while (levels[i].hasRemaining()) {
+                    channel.write(levels[i]);
+                }
+            }
+            stream.close();
+            stream = null;
+
+            if (!temp.renameTo(file)) {
+                throw new IOException("Unable to rename: " + temp);
+            }
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to write: " + file, e);
+            temp.delete();
+            return false;
+        } finally {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Delete all the cached files
+     */
+    public void clear() {
+        final File[] files = mDir.listFiles();
+        if (files != null) {
+            for (int i = 0; i < files.length; i++) {
+                files[i].delete();
+            }
+        }
+    }
+
+    /**
+     * @return the total size of the cached files in bytes
+     */
+    public long getSize() {
+        long size = 0;
+        final File[] files = mDir.listFiles();
+        if (files != null) {
+            for (int i = 0; i < files.length; i++) {
+                size += files[i].length();
+            }
+        }
+        return size;
+    }
+
+    protected File getFile(final String key) {
+        return new File(mDir, key + EXTENSION);
+    }
+
+    public File getDir() {
+        return mDir;
+    }
+
+    public String getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * Set a version that is part of every key, such as the app version code, to invalidate the cache when the assets change.
+     * 
+     * @param version
+     */
+    public void setVersion(final String version) {
+        mVersion = version != null ? version : "";
+    }
+
+    public int getNumHits() {
+        return mNumHits;
+    }
+
+    public int getNumMisses() {
+        return mNumMisses;
+    }
+}
@@ -0,0 +1,406 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.gl.gl10.textures;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.graphics.Bitmap;
+import android.os.Process;
+import android.util.Log;
+
+/**
+ * TextureLoader decodes texture bitmaps on a small, shared pool of background threads and hands them back to the GL thread, where they get uploaded within a per-frame
+ * budget. Decoding is ordered by priority so the textures that are visible now go before the prefetched ones.
+ * 
+ * @author long
+ */
+public class TextureLoader {
+    public static final String TAG = TextureLoader.class.getSimpleName();
+
+    public static final int PRIORITY_PREFETCH = 0;
+    public static final int PRIORITY_VISIBLE = 10;
+
+    public static final int DEFAULT_NUM_THREADS = 2;
+    public static final float DEFAULT_UPLOAD_BUDGET_MS = 4;
+
+    // the decode pool, shared by all loaders
+    private static ThreadPoolExecutor sExecutor;
+    private static int sNumThreads = DEFAULT_NUM_THREADS;
+    private static final AtomicInteger sSequence = new AtomicInteger();
+
+    // decoded bitmaps, waiting for GL thread
+    private final PriorityQueue<Job> mUploads = new PriorityQueue<Job>();
+    // 0 = unlimited
+    private int mUploadBudgetBytes = 0;
+    private float mUploadBudgetMs = DEFAULT_UPLOAD_BUDGET_MS;
+
+    private int mNumUploads = 0;
+    private long mUploadedBytes = 0;
+
+    /**
+     * Decode the bitmap of a Texture on the decode pool. The result is uploaded when {@link #processUploads()} is called on GL thread. If loader is null, the upload is
+     * queued on the Texture's GL thread directly.
+     * 
+     * @param texture
+     * @param decoder
+     * @param mipmaps
+     * @param priority
+     * @param loader
+     * @return the job which can be cancelled
+     */
+    static Job decode(final Texture texture, final Decoder decoder, final int mipmaps, final int priority, final TextureLoader loader) {
+        final Job job = new Job(texture, decoder, mipmaps, priority, loader);
+        getExecutor().execute(job);
+        return job;
+    }
+
+    /**
+     * Change the priority of a Texture that is still decoding or waiting for upload.
+     * 
+     * @param texture
+     * @param priority
+     * @return true if the Texture was pending
+     */
+    public boolean setPriority(final Texture texture, final int priority) {
+        final Job job = texture.mLoadJob;
+        if (job == null || job.mCancelled) {
+            return false;
+        }
+
+        // not started yet? re-queue with the new priority
+        if (sExecutor.remove(job)) {
+            job.mPriority = priority;
+            sExecutor.execute(job);
+            return true;
+        }
+
+        synchronized (mUploads) {
+            if (mUploads.remove(job)) {
+                job.mPriority = priority;
+                mUploads.add(job);
+            } else {
+                // decoding now
+                job.mPriority = priority;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Cancel the pending decode or upload of a Texture, such as when it is removed.
+     * 
+     * @param texture
+     * @return true if there was something to cancel
+     */
+    public boolean cancel(final Texture texture) {
+        final Job job = texture.mLoadJob;
+        if (job == null) {
+            return false;
+        }
+
+        cancel(job);
+        return true;
+    }
+
+    /**
+     * Cancel a job and take it out of the upload queue of its loader, if any.
+     * 
+     * @param job
+     */
+    static void cancel(final Job job) {
+        final TextureLoader loader = job.mLoader;
+        if (loader != null) {
+            synchronized (loader.mUploads) {
+                job.cancel();
+                loader.mUploads.remove(job);
+            }
+        } else {
+            job.cancel();
+        }
+    }
+
+    /**
+     * Upload the decoded bitmaps until the per-frame budget runs out. At least one is uploaded per call so the queue always moves. This MUST be called on GL Thread.
+     * 
+     * @return the number of textures uploaded
+     */
+    public int processUploads() {
+        final long start = System.nanoTime();
+        final long budgetNanos = (long) (mUploadBudgetMs * 1000000);
+        int count = 0;
+        int bytes = 0;
+        Job job;
+        while (true) {
+            synchronized (mUploads) {
+                job = mUploads.peek();
+                if (job == null) {
+                    break;
+                }
+
+                // budget check
+                if (count > 0) {
+                    if (mUploadBudgetBytes > 0 && bytes + job.getBytes() > mUploadBudgetBytes) {
+                        break;
+                    }
+                    if (budgetNanos > 0 && System.nanoTime() - start >= budgetNanos) {
+                        break;
+                    }
+                }
+
+                mUploads.poll();
+
+                // cancelled after being queued
+                if (job.mCancelled) {
+                    job.recycle();
+                    continue;
+                }
+            }
+
+            bytes += job.getBytes();
+            job.upload();
+            count++;
+        }
+
+        mNumUploads += count;
+        mUploadedBytes += bytes;
+
+        return count;
+    }
+
+    private void addUpload(final Job job) {
+        synchronized (mUploads) {
+            if (job.mCancelled) {
+                job.recycle();
+            } else {
+                mUploads.add(job);
+            }
+        }
+    }
+
+    public boolean hasPendingUploads() {
+        synchronized (mUploads) {
+            return !mUploads.isEmpty();
+        }
+    }
+
+    public int getNumPendingUploads() {
+        synchronized (mUploads) {
+            return mUploads.size();
+        }
+    }
+
+    public int getNumUploads() {
+        return mNumUploads;
+    }
+
+    public long getUploadedBytes() {
+        return mUploadedBytes;
+    }
+
+    public int getUploadBudgetBytes() {
+        return mUploadBudgetBytes;
+    }
+
+    /**
+     * @param bytes max bytes to upload per frame, 0 for unlimited
+     */
+    public void setUploadBudgetBytes(final int bytes) {
+        mUploadBudgetBytes = bytes;
+    }
+
+    public float getUploadBudgetMs() {
+        return mUploadBudgetMs;
+    }
+
+    /**
+     * @param ms max time to spend on uploading per frame, 0 for unlimited
+     */
+    public void setUploadBudgetMs(final float ms) {
+        mUploadBudgetMs = ms;
+    }
+
+    public static int getNumThreads() {
+        return sNumThreads;
+    }
+
+    /**
+     * Set the number of decode threads, shared by all loaders.
+     * 
+     * @param numThreads
+     */
+    public static synchronized void setNumThreads(final int numThreads) {
+        sNumThreads = Math.max(1, numThreads);
+
+        if (sExecutor != null) {
+            if (sNumThreads > sExecutor.getMaximumPoolSize()) {
+                sExecutor.setMaximumPoolSize(sNumThreads);
+                sExecutor.setCorePoolSize(sNumThreads);
+            } else {
+                sExecutor.setCorePoolSize(sNumThreads);
+                sExecutor.setMaximumPoolSize(sNumThreads);
+            }
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (sExecutor == null) {
+            final AtomicInteger count = new AtomicInteger();
+            sExecutor = new ThreadPoolExecutor(sNumThreads, sNumThreads, 1, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    final Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            r.run();
+                        }
+                    }, TAG + "-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            sExecutor.allowCoreThreadTimeOut(true);
+        }
+
+        return sExecutor;
+    }
+
+    /**
+     * Decodes a bitmap on a background thread
+     */
+    public static interface Decoder {
+        /**
+         * @param dimensions output of the original width and height
+         * @return the bitmap or null if failed
+         */
+        public Bitmap decode(int[] dimensions);
+    }
+
+    static class Job implements Runnable, Comparable<Job> {
+        private final Texture mTexture;
+        private final Decoder mDecoder;
+        private final TextureLoader mLoader;
+        private final int mMipmaps;
+        private final int mSequence;
+        private final int[] mDimensions = new int[2];
+
+        private volatile int mPriority;
+        private volatile boolean mCancelled = false;
+        private Bitmap mBitmap;
+        // set by the decoder instead of a bitmap
+        private CompressedImage mImage;
+
+        Job(final Texture texture, final Decoder decoder, final int mipmaps, final int priority, final TextureLoader loader) {
+            mTexture = texture;
+            mDecoder = decoder;
+            mMipmaps = mipmaps;
+            mPriority = priority;
+            mLoader = loader;
+            mSequence = sSequence.incrementAndGet();
+        }
+
+        @Override
+        public void run() {
+            if (mCancelled) {
+                return;
+            }
+
+            try {
+                mBitmap = mDecoder.decode(mDimensions);
+            } catch (final RuntimeException e) {
+                // never let it kill the process
+                Log.e(TAG, "Unable to decode: " + mTexture, e);
+                mBitmap = null;
+            }
+            mImage = Texture.takePendingImage();
+
+            if (mLoader != null) {
+                mLoader.addUpload(this);
+            } else {
+                // no loader, upload on the next frame
+                mTexture.mGLState.queueEvent(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mCancelled) {
+                            recycle();
+                        } else {
+                            upload();
+                        }
+                    }
+                });
+            }
+        }
+
+        void upload() {
+            if (mTexture.mLoadJob == this) {
+                mTexture.mLoadJob = null;
+            }
+            mTexture.onDecoded(mImage, mBitmap, mDimensions, mMipmaps);
+            mBitmap = null;
+            mImage = null;
+        }
+
+        void cancel() {
+            mCancelled = true;
+            if (mTexture.mLoadJob == this) {
+                mTexture.mLoadJob = null;
+            }
+            if (sExecutor != null) {
+                sExecutor.remove(this);
+            }
+            recycle();
+        }
+
+        private void recycle() {
+            if (mBitmap != null) {
+                mBitmap.recycle();
+                mBitmap = null;
+            }
+            mImage = null;
+        }
+
+        int getBytes() {
+            if (mBitmap != null) {
+                return mBitmap.getRowBytes() * mBitmap.getHeight();
+            }
+            return mImage != null ? mImage.getDataSize() : 0;
+        }
+
+        @Override
+        public int compareTo(final Job another) {
+            // higher priority first, then first come first served
+            if (mPriority != another.mPriority) {
+                return mPriority > another.mPriority ? -1 : 1;
+            }
+            return mSequence < another.mSequence ? -1 : (mSequence == another.mSequence ? 0 : 1);
+        }
+    }
+}
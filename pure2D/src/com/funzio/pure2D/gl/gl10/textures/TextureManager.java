@@ -25,14 +25,21 @@
 package com.funzio.pure2D.gl.gl10.textures;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 
 import javax.microedition.khronos.opengles.GL10;
 
 import android.content.res.AssetManager;
 import android.content.res.Resources;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
 import android.util.Log;
 
+import com.funzio.pure2D.Pure2DURI;
 import com.funzio.pure2D.Scene;
+import com.funzio.pure2D.atlas.DynamicAtlas;
 import com.funzio.pure2D.gl.gl10.GLState;
 import com.funzio.pure2D.text.TextOptions;
 
@@ -44,6 +51,14 @@ public class TextureManager {
     public static final String TAG = TextureManager.class.getSimpleName();
     public static final int DEFAULT_EXPIRATION_CHECK_INTERVAL = 60 * 1000; // ms
 
+    // least recently bound first
+    private static final Comparator<Texture> LRU_COMPARATOR = new Comparator<Texture>() {
+        @Override
+        public int compare(final Texture lhs, final Texture rhs) {
+            return lhs.mLastBindStamp < rhs.mLastBindStamp ? -1 : (lhs.mLastBindStamp == rhs.mLastBindStamp ? 0 : 1);
+        }
+    };
+
     protected Scene mScene;
     protected ArrayList<Texture> mTextures = new ArrayList<Texture>();
     protected GLState mGLState;
@@ -56,6 +71,24 @@ public class TextureManager {
     protected int mExpirationCheckInterval = 0; // <= 0 means disabled
     protected int mExpirationCheckElapsedTime = 0;
 
+    // memory budget
+    protected int mMemoryBudget = 0; // bytes, <= 0 means unlimited
+    protected int mResidentBytes = 0;
+    protected int mNumEvictions = 0;
+    protected int mNumReloads = 0;
+    int mBindStamp = 0;
+    private int mFrameBindStamp = 0;
+    private final ArrayList<Texture> mEvictionCandidates = new ArrayList<Texture>();
+
+    // shared textures, keyed by source and options
+    protected final HashMap<String, Texture> mSharedTextures = new HashMap<String, Texture>();
+
+    // async decoding and throttled uploading
+    protected final TextureLoader mLoader = new TextureLoader();
+    protected int mLoadPriority = TextureLoader.PRIORITY_VISIBLE;
+    protected TextureDiskCache mDiskCache;
+    protected DynamicAtlas mDynamicAtlas;
+
     public TextureManager(final Scene scene, final Resources res) {
         mScene = scene;
         if (mScene != null) {
@@ -192,6 +225,60 @@ public class TextureManager {
         return texture;
     }
 
+    /**
+     * Create a new Texture from a PKM or KTX file in the assets, without Bitmap decoding
+     * 
+     * @param filePath
+     * @param async
+     * @return
+     */
+    public CompressedTexture createCompressedAssetTexture(final String filePath, final boolean async) {
+        Log.v(TAG, String.format("createCompressedAssetTexture(%s, %b)", filePath, async));
+
+        final CompressedTexture texture = new CompressedTexture(mGLState, mAssets, filePath, async);
+
+        // add to list
+        addTexture(texture);
+
+        return texture;
+    }
+
+    /**
+     * Create a new Texture from a PKM or KTX file, without Bitmap decoding
+     * 
+     * @param filePath
+     * @param async
+     * @return
+     */
+    public CompressedTexture createCompressedFileTexture(final String filePath, final boolean async) {
+        Log.v(TAG, String.format("createCompressedFileTexture(%s, %b)", filePath, async));
+
+        final CompressedTexture texture = new CompressedTexture(mGLState, null, filePath, async);
+
+        // add to list
+        addTexture(texture);
+
+        return texture;
+    }
+
+    /**
+     * Create a new Texture from a region of a large image
+     * 
+     * @param regionDecoder
+     * @param region
+     * @param options
+     * @param async
+     * @return
+     */
+    public RegionTexture createRegionTexture(final BitmapRegionDecoder regionDecoder, final Rect region, final TextureOptions options, final boolean async) {
+        final RegionTexture texture = new RegionTexture(mGLState, regionDecoder, region, options, async);
+
+        // add to list
+        addTexture(texture);
+
+        return texture;
+    }
+
     /**
      * Create a new Texture from a file
      * 
@@ -363,6 +450,148 @@ public class TextureManager {
         return texture;
     }
 
+    /**
+     * Get a shared Texture from an AssetManager, creating it if needed. Requests with the same path and options share the same Texture, including the ones still loading
+     * asynchronously, so the bitmap is decoded and uploaded only once. Call {@link #releaseTexture(Texture)} when done.
+     * 
+     * @param filePath
+     * @param options
+     * @param async only applies when the Texture is created
+     * @return
+     */
+    public AssetTexture acquireAssetTexture(final String filePath, final TextureOptions options, final boolean async) {
+        final String key = getSharedKey(Pure2DURI.ASSET + filePath, options);
+        synchronized (mSharedTextures) {
+            AssetTexture texture = (AssetTexture) acquireSharedTexture(key);
+            if (texture == null) {
+                texture = createAssetTexture(filePath, options, async);
+                shareTexture(key, texture);
+            }
+            return texture;
+        }
+    }
+
+    /**
+     * Get a shared Texture from a file, creating it if needed.
+     * 
+     * @param filePath
+     * @param options
+     * @param async only applies when the Texture is created
+     * @return
+     * @see #acquireAssetTexture(String, TextureOptions, boolean)
+     */
+    public FileTexture acquireFileTexture(final String filePath, final TextureOptions options, final boolean async) {
+        final String key = getSharedKey(Pure2DURI.FILE + filePath, options);
+        synchronized (mSharedTextures) {
+            FileTexture texture = (FileTexture) acquireSharedTexture(key);
+            if (texture == null) {
+                texture = createFileTexture(filePath, options, async);
+                shareTexture(key, texture);
+            }
+            return texture;
+        }
+    }
+
+    /**
+     * Get a shared Texture from a URL, creating it if needed.
+     * 
+     * @param url
+     * @param options
+     * @param async only applies when the Texture is created
+     * @return
+     * @see #acquireAssetTexture(String, TextureOptions, boolean)
+     */
+    public URLTexture acquireURLTexture(final String url, final TextureOptions options, final boolean async) {
+        final String key = getSharedKey(url, options);
+        synchronized (mSharedTextures) {
+            URLTexture texture = (URLTexture) acquireSharedTexture(key);
+            if (texture == null) {
+                texture = createURLTexture(url, options, async);
+                shareTexture(key, texture);
+            }
+            return texture;
+        }
+    }
+
+    /**
+     * Get a shared Texture from a Drawable, creating it if needed.
+     * 
+     * @param drawable
+     * @param options
+     * @param async only applies when the Texture is created
+     * @return
+     * @see #acquireAssetTexture(String, TextureOptions, boolean)
+     */
+    public DrawableTexture acquireDrawableTexture(final int drawable, final TextureOptions options, final boolean async) {
+        final String key = getSharedKey(Pure2DURI.DRAWABLE + drawable, options);
+        synchronized (mSharedTextures) {
+            DrawableTexture texture = (DrawableTexture) acquireSharedTexture(key);
+            if (texture == null) {
+                texture = createDrawableTexture(drawable, options, async);
+                shareTexture(key, texture);
+            }
+            return texture;
+        }
+    }
+
+    /**
+     * Release a Texture acquired from one of the acquire methods. The Texture is removed and unloaded on the last release. This MUST be executed on GL Thread.
+     * 
+     * @param texture
+     * @return true if the Texture got removed
+     */
+    public boolean releaseTexture(final Texture texture) {
+        synchronized (mSharedTextures) {
+            if (texture.mSharedKey == null) {
+                Log.w(TAG, "releaseTexture(): Texture is not shared: " + texture);
+                return false;
+            }
+
+            if (--texture.mRefCount > 0) {
+                return false;
+            }
+        }
+
+        // last reference
+        removeTexture(texture);
+        return true;
+    }
+
+    /**
+     * @param texture
+     * @return the number of references of a shared Texture, 0 if not shared
+     */
+    public int getRefCount(final Texture texture) {
+        synchronized (mSharedTextures) {
+            return texture.mSharedKey != null ? texture.mRefCount : 0;
+        }
+    }
+
+    public int getNumSharedTextures() {
+        synchronized (mSharedTextures) {
+            return mSharedTextures.size();
+        }
+    }
+
+    protected static String getSharedKey(final String source, final TextureOptions options) {
+        // null options decode the same as the default ones
+        return source + "|" + (options == null ? TextureOptions.getDefault() : options).getCacheKey();
+    }
+
+    private Texture acquireSharedTexture(final String key) {
+        final Texture texture = mSharedTextures.get(key);
+        if (texture != null) {
+            texture.mRefCount++;
+        }
+        return texture;
+    }
+
+    private void shareTexture(final String key, final Texture texture) {
+        texture.mSharedKey = key;
+        texture.mRefCount = 1;
+        mSharedTextures.put(key, texture);
+    }
+
     /**
      * Add a new texture which created outside this manager
      * 
@@ -370,7 +599,16 @@ public class TextureManager {
      * @return
      */
     public boolean addTexture(final Texture texture) {
-        return mTextures.add(texture);
+        if (!mTextures.add(texture)) {
+            return false;
+        }
+
+        // start accounting
+        texture.setManager(this);
+        texture.mLastBindStamp = ++mBindStamp;
+        onTextureMemoryChanged(texture, texture.getMemorySize());
+
+        return true;
     }
 
     /**
@@ -379,8 +617,21 @@ public class TextureManager {
      * @param texture
      */
     public void removeTexture(final Texture texture) {
+        // no longer shared
+        if (texture.mSharedKey != null) {
+            synchronized (mSharedTextures) {
+                mSharedTextures.remove(texture.mSharedKey);
+                texture.mSharedKey = null;
+                texture.mRefCount = 0;
+            }
+        }
+
+        // stop loading
+        mLoader.cancel(texture);
+
         if (mTextures.remove(texture)) {
             texture.unload();
+            texture.setManager(null);
         }
     }
 
@@ -428,7 +679,26 @@ public class TextureManager {
         unloadAllTextures();
 
         // empty
+        final int len = mTextures.size();
+        Texture texture;
+        for (int i = 0; i < len; i++) {
+            texture = mTextures.get(i);
+            mLoader.cancel(texture);
+            texture.setManager(null);
+            texture.mSharedKey = null;
+            texture.mRefCount = 0;
+        }
         mTextures.clear();
+        mResidentBytes = 0;
+
+        synchronized (mSharedTextures) {
+            mSharedTextures.clear();
+        }
+
+        // the pages are gone
+        if (mDynamicAtlas != null) {
+            mDynamicAtlas.reset();
+        }
     }
 
     /**
@@ -436,6 +706,9 @@ public class TextureManager {
      * @param deltaTime
      */
     public void update(final int deltaTime) {
+        // textures bound after this are in use by the current frame
+        mFrameBindStamp = mBindStamp;
+
         // negative check
         if (mExpirationCheckInterval > 0) {
 
@@ -456,4 +729,169 @@ public class TextureManager {
     public int getNumTextures() {
         return mTextures.size();
     }
+
+    /**
+     * @return the GPU memory budget, in bytes
+     */
+    public int getMemoryBudget() {
+        return mMemoryBudget;
+    }
+
+    /**
+     * Set the GPU memory budget. When the loaded textures exceed it, the least recently bound ones get unloaded and flagged as expired, so they are reloaded on the next bind. Pinned
+     * textures and the ones used by the current frame are never evicted, so the budget can be exceeded temporarily.
+     * 
+     * @param bytes <= 0 means unlimited, which is the default
+     * @see Texture#setPinned(boolean)
+     */
+    public void setMemoryBudget(final int bytes) {
+        mMemoryBudget = bytes;
+
+        if (mMemoryBudget > 0) {
+            trimMemory(mMemoryBudget, null);
+        }
+    }
+
+    /**
+     * @return the estimated GPU memory used by all the loaded textures, in bytes
+     */
+    public int getResidentBytes() {
+        return mResidentBytes;
+    }
+
+    /**
+     * @return the number of textures evicted by the budget so far
+     */
+    public int getNumEvictions() {
+        return mNumEvictions;
+    }
+
+    /**
+     * @return the number of expired or evicted textures reloaded on bind so far
+     */
+    public int getNumReloads() {
+        return mNumReloads;
+    }
+
+    public TextureLoader getLoader() {
+        return mLoader;
+    }
+
+    public int getLoadPriority() {
+        return mLoadPriority;
+    }
+
+    /**
+     * Set the decoding priority of the async textures created after this call, such as {@link TextureLoader#PRIORITY_PREFETCH} for preloading.
+     * 
+     * @param priority
+     */
+    public void setLoadPriority(final int priority) {
+        mLoadPriority = priority;
+    }
+
+    public TextureDiskCache getDiskCache() {
+        return mDiskCache;
+    }
+
+    /**
+     * Set a disk cache for the decoded pixels of asset and file textures, null to disable.
+     * 
+     * @param diskCache
+     */
+    public void setDiskCache(final TextureDiskCache diskCache) {
+        mDiskCache = diskCache;
+    }
+
+    /**
+     * Get the shared runtime atlas for packing loose bitmaps such as avatars and icons. This MUST be executed on GL Thread.
+     * 
+     * @return the atlas, created on demand
+     */
+    public DynamicAtlas getDynamicAtlas() {
+        if (mDynamicAtlas == null) {
+            mDynamicAtlas = new DynamicAtlas(mGLState);
+        }
+
+        return mDynamicAtlas;
+    }
+
+    public void setDynamicAtlas(final DynamicAtlas atlas) {
+        mDynamicAtlas = atlas;
+    }
+
+    /**
+     * Upload the decoded textures within the per-frame budget, and compact the dynamic atlas if needed. This MUST be executed on GL Thread, once per frame.
+     * 
+     * @return the number of textures uploaded and atlas frames moved
+     * @see TextureLoader#setUploadBudgetMs(float)
+     * @see TextureLoader#setUploadBudgetBytes(int)
+     */
+    public int processUploads() {
+        int uploads = mLoader.processUploads();
+        if (mDynamicAtlas != null) {
+            uploads += mDynamicAtlas.update();
+        }
+
+        return uploads;
+    }
+
+    /**
+     * Evict the least recently bound textures until the resident memory gets down to the specified size. Can be used on low-memory warnings. This MUST be executed on GL Thread.
+     * 
+     * @param bytes
+     * @return the number of textures evicted
+     */
+    public int trimMemory(final int bytes) {
+        return trimMemory(bytes, null);
+    }
+
+    protected int trimMemory(final int bytes, final Texture exception) {
+        if (mResidentBytes <= bytes) {
+            return 0;
+        }
+
+        // collect the candidates, sorted once from the least recently bound
+        final ArrayList<Texture> candidates = mEvictionCandidates;
+        Texture texture;
+        final int len = mTextures.size();
+        for (int i = 0; i < len; i++) {
+            texture = mTextures.get(i);
+            if (texture != exception && !texture.mPinned && texture.isLoaded() && texture.getMemorySize() > 0 && texture.mLastBindStamp <= mFrameBindStamp) {
+                candidates.add(texture);
+            }
+        }
+        Collections.sort(candidates, LRU_COMPARATOR);
+
+        int numEvicted = 0;
+        final int numCandidates = candidates.size();
+        for (int i = 0; i < numCandidates && mResidentBytes > bytes; i++) {
+            texture = candidates.get(i);
+            if (Texture.LOG_ENABLED) {
+                Log.v(TAG, "trimMemory(): evicting " + texture + ", resident: " + mResidentBytes);
+            }
+            texture.evict();
+            numEvicted++;
+        }
+        candidates.clear();
+
+        mNumEvictions += numEvicted;
+        return numEvicted;
+    }
+
+    /**
+     * Called by a Texture when its memory size changes.
+     */
+    void onTextureMemoryChanged(final Texture texture, final int delta) {
+        mResidentBytes += delta;
+
+        // enforce the budget
+        if (delta > 0 && mMemoryBudget > 0 && mResidentBytes > mMemoryBudget) {
+            trimMemory(mMemoryBudget, texture);
+        }
+    }
+
+    void onTextureReloaded(final Texture texture) {
+        mNumReloads++;
+    }
 }
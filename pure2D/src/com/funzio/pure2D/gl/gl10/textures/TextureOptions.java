@@ -24,6 +24,8 @@
  */
 package com.funzio.pure2D.gl.gl10.textures;
 
+import javax.microedition.khronos.opengles.GL10;
+
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 
@@ -37,6 +39,9 @@ public class TextureOptions extends BitmapFactory.Options {
     public float inScaleY = 1;
     public boolean inPo2 = !Pure2D.GL_NPOT_TEXTURE_SUPPORTED; // power of 2 dimensions
     public int inMipmaps = 0; // for GL texture mipmapping
+    public int inMipmapFilter = MipmapGenerator.FILTER_BOX; // how the mipmap levels are generated
+    public int inMipmapMinFilter = GL10.GL_LINEAR_MIPMAP_LINEAR; // trilinear
+    public boolean inPo2Padding = true; // pad to power of 2 on GL upload instead of a PO2 Bitmap copy, when NPOT is not supported
 
     /**
      * Use {@link #getDefault()} to create a default instance
@@ -59,10 +64,21 @@ public class TextureOptions extends BitmapFactory.Options {
         options.inScaleX = options.inScaleY = 1;
         options.inPo2 = !Pure2D.GL_NPOT_TEXTURE_SUPPORTED;
         options.inMipmaps = 0;
+        options.inMipmapFilter = MipmapGenerator.FILTER_BOX;
+        options.inMipmapMinFilter = GL10.GL_LINEAR_MIPMAP_LINEAR;
+        options.inPo2Padding = true;
 
         return options;
     }
 
+    /**
+     * @return a key that identifies the decoded result of these options, used for sharing textures
+     * @see TextureManager#acquireAssetTexture(String, TextureOptions, boolean)
+     */
+    public String getCacheKey() {
+        return inPreferredConfig + "," + inSampleSize + "," + inScaled + "," + inDither + "," + inScaleX + "," + inScaleY + "," + inPo2 + "," + inPo2Padding + "," + inMipmaps + "," + inMipmapFilter + "," + inMipmapMinFilter;
+    }
+
     public void set(final TextureOptions options) {
         inPreferredConfig = options.inPreferredConfig;
         inScaled = options.inScaled;
@@ -73,5 +89,8 @@ public class TextureOptions extends BitmapFactory.Options {
         inScaleY = options.inScaleY;
         inPo2 = options.inPo2;
         inMipmaps = options.inMipmaps;
+        inMipmapFilter = options.inMipmapFilter;
+        inMipmapMinFilter = options.inMipmapMinFilter;
+        inPo2Padding = options.inPo2Padding;
     }
 }
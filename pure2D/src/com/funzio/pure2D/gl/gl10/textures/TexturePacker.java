@@ -61,7 +61,7 @@ public class TexturePacker {
         mPackageName = packageName;
         mTextureOptions = (textureOptions == null) ? TextureOptions.getDefault() : textureOptions;
 
-        mRectPacker = new RectPacker(Math.min(textureMaxSize, Pure2D.GL_MAX_TEXTURE_SIZE), mTextureOptions.inPo2);
+        mRectPacker = new RectPacker(Math.min(textureMaxSize, Pure2D.GL_MAX_TEXTURE_SIZE), mTextureOptions.inPo2, RectPacker.STRATEGY_MAX_RECTS);
         mRectPacker.setQuickMode(true);
         mRectPacker.setRotationEnabled(false);
     }
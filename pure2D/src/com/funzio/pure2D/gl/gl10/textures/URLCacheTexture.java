@@ -26,10 +26,7 @@ package com.funzio.pure2D.gl.gl10.textures;
 
 import java.io.File;
 
-import android.annotation.SuppressLint;
 import android.graphics.Bitmap;
-import android.os.AsyncTask;
-import android.os.Build;
 import android.util.Log;
 
 import com.funzio.pure2D.gl.gl10.GLState;
@@ -109,63 +106,27 @@ public class URLCacheTexture extends Texture {
      * @param options
      * @param po2
      */
-    @SuppressLint("NewApi")
     public void loadAsync(final String fileUrl, final String cachePath, final TextureOptions options) {
         mIsAsync = true;
         mFileUrl = fileUrl;
         mCachePath = cachePath;
         mOptions = options;
 
-        // AsyncTask can only be initialized on UI Thread, especially on Android 2.2
-        mGLState.getStage().getHandler().post(new Runnable() {
+        decodeAsync(new TextureLoader.Decoder() {
             @Override
-            public void run() {
-                final AsyncLoader loader = new AsyncLoader();
-                if (Build.VERSION.SDK_INT > Build.VERSION_CODES.HONEYCOMB) {
-                    loader.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
-                } else {
-                    loader.execute();
-                }
-            }
-        });
-
-    }
-
-    private class AsyncLoader extends AsyncTask<Void, Void, Void> {
-        @Override
-        protected Void doInBackground(final Void... params) {
-            final int[] dimensions = new int[2];
-            Bitmap bitmap = null;
-            final File file = new File(mCachePath);
-            if (file.exists()) {
-                bitmap = Pure2DUtils.getFileBitmap(mCachePath, mOptions, dimensions);
-            } else if (mFileUrl != null && mFileUrl.length() > 0) {
-                // try to download and cache
-                if (new DownloadTask(mFileUrl, mCachePath).run()) {
-                    bitmap = Pure2DUtils.getFileBitmap(mCachePath, mOptions, dimensions);
-                }
-            }
-            final Bitmap finalBitmap = bitmap;
-
-            mGLState.queueEvent(new Runnable() {
-
-                @Override
-                public void run() {
-                    if (finalBitmap != null) {
-                        load(finalBitmap, dimensions[0], dimensions[1], mOptions != null ? mOptions.inMipmaps : 0);
-                        finalBitmap.recycle();
-                    } else {
-                        Log.e(TAG, "Unable to load bitmap: " + mCachePath, new Exception());
-                        // callback, regardless whether it's successful or not
-                        if (mListener != null) {
-                            mListener.onTextureLoad(URLCacheTexture.this);
-                        }
+            public Bitmap decode(final int[] dimensions) {
+                final File file = new File(mCachePath);
+                if (file.exists()) {
+                    return Pure2DUtils.getFileBitmap(mCachePath, mOptions, dimensions);
+                } else if (mFileUrl != null && mFileUrl.length() > 0) {
+                    // try to download and cache
+                    if (new DownloadTask(mFileUrl, mCachePath).run()) {
+                        return Pure2DUtils.getFileBitmap(mCachePath, mOptions, dimensions);
                     }
                 }
-            });
-
-            return null;
-        }
+                return null;
+            }
+        }, mOptions != null ? mOptions.inMipmaps : 0);
     }
 
     @Override
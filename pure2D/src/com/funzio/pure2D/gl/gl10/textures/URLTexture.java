@@ -24,10 +24,7 @@
  */
 package com.funzio.pure2D.gl.gl10.textures;
 
-import android.annotation.SuppressLint;
 import android.graphics.Bitmap;
-import android.os.AsyncTask;
-import android.os.Build;
 import android.util.Log;
 
 import com.funzio.pure2D.gl.gl10.GLState;
@@ -93,51 +90,17 @@ public class URLTexture extends Texture {
      * @param options
      * @param po2
      */
-    @SuppressLint("NewApi")
     public void loadAsync(final String filePath, final TextureOptions options) {
         mIsAsync = true;
         mURL = filePath;
         mOptions = options;
 
-        // AsyncTask can only be initialized on UI Thread, especially on Android 2.2
-        mGLState.getStage().getHandler().post(new Runnable() {
+        decodeAsync(new TextureLoader.Decoder() {
             @Override
-            public void run() {
-                final AsyncLoader loader = new AsyncLoader();
-                if (Build.VERSION.SDK_INT > Build.VERSION_CODES.HONEYCOMB) {
-                    loader.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
-                } else {
-                    loader.execute();
-                }
+            public Bitmap decode(final int[] dimensions) {
+                return Pure2DUtils.getURLBitmap(mURL, mOptions, dimensions);
             }
-        });
-
-    }
-
-    private class AsyncLoader extends AsyncTask<Void, Void, Void> {
-        @Override
-        protected Void doInBackground(final Void... params) {
-            final int[] dimensions = new int[2];
-            final Bitmap bitmap = Pure2DUtils.getURLBitmap(mURL, mOptions, dimensions);
-            mGLState.queueEvent(new Runnable() {
-
-                @Override
-                public void run() {
-                    if (bitmap != null) {
-                        load(bitmap, dimensions[0], dimensions[1], mOptions != null ? mOptions.inMipmaps : 0);
-                        bitmap.recycle();
-                    } else {
-                        Log.e(TAG, "Unable to load bitmap: " + mURL, new Exception());
-                        // callback, regardless whether it's successful or not
-                        if (mListener != null) {
-                            mListener.onTextureLoad(URLTexture.this);
-                        }
-                    }
-                }
-            });
-
-            return null;
-        }
+        }, mOptions != null ? mOptions.inMipmaps : 0);
     }
 
     @Override
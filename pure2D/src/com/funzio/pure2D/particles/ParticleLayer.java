@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.graphics.RectF;
+
+import com.funzio.pure2D.Batchable;
+import com.funzio.pure2D.DisplayObject;
+import com.funzio.pure2D.containers.DisplayGroup;
+import com.funzio.pure2D.gl.gl10.GLState;
+
+/**
+ * A group that draws its batchable Particles with a {@link ParticleRenderer}, one draw call per Texture and BlendFunc, typically one or two for an explosion sharing an atlas.
+ * Emitters add their particles to their parent, so add the emitters to this layer. The other children are drawn normally, before the particles.
+ * 
+ * @author long
+ * @see ParticleRenderer
+ */
+public class ParticleLayer extends DisplayGroup {
+
+    private ParticleRenderer mRenderer;
+    private boolean mPointSpritesEnabled = true;
+
+    // the children that are not batched
+    private final ArrayList<DisplayObject> mOtherChildren = new ArrayList<DisplayObject>();
+
+    public ParticleLayer() {
+        super();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.containers.DisplayGroup#drawChildren(com.funzio.pure2D.gl.gl10.GLState, java.util.List)
+     */
+    @Override
+    protected boolean drawChildren(final GLState glState, final List<DisplayObject> children) {
+        // cached children are drawn into the frame buffer directly
+        if (mCacheEnabled) {
+            return super.drawChildren(glState, children);
+        }
+
+        final ParticleRenderer renderer = validateRenderer(glState);
+        renderer.resetStats();
+
+        // collect the particles
+        final RectF cameraRect = mScene != null ? mScene.getCameraRect() : null;
+        DisplayObject child;
+        final int numChildren = children.size();
+        for (int i = 0; i < numChildren; i++) {
+            child = children.get(i);
+            if (!(child instanceof Particle && child instanceof Batchable && child.shouldDraw(cameraRect) && ((Batchable) child).batch(renderer))) {
+                mOtherChildren.add(child);
+            }
+        }
+
+        // draw the others normally
+        final boolean result = mOtherChildren.isEmpty() || super.drawChildren(glState, mOtherChildren);
+        mOtherChildren.clear();
+
+        // then the particles, before the matrix gets restored
+        renderer.flush();
+
+        return result;
+    }
+
+    private ParticleRenderer validateRenderer(final GLState glState) {
+        // a new GL context comes with a new state
+        if (mRenderer == null || mRenderer.getGLState() != glState) {
+            if (mRenderer != null) {
+                mRenderer.dispose();
+            }
+            mRenderer = new ParticleRenderer(glState);
+            mRenderer.setPointSpritesEnabled(mPointSpritesEnabled);
+        }
+
+        return mRenderer;
+    }
+
+    /**
+     * @return the renderer, null until the first frame is drawn
+     */
+    public ParticleRenderer getRenderer() {
+        return mRenderer;
+    }
+
+    public boolean isPointSpritesEnabled() {
+        return mPointSpritesEnabled;
+    }
+
+    /**
+     * @param pointSpritesEnabled
+     * @see ParticleRenderer#setPointSpritesEnabled(boolean)
+     */
+    public void setPointSpritesEnabled(final boolean pointSpritesEnabled) {
+        mPointSpritesEnabled = pointSpritesEnabled;
+        if (mRenderer != null) {
+            mRenderer.setPointSpritesEnabled(pointSpritesEnabled);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+
+        if (mRenderer != null) {
+            mRenderer.dispose();
+            mRenderer = null;
+        }
+    }
+}
@@ -0,0 +1,535 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+
+import javax.microedition.khronos.opengles.GL10;
+import javax.microedition.khronos.opengles.GL11;
+
+import android.graphics.Matrix;
+
+import com.funzio.pure2D.Pure2D;
+import com.funzio.pure2D.Scene;
+import com.funzio.pure2D.gl.GLColor;
+import com.funzio.pure2D.gl.gl10.BlendFunc;
+import com.funzio.pure2D.gl.gl10.GLState;
+import com.funzio.pure2D.gl.gl10.QuadCollector;
+import com.funzio.pure2D.gl.gl10.QuadMeshBuffer;
+import com.funzio.pure2D.gl.gl10.textures.Texture;
+
+/**
+ * @author long
+ * @category This class gathers particle quads by Texture, BlendFunc and Alpha-test into interleaved position/UV/color streams, so the particles of an explosion sharing an atlas
+ *           are drawn with one draw call regardless of their colors and alphas. Each group is drawn as indexed triangles, or as point sprites when GL_OES_point_sprite is supported
+ *           and every particle of the group is an unrotated, unmirrored square showing its full texture, under a model-view matrix that has no rotation and a uniform scale.
+ *           <p>
+ *           NOTE: the particles of a group are drawn together, so the drawing order between different groups is not kept.
+ *           </p>
+ * @see ParticleLayer
+ */
+public class ParticleRenderer implements QuadCollector {
+    public static final int MAX_CAPACITY = QuadMeshBuffer.MAX_CELLS_PER_PAGE; // quads per draw call
+
+    // x, y, u, v, r, g, b, a
+    private static final int QUAD_VERTEX_SIZE = 8;
+    private static final int QUAD_SIZE = QUAD_VERTEX_SIZE * QuadMeshBuffer.NUM_VERTICES_PER_CELL;
+    // x, y, size, r, g, b, a
+    private static final int POINT_SIZE = 7;
+
+    private static final float SQUARE_TOLERANCE = 0.5f;
+    private static final float COORD_TOLERANCE = 0.001f;
+    private static final float SCALE_TOLERANCE = 0.01f;
+
+    private final GLState mGLState;
+    private final ArrayList<Group> mGroups = new ArrayList<Group>();
+    private int mNumGroups = 0;
+    private Group mLastGroup;
+
+    private boolean mPointSpritesEnabled = Pure2D.GL_POINT_SPRITE_SUPPORTED;
+
+    // the interleaved stream, shared by all groups
+    private FloatBuffer mBuffer;
+
+    // scratch
+    private final float[] mVertices = new float[QuadMeshBuffer.NUM_VERTICES_PER_CELL * 2];
+    private final float[] mMatrixValues = new float[9];
+    private final float[] mProjection = new float[5];
+    private final float[] mModelView = new float[16];
+    private final int[] mViewport = new int[4];
+
+    // stats
+    private int mNumDrawCalls = 0;
+    private int mNumPointDrawCalls = 0;
+    private int mNumParticles = 0;
+
+    public ParticleRenderer(final GLState glState) {
+        mGLState = glState;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.gl.gl10.QuadCollector#add(com.funzio.pure2D.gl.gl10.textures.Texture, float[], float[], android.graphics.Matrix,
+     * com.funzio.pure2D.gl.gl10.BlendFunc, com.funzio.pure2D.gl.GLColor, boolean)
+     */
+    public void add(final Texture texture, final float[] coords, final float[] vertices, final Matrix matrix, final BlendFunc blendFunc, final GLColor color, final boolean alphaTestEnabled) {
+        final Group group = getGroup(texture, blendFunc, alphaTestEnabled);
+
+        // transform on CPU
+        final float[] points;
+        if (matrix != null) {
+            matrix.mapPoints(mVertices, vertices);
+            points = mVertices;
+        } else {
+            points = vertices;
+        }
+
+        final float r, g, b, a;
+        if (color == null) {
+            r = g = b = a = 1f;
+        } else {
+            r = color.r;
+            g = color.g;
+            b = color.b;
+            a = color.a;
+        }
+
+        // interleave
+        final float[] data = group.ensureCapacity(group.mNumQuads + 1);
+        int index = group.mNumQuads * QUAD_SIZE;
+        for (int i = 0; i < QuadMeshBuffer.NUM_VERTICES_PER_CELL; i++) {
+            data[index++] = points[i * 2];
+            data[index++] = points[i * 2 + 1];
+            if (coords != null) {
+                data[index++] = coords[i * 2];
+                data[index++] = coords[i * 2 + 1];
+            } else {
+                data[index++] = 0;
+                data[index++] = 0;
+            }
+            data[index++] = r;
+            data[index++] = g;
+            data[index++] = b;
+            data[index++] = a;
+        }
+
+        // can it still be drawn as points?
+        if (group.mPointable) {
+            group.mPointable = checkPoint(group, coords, points, matrix);
+        }
+
+        group.mNumQuads++;
+        mNumParticles++;
+
+        // full?
+        if (group.mNumQuads == MAX_CAPACITY) {
+            drawGroup(group);
+        }
+    }
+
+    /**
+     * Draw all the pending groups, one draw call each.
+     * 
+     * @see com.funzio.pure2D.gl.gl10.QuadCollector#flush()
+     */
+    public void flush() {
+        for (int i = 0; i < mNumGroups; i++) {
+            drawGroup(mGroups.get(i));
+        }
+
+        // release the references until the next frame
+        for (int i = 0; i < mNumGroups; i++) {
+            mGroups.get(i).mTexture = null;
+        }
+        mNumGroups = 0;
+        mLastGroup = null;
+    }
+
+    private Group getGroup(final Texture texture, final BlendFunc blendFunc, final boolean alphaTestEnabled) {
+        // most particles share the same state as the previous one
+        if (mLastGroup != null && mLastGroup.matches(texture, blendFunc, alphaTestEnabled)) {
+            return mLastGroup;
+        }
+
+        Group group;
+        for (int i = 0; i < mNumGroups; i++) {
+            group = mGroups.get(i);
+            if (group.matches(texture, blendFunc, alphaTestEnabled)) {
+                mLastGroup = group;
+                return group;
+            }
+        }
+
+        // reuse or create a new group
+        if (mNumGroups < mGroups.size()) {
+            group = mGroups.get(mNumGroups);
+        } else {
+            group = new Group();
+            mGroups.add(group);
+        }
+        group.set(texture, blendFunc, alphaTestEnabled);
+        mNumGroups++;
+
+        mLastGroup = group;
+        return group;
+    }
+
+    /**
+     * @return true if the specified quad is an unrotated, unmirrored square that shows the full texture of the group
+     */
+    private boolean checkPoint(final Group group, final float[] coords, final float[] points, final Matrix matrix) {
+        if (group.mTexture == null || coords == null) {
+            return false;
+        }
+
+        // no rotation, skew or mirror
+        if (matrix != null) {
+            matrix.getValues(mMatrixValues);
+            if (mMatrixValues[Matrix.MSKEW_X] != 0 || mMatrixValues[Matrix.MSKEW_Y] != 0 || mMatrixValues[Matrix.MSCALE_X] <= 0 || mMatrixValues[Matrix.MSCALE_Y] <= 0) {
+                return false;
+            }
+        }
+
+        // axis-aligned square, in triangle-strip order: TL, BL, TR, BR
+        final float width = points[4] - points[0];
+        final float height = points[1] - points[3];
+        if (width <= 0 || Math.abs(width - height) > SQUARE_TOLERANCE || points[0] != points[2] || points[4] != points[6] || points[1] != points[5] || points[3] != points[7]) {
+            return false;
+        }
+
+        // full texture, not mirrored horizontally
+        if (Math.abs(coords[0]) > COORD_TOLERANCE || Math.abs(coords[2]) > COORD_TOLERANCE || Math.abs(coords[4] - 1) > COORD_TOLERANCE || Math.abs(coords[6] - 1) > COORD_TOLERANCE) {
+            return false;
+        }
+        // vertically, either way up to match the Axis system
+        final boolean flipped;
+        if (Math.abs(coords[1]) <= COORD_TOLERANCE && Math.abs(coords[3] - 1) <= COORD_TOLERANCE) {
+            flipped = false;
+        } else if (Math.abs(coords[1] - 1) <= COORD_TOLERANCE && Math.abs(coords[3]) <= COORD_TOLERANCE) {
+            flipped = true;
+        } else {
+            return false;
+        }
+        if (coords[5] != coords[1] || coords[7] != coords[3]) {
+            return false;
+        }
+
+        if (group.mNumQuads == 0) {
+            group.mFlipped = flipped;
+        } else if (group.mFlipped != flipped) {
+            return false;
+        }
+
+        if (width > group.mMaxSize) {
+            group.mMaxSize = width;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the number of pixels per unit for point sizes, 0 if point sprites can't be used for the specified group
+     */
+    private float getPointScale(final Group group) {
+        if (!mPointSpritesEnabled || !group.mPointable || !(mGLState.mGL instanceof GL11) || mGLState.getFrameBuffer() != 0) {
+            return 0;
+        }
+
+        mGLState.getProjection(mProjection);
+        if (mProjection[0] == Scene.PROJECTION_PERSPECTIVE || group.mFlipped != (mProjection[0] == Scene.AXIS_TOP_LEFT)) {
+            return 0;
+        }
+
+        mGLState.getViewport(mViewport);
+        final float projectionWidth = mProjection[2] - mProjection[1];
+        final float projectionHeight = mProjection[4] - mProjection[3];
+        if (projectionWidth <= 0 || projectionHeight <= 0) {
+            return 0;
+        }
+
+        // squares need to stay squares on screen
+        final float scale = mViewport[2] / projectionWidth;
+        if (Math.abs(scale - mViewport[3] / projectionHeight) > scale * SCALE_TOLERANCE) {
+            return 0;
+        }
+
+        // the parents and the camera, points are sized in pixels and never rotated
+        final float worldScale = getWorldScale();
+        if (worldScale <= 0) {
+            return 0;
+        }
+
+        return group.mMaxSize * scale * worldScale <= Pure2D.GL_MAX_POINT_SIZE ? scale * worldScale : 0;
+    }
+
+    /**
+     * @return the uniform scale of the current model-view matrix, 0 if it has rotation, skew, mirror or non-uniform scale
+     */
+    private float getWorldScale() {
+        ((GL11) mGLState.mGL).glGetFloatv(GL11.GL_MODELVIEW_MATRIX, mModelView, 0);
+
+        // column-major
+        final float scaleX = mModelView[0];
+        final float scaleY = mModelView[5];
+        if (scaleX <= 0 || scaleY <= 0 || Math.abs(scaleX - scaleY) > scaleX * SCALE_TOLERANCE) {
+            return 0;
+        }
+
+        // x and y must not mix with each other or with z
+        final float tolerance = scaleX * SCALE_TOLERANCE;
+        if (Math.abs(mModelView[1]) > tolerance || Math.abs(mModelView[4]) > tolerance || Math.abs(mModelView[2]) > tolerance || Math.abs(mModelView[6]) > tolerance) {
+            return 0;
+        }
+
+        return scaleX;
+    }
+
+    private void drawGroup(final Group group) {
+        if (group.mNumQuads == 0) {
+            return;
+        }
+
+        final GLState glState = mGLState;
+        glState.setAlphaTestEnabled(group.mAlphaTestEnabled);
+        glState.setBlendFunc(group.mBlendFunc);
+        glState.setVertexArrayEnabled(true);
+        glState.setColorArrayEnabled(true);
+
+        // texture
+        if (group.mTexture != null) {
+            group.mTexture.bind();
+        } else {
+            glState.unbindTexture();
+        }
+
+        final float pointScale = getPointScale(group);
+        if (pointScale > 0) {
+            drawPoints(group, pointScale);
+        } else {
+            drawQuads(group);
+        }
+
+        // the interleaved stream replaced the pointers, make sure the next buffers get re-applied
+        glState.setVertexBuffer(null);
+        glState.setTextureCoordBuffer(null);
+        glState.setColorBuffer(null);
+        glState.setColorArrayEnabled(false);
+        // the current color is undefined after drawing with a color array
+        final GLColor color = glState.getColor();
+        glState.mGL.glColor4f(color.r, color.g, color.b, color.a);
+
+        // reset the group
+        group.mNumQuads = 0;
+        group.mPointable = true;
+        group.mMaxSize = 0;
+    }
+
+    private void drawQuads(final Group group) {
+        final GL10 gl = mGLState.mGL;
+        final int stride = QUAD_VERTEX_SIZE * 4;
+        final FloatBuffer buffer = upload(group.mData, group.mNumQuads * QUAD_SIZE);
+
+        gl.glVertexPointer(2, GL10.GL_FLOAT, stride, buffer.position(0));
+        if (group.mTexture != null) {
+            mGLState.setTextureCoordArrayEnabled(true);
+            gl.glTexCoordPointer(2, GL10.GL_FLOAT, stride, buffer.position(2));
+        } else {
+            mGLState.setTextureCoordArrayEnabled(false);
+        }
+        gl.glColorPointer(4, GL10.GL_FLOAT, stride, buffer.position(4));
+        buffer.position(0);
+
+        mGLState.drawElements(GL10.GL_TRIANGLES, group.mNumQuads * QuadMeshBuffer.NUM_INDICES_PER_CELL, GL10.GL_UNSIGNED_SHORT, QuadMeshBuffer.getShortIndices(group.mNumQuads));
+        mNumDrawCalls++;
+    }
+
+    private void drawPoints(final Group group, final float pointScale) {
+        // collapse the quads into points, in place
+        final float[] data = group.mData;
+        final int numPoints = group.mNumQuads;
+        int src = 0, dst = 0;
+        float x1, y1, x2, y2;
+        for (int i = 0; i < numPoints; i++) {
+            // top-left and bottom-right
+            x1 = data[src];
+            y1 = data[src + 1];
+            x2 = data[src + QUAD_VERTEX_SIZE * 3];
+            y2 = data[src + QUAD_VERTEX_SIZE * 3 + 1];
+
+            data[dst++] = (x1 + x2) * 0.5f;
+            data[dst++] = (y1 + y2) * 0.5f;
+            data[dst++] = (x2 - x1) * pointScale;
+            // color of the first vertex
+            data[dst++] = data[src + 4];
+            data[dst++] = data[src + 5];
+            data[dst++] = data[src + 6];
+            data[dst++] = data[src + 7];
+
+            src += QUAD_SIZE;
+        }
+
+        final GL11 gl = (GL11) mGLState.mGL;
+        final int stride = POINT_SIZE * 4;
+        final FloatBuffer buffer = upload(data, dst);
+
+        mGLState.setTextureCoordArrayEnabled(false);
+        gl.glVertexPointer(2, GL10.GL_FLOAT, stride, buffer.position(0));
+        gl.glPointSizePointerOES(GL10.GL_FLOAT, stride, buffer.position(2));
+        gl.glColorPointer(4, GL10.GL_FLOAT, stride, buffer.position(3));
+        buffer.position(0);
+
+        gl.glEnable(GL11.GL_POINT_SPRITE_OES);
+        gl.glTexEnvf(GL11.GL_POINT_SPRITE_OES, GL11.GL_COORD_REPLACE_OES, GL10.GL_TRUE);
+        gl.glEnableClientState(GL11.GL_POINT_SIZE_ARRAY_OES);
+
+        mGLState.drawArrays(GL10.GL_POINTS, 0, numPoints);
+        mNumDrawCalls++;
+        mNumPointDrawCalls++;
+
+        gl.glDisableClientState(GL11.GL_POINT_SIZE_ARRAY_OES);
+        gl.glTexEnvf(GL11.GL_POINT_SPRITE_OES, GL11.GL_COORD_REPLACE_OES, GL10.GL_FALSE);
+        gl.glDisable(GL11.GL_POINT_SPRITE_OES);
+    }
+
+    private FloatBuffer upload(final float[] data, final int length) {
+        if (mBuffer == null || mBuffer.capacity() < length) {
+            // grow geometrically
+            final int capacity = Math.max(length, mBuffer == null ? 0 : mBuffer.capacity() * 2);
+            final ByteBuffer bb = ByteBuffer.allocateDirect(capacity * 4);
+            bb.order(ByteOrder.nativeOrder());
+            mBuffer = bb.asFloatBuffer();
+        }
+
+        mBuffer.clear();
+        mBuffer.put(data, 0, length);
+        mBuffer.position(0);
+
+        return mBuffer;
+    }
+
+    public GLState getGLState() {
+        return mGLState;
+    }
+
+    public boolean isPointSpritesEnabled() {
+        return mPointSpritesEnabled;
+    }
+
+    /**
+     * Enable/disable drawing the eligible groups as point sprites. This is only effective when {@link Pure2D#GL_POINT_SPRITE_SUPPORTED} is true.
+     * 
+     * @param pointSpritesEnabled
+     */
+    public void setPointSpritesEnabled(final boolean pointSpritesEnabled) {
+        mPointSpritesEnabled = pointSpritesEnabled && Pure2D.GL_POINT_SPRITE_SUPPORTED;
+    }
+
+    /**
+     * @return number of draw calls issued since {@link #resetStats()}
+     */
+    public int getNumDrawCalls() {
+        return mNumDrawCalls;
+    }
+
+    /**
+     * @return number of point-sprite draw calls issued since {@link #resetStats()}
+     */
+    public int getNumPointDrawCalls() {
+        return mNumPointDrawCalls;
+    }
+
+    /**
+     * @return number of particles collected since {@link #resetStats()}
+     */
+    public int getNumParticles() {
+        return mNumParticles;
+    }
+
+    public void resetStats() {
+        mNumDrawCalls = 0;
+        mNumPointDrawCalls = 0;
+        mNumParticles = 0;
+    }
+
+    public void dispose() {
+        mGroups.clear();
+        mNumGroups = 0;
+        mLastGroup = null;
+        mBuffer = null;
+    }
+
+    @Override
+    public String toString() {
+        return ParticleRenderer.class.getSimpleName() + "[groups: " + mNumGroups + ", draw calls: " + mNumDrawCalls + ", point draw calls: " + mNumPointDrawCalls + ", particles: "
+                + mNumParticles + "]";
+    }
+
+    private static final class Group {
+        private Texture mTexture;
+        private BlendFunc mBlendFunc;
+        private final BlendFunc mBlendFuncValues = new BlendFunc();
+        private boolean mAlphaTestEnabled;
+
+        private float[] mData = new float[QUAD_SIZE * 16];
+        private int mNumQuads = 0;
+
+        // point sprite eligibility
+        private boolean mPointable = true;
+        private boolean mFlipped = false;
+        private float mMaxSize = 0;
+
+        private void set(final Texture texture, final BlendFunc blendFunc, final boolean alphaTestEnabled) {
+            mTexture = texture;
+            // keep a copy, the source can be changed before flushing
+            if (blendFunc != null) {
+                mBlendFuncValues.set(blendFunc);
+                mBlendFunc = mBlendFuncValues;
+            } else {
+                mBlendFunc = null;
+            }
+            mAlphaTestEnabled = alphaTestEnabled;
+            mNumQuads = 0;
+            mPointable = true;
+            mMaxSize = 0;
+        }
+
+        private boolean matches(final Texture texture, final BlendFunc blendFunc, final boolean alphaTestEnabled) {
+            return texture == mTexture && alphaTestEnabled == mAlphaTestEnabled && (blendFunc == null ? mBlendFunc == null : mBlendFunc != null && mBlendFunc.equals(blendFunc));
+        }
+
+        private float[] ensureCapacity(final int numQuads) {
+            if (mData.length < numQuads * QUAD_SIZE) {
+                // grow geometrically
+                final float[] data = new float[Math.max(numQuads * QUAD_SIZE, mData.length * 2)];
+                System.arraycopy(mData, 0, data, 0, mNumQuads * QUAD_SIZE);
+                mData = data;
+            }
+            return mData;
+        }
+    }
+}
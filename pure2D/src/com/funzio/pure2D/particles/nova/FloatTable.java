@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova;
+
+import java.util.ArrayList;
+
+/**
+ * An immutable, unboxed version of a Nova float list. 1 value is fixed, 2 values are a random range, more values are picked by the emit index.
+ * 
+ * @author long
+ * @see NovaConfig#getFloat(ArrayList, int, float)
+ */
+public class FloatTable {
+    private final float[] mValues;
+    private final int mSize;
+
+    public FloatTable(final float... values) {
+        mValues = values;
+        mSize = values.length;
+    }
+
+    /**
+     * @param values
+     * @return null if there is no value
+     */
+    public static FloatTable create(final ArrayList<Float> values) {
+        final int size;
+        if (values == null || (size = values.size()) == 0) {
+            return null;
+        }
+
+        final float[] array = new float[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = values.get(i);
+        }
+
+        return new FloatTable(array);
+    }
+
+    public float get(final int index) {
+        if (mSize == 1) {
+            // fixed value
+            return mValues[0];
+        } else if (mSize == 2) {
+            // random value within a range
+            return mValues[0] + NovaConfig.RANDOM.nextFloat() * (mValues[1] - mValues[0]);
+        } else {
+            // randomly pick one of the given values
+            return index < 0 ? mValues[NovaConfig.RANDOM.nextInt(mSize)] : mValues[index % mSize];
+        }
+    }
+
+    public float getValueAt(final int index) {
+        return mValues[index];
+    }
+
+    public int size() {
+        return mSize;
+    }
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova;
+
+import java.util.ArrayList;
+
+/**
+ * An immutable, unboxed version of a Nova int list. 1 value is fixed, 2 values are a random range, more values are picked by the emit index.
+ * 
+ * @author long
+ * @see NovaConfig#getInt(ArrayList, int, int)
+ */
+public class IntTable {
+    private final int[] mValues;
+    private final int mSize;
+    private final boolean mRanged;
+
+    public IntTable(final int... values) {
+        this(true, values);
+    }
+
+    /**
+     * @param ranged false to always pick one of the values, such as for resolved enums
+     * @param values
+     */
+    public IntTable(final boolean ranged, final int... values) {
+        mValues = values;
+        mSize = values.length;
+        mRanged = ranged;
+    }
+
+    /**
+     * @param values
+     * @return null if there is no value
+     */
+    public static IntTable create(final ArrayList<Integer> values) {
+        final int size;
+        if (values == null || (size = values.size()) == 0) {
+            return null;
+        }
+
+        final int[] array = new int[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = values.get(i);
+        }
+
+        return new IntTable(array);
+    }
+
+    public int get(final int index) {
+        if (mSize == 1) {
+            // fixed value
+            return mValues[0];
+        } else if (mSize == 2 && mRanged) {
+            // random value within a range
+            return mValues[0] + (int) (NovaConfig.RANDOM.nextFloat() * (mValues[1] - mValues[0]));
+        } else {
+            // randomly pick one of the given values
+            return index < 0 ? mValues[NovaConfig.RANDOM.nextInt(mSize)] : mValues[index % mSize];
+        }
+    }
+
+    public int getValueAt(final int index) {
+        return mValues[index];
+    }
+
+    public int size() {
+        return mSize;
+    }
+}
@@ -76,6 +76,15 @@ public class NovaConfig {
     public static final String LOOP_REPEAT = "repeat";
     public static final String LOOP_REVERSE = "reverse";
 
+    /**
+     * Seed the shared random generator, to make the effects repeatable
+     * 
+     * @param seed
+     */
+    public static void setRandomSeed(final long seed) {
+        RANDOM.setSeed(seed);
+    }
+
     public static float getFloat(final ArrayList<Float> values, final int index, final float defaultValue) {
         final int size;
         if (values == null || (size = values.size()) == 0) {
@@ -145,6 +154,18 @@ public class NovaConfig {
         }
     }
 
+    public static float getFloat(final FloatTable values, final int index, final float defaultValue) {
+        return values == null ? defaultValue : values.get(index);
+    }
+
+    public static int getInt(final IntTable values, final int index, final int defaultValue) {
+        return values == null ? defaultValue : values.get(index);
+    }
+
+    public static <T> T getObject(final ObjectTable<T> values, final int index, final T defaultValue) {
+        return values == null ? defaultValue : values.get(index);
+    }
+
     public static Interpolator getInterpolator(final String name) {
         if (INTER_ST_ACCELERATE.equalsIgnoreCase(name)) {
             return INTER_ACCELARATE;
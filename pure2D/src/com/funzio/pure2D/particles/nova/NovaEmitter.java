@@ -79,6 +79,7 @@ public class NovaEmitter extends RectangularEmitter implements Reusable, Timelin
         // offset position
         mPosition.x += vo.x;
         mPosition.y += vo.y;
+        invalidate(POSITION);
 
         createManipulators();
         createLayers();
@@ -128,14 +129,14 @@ public class NovaEmitter extends RectangularEmitter implements Reusable, Timelin
         mTimeline.start();
 
         // optional emitter animator
-        if (mEmitterVO.animator != null && mEmitterVO.animator != "") {
-            mAnimator = mFactory.createAnimator(this, mFactory.mNovaVO.getAnimatorVO(mEmitterVO.animator), -1);
+        if (mEmitterVO.getAnimatorVO() != null) {
+            mAnimator = mFactory.createAnimator(this, mEmitterVO.getAnimatorVO(), -1);
 
             if (mAnimator != null) {
                 // only create trail when there is an animator
-                if (mEmitterVO.motion_trail != null) {
+                if (mEmitterVO.getMotionTrailVO() != null) {
                     // get a new trail from pool
-                    mMotionTrail = mFactory.createMotionTrail(-1, this, mFactory.mNovaVO.getMotionTrailVO(mEmitterVO.motion_trail));
+                    mMotionTrail = mFactory.createMotionTrail(-1, this, mEmitterVO.getMotionTrailVO());
                 }
 
                 // add animator
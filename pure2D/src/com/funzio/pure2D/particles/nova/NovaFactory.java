@@ -30,6 +30,7 @@ import java.util.Set;
 
 import android.graphics.PointF;
 import android.util.Log;
+import android.util.SparseArray;
 
 import com.funzio.pure2D.DisplayObject;
 import com.funzio.pure2D.Manipulatable;
@@ -54,7 +55,7 @@ public class NovaFactory {
     // pools
     private int mPoolSize = 0;
     protected ObjectPool<NovaParticle> mParticlePool;
-    protected HashMap<String, ObjectPool<Animator>> mAnimatorPools;
+    protected SparseArray<ObjectPool<Animator>> mAnimatorPools; // by AnimatorVO.getIndex()
     protected HashMap<String, ObjectPool<MotionTrail>> mMotionTrailPools;
 
     public NovaFactory(final NovaLoader loader, final NovaDelegator novaDelegator, final float scale) {
@@ -98,7 +99,7 @@ public class NovaFactory {
         if (poolSize > 0) {
             mPoolSize = poolSize;
             mParticlePool = new ObjectPool<NovaParticle>(poolSize);
-            mAnimatorPools = new HashMap<String, ObjectPool<Animator>>();
+            mAnimatorPools = new SparseArray<ObjectPool<Animator>>();
             mMotionTrailPools = new HashMap<String, ObjectPool<MotionTrail>>();
         }
     }
@@ -186,9 +187,9 @@ public class NovaFactory {
         }
 
         if (mAnimatorPools != null) {
-            final Set<String> keys = mAnimatorPools.keySet();
-            for (String key : keys) {
-                mAnimatorPools.get(key).clear();
+            final int size = mAnimatorPools.size();
+            for (int i = 0; i < size; i++) {
+                mAnimatorPools.valueAt(i).clear();
             }
             mAnimatorPools.clear();
         }
@@ -206,6 +207,13 @@ public class NovaFactory {
         return mPoolSize;
     }
 
+    /**
+     * @return the particle pool, null if there is no pool. Its counters help to tune NovaVO.pool_size.
+     */
+    public ObjectPool<NovaParticle> getParticlePool() {
+        return mParticlePool;
+    }
+
     /**
      * Clear everything! Call when this object is no longer being used.
      */
@@ -229,10 +237,13 @@ public class NovaFactory {
     }
 
     /**
-     * Create an animator by using name as a key
+     * Create an animator, pooled by the compiled index of the VO
      * 
-     * @param animationName
+     * @param target
+     * @param vo
+     * @param emitIndex
      * @return
+     * @see AnimatorVO#getIndex()
      */
     protected Animator createAnimator(final Manipulatable target, final AnimatorVO vo, final int emitIndex) {
         // Log.v(TAG, "createAnimator(): " + animationName);
@@ -241,15 +252,15 @@ public class NovaFactory {
         if (vo == null) {
             return null;
         }
-        final String animationName = vo.name;
+        final int index = vo.getIndex();
 
-        // check the pools
-        if (mAnimatorPools != null) {
-            ObjectPool<Animator> pool = mAnimatorPools.get(animationName);
+        // check the pools, only the top-level animators have an index
+        if (mAnimatorPools != null && index >= 0) {
+            ObjectPool<Animator> pool = mAnimatorPools.get(index);
             if (pool == null) {
                 // no pool created yet, create one
                 pool = new ObjectPool<Animator>(mPoolSize);
-                mAnimatorPools.put(animationName, pool); // use name as key, works better for GroupAnimators
+                mAnimatorPools.put(index, pool); // one pool per top-level VO, works better for GroupAnimators
             } else {
                 // there is a pool, try to acquire
                 final Animator animator = pool.acquire();
@@ -273,7 +284,7 @@ public class NovaFactory {
     protected void releaseAnimator(final Animator animator) {
         if (mAnimatorPools != null && animator.getData() instanceof AnimatorVO) {
             final AnimatorVO vo = (AnimatorVO) animator.getData();
-            final ObjectPool<Animator> pool = mAnimatorPools.get(vo.name); // use name as key
+            final ObjectPool<Animator> pool = mAnimatorPools.get(vo.getIndex()); // null for no index
             if (pool != null) {
                 pool.release(animator);
             }
@@ -27,8 +27,9 @@ package com.funzio.pure2D.particles.nova;
 import com.funzio.pure2D.animators.Animator;
 import com.funzio.pure2D.containers.Container;
 import com.funzio.pure2D.effects.trails.MotionTrail;
-import com.funzio.pure2D.gl.gl10.BlendModes;
 import com.funzio.pure2D.particles.ClipParticle;
+import com.funzio.pure2D.particles.nova.vo.AnimatorVO;
+import com.funzio.pure2D.particles.nova.vo.MotionTrailVO;
 import com.funzio.pure2D.particles.nova.vo.NovaParticleVO;
 
 /**
@@ -80,29 +81,33 @@ public class NovaParticle extends ClipParticle implements Animator.AnimatorListe
         // init the particle
         mPosition = mNovaEmitter.getNextPosition(mPosition);
         // add offsets
-        mPosition.x += NovaConfig.getInt(mParticleVO.x, emitIndex, 0);
-        mPosition.y += NovaConfig.getInt(mParticleVO.y, emitIndex, 0);
-        mZ = NovaConfig.getFloat(mParticleVO.z, emitIndex, 0);
+        mPosition.x += mParticleVO.getX(emitIndex);
+        mPosition.y += mParticleVO.getY(emitIndex);
+        mZ = mParticleVO.getZ(emitIndex);
         mAlphaTestEnabled = mZ > 0;
-        mScale.x = NovaConfig.getFloat(mParticleVO.scale_x, emitIndex, 1);
-        mScale.y = NovaConfig.getFloat(mParticleVO.scale_y, emitIndex, 1);
-        setSkew(NovaConfig.getFloat(mParticleVO.skew_x, emitIndex, 0), NovaConfig.getFloat(mParticleVO.skew_y, emitIndex, 0));
-        mRotation = NovaConfig.getFloat(mParticleVO.rotation, emitIndex, 0);
-        mAlpha = NovaConfig.getFloat(mParticleVO.alpha, emitIndex, 1);
-        mColor = NovaConfig.getColor(mParticleVO.color, emitIndex, null);
-        mBlendFunc = BlendModes.getBlendFunc(NovaConfig.getString(mParticleVO.blend_mode, emitIndex));
+        mScale.x = mParticleVO.getScaleX(emitIndex);
+        mScale.y = mParticleVO.getScaleY(emitIndex);
+        setSkew(mParticleVO.getSkewX(emitIndex), mParticleVO.getSkewY(emitIndex));
+        mRotation = mParticleVO.getRotation(emitIndex);
+        // fields are set directly, flag the local matrix
+        invalidate(POSITION | SCALE | ROTATION);
+        mAlpha = mParticleVO.getAlpha(emitIndex);
+        mColor = mParticleVO.getColor(emitIndex);
+        mBlendFunc = mParticleVO.getBlendFunc(emitIndex);
         mTexture = null;
 
-        // now, find optional animator
-        if (mParticleVO.animator != null && !mParticleVO.animator.isEmpty()) {
+        // now, find optional animator, resolved at load time
+        final AnimatorVO animatorVO = mParticleVO.getAnimatorVO(emitIndex);
+        if (animatorVO != null) {
             // get a new animator from pool
-            mAnimator = mNovaEmitter.mFactory.createAnimator(this, mNovaEmitter.mFactory.mNovaVO.getAnimatorVO(NovaConfig.getString(mParticleVO.animator, emitIndex)), emitIndex);
+            mAnimator = mNovaEmitter.mFactory.createAnimator(this, animatorVO, emitIndex);
 
             if (mAnimator != null) {
                 // now, find optional trail
-                if (mParticleVO.motion_trail != null && !mParticleVO.motion_trail.isEmpty()) {
+                final MotionTrailVO trailVO = mParticleVO.getMotionTrailVO(emitIndex);
+                if (trailVO != null) {
                     // get a new trail from pool
-                    mMotionTrail = mNovaEmitter.mFactory.createMotionTrail(emitIndex, this, mNovaEmitter.mFactory.mNovaVO.getMotionTrailVO(NovaConfig.getString(mParticleVO.motion_trail, emitIndex)));
+                    mMotionTrail = mNovaEmitter.mFactory.createMotionTrail(emitIndex, this, trailVO);
                 }
 
                 // add it
@@ -116,12 +121,8 @@ public class NovaParticle extends ClipParticle implements Animator.AnimatorListe
         }
 
         if (getAtlasFrameSet() != null) {
-            playAt(Math.min(NovaConfig.getInt(mParticleVO.start_frame, emitIndex, 0), getNumFrames() - 1));
-            if (mParticleVO.loop_mode != null) {
-                setLoop(NovaConfig.getLoopMode(NovaConfig.getString(mParticleVO.loop_mode, emitIndex)));
-            } else {
-                setLoop(LOOP_REPEAT); // repeat by default
-            }
+            playAt(Math.min(mParticleVO.getStartFrame(emitIndex), getNumFrames() - 1));
+            setLoop(mParticleVO.getLoopMode(emitIndex)); // repeat by default
         } else if (mTexture == null) {
             // just a dummy box
             setSize(50, 50);
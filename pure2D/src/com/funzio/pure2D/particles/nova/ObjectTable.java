@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova;
+
+import java.util.ArrayList;
+
+/**
+ * An immutable table of objects such as colors or resolved references. 1 value is fixed, more values are picked by the emit index.
+ * 
+ * @author long
+ * @see NovaConfig#getString(ArrayList, int)
+ */
+public class ObjectTable<T> {
+    private final Object[] mValues;
+    private final int mSize;
+
+    public ObjectTable(final Object[] values) {
+        mValues = values;
+        mSize = values.length;
+    }
+
+    /**
+     * @param values
+     * @return null if there is no value
+     */
+    public static <T> ObjectTable<T> create(final ArrayList<T> values) {
+        if (values == null || values.size() == 0) {
+            return null;
+        }
+
+        return new ObjectTable<T>(values.toArray());
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(final int index) {
+        if (mSize == 1) {
+            // fixed value
+            return (T) mValues[0];
+        } else {
+            // randomly pick one of the given values
+            return (T) (index < 0 ? mValues[NovaConfig.RANDOM.nextInt(mSize)] : mValues[index % mSize]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getValueAt(final int index) {
+        return (T) mValues[index];
+    }
+
+    public int size() {
+        return mSize;
+    }
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova.batch;
+
+import com.funzio.pure2D.particles.nova.vo.AlphaAnimatorVO;
+
+/**
+ * @author long
+ * @see com.funzio.pure2D.animators.AlphaAnimator
+ */
+public class AlphaTrack extends TweenTrack {
+    protected float[] mFrom;
+    protected float[] mDelta;
+
+    public AlphaTrack(final AlphaAnimatorVO vo, final int program) {
+        super(vo, program);
+    }
+
+    @Override
+    protected int onSpawn(final ParticleArrays particles, final int index, final int emitIndex) {
+        final AlphaAnimatorVO vo = (AlphaAnimatorVO) mVO;
+        mFrom[index] = vo.getFrom(emitIndex);
+        mDelta[index] = vo.getTo(emitIndex) - mFrom[index];
+
+        return super.onSpawn(particles, index, emitIndex);
+    }
+
+    @Override
+    protected void onApply(final ParticleArrays particles, final int from, final int to) {
+        final boolean[] active = mActive;
+        final float[] values = mValue;
+        final float[] froms = mFrom;
+        final float[] delta = mDelta;
+        final float[] alpha = particles.mAlpha;
+        for (int i = from; i < to; i++) {
+            if (active[i]) {
+                alpha[i] = froms[i] + values[i] * delta[i];
+            }
+        }
+    }
+
+    @Override
+    protected void copy(final int from, final int to) {
+        super.copy(from, to);
+
+        mFrom[to] = mFrom[from];
+        mDelta[to] = mDelta[from];
+    }
+
+    @Override
+    protected void allocate(final int capacity) {
+        super.allocate(capacity);
+
+        mFrom = ParticleArrays.grow(mFrom, capacity);
+        mDelta = ParticleArrays.grow(mDelta, capacity);
+    }
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova.batch;
+
+import com.funzio.pure2D.gl.GLColor;
+import com.funzio.pure2D.particles.nova.vo.ColorAnimatorVO;
+
+/**
+ * @author long
+ * @see com.funzio.pure2D.animators.ColorAnimator
+ */
+public class ColorTrack extends TweenTrack {
+    // 4 channels per particle: r, g, b, a
+    protected float[] mFrom;
+    protected float[] mDelta;
+
+    public ColorTrack(final ColorAnimatorVO vo, final int program) {
+        super(vo, program);
+    }
+
+    @Override
+    protected int onSpawn(final ParticleArrays particles, final int index, final int emitIndex) {
+        final ColorAnimatorVO vo = (ColorAnimatorVO) mVO;
+        final GLColor from = vo.getFrom(emitIndex);
+        final GLColor to = vo.getTo(emitIndex);
+        final int i = index * 4;
+        mFrom[i] = from.r;
+        mFrom[i + 1] = from.g;
+        mFrom[i + 2] = from.b;
+        mFrom[i + 3] = from.a;
+        mDelta[i] = to.r - from.r;
+        mDelta[i + 1] = to.g - from.g;
+        mDelta[i + 2] = to.b - from.b;
+        mDelta[i + 3] = to.a - from.a;
+
+        return super.onSpawn(particles, index, emitIndex);
+    }
+
+    @Override
+    protected void onApply(final ParticleArrays particles, final int from, final int to) {
+        final boolean[] active = mActive;
+        final float[] values = mValue;
+        final float[] froms = mFrom;
+        final float[] delta = mDelta;
+        final float[] red = particles.mRed;
+        final float[] green = particles.mGreen;
+        final float[] blue = particles.mBlue;
+        final float[] alpha = particles.mColorAlpha;
+        float value;
+        int c;
+        for (int i = from; i < to; i++) {
+            if (active[i]) {
+                value = values[i];
+                c = i * 4;
+                red[i] = froms[c] + delta[c] * value;
+                green[i] = froms[c + 1] + delta[c + 1] * value;
+                blue[i] = froms[c + 2] + delta[c + 2] * value;
+                alpha[i] = froms[c + 3] + delta[c + 3] * value;
+            }
+        }
+    }
+
+    @Override
+    protected void copy(final int from, final int to) {
+        super.copy(from, to);
+
+        System.arraycopy(mFrom, from * 4, mFrom, to * 4, 4);
+        System.arraycopy(mDelta, from * 4, mDelta, to * 4, 4);
+    }
+
+    @Override
+    protected void allocate(final int capacity) {
+        super.allocate(capacity);
+
+        mFrom = ParticleArrays.grow(mFrom, capacity * 4);
+        mDelta = ParticleArrays.grow(mDelta, capacity * 4);
+    }
+}
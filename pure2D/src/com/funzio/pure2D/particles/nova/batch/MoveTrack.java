@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova.batch;
+
+import com.funzio.pure2D.particles.nova.vo.MoveAnimatorVO;
+import com.funzio.pure2D.utils.Pure2DUtils;
+
+/**
+ * @author long
+ * @see com.funzio.pure2D.animators.MoveAnimator
+ */
+public class MoveTrack extends TweenTrack {
+    protected final boolean mAccumulating;
+
+    protected float[] mDeltaX;
+    protected float[] mDeltaY;
+    protected float[] mLastValue;
+    // the position when the track starts, for non-accumulating only
+    protected float[] mSrcX;
+    protected float[] mSrcY;
+    protected boolean[] mStarted;
+
+    public MoveTrack(final MoveAnimatorVO vo, final int program) {
+        super(vo, program);
+
+        mAccumulating = vo.accumulating;
+    }
+
+    @Override
+    protected int onSpawn(final ParticleArrays particles, final int index, final int emitIndex) {
+        final MoveAnimatorVO vo = (MoveAnimatorVO) mVO;
+        if (vo.hasDistance()) {
+            final float distance = vo.getDistance(emitIndex);
+            final float radian = vo.getDegree(emitIndex) * Pure2DUtils.DEGREE_TO_RADIAN;
+            mDeltaX[index] = distance * (float) Math.cos(radian);
+            mDeltaY[index] = distance * (float) Math.sin(radian);
+        } else {
+            mDeltaX[index] = vo.getDx(emitIndex);
+            mDeltaY[index] = vo.getDy(emitIndex);
+        }
+        mLastValue[index] = getStartValue();
+        mStarted[index] = false;
+
+        return super.onSpawn(particles, index, emitIndex);
+    }
+
+    @Override
+    protected void onApply(final ParticleArrays particles, final int from, final int to) {
+        final boolean[] active = mActive;
+        final float[] values = mValue;
+        final float[] dx = mDeltaX;
+        final float[] dy = mDeltaY;
+        final float[] x = particles.mX;
+        final float[] y = particles.mY;
+
+        if (mAccumulating) {
+            final float[] last = mLastValue;
+            float delta;
+            for (int i = from; i < to; i++) {
+                if (active[i]) {
+                    delta = values[i] - last[i];
+                    x[i] += delta * dx[i];
+                    y[i] += delta * dy[i];
+                    last[i] = values[i];
+                }
+            }
+        } else {
+            final float[] srcX = mSrcX;
+            final float[] srcY = mSrcY;
+            final boolean[] started = mStarted;
+            for (int i = from; i < to; i++) {
+                if (active[i]) {
+                    if (!started[i]) {
+                        srcX[i] = x[i];
+                        srcY[i] = y[i];
+                        started[i] = true;
+                    }
+                    x[i] = srcX[i] + values[i] * dx[i];
+                    y[i] = srcY[i] + values[i] * dy[i];
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void copy(final int from, final int to) {
+        super.copy(from, to);
+
+        mDeltaX[to] = mDeltaX[from];
+        mDeltaY[to] = mDeltaY[from];
+        mLastValue[to] = mLastValue[from];
+        mSrcX[to] = mSrcX[from];
+        mSrcY[to] = mSrcY[from];
+        mStarted[to] = mStarted[from];
+    }
+
+    @Override
+    protected void allocate(final int capacity) {
+        super.allocate(capacity);
+
+        mDeltaX = ParticleArrays.grow(mDeltaX, capacity);
+        mDeltaY = ParticleArrays.grow(mDeltaY, capacity);
+        mLastValue = ParticleArrays.grow(mLastValue, capacity);
+        mSrcX = ParticleArrays.grow(mSrcX, capacity);
+        mSrcY = ParticleArrays.grow(mSrcY, capacity);
+        mStarted = ParticleArrays.grow(mStarted, capacity);
+    }
+}
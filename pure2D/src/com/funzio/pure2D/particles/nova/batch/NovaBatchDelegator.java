@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova.batch;
+
+import com.funzio.pure2D.atlas.AtlasFrameSet;
+import com.funzio.pure2D.particles.nova.vo.NovaParticleVO;
+
+/**
+ * The batched version of {@link com.funzio.pure2D.particles.nova.NovaDelegator}. Batched particles are not objects, so the delegator provides the frames instead of setting them.
+ * 
+ * @author long
+ */
+public interface NovaBatchDelegator {
+    public void delegateEmitter(final NovaBatchEmitter emitter, final Object... params);
+
+    /**
+     * @param particleVO
+     * @param sprite the sprite picked for this particle, can be null
+     * @param params
+     * @return the frames of the particle, null for a dummy box. All the frames of a layer should share the same Texture to be drawn at once.
+     */
+    public AtlasFrameSet getFrameSet(final NovaParticleVO particleVO, final String sprite, final Object... params);
+}
@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova.batch;
+
+import android.graphics.PointF;
+import android.util.SparseArray;
+
+import com.funzio.pure2D.animators.Animator;
+import com.funzio.pure2D.animators.Timeline;
+import com.funzio.pure2D.animators.Timeline.Action;
+import com.funzio.pure2D.atlas.AtlasFrameSet;
+import com.funzio.pure2D.containers.Container;
+import com.funzio.pure2D.gl.gl10.BlendFunc;
+import com.funzio.pure2D.gl.gl10.textures.Texture;
+import com.funzio.pure2D.particles.RectangularEmitter;
+import com.funzio.pure2D.particles.nova.vo.NovaEmitterVO;
+import com.funzio.pure2D.particles.nova.vo.NovaParticleVO;
+
+/**
+ * The batched version of {@link com.funzio.pure2D.particles.nova.NovaEmitter}. Particles are spawned into {@link NovaBatchLayer}s instead of being added to the parent as objects.
+ * 
+ * @author long
+ */
+public class NovaBatchEmitter extends RectangularEmitter implements Timeline.Listener {
+
+    protected final Timeline mTimeline;
+    protected final NovaBatchFactory mFactory;
+
+    protected NovaEmitterVO mEmitterVO;
+    protected Object[] mParams;
+    protected Animator mAnimator;
+    protected boolean mTimelineCompleted = false;
+
+    // layers for particles, including layer 0
+    protected SparseArray<NovaBatchLayer> mLayers = new SparseArray<NovaBatchLayer>();
+
+    private final PointF mTempPoint = new PointF();
+
+    public NovaBatchEmitter(final NovaBatchFactory factory, final NovaEmitterVO vo, final PointF pos, final Object... params) {
+        super();
+
+        mFactory = factory;
+        mEmitterVO = vo;
+        mParams = params;
+        // auto remove
+        mRemoveOnFinish = true;
+
+        // main timeline
+        mTimeline = new Timeline(mEmitterVO.lifespan, this);
+
+        // define the area size
+        setSize(vo.width, vo.height);
+        setOriginAtCenter();
+        // initial position
+        if (pos != null) {
+            mPosition.x = pos.x;
+            mPosition.y = pos.y;
+        }
+        // offset position
+        mPosition.x += vo.x;
+        mPosition.y += vo.y;
+        invalidate(POSITION);
+
+        createManipulators();
+        createLayers();
+    }
+
+    public NovaEmitterVO getEmitterVO() {
+        return mEmitterVO;
+    }
+
+    public Animator getAnimator() {
+        return mAnimator;
+    }
+
+    public Timeline getTimeline() {
+        return mTimeline;
+    }
+
+    public NovaBatchLayer getLayer(final int layer) {
+        return mLayers.get(layer);
+    }
+
+    protected void createManipulators() {
+        // emitting action for particles
+        final int size = mEmitterVO.particles.size();
+        for (int i = 0; i < size; i++) {
+            mTimeline.addAction(new EmitAction(mEmitterVO.particles.get(i)));
+        }
+        // add timeline
+        addManipulator(mTimeline);
+        // auto start
+        mTimeline.start();
+
+        // optional emitter animator, the emitter itself is a regular object
+        if (mEmitterVO.getAnimatorVO() != null) {
+            mAnimator = mFactory.createEmitterAnimator(this, mEmitterVO.getAnimatorVO());
+            if (mAnimator != null) {
+                addManipulator(mAnimator);
+            }
+        }
+
+        // delegate something
+        if (mFactory.mBatchDelegator != null) {
+            mFactory.mBatchDelegator.delegateEmitter(this, mParams);
+        }
+
+        // Go!
+        if (mAnimator != null) {
+            mAnimator.start();
+        }
+    }
+
+    protected void createLayers() {
+        final int size = mEmitterVO.particles.size();
+        for (int i = 0; i < size; i++) {
+            final int layer = mEmitterVO.particles.get(i).layer;
+            if (mLayers.get(layer) == null) {
+                final NovaBatchLayer batchLayer = new NovaBatchLayer(layer);
+                batchLayer.setScheduler(mFactory.mScheduler);
+                mLayers.put(layer, batchLayer);
+            }
+        }
+    }
+
+    /**
+     * Spawn a particle into its layer
+     * 
+     * @param vo
+     * @param emitIndex
+     */
+    protected void spawnParticle(final NovaParticleVO vo, final int emitIndex) {
+        final NovaBatchLayer layer = mLayers.get(vo.layer);
+
+        // position
+        final PointF pos = getNextPosition(mTempPoint);
+        final float x = pos.x + vo.getX(emitIndex);
+        final float y = pos.y + vo.getY(emitIndex);
+
+        // frames decide the batch
+        final AtlasFrameSet frameSet = mFactory.mBatchDelegator != null ? mFactory.mBatchDelegator.getFrameSet(vo, vo.getSprite(emitIndex), mParams) : null;
+        final Texture texture = frameSet != null ? frameSet.getTexture() : null;
+        final BlendFunc blendFunc = vo.getBlendFunc(emitIndex);
+
+        // optional animator, resolved at load time
+        layer.getBatch(texture, blendFunc).spawn(vo, emitIndex, x, y, frameSet, vo.getAnimatorVO(emitIndex));
+    }
+
+    /**
+     * @return number of live particles in all layers
+     */
+    @Override
+    public int getNumParticles() {
+        int num = 0;
+        final int size = mLayers.size();
+        for (int i = 0; i < size; i++) {
+            num += mLayers.valueAt(i).getNumParticles();
+        }
+
+        return num;
+    }
+
+    @Override
+    public boolean update(final int deltaTime) {
+        final boolean updated = super.update(deltaTime);
+
+        // done when the timeline is done and all the particles are gone
+        if (mTimelineCompleted && !mFinished && getNumParticles() == 0) {
+            queueFinish();
+        }
+
+        return updated;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.BaseDisplayObject#onAdded(com.funzio.pure2D.containers.Container)
+     */
+    @Override
+    public void onAdded(final Container parent) {
+        super.onAdded(parent);
+
+        // add the layers, ordered by key
+        final int size = mLayers.size();
+        for (int i = 0; i < size; i++) {
+            parent.addChild(mLayers.valueAt(i));
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.particles.RectangularEmitter#onRemoved()
+     */
+    @Override
+    public void onRemoved() {
+        // remove animator
+        if (mAnimator != null) {
+            removeManipulator(mAnimator);
+            // release it
+            mFactory.releaseEmitterAnimator(mAnimator);
+            mAnimator = null;
+        }
+
+        // remove the layers
+        final int size = mLayers.size();
+        NovaBatchLayer layer;
+        for (int i = 0; i < size; i++) {
+            layer = mLayers.valueAt(i);
+            layer.removeFromParent();
+            layer.dispose();
+        }
+        mLayers.clear();
+
+        super.onRemoved();
+    }
+
+    @Override
+    public void onTimelineComplete(final Timeline timeline) {
+        // finish when the last particle is gone
+        mTimelineCompleted = true;
+    }
+
+    /**
+     * Timeline Action for emitting paricles
+     * 
+     * @author long
+     */
+    private class EmitAction extends Action {
+        private NovaParticleVO mParticleVO;
+        private int mEmitIndex = 0;
+
+        public EmitAction(final NovaParticleVO vo) {
+            super(vo.start_delay, vo.step_delay, vo.duration);
+
+            mParticleVO = vo;
+        }
+
+        @Override
+        public void run() {
+            // null check
+            if (mParent != null) {
+                for (int n = 0; n < mParticleVO.step_quantity; n++) {
+                    spawnParticle(mParticleVO, mEmitIndex++);
+                }
+            }
+        }
+    }
+
+}
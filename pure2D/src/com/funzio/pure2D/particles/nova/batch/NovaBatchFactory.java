@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova.batch;
+
+import java.util.ArrayList;
+
+import android.graphics.PointF;
+import android.util.Log;
+
+import com.funzio.pure2D.Manipulatable;
+import com.funzio.pure2D.animators.Animator;
+import com.funzio.pure2D.particles.nova.NovaFactory;
+import com.funzio.pure2D.particles.nova.NovaLoader;
+import com.funzio.pure2D.particles.nova.vo.AnimatorVO;
+import com.funzio.pure2D.particles.nova.vo.NovaEmitterVO;
+import com.funzio.pure2D.particles.nova.vo.NovaParticleVO;
+import com.funzio.pure2D.particles.nova.vo.NovaVO;
+
+/**
+ * A NovaFactory that creates batched emitters from the same NovaVO. The particles are kept in primitive arrays and each layer is drawn with one draw call per Texture, instead of one object
+ * per particle. Supported particle animators are move, alpha, scale, rotate, color, trajectory and delay, grouped by sequence or parallel.
+ * 
+ * @author long
+ * @see NovaBatchEmitter
+ */
+public class NovaBatchFactory extends NovaFactory {
+
+    protected NovaBatchDelegator mBatchDelegator;
+    protected ParticleScheduler mScheduler;
+
+    public NovaBatchFactory(final NovaLoader loader, final NovaBatchDelegator delegator, final float scale) {
+        super(loader, null, scale);
+
+        mBatchDelegator = delegator;
+    }
+
+    public NovaBatchFactory(final NovaVO novaVO, final NovaBatchDelegator delegator) {
+        super(novaVO, null);
+
+        mBatchDelegator = delegator;
+    }
+
+    /**
+     * Create a list of batched Emitters with an initial position
+     * 
+     * @param position
+     * @return
+     */
+    public ArrayList<NovaBatchEmitter> createBatchEmitters(final PointF position, final Object... params) {
+        // null check
+        if (mNovaVO == null) {
+            return null;
+        }
+
+        final int size = mNovaVO.emitters.size();
+        final ArrayList<NovaBatchEmitter> emitters = new ArrayList<NovaBatchEmitter>();
+        NovaEmitterVO vo;
+        for (int i = 0; i < size; i++) {
+            vo = mNovaVO.emitters.get(i);
+            for (int n = 0; n < vo.quantity; n++) {
+                emitters.add(createBatchEmitter(vo, position, params));
+            }
+        }
+
+        return emitters;
+    }
+
+    /**
+     * Create a batched emitter from a key with an initial position
+     * 
+     * @param name
+     * @param position
+     * @return
+     */
+    public NovaBatchEmitter createBatchEmitter(final String name, final PointF position, final Object... params) {
+        // null check
+        if (mNovaVO == null) {
+            return null;
+        }
+
+        final NovaEmitterVO vo = mNovaVO.getEmitterVO(name);
+        return vo == null ? null : createBatchEmitter(vo, position, params);
+    }
+
+    protected NovaBatchEmitter createBatchEmitter(final NovaEmitterVO emitterVO, final PointF pos, final Object... params) {
+        return new NovaBatchEmitter(this, emitterVO, pos, params);
+    }
+
+    /**
+     * @param vo
+     * @return true if all the particle animators of the specified NovaVO can be batched
+     */
+    public static boolean isSupported(final NovaVO vo) {
+        final int size = vo.emitters.size();
+        for (int i = 0; i < size; i++) {
+            for (NovaParticleVO particleVO : vo.emitters.get(i).particles) {
+                if (particleVO.animator != null) {
+                    for (String name : particleVO.animator) {
+                        final AnimatorVO animatorVO = vo.getAnimatorVO(name);
+                        if (!ParticleProgram.isSupported(animatorVO)) {
+                            Log.w(TAG, "isSupported(): Unsupported animator: " + name);
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    Animator createEmitterAnimator(final Manipulatable target, final AnimatorVO vo) {
+        return createAnimator(target, vo, -1);
+    }
+
+    void releaseEmitterAnimator(final Animator animator) {
+        releaseAnimator(animator);
+    }
+
+    public NovaBatchDelegator getBatchDelegator() {
+        return mBatchDelegator;
+    }
+
+    public void setBatchDelegator(final NovaBatchDelegator delegator) {
+        mBatchDelegator = delegator;
+    }
+
+    public ParticleScheduler getScheduler() {
+        return mScheduler;
+    }
+
+    /**
+     * Set the scheduler of the layers of the emitters created after this
+     * 
+     * @param scheduler to update the particles on multiple threads, null for the GL thread only
+     */
+    public void setScheduler(final ParticleScheduler scheduler) {
+        mScheduler = scheduler;
+    }
+}
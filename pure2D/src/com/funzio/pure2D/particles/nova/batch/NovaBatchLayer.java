@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova.batch;
+
+import java.util.ArrayList;
+
+import com.funzio.pure2D.BaseDisplayObject;
+import com.funzio.pure2D.Scene;
+import com.funzio.pure2D.gl.GLColor;
+import com.funzio.pure2D.gl.gl10.BlendFunc;
+import com.funzio.pure2D.gl.gl10.GLState;
+import com.funzio.pure2D.gl.gl10.textures.Texture;
+
+/**
+ * A layer of batched particles. Particles are kept in the parent's coordinates, so a layer is added to the same parent as its emitter and is never transformed. Each Texture and BlendFunc
+ * combination of the layer is one {@link ParticleBatch}, one draw call.
+ * 
+ * @author long
+ */
+public class NovaBatchLayer extends BaseDisplayObject {
+    protected final int mLayer;
+    protected final ArrayList<ParticleBatch> mBatches = new ArrayList<ParticleBatch>();
+    protected int mNumBatches = 0;
+    protected int mNumParticles = 0;
+    protected ParticleScheduler mScheduler;
+
+    public NovaBatchLayer(final int layer) {
+        super();
+
+        mLayer = layer;
+        // particles can be anywhere
+        mBypassCameraClipping = true;
+    }
+
+    public int getLayer() {
+        return mLayer;
+    }
+
+    /**
+     * Find or create the batch for a specific Texture and BlendFunc
+     * 
+     * @param texture can be null
+     * @param blendFunc can be null
+     * @return
+     */
+    public ParticleBatch getBatch(final Texture texture, final BlendFunc blendFunc) {
+        ParticleBatch batch;
+        for (int i = 0; i < mNumBatches; i++) {
+            batch = mBatches.get(i);
+            if (batch.mTexture == texture && (batch.mBlendFunc == blendFunc || (batch.mBlendFunc != null && batch.mBlendFunc.equals(blendFunc)))) {
+                return batch;
+            }
+        }
+
+        batch = new ParticleBatch(texture, blendFunc);
+        mBatches.add(batch);
+        mNumBatches++;
+
+        return batch;
+    }
+
+    public int getNumBatches() {
+        return mNumBatches;
+    }
+
+    public ParticleBatch getBatchAt(final int index) {
+        return mBatches.get(index);
+    }
+
+    public ParticleScheduler getScheduler() {
+        return mScheduler;
+    }
+
+    /**
+     * @param scheduler to update the batches on multiple threads, null for the current thread only
+     */
+    public void setScheduler(final ParticleScheduler scheduler) {
+        mScheduler = scheduler;
+    }
+
+    /**
+     * @return number of live particles, as of the last update
+     */
+    public int getNumParticles() {
+        return mNumParticles;
+    }
+
+    @Override
+    public boolean update(final int deltaTime) {
+        int numParticles = 0;
+        if (mScheduler != null) {
+            // multi-threaded, joined before returning
+            numParticles = mScheduler.update(mBatches, mNumBatches, deltaTime);
+        } else {
+            for (int i = 0; i < mNumBatches; i++) {
+                numParticles += mBatches.get(i).update(deltaTime);
+            }
+        }
+
+        if (numParticles > 0 || mNumParticles > 0) {
+            invalidate(CHILDREN);
+        }
+        mNumParticles = numParticles;
+
+        return super.update(deltaTime);
+    }
+
+    @Override
+    protected boolean drawChildren(final GLState glState) {
+        if (mNumParticles == 0) {
+            return false;
+        }
+
+        final GLColor color = getInheritedColor();
+        final BlendFunc inheritedBlendFunc = getInheritedBlendFunc();
+        final boolean flippedAxis = mScene != null && mScene.getAxisSystem() == Scene.AXIS_TOP_LEFT;
+        ParticleBatch batch;
+        for (int i = 0; i < mNumBatches; i++) {
+            batch = mBatches.get(i);
+            batch.draw(glState, color, batch.mBlendFunc != null ? batch.mBlendFunc : inheritedBlendFunc, flippedAxis);
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean draw(final GLState glState) {
+        super.draw(glState);
+
+        // validate visual only
+        mInvalidateFlags &= ~(VISUAL | CHILDREN);
+
+        return mNumParticles > 0;
+    }
+
+    public void clear() {
+        for (int i = 0; i < mNumBatches; i++) {
+            mBatches.get(i).clear();
+        }
+        mNumParticles = 0;
+    }
+
+    @Override
+    public void dispose() {
+        for (int i = 0; i < mNumBatches; i++) {
+            mBatches.get(i).dispose();
+        }
+        mBatches.clear();
+        mNumBatches = 0;
+        mNumParticles = 0;
+
+        super.dispose();
+    }
+}
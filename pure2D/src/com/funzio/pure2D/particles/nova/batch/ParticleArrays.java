@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova.batch;
+
+import java.util.ArrayList;
+
+/**
+ * Structure-of-arrays particle state. A particle is just an index; all of its properties live in primitive arrays so the updates are tight loops without any object access or allocation.
+ * Removing a particle moves the last one into its slot, so the live particles are always packed in [0, size).
+ * 
+ * @author long
+ */
+public class ParticleArrays {
+    public static final int DEFAULT_CAPACITY = 64;
+
+    protected int mCapacity = 0;
+    protected int mSize = 0;
+
+    // transform
+    protected float[] mX;
+    protected float[] mY;
+    protected float[] mScaleX;
+    protected float[] mScaleY;
+    protected float[] mRotation; // degree
+
+    // color and alpha
+    protected float[] mAlpha;
+    protected float[] mRed;
+    protected float[] mGreen;
+    protected float[] mBlue;
+    protected float[] mColorAlpha;
+
+    // origin, -1 for center
+    protected float[] mOriginX;
+    protected float[] mOriginY;
+
+    // frames
+    protected int[] mFrameSet; // index of the frame set, -1 for none
+    protected int[] mStartFrame;
+    protected int[] mFrameLoop;
+    protected int[] mFrameCount; // accumulated frames since spawned
+
+    // time
+    protected int[] mAge; // ms
+    protected int[] mLife; // ms, < 0 is unlimited
+    protected int[] mProgram; // index of the animator program, -1 for none
+
+    // per-particle states of the animator tracks, resized and moved along with the particles
+    protected final ArrayList<Track> mTracks = new ArrayList<Track>();
+
+    public ParticleArrays() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ParticleArrays(final int capacity) {
+        allocate(Math.max(capacity, 1));
+    }
+
+    /**
+     * Add a new particle with the default values
+     * 
+     * @return the index of the new particle
+     */
+    public int add() {
+        if (mSize == mCapacity) {
+            // grow geometrically
+            allocate(mCapacity * 2);
+        }
+
+        final int index = mSize++;
+        mX[index] = 0;
+        mY[index] = 0;
+        mScaleX[index] = 1;
+        mScaleY[index] = 1;
+        mRotation[index] = 0;
+        mAlpha[index] = 1;
+        mRed[index] = 1;
+        mGreen[index] = 1;
+        mBlue[index] = 1;
+        mColorAlpha[index] = 1;
+        mOriginX[index] = -1;
+        mOriginY[index] = -1;
+        mFrameSet[index] = -1;
+        mStartFrame[index] = 0;
+        mFrameLoop[index] = 0;
+        mFrameCount[index] = 0;
+        mAge[index] = 0;
+        mLife[index] = -1;
+        mProgram[index] = -1;
+
+        return index;
+    }
+
+    /**
+     * Remove a particle by moving the last particle into its slot
+     * 
+     * @param index
+     */
+    public void remove(final int index) {
+        final int last = --mSize;
+        if (index != last) {
+            copy(last, index);
+        }
+    }
+
+    /**
+     * Remove all the particles whose life has ended. Note that the particles after a removed one get shifted, so this needs to be called after the tracks are updated.
+     * 
+     * @return number of removed particles
+     */
+    public int removeDead() {
+        int removed = 0;
+        for (int i = mSize - 1; i >= 0; i--) {
+            if (mLife[i] >= 0 && mAge[i] >= mLife[i]) {
+                remove(i);
+                removed++;
+            }
+        }
+
+        return removed;
+    }
+
+    public void clear() {
+        mSize = 0;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    protected void addTrack(final Track track) {
+        track.allocate(mCapacity);
+        mTracks.add(track);
+    }
+
+    protected void copy(final int from, final int to) {
+        mX[to] = mX[from];
+        mY[to] = mY[from];
+        mScaleX[to] = mScaleX[from];
+        mScaleY[to] = mScaleY[from];
+        mRotation[to] = mRotation[from];
+        mAlpha[to] = mAlpha[from];
+        mRed[to] = mRed[from];
+        mGreen[to] = mGreen[from];
+        mBlue[to] = mBlue[from];
+        mColorAlpha[to] = mColorAlpha[from];
+        mOriginX[to] = mOriginX[from];
+        mOriginY[to] = mOriginY[from];
+        mFrameSet[to] = mFrameSet[from];
+        mStartFrame[to] = mStartFrame[from];
+        mFrameLoop[to] = mFrameLoop[from];
+        mFrameCount[to] = mFrameCount[from];
+        mAge[to] = mAge[from];
+        mLife[to] = mLife[from];
+        mProgram[to] = mProgram[from];
+
+        // only the tracks of the moved particle's program hold values for it
+        final int program = mProgram[to];
+        if (program >= 0) {
+            final int numTracks = mTracks.size();
+            Track track;
+            for (int i = 0; i < numTracks; i++) {
+                track = mTracks.get(i);
+                if (track.mProgram == program) {
+                    track.copy(from, to);
+                }
+            }
+        }
+    }
+
+    protected void allocate(final int capacity) {
+        mX = grow(mX, capacity);
+        mY = grow(mY, capacity);
+        mScaleX = grow(mScaleX, capacity);
+        mScaleY = grow(mScaleY, capacity);
+        mRotation = grow(mRotation, capacity);
+        mAlpha = grow(mAlpha, capacity);
+        mRed = grow(mRed, capacity);
+        mGreen = grow(mGreen, capacity);
+        mBlue = grow(mBlue, capacity);
+        mColorAlpha = grow(mColorAlpha, capacity);
+        mOriginX = grow(mOriginX, capacity);
+        mOriginY = grow(mOriginY, capacity);
+        mFrameSet = grow(mFrameSet, capacity);
+        mStartFrame = grow(mStartFrame, capacity);
+        mFrameLoop = grow(mFrameLoop, capacity);
+        mFrameCount = grow(mFrameCount, capacity);
+        mAge = grow(mAge, capacity);
+        mLife = grow(mLife, capacity);
+        mProgram = grow(mProgram, capacity);
+
+        final int numTracks = mTracks.size();
+        for (int i = 0; i < numTracks; i++) {
+            mTracks.get(i).allocate(capacity);
+        }
+
+        mCapacity = capacity;
+    }
+
+    protected static float[] grow(final float[] values, final int capacity) {
+        final float[] newValues = new float[capacity];
+        if (values != null) {
+            System.arraycopy(values, 0, newValues, 0, Math.min(values.length, capacity));
+        }
+        return newValues;
+    }
+
+    protected static int[] grow(final int[] values, final int capacity) {
+        final int[] newValues = new int[capacity];
+        if (values != null) {
+            System.arraycopy(values, 0, newValues, 0, Math.min(values.length, capacity));
+        }
+        return newValues;
+    }
+
+    protected static boolean[] grow(final boolean[] values, final int capacity) {
+        final boolean[] newValues = new boolean[capacity];
+        if (values != null) {
+            System.arraycopy(values, 0, newValues, 0, Math.min(values.length, capacity));
+        }
+        return newValues;
+    }
+}
@@ -0,0 +1,453 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova.batch;
+
+import java.util.ArrayList;
+
+import android.graphics.PointF;
+
+import com.funzio.pure2D.LoopModes;
+import com.funzio.pure2D.atlas.AtlasFrame;
+import com.funzio.pure2D.atlas.AtlasFrameSet;
+import com.funzio.pure2D.gl.GLColor;
+import com.funzio.pure2D.gl.gl10.BlendFunc;
+import com.funzio.pure2D.gl.gl10.BlendModes;
+import com.funzio.pure2D.gl.gl10.GLState;
+import com.funzio.pure2D.gl.gl10.QuadMeshBuffer;
+import com.funzio.pure2D.gl.gl10.QuadMeshColorBuffer;
+import com.funzio.pure2D.gl.gl10.textures.QuadMeshTextureCoordBuffer;
+import com.funzio.pure2D.gl.gl10.textures.Texture;
+import com.funzio.pure2D.particles.nova.vo.AnimatorVO;
+import com.funzio.pure2D.particles.nova.vo.NovaParticleVO;
+import com.funzio.pure2D.utils.Pure2DUtils;
+
+/**
+ * A ParticleBatch holds all the particles of a layer that share the same Texture and BlendFunc, and draws them with a single QuadMeshBuffer draw call.
+ * 
+ * @author long
+ */
+public class ParticleBatch {
+    // the size of the particles without any frame, same as NovaParticle
+    public static final int DUMMY_SIZE = 50;
+
+    protected final Texture mTexture;
+    protected final BlendFunc mBlendFunc;
+
+    protected final ParticleArrays mParticles;
+    protected final ArrayList<ParticleProgram> mPrograms = new ArrayList<ParticleProgram>();
+    protected int mNumPrograms = 0;
+    protected final ArrayList<AtlasFrameSet> mFrameSets = new ArrayList<AtlasFrameSet>();
+
+    // mesh
+    protected QuadMeshBuffer mMeshBuffer;
+    protected QuadMeshTextureCoordBuffer mTextureCoordBuffer;
+    protected QuadMeshColorBuffer mColorBuffer;
+    protected float[] mVertices;
+    protected float[] mCoords;
+    protected float[] mColors;
+    protected int mNumCells = 0;
+
+    public ParticleBatch(final Texture texture, final BlendFunc blendFunc) {
+        mTexture = texture;
+        mBlendFunc = blendFunc;
+        mParticles = new ParticleArrays();
+    }
+
+    public Texture getTexture() {
+        return mTexture;
+    }
+
+    public BlendFunc getBlendFunc() {
+        return mBlendFunc;
+    }
+
+    public ParticleArrays getParticles() {
+        return mParticles;
+    }
+
+    public int getNumParticles() {
+        return mParticles.mSize;
+    }
+
+    /**
+     * Spawn a new particle
+     * 
+     * @param vo
+     * @param emitIndex
+     * @param x
+     * @param y
+     * @param frameSet can be null
+     * @param animatorVO can be null
+     * @return the particle index
+     */
+    public int spawn(final NovaParticleVO vo, final int emitIndex, final float x, final float y, final AtlasFrameSet frameSet, final AnimatorVO animatorVO) {
+        final ParticleArrays particles = mParticles;
+        final int index = particles.add();
+
+        particles.mX[index] = x;
+        particles.mY[index] = y;
+        particles.mScaleX[index] = vo.getScaleX(emitIndex);
+        particles.mScaleY[index] = vo.getScaleY(emitIndex);
+        particles.mRotation[index] = vo.getRotation(emitIndex);
+        particles.mAlpha[index] = vo.getAlpha(emitIndex);
+        final GLColor color = vo.getColor(emitIndex);
+        if (color != null) {
+            particles.mRed[index] = color.r;
+            particles.mGreen[index] = color.g;
+            particles.mBlue[index] = color.b;
+            particles.mColorAlpha[index] = color.a;
+        }
+        if (!vo.hasOriginAtCenter()) {
+            particles.mOriginX[index] = vo.origin_x;
+            particles.mOriginY[index] = vo.origin_y;
+        }
+
+        // frames
+        if (frameSet != null && frameSet.getNumFrames() > 0) {
+            particles.mFrameSet[index] = getFrameSetIndex(frameSet);
+            particles.mStartFrame[index] = Math.min(vo.getStartFrame(emitIndex), frameSet.getNumFrames() - 1);
+            // repeat by default
+            particles.mFrameLoop[index] = vo.getLoopMode(emitIndex);
+        }
+
+        // animator
+        if (animatorVO != null) {
+            final ParticleProgram program = getProgram(animatorVO);
+            particles.mProgram[index] = program.mIndex;
+            particles.mLife[index] = program.spawn(particles, index, emitIndex);
+        }
+
+        return index;
+    }
+
+    protected ParticleProgram getProgram(final AnimatorVO vo) {
+        ParticleProgram program;
+        for (int i = 0; i < mNumPrograms; i++) {
+            program = mPrograms.get(i);
+            if (program.mVO == vo) {
+                return program;
+            }
+        }
+
+        program = new ParticleProgram(mParticles, vo, mNumPrograms);
+        mPrograms.add(program);
+        mNumPrograms++;
+
+        return program;
+    }
+
+    protected int getFrameSetIndex(final AtlasFrameSet frameSet) {
+        final int index = mFrameSets.indexOf(frameSet);
+        if (index >= 0) {
+            return index;
+        }
+
+        mFrameSets.add(frameSet);
+        return mFrameSets.size() - 1;
+    }
+
+    /**
+     * Age all the particles, run the programs and remove the dead particles
+     * 
+     * @param deltaTime
+     * @return number of live particles
+     */
+    public int update(final int deltaTime) {
+        final int size = mParticles.mSize;
+        if (size == 0) {
+            return 0;
+        }
+
+        updateRange(deltaTime, 0, size);
+
+        return removeDead();
+    }
+
+    /**
+     * Age and animate a range of the particles. Nothing is shared between the particles, so the ranges can be updated on different threads, as long as {@link #removeDead()} is called
+     * after all of them are done.
+     * 
+     * @param deltaTime
+     * @param from the first particle index
+     * @param to the particle index after the last one
+     * @see ParticleScheduler
+     */
+    public void updateRange(final int deltaTime, final int from, final int to) {
+        final ParticleArrays particles = mParticles;
+
+        // age and frames
+        final int[] ages = particles.mAge;
+        final int[] frameSets = particles.mFrameSet;
+        final int[] frameCounts = particles.mFrameCount;
+        int fps;
+        for (int i = from; i < to; i++) {
+            ages[i] += deltaTime;
+            if (frameSets[i] >= 0) {
+                fps = mFrameSets.get(frameSets[i]).getFps();
+                // one frame per update without specific fps, see Clip
+                frameCounts[i] = fps > 0 ? (int) ((long) ages[i] * fps / 1000) : frameCounts[i] + 1;
+            }
+        }
+
+        // animators
+        for (int i = 0; i < mNumPrograms; i++) {
+            mPrograms.get(i).update(particles, from, to);
+        }
+    }
+
+    /**
+     * Remove the dead particles, after the update
+     * 
+     * @return number of live particles
+     */
+    public int removeDead() {
+        mParticles.removeDead();
+
+        return mParticles.mSize;
+    }
+
+    /**
+     * Write all the particles into the mesh
+     * 
+     * @param color the inherited color of the layer, can be null
+     * @param blendFunc the actual blend func
+     * @param flippedAxis true for {@link com.funzio.pure2D.Scene#AXIS_TOP_LEFT}
+     */
+    protected void validate(final GLColor color, final BlendFunc blendFunc, final boolean flippedAxis) {
+        final ParticleArrays particles = mParticles;
+        final int size = particles.mSize;
+        mNumCells = size;
+        if (size == 0) {
+            return;
+        }
+
+        // buffers
+        if (mMeshBuffer == null) {
+            mMeshBuffer = new QuadMeshBuffer(particles.mCapacity);
+            mTextureCoordBuffer = new QuadMeshTextureCoordBuffer(particles.mCapacity);
+            mColorBuffer = new QuadMeshColorBuffer(particles.mCapacity);
+        } else if (mMeshBuffer.getNumCells() < size) {
+            mMeshBuffer.setNumCells(particles.mCapacity);
+            mTextureCoordBuffer.setNumCells(particles.mCapacity);
+            mColorBuffer.setNumCells(particles.mCapacity);
+        }
+        if (mVertices == null || mVertices.length < size * QuadMeshBuffer.NUM_VERTICES_PER_CELL * 2) {
+            mVertices = new float[particles.mCapacity * QuadMeshBuffer.NUM_VERTICES_PER_CELL * 2];
+            mCoords = new float[particles.mCapacity * QuadMeshTextureCoordBuffer.NUM_COORD_PER_CELL];
+            mColors = new float[particles.mCapacity * QuadMeshColorBuffer.NUM_COLOR_PER_CELL * QuadMeshColorBuffer.NUM_CHANNEL_PER_COLOR];
+        }
+
+        final float[] vertices = mVertices;
+        final float[] coords = mCoords;
+        final float[] colors = mColors;
+        final float[] xs = particles.mX;
+        final float[] ys = particles.mY;
+        final float[] scaleXs = particles.mScaleX;
+        final float[] scaleYs = particles.mScaleY;
+        final float[] rotations = particles.mRotation;
+        final float[] originXs = particles.mOriginX;
+        final float[] originYs = particles.mOriginY;
+        final int[] frameSets = particles.mFrameSet;
+
+        AtlasFrameSet frameSet;
+        AtlasFrame frame;
+        PointF frameSize;
+        float[] frameCoords;
+        float width, height, originX, originY, left, right, top, bottom, cos, sin, radian, x, y;
+        int v, c;
+        for (int i = 0; i < size; i++) {
+            // frame
+            c = i * QuadMeshTextureCoordBuffer.NUM_COORD_PER_CELL;
+            if (frameSets[i] >= 0) {
+                frameSet = mFrameSets.get(frameSets[i]);
+                frame = frameSet.getFrame(getFrameIndex(particles, i, frameSet.getNumFrames()));
+                frameSize = frame.getSize();
+                width = frameSize.x;
+                height = frameSize.y;
+                frameCoords = frame.getTextureCoords();
+                System.arraycopy(frameCoords, 0, coords, c, QuadMeshTextureCoordBuffer.NUM_COORD_PER_CELL);
+            } else {
+                width = height = DUMMY_SIZE;
+            }
+
+            // local corners, around the origin
+            originX = originXs[i] < 0 ? width * 0.5f : originXs[i];
+            originY = originYs[i] < 0 ? height * 0.5f : originYs[i];
+            left = -originX * scaleXs[i];
+            right = (width - originX) * scaleXs[i];
+            if (flippedAxis) {
+                top = -originY * scaleYs[i];
+                bottom = (height - originY) * scaleYs[i];
+            } else {
+                top = (height - originY) * scaleYs[i];
+                bottom = -originY * scaleYs[i];
+            }
+
+            // transform on CPU: TL, BL, TR, BR
+            x = xs[i];
+            y = ys[i];
+            v = i * QuadMeshBuffer.NUM_VERTICES_PER_CELL * 2;
+            if (rotations[i] == 0) {
+                vertices[v] = x + left;
+                vertices[v + 1] = y + top;
+                vertices[v + 2] = x + left;
+                vertices[v + 3] = y + bottom;
+                vertices[v + 4] = x + right;
+                vertices[v + 5] = y + top;
+                vertices[v + 6] = x + right;
+                vertices[v + 7] = y + bottom;
+            } else {
+                radian = rotations[i] * Pure2DUtils.DEGREE_TO_RADIAN;
+                cos = (float) Math.cos(radian);
+                sin = (float) Math.sin(radian);
+                vertices[v] = x + left * cos - top * sin;
+                vertices[v + 1] = y + left * sin + top * cos;
+                vertices[v + 2] = x + left * cos - bottom * sin;
+                vertices[v + 3] = y + left * sin + bottom * cos;
+                vertices[v + 4] = x + right * cos - top * sin;
+                vertices[v + 5] = y + right * sin + top * cos;
+                vertices[v + 6] = x + right * cos - bottom * sin;
+                vertices[v + 7] = y + right * sin + bottom * cos;
+            }
+        }
+
+        // colors, same math as BaseDisplayObject.getInheritedColor()
+        final boolean interpolate = BlendModes.isInterpolate(blendFunc);
+        final float[] alphas = particles.mAlpha;
+        final float[] reds = particles.mRed;
+        final float[] greens = particles.mGreen;
+        final float[] blues = particles.mBlue;
+        final float[] colorAlphas = particles.mColorAlpha;
+        final float pr = color == null ? 1 : color.r;
+        final float pg = color == null ? 1 : color.g;
+        final float pb = color == null ? 1 : color.b;
+        final float pa = color == null ? 1 : color.a;
+        float r, g, b, a, alpha;
+        for (int i = 0; i < size; i++) {
+            alpha = alphas[i];
+            if (interpolate) {
+                r = reds[i] * pr;
+                g = greens[i] * pg;
+                b = blues[i] * pb;
+            } else {
+                r = reds[i] * alpha * pr;
+                g = greens[i] * alpha * pg;
+                b = blues[i] * alpha * pb;
+            }
+            a = colorAlphas[i] * alpha * pa;
+
+            c = i * QuadMeshColorBuffer.NUM_COLOR_PER_CELL * QuadMeshColorBuffer.NUM_CHANNEL_PER_COLOR;
+            for (int j = 0; j < QuadMeshColorBuffer.NUM_COLOR_PER_CELL; j++) {
+                colors[c++] = r;
+                colors[c++] = g;
+                colors[c++] = b;
+                colors[c++] = a;
+            }
+        }
+
+        // bulk copy into the buffers
+        mMeshBuffer.setValuesAt(0, size, vertices);
+        mColorBuffer.setValuesAt(0, size, colors);
+        if (mTexture != null) {
+            mTextureCoordBuffer.setValuesAt(0, size, coords);
+        }
+    }
+
+    /**
+     * @return the current frame of a particle, see Clip.update()
+     */
+    private static int getFrameIndex(final ParticleArrays particles, final int index, final int numFrames) {
+        final int frames = particles.mFrameCount[index];
+        int frame = particles.mStartFrame[index] + frames;
+        if (frame < numFrames) {
+            return frame;
+        }
+
+        final int loop = particles.mFrameLoop[index];
+        if (loop == LoopModes.LOOP_REPEAT) {
+            return frame % numFrames;
+        } else if (loop == LoopModes.LOOP_REVERSE && numFrames > 1) {
+            final int cycle = (numFrames - 1) * 2;
+            frame = frames % cycle;
+            return frame >= numFrames ? cycle - frame : frame;
+        } else {
+            // stop at last frame
+            return numFrames - 1;
+        }
+    }
+
+    /**
+     * Draw all the particles with one draw call
+     * 
+     * @param glState
+     * @param color the inherited color of the layer, can be null
+     * @param blendFunc the actual blend func
+     * @param flippedAxis true for {@link com.funzio.pure2D.Scene#AXIS_TOP_LEFT}
+     */
+    public void draw(final GLState glState, final GLColor color, final BlendFunc blendFunc, final boolean flippedAxis) {
+        validate(color, blendFunc, flippedAxis);
+        if (mNumCells == 0) {
+            return;
+        }
+
+        glState.setBlendFunc(blendFunc);
+
+        // per-particle colors
+        mColorBuffer.apply(glState);
+
+        // texture
+        if (mTexture != null) {
+            mTexture.bind();
+            mTextureCoordBuffer.apply(glState);
+        } else {
+            glState.unbindTexture();
+            glState.setTextureCoordArrayEnabled(false);
+        }
+
+        // draw
+        mMeshBuffer.setIndicesNumUsed(mNumCells * QuadMeshBuffer.NUM_INDICES_PER_CELL);
+        mMeshBuffer.draw(glState);
+
+        glState.setColorArrayEnabled(false);
+    }
+
+    public void clear() {
+        mParticles.clear();
+        mNumCells = 0;
+    }
+
+    public void dispose() {
+        clear();
+
+        if (mMeshBuffer != null) {
+            mMeshBuffer.dispose();
+            mTextureCoordBuffer.dispose();
+            mColorBuffer.dispose();
+            mMeshBuffer = null;
+            mTextureCoordBuffer = null;
+            mColorBuffer = null;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova.batch;
+
+import java.util.ArrayList;
+
+import android.util.Log;
+
+import com.funzio.pure2D.particles.nova.vo.AlphaAnimatorVO;
+import com.funzio.pure2D.particles.nova.vo.AnimatorVO;
+import com.funzio.pure2D.particles.nova.vo.ColorAnimatorVO;
+import com.funzio.pure2D.particles.nova.vo.DelayAnimatorVO;
+import com.funzio.pure2D.particles.nova.vo.GroupAnimatorVO;
+import com.funzio.pure2D.particles.nova.vo.MoveAnimatorVO;
+import com.funzio.pure2D.particles.nova.vo.ParallelAnimatorVO;
+import com.funzio.pure2D.particles.nova.vo.RotateAnimatorVO;
+import com.funzio.pure2D.particles.nova.vo.ScaleAnimatorVO;
+import com.funzio.pure2D.particles.nova.vo.SequenceAnimatorVO;
+import com.funzio.pure2D.particles.nova.vo.TrajectoryAnimatorVO;
+
+/**
+ * A Program is an AnimatorVO tree compiled into flat {@link Track}s. The sequence, parallel and delay groups only decide when each track starts and ends, which is resolved per particle at
+ * spawn time. The updates then simply run the tracks one after another.
+ * 
+ * @author long
+ */
+public class ParticleProgram {
+    protected static final String TAG = ParticleProgram.class.getSimpleName();
+
+    protected final AnimatorVO mVO;
+    protected final int mIndex;
+    protected final ArrayList<Track> mTracks = new ArrayList<Track>();
+    protected int mNumTracks = 0;
+    // the track to be laid out next when spawning
+    private int mLayoutIndex;
+
+    public ParticleProgram(final ParticleArrays particles, final AnimatorVO vo, final int index) {
+        mVO = vo;
+        mIndex = index;
+
+        compile(vo);
+        mNumTracks = mTracks.size();
+        for (int i = 0; i < mNumTracks; i++) {
+            particles.addTrack(mTracks.get(i));
+        }
+    }
+
+    public AnimatorVO getAnimatorVO() {
+        return mVO;
+    }
+
+    public int getIndex() {
+        return mIndex;
+    }
+
+    public int getNumTracks() {
+        return mNumTracks;
+    }
+
+    private void compile(final AnimatorVO vo) {
+        if (vo instanceof SequenceAnimatorVO || vo instanceof ParallelAnimatorVO) {
+            final ArrayList<AnimatorVO> children = ((GroupAnimatorVO) vo).animators;
+            if (children != null) {
+                final int size = children.size();
+                for (int i = 0; i < size; i++) {
+                    compile(children.get(i));
+                }
+            }
+        } else {
+            final Track track = createTrack(vo, mIndex);
+            if (track != null) {
+                mTracks.add(track);
+            }
+        }
+    }
+
+    /**
+     * @param vo
+     * @return true if the specified animator can be evaluated as tracks
+     */
+    public static boolean isSupported(final AnimatorVO vo) {
+        if (vo == null) {
+            return true;
+        } else if (vo instanceof SequenceAnimatorVO || vo instanceof ParallelAnimatorVO) {
+            final ArrayList<AnimatorVO> children = ((GroupAnimatorVO) vo).animators;
+            if (children != null) {
+                final int size = children.size();
+                for (int i = 0; i < size; i++) {
+                    if (!isSupported(children.get(i))) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        return vo instanceof DelayAnimatorVO //
+                || vo instanceof MoveAnimatorVO //
+                || vo instanceof AlphaAnimatorVO //
+                || vo instanceof ScaleAnimatorVO //
+                || vo instanceof RotateAnimatorVO //
+                || vo instanceof ColorAnimatorVO //
+                || vo instanceof TrajectoryAnimatorVO;
+    }
+
+    protected static Track createTrack(final AnimatorVO vo, final int program) {
+        if (vo instanceof MoveAnimatorVO) {
+            return new MoveTrack((MoveAnimatorVO) vo, program);
+        } else if (vo instanceof AlphaAnimatorVO) {
+            return new AlphaTrack((AlphaAnimatorVO) vo, program);
+        } else if (vo instanceof ScaleAnimatorVO) {
+            return new ScaleTrack((ScaleAnimatorVO) vo, program);
+        } else if (vo instanceof RotateAnimatorVO) {
+            return new RotateTrack((RotateAnimatorVO) vo, program);
+        } else if (vo instanceof ColorAnimatorVO) {
+            return new ColorTrack((ColorAnimatorVO) vo, program);
+        } else if (vo instanceof TrajectoryAnimatorVO) {
+            return new TrajectoryTrack((TrajectoryAnimatorVO) vo, program);
+        } else if (!(vo instanceof DelayAnimatorVO)) {
+            Log.w(TAG, "Unsupported animator: " + vo.type + ", " + vo.name);
+        }
+
+        // delays are only timing
+        return null;
+    }
+
+    /**
+     * Resolve the timing and values of all tracks for a new particle
+     * 
+     * @param particles
+     * @param index the particle index
+     * @param emitIndex
+     * @return the particle age when the program ends, -1 for never
+     */
+    public int spawn(final ParticleArrays particles, final int index, final int emitIndex) {
+        mLayoutIndex = 0;
+        return layout(mVO, particles, index, emitIndex, 0, -1);
+    }
+
+    /**
+     * Lay the tracks out in time, in the same order they are compiled
+     * 
+     * @return the end, -1 for never
+     */
+    private int layout(final AnimatorVO vo, final ParticleArrays particles, final int index, final int emitIndex, final int start, final int limit) {
+        if (vo instanceof SequenceAnimatorVO || vo instanceof ParallelAnimatorVO) {
+            final int groupStart = start < 0 ? -1 : start + vo.getStartDelay(emitIndex);
+            final int lifespan = vo.getLifespan(emitIndex);
+            final int groupLimit = (groupStart >= 0 && lifespan > 0) ? Track.minEnd(limit, groupStart + lifespan) : limit;
+
+            final ArrayList<AnimatorVO> children = ((GroupAnimatorVO) vo).animators;
+            final int size = children == null ? 0 : children.size();
+            int end = groupStart;
+            if (vo instanceof SequenceAnimatorVO) {
+                // one after another
+                for (int i = 0; i < size; i++) {
+                    end = layout(children.get(i), particles, index, emitIndex, end, groupLimit);
+                }
+            } else {
+                // all at once, ends with the last one
+                int childEnd;
+                for (int i = 0; i < size; i++) {
+                    childEnd = layout(children.get(i), particles, index, emitIndex, groupStart, groupLimit);
+                    if (end >= 0) {
+                        end = childEnd < 0 ? -1 : Math.max(end, childEnd);
+                    }
+                }
+            }
+
+            return start < 0 ? -1 : Track.minEnd(end, groupLimit);
+        } else if (vo instanceof DelayAnimatorVO) {
+            if (start < 0) {
+                return -1;
+            }
+            final int delayedStart = start + vo.getStartDelay(emitIndex);
+            final int duration = ((DelayAnimatorVO) vo).getDuration(emitIndex);
+            // a delay without duration is endless, see DelayAnimatorVO
+            return Track.minEnd(duration > 0 ? delayedStart + duration : -1, limit);
+        } else if (mLayoutIndex < mNumTracks && mTracks.get(mLayoutIndex).mVO == vo) {
+            return mTracks.get(mLayoutIndex++).spawn(particles, index, emitIndex, start, limit);
+        } else {
+            // unsupported, ends right away
+            return start;
+        }
+    }
+
+    /**
+     * Run all the tracks on a range of particles
+     * 
+     * @param particles
+     * @param from the first particle index
+     * @param to the particle index after the last one
+     */
+    public void update(final ParticleArrays particles, final int from, final int to) {
+        for (int i = 0; i < mNumTracks; i++) {
+            mTracks.get(i).update(particles, from, to);
+        }
+    }
+}
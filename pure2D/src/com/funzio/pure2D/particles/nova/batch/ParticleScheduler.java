@@ -0,0 +1,297 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova.batch;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.util.Log;
+
+/**
+ * Updates the {@link ParticleBatch}es on multiple cores. Every batch is split into fixed chunks of particles, the worker threads and the calling thread take the chunks one by one, and
+ * {@link #update(ArrayList, int, int)} only returns when all chunks are done, so the draw phase always sees a finished frame. Below a particle-count threshold, everything runs on the
+ * calling thread.
+ * <p>
+ * The chunks never share any state and the dead particles are removed in order after the join, so the results are the same as the single-threaded update, whatever the timing of the
+ * threads. For a repeatable effect, seed the spawning with {@link com.funzio.pure2D.particles.nova.NovaConfig#setRandomSeed(long)}.
+ * <p>
+ * A scheduler can be shared by multiple layers, but it should only be used from one thread, usually the GL thread.
+ * 
+ * @author long
+ * @see NovaBatchLayer#setScheduler(ParticleScheduler)
+ */
+public class ParticleScheduler {
+    private static final String TAG = ParticleScheduler.class.getSimpleName();
+
+    public static final int DEFAULT_THRESHOLD = 2048; // particles
+    public static final int DEFAULT_CHUNK_SIZE = 512; // particles
+
+    private final int mNumWorkers;
+    private Thread[] mWorkers;
+    private int mThreshold = DEFAULT_THRESHOLD;
+    private int mChunkSize = DEFAULT_CHUNK_SIZE;
+
+    // the chunks of the current frame
+    private ParticleBatch[] mChunkBatches = new ParticleBatch[0];
+    private int[] mChunkFroms = new int[0];
+    private int[] mChunkTos = new int[0];
+    private int mNumChunks = 0;
+    private int mDeltaTime = 0;
+    private final AtomicInteger mNextChunk = new AtomicInteger();
+
+    // fork and join
+    private final Object mLock = new Object();
+    private int mGeneration = 0;
+    private int mPending = 0;
+    private boolean mDisposed = false;
+    private Throwable mError;
+
+    /**
+     * Use all the available cores
+     */
+    public ParticleScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param numThreads the total number of threads, including the calling thread
+     */
+    public ParticleScheduler(final int numThreads) {
+        mNumWorkers = Math.max(numThreads - 1, 0);
+    }
+
+    /**
+     * Update the batches and remove the dead particles
+     * 
+     * @param batches
+     * @param numBatches
+     * @param deltaTime
+     * @return number of live particles
+     */
+    public int update(final ArrayList<ParticleBatch> batches, final int numBatches, final int deltaTime) {
+        int total = 0;
+        for (int i = 0; i < numBatches; i++) {
+            total += batches.get(i).getNumParticles();
+        }
+
+        if (total == 0) {
+            return 0;
+        } else if (total < mThreshold || mNumWorkers == 0 || mDisposed) {
+            // not worth it, single-threaded
+            int numParticles = 0;
+            for (int i = 0; i < numBatches; i++) {
+                numParticles += batches.get(i).update(deltaTime);
+            }
+
+            return numParticles;
+        }
+
+        // fork
+        split(batches, numBatches, deltaTime);
+        startWorkers();
+        try {
+            runChunks();
+        } catch (RuntimeException e) {
+            // stop the others, but still wait for them
+            mNextChunk.set(mNumChunks);
+            join();
+            throw e;
+        }
+
+        // join, before the draw phase
+        join();
+
+        // then remove the dead particles, in order
+        int numParticles = 0;
+        for (int i = 0; i < numBatches; i++) {
+            numParticles += batches.get(i).removeDead();
+        }
+
+        return numParticles;
+    }
+
+    /**
+     * Split the batches into fixed chunks, which do not depend on the number of threads
+     */
+    private void split(final ArrayList<ParticleBatch> batches, final int numBatches, final int deltaTime) {
+        int numChunks = 0;
+        for (int i = 0; i < numBatches; i++) {
+            final ParticleBatch batch = batches.get(i);
+            final int size = batch.getNumParticles();
+            for (int from = 0; from < size; from += mChunkSize) {
+                if (numChunks == mChunkBatches.length) {
+                    growChunks(numChunks * 2 + 8);
+                }
+                mChunkBatches[numChunks] = batch;
+                mChunkFroms[numChunks] = from;
+                mChunkTos[numChunks] = Math.min(from + mChunkSize, size);
+                numChunks++;
+            }
+        }
+
+        mNumChunks = numChunks;
+        mDeltaTime = deltaTime;
+        mNextChunk.set(0);
+    }
+
+    private void growChunks(final int capacity) {
+        final ParticleBatch[] batches = new ParticleBatch[capacity];
+        System.arraycopy(mChunkBatches, 0, batches, 0, mChunkBatches.length);
+        mChunkBatches = batches;
+        mChunkFroms = ParticleArrays.grow(mChunkFroms, capacity);
+        mChunkTos = ParticleArrays.grow(mChunkTos, capacity);
+    }
+
+    /**
+     * Take and run the chunks until there is none left
+     */
+    private void runChunks() {
+        int chunk;
+        while ((chunk = mNextChunk.getAndIncrement()) < mNumChunks) {
+            mChunkBatches[chunk].updateRange(mDeltaTime, mChunkFroms[chunk], mChunkTos[chunk]);
+        }
+    }
+
+    private void startWorkers() {
+        if (mWorkers == null) {
+            mWorkers = new Thread[mNumWorkers];
+            for (int i = 0; i < mNumWorkers; i++) {
+                mWorkers[i] = new Thread(new Worker(), TAG + "-" + i);
+                mWorkers[i].setDaemon(true);
+                mWorkers[i].start();
+            }
+        }
+
+        synchronized (mLock) {
+            mPending = mNumWorkers;
+            mGeneration++;
+            mLock.notifyAll();
+        }
+    }
+
+    private void join() {
+        boolean interrupted = false;
+        synchronized (mLock) {
+            while (mPending > 0) {
+                try {
+                    mLock.wait();
+                } catch (InterruptedException e) {
+                    // must wait anyway, the workers are still writing
+                    interrupted = true;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        // clear the references
+        for (int i = 0; i < mNumChunks; i++) {
+            mChunkBatches[i] = null;
+        }
+
+        if (mError != null) {
+            final Throwable error = mError;
+            mError = null;
+            throw new RuntimeException("Particle update failed!", error);
+        }
+    }
+
+    /**
+     * Stop the worker threads. Call when this object is no longer being used. The updates are single-threaded after this.
+     */
+    public void dispose() {
+        synchronized (mLock) {
+            mDisposed = true;
+            mLock.notifyAll();
+        }
+        mWorkers = null;
+    }
+
+    public int getNumThreads() {
+        return mNumWorkers + 1;
+    }
+
+    public int getThreshold() {
+        return mThreshold;
+    }
+
+    /**
+     * @param threshold the number of particles below which the updates are single-threaded
+     */
+    public void setThreshold(final int threshold) {
+        mThreshold = threshold;
+    }
+
+    public int getChunkSize() {
+        return mChunkSize;
+    }
+
+    public void setChunkSize(final int chunkSize) {
+        mChunkSize = Math.max(chunkSize, 1);
+    }
+
+    private class Worker implements Runnable {
+        private int mSeenGeneration = 0;
+
+        @Override
+        public void run() {
+            while (true) {
+                synchronized (mLock) {
+                    while (mGeneration == mSeenGeneration && !mDisposed) {
+                        try {
+                            mLock.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    if (mDisposed) {
+                        return;
+                    }
+                    mSeenGeneration = mGeneration;
+                }
+
+                try {
+                    runChunks();
+                } catch (Throwable e) {
+                    Log.e(TAG, "Worker error!", e);
+                    // report to the calling thread
+                    synchronized (mLock) {
+                        mError = e;
+                    }
+                    // no more chunks for anyone
+                    mNextChunk.set(mNumChunks);
+                }
+
+                synchronized (mLock) {
+                    if (--mPending == 0) {
+                        mLock.notifyAll();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova.batch;
+
+import com.funzio.pure2D.particles.nova.vo.RotateAnimatorVO;
+import com.funzio.pure2D.utils.Pure2DUtils;
+
+/**
+ * @author long
+ * @see com.funzio.pure2D.animators.RotateAnimator
+ */
+public class RotateTrack extends TweenTrack {
+    protected final boolean mAccumulating;
+    protected final boolean mHasPivot;
+
+    protected float[] mFrom;
+    protected float[] mDelta;
+    protected float[] mLastValue;
+    // optional pivot
+    protected float[] mPivotX;
+    protected float[] mPivotY;
+    protected float[] mRadius;
+    protected float[] mLastX;
+    protected float[] mLastY;
+
+    public RotateTrack(final RotateAnimatorVO vo, final int program) {
+        super(vo, program);
+
+        mAccumulating = vo.accumulating;
+        mHasPivot = vo.hasPivot();
+    }
+
+    @Override
+    protected int onSpawn(final ParticleArrays particles, final int index, final int emitIndex) {
+        final RotateAnimatorVO vo = (RotateAnimatorVO) mVO;
+        if (vo.hasDelta()) {
+            mFrom[index] = 0;
+            mDelta[index] = vo.getDelta(emitIndex);
+        } else {
+            mFrom[index] = vo.getFrom(emitIndex);
+            mDelta[index] = vo.getTo(emitIndex) - mFrom[index];
+        }
+        mLastValue[index] = getStartValue();
+
+        if (mHasPivot) {
+            mPivotX[index] = vo.getPivotX(emitIndex);
+            mPivotY[index] = vo.getPivotY(emitIndex);
+            mRadius[index] = vo.getRadius(emitIndex);
+            mLastX[index] = mLastY[index] = 0;
+        }
+
+        return super.onSpawn(particles, index, emitIndex);
+    }
+
+    @Override
+    protected void onApply(final ParticleArrays particles, final int from, final int to) {
+        final boolean[] active = mActive;
+        final float[] values = mValue;
+        final float[] froms = mFrom;
+        final float[] delta = mDelta;
+        final float[] rotation = particles.mRotation;
+
+        if (mAccumulating) {
+            final float[] last = mLastValue;
+            for (int i = from; i < to; i++) {
+                if (active[i]) {
+                    rotation[i] += (values[i] - last[i]) * delta[i];
+                    last[i] = values[i];
+                }
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                if (active[i]) {
+                    rotation[i] = froms[i] + values[i] * delta[i];
+                }
+            }
+        }
+
+        // also move the particles around the pivot
+        if (mHasPivot) {
+            final float[] x = particles.mX;
+            final float[] y = particles.mY;
+            float radian, newX, newY;
+            for (int i = from; i < to; i++) {
+                if (active[i] && mRadius[i] != 0) {
+                    radian = (froms[i] + values[i] * delta[i]) * Pure2DUtils.DEGREE_TO_RADIAN;
+                    newX = mPivotX[i] + mRadius[i] * (float) Math.cos(radian);
+                    newY = mPivotY[i] + mRadius[i] * (float) Math.sin(radian);
+
+                    if (mAccumulating) {
+                        x[i] += newX - mLastX[i];
+                        y[i] += newY - mLastY[i];
+                        mLastX[i] = newX;
+                        mLastY[i] = newY;
+                    } else {
+                        x[i] = newX;
+                        y[i] = newY;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void copy(final int from, final int to) {
+        super.copy(from, to);
+
+        mFrom[to] = mFrom[from];
+        mDelta[to] = mDelta[from];
+        mLastValue[to] = mLastValue[from];
+        if (mHasPivot) {
+            mPivotX[to] = mPivotX[from];
+            mPivotY[to] = mPivotY[from];
+            mRadius[to] = mRadius[from];
+            mLastX[to] = mLastX[from];
+            mLastY[to] = mLastY[from];
+        }
+    }
+
+    @Override
+    protected void allocate(final int capacity) {
+        super.allocate(capacity);
+
+        mFrom = ParticleArrays.grow(mFrom, capacity);
+        mDelta = ParticleArrays.grow(mDelta, capacity);
+        mLastValue = ParticleArrays.grow(mLastValue, capacity);
+        if (mHasPivot) {
+            mPivotX = ParticleArrays.grow(mPivotX, capacity);
+            mPivotY = ParticleArrays.grow(mPivotY, capacity);
+            mRadius = ParticleArrays.grow(mRadius, capacity);
+            mLastX = ParticleArrays.grow(mLastX, capacity);
+            mLastY = ParticleArrays.grow(mLastY, capacity);
+        }
+    }
+}
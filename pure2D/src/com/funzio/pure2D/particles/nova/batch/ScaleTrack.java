@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova.batch;
+
+import com.funzio.pure2D.particles.nova.vo.ScaleAnimatorVO;
+
+/**
+ * @author long
+ * @see com.funzio.pure2D.animators.ScaleAnimator
+ */
+public class ScaleTrack extends TweenTrack {
+    protected float[] mFromX;
+    protected float[] mFromY;
+    protected float[] mDeltaX;
+    protected float[] mDeltaY;
+
+    public ScaleTrack(final ScaleAnimatorVO vo, final int program) {
+        super(vo, program);
+    }
+
+    @Override
+    protected int onSpawn(final ParticleArrays particles, final int index, final int emitIndex) {
+        final ScaleAnimatorVO vo = (ScaleAnimatorVO) mVO;
+        mFromX[index] = vo.getXFrom(emitIndex);
+        mFromY[index] = vo.getYFrom(emitIndex);
+        mDeltaX[index] = vo.getXTo(emitIndex) - mFromX[index];
+        mDeltaY[index] = vo.getYTo(emitIndex) - mFromY[index];
+
+        return super.onSpawn(particles, index, emitIndex);
+    }
+
+    @Override
+    protected void onApply(final ParticleArrays particles, final int from, final int to) {
+        final boolean[] active = mActive;
+        final float[] values = mValue;
+        final float[] scaleX = particles.mScaleX;
+        final float[] scaleY = particles.mScaleY;
+        for (int i = from; i < to; i++) {
+            if (active[i]) {
+                scaleX[i] = mFromX[i] + values[i] * mDeltaX[i];
+                scaleY[i] = mFromY[i] + values[i] * mDeltaY[i];
+            }
+        }
+    }
+
+    @Override
+    protected void copy(final int from, final int to) {
+        super.copy(from, to);
+
+        mFromX[to] = mFromX[from];
+        mFromY[to] = mFromY[from];
+        mDeltaX[to] = mDeltaX[from];
+        mDeltaY[to] = mDeltaY[from];
+    }
+
+    @Override
+    protected void allocate(final int capacity) {
+        super.allocate(capacity);
+
+        mFromX = ParticleArrays.grow(mFromX, capacity);
+        mFromY = ParticleArrays.grow(mFromY, capacity);
+        mDeltaX = ParticleArrays.grow(mDeltaX, capacity);
+        mDeltaY = ParticleArrays.grow(mDeltaY, capacity);
+    }
+}
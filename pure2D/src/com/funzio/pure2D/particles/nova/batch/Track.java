@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova.batch;
+
+import com.funzio.pure2D.particles.nova.vo.AnimatorVO;
+
+/**
+ * A Track is the structure-of-arrays version of an Animator. One instance evaluates a leaf AnimatorVO for all the particles of a {@link ParticleArrays} running the same program, with
+ * the per-particle values kept in primitive arrays.
+ * 
+ * @author long
+ */
+public abstract class Track {
+    protected final AnimatorVO mVO;
+    protected final int mProgram;
+
+    // particle age when this track starts and ends, -1 for never
+    protected int[] mStart;
+    protected int[] mEnd;
+    protected boolean[] mEnded;
+
+    // per frame, the particles being updated and their elapsed time on this track
+    protected boolean[] mActive;
+    protected int[] mTime;
+
+    public Track(final AnimatorVO vo, final int program) {
+        mVO = vo;
+        mProgram = program;
+    }
+
+    public AnimatorVO getAnimatorVO() {
+        return mVO;
+    }
+
+    /**
+     * Resolve the per-particle values, called when a particle is spawned
+     * 
+     * @param particles
+     * @param index the particle index
+     * @param emitIndex
+     * @param start the particle age when this track starts, -1 for never
+     * @param limit the particle age when the parent group ends, -1 for unlimited
+     * @return the particle age when this track ends, -1 for never
+     */
+    protected int spawn(final ParticleArrays particles, final int index, final int emitIndex, final int start, final int limit) {
+        mEnded[index] = false;
+
+        if (start < 0) {
+            mStart[index] = mEnd[index] = -1;
+            return -1;
+        }
+
+        final int delayedStart = start + mVO.getStartDelay(emitIndex);
+        mStart[index] = delayedStart;
+
+        final int duration = onSpawn(particles, index, emitIndex);
+        int end = duration < 0 ? -1 : delayedStart + duration;
+        // lifespan only applies to the finite tracks, see TweenAnimator
+        final int lifespan = mVO.getLifespan(emitIndex);
+        if (lifespan > 0 && hasLifespan(index)) {
+            end = minEnd(end, delayedStart + lifespan);
+        }
+
+        return mEnd[index] = minEnd(end, limit);
+    }
+
+    /**
+     * Resolve the values of this track
+     * 
+     * @return the duration, -1 for unlimited
+     */
+    abstract protected int onSpawn(final ParticleArrays particles, final int index, final int emitIndex);
+
+    /**
+     * @return true if the lifespan of the VO can end this track
+     */
+    protected boolean hasLifespan(final int index) {
+        return true;
+    }
+
+    /**
+     * Update a range of the particles running this track. The particles are independent of each other, so the ranges can be updated on different threads.
+     * 
+     * @param particles
+     * @param from the first particle index
+     * @param to the particle index after the last one
+     */
+    public void update(final ParticleArrays particles, final int from, final int to) {
+        final int[] programs = particles.mProgram;
+        final int[] ages = particles.mAge;
+        final int[] starts = mStart;
+        final int[] ends = mEnd;
+        final boolean[] ended = mEnded;
+        final boolean[] active = mActive;
+        final int[] time = mTime;
+
+        int numActive = 0;
+        int age, start, end;
+        for (int i = from; i < to; i++) {
+            active[i] = false;
+            if (programs[i] != mProgram || ended[i]) {
+                continue;
+            }
+
+            age = ages[i];
+            start = starts[i];
+            if (start < 0 || age < start) {
+                continue;
+            }
+
+            end = ends[i];
+            if (end >= 0 && age >= end) {
+                // last update
+                ended[i] = true;
+                time[i] = end - start;
+            } else {
+                time[i] = age - start;
+            }
+            active[i] = true;
+            numActive++;
+        }
+
+        if (numActive > 0) {
+            onUpdate(particles, from, to);
+        }
+    }
+
+    /**
+     * Apply this track to the active particles
+     * 
+     * @param particles
+     * @param from the first particle index
+     * @param to the particle index after the last one
+     */
+    abstract protected void onUpdate(final ParticleArrays particles, final int from, final int to);
+
+    /**
+     * Move the values of a particle, called when a particle is removed
+     * 
+     * @param from
+     * @param to
+     */
+    protected void copy(final int from, final int to) {
+        mStart[to] = mStart[from];
+        mEnd[to] = mEnd[from];
+        mEnded[to] = mEnded[from];
+    }
+
+    protected void allocate(final int capacity) {
+        mStart = ParticleArrays.grow(mStart, capacity);
+        mEnd = ParticleArrays.grow(mEnd, capacity);
+        mEnded = ParticleArrays.grow(mEnded, capacity);
+        mActive = ParticleArrays.grow(mActive, capacity);
+        mTime = ParticleArrays.grow(mTime, capacity);
+    }
+
+    /**
+     * @return the earlier one of 2 ends, -1 is never
+     */
+    protected static int minEnd(final int end1, final int end2) {
+        if (end1 < 0) {
+            return end2;
+        } else if (end2 < 0) {
+            return end1;
+        } else {
+            return Math.min(end1, end2);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova.batch;
+
+import com.funzio.pure2D.animators.TrajectoryAnimator;
+import com.funzio.pure2D.particles.nova.vo.TrajectoryAnimatorVO;
+
+/**
+ * @author long
+ * @see com.funzio.pure2D.animators.TrajectoryAnimator
+ */
+public class TrajectoryTrack extends Track {
+    protected float[] mSrcX;
+    protected float[] mSrcY;
+    protected float[] mVelocityCos;
+    protected float[] mVelocitySin;
+    protected float[] mGravity;
+    protected float[] mDuration;
+
+    public TrajectoryTrack(final TrajectoryAnimatorVO vo, final int program) {
+        super(vo, program);
+    }
+
+    @Override
+    protected int onSpawn(final ParticleArrays particles, final int index, final int emitIndex) {
+        final TrajectoryAnimatorVO vo = (TrajectoryAnimatorVO) mVO;
+        final float ground = vo.getGround(emitIndex);
+        final float gravity = vo.getGravity(emitIndex);
+        final float velocity = vo.getVelocity(emitIndex);
+        final float angle = vo.getAngle(emitIndex);
+
+        // the source is where the particle is spawned, same as TrajectoryAnimatorVO.resetAnimator()
+        mSrcX[index] = particles.mX[index];
+        mSrcY[index] = particles.mY[index];
+        mGravity[index] = gravity;
+        final float vcos = mVelocityCos[index] = velocity * (float) Math.cos(angle);
+        final float vsin = mVelocitySin[index] = velocity * (float) Math.sin(angle);
+
+        // pre-cal the flying time, see TrajectoryAnimator.setValues()
+        final float absGravity = Math.abs(gravity);
+        final float distance = (vcos / absGravity) * (vsin + (float) Math.sqrt(vsin * vsin + 2 * absGravity * (mSrcY[index] - ground)));
+        final float duration = mDuration[index] = TrajectoryAnimator.TIME_FACTOR * distance / (vcos == 0 ? 1 : vcos);
+
+        return duration > 0 ? (int) Math.ceil(duration) : 0;
+    }
+
+    @Override
+    protected void onUpdate(final ParticleArrays particles, final int from, final int to) {
+        final boolean[] active = mActive;
+        final int[] time = mTime;
+        final float[] x = particles.mX;
+        final float[] y = particles.mY;
+        final float timeFactor = TrajectoryAnimator.TIME_FACTOR;
+        float t;
+        for (int i = from; i < to; i++) {
+            if (active[i]) {
+                t = Math.min(time[i], mDuration[i]) / timeFactor;
+                x[i] = mSrcX[i] + mVelocityCos[i] * t;
+                y[i] = mSrcY[i] + mVelocitySin[i] * t - 0.5f * mGravity[i] * t * t;
+            }
+        }
+    }
+
+    @Override
+    protected void copy(final int from, final int to) {
+        super.copy(from, to);
+
+        mSrcX[to] = mSrcX[from];
+        mSrcY[to] = mSrcY[from];
+        mVelocityCos[to] = mVelocityCos[from];
+        mVelocitySin[to] = mVelocitySin[from];
+        mGravity[to] = mGravity[from];
+        mDuration[to] = mDuration[from];
+    }
+
+    @Override
+    protected void allocate(final int capacity) {
+        super.allocate(capacity);
+
+        mSrcX = ParticleArrays.grow(mSrcX, capacity);
+        mSrcY = ParticleArrays.grow(mSrcY, capacity);
+        mVelocityCos = ParticleArrays.grow(mVelocityCos, capacity);
+        mVelocitySin = ParticleArrays.grow(mVelocitySin, capacity);
+        mGravity = ParticleArrays.grow(mGravity, capacity);
+        mDuration = ParticleArrays.grow(mDuration, capacity);
+    }
+}
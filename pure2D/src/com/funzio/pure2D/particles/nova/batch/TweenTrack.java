@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.particles.nova.batch;
+
+import android.view.animation.Interpolator;
+
+import com.funzio.pure2D.LoopModes;
+import com.funzio.pure2D.particles.nova.vo.TweenAnimatorVO;
+
+/**
+ * The structure-of-arrays version of TweenAnimator. This resolves the interpolated value [0, 1] of each active particle, subclasses then apply it.
+ * 
+ * @author long
+ * @see com.funzio.pure2D.animators.TweenAnimator
+ */
+public abstract class TweenTrack extends Track {
+    protected final Interpolator mInterpolator;
+    protected final int mLoopMode;
+    protected final boolean mReversed;
+
+    protected int[] mDuration;
+    protected int[] mLoopCount; // -1 is forever
+    // the interpolated values of the current frame
+    protected float[] mValue;
+
+    public TweenTrack(final TweenAnimatorVO vo, final int program) {
+        super(vo, program);
+
+        mInterpolator = vo.getInterpolator();
+        mLoopMode = vo.getLoopMode();
+        mReversed = vo.reversed;
+    }
+
+    @Override
+    protected int onSpawn(final ParticleArrays particles, final int index, final int emitIndex) {
+        final TweenAnimatorVO vo = (TweenAnimatorVO) mVO;
+        final int duration = mDuration[index] = vo.getDuration(emitIndex);
+        final int loopCount = mLoopCount[index] = vo.getLoopCount(emitIndex, -1);
+
+        if (duration <= 0) {
+            // never updates
+            return -1;
+        } else if (mLoopMode == LoopModes.LOOP_NONE) {
+            return duration;
+        } else if (loopCount >= 0) {
+            return duration * (loopCount + 1);
+        } else {
+            return -1;
+        }
+    }
+
+    @Override
+    protected boolean hasLifespan(final int index) {
+        // a tween without duration never updates, nor ends
+        return mDuration[index] > 0;
+    }
+
+    @Override
+    protected void onUpdate(final ParticleArrays particles, final int from, final int to) {
+        final boolean[] active = mActive;
+        final boolean[] ended = mEnded;
+        final int[] time = mTime;
+        final int[] durations = mDuration;
+        final float[] values = mValue;
+        final Interpolator interpolator = mInterpolator;
+        final int loopMode = mLoopMode;
+
+        float timeline, value;
+        int duration, trips;
+        for (int i = from; i < to; i++) {
+            if (!active[i]) {
+                continue;
+            }
+
+            duration = durations[i];
+            if (duration <= 0) {
+                // never updates, see TweenAnimator
+                active[i] = false;
+                continue;
+            }
+
+            if (ended[i]) {
+                // force end
+                value = (loopMode == LoopModes.LOOP_REVERSE && mLoopCount[i] > 0) ? (mLoopCount[i] % 2 == 0 ? 1 : 0) : 1;
+            } else {
+                timeline = (float) time[i] / (float) duration;
+                if (loopMode == LoopModes.LOOP_REPEAT) {
+                    timeline = ((float) time[i] % (float) duration) / duration;
+                } else if (loopMode == LoopModes.LOOP_REVERSE) {
+                    trips = time[i] / duration;
+                    timeline = ((float) time[i] % (float) duration) / duration;
+                    if (trips % 2 == 1) {
+                        // reverse
+                        timeline = 1 - timeline;
+                    }
+                }
+
+                value = interpolator == null ? timeline : interpolator.getInterpolation(timeline);
+            }
+
+            values[i] = mReversed ? 1 - value : value;
+        }
+
+        onApply(particles, from, to);
+    }
+
+    /**
+     * Apply the interpolated values to the active particles
+     * 
+     * @param particles
+     * @param from the first particle index
+     * @param to the particle index after the last one
+     */
+    abstract protected void onApply(final ParticleArrays particles, final int from, final int to);
+
+    /**
+     * @return the initial value of a tween, see TweenAnimator.startElapse()
+     */
+    protected float getStartValue() {
+        return mReversed ? 1 : 0;
+    }
+
+    @Override
+    protected void copy(final int from, final int to) {
+        super.copy(from, to);
+
+        mDuration[to] = mDuration[from];
+        mLoopCount[to] = mLoopCount[from];
+    }
+
+    @Override
+    protected void allocate(final int capacity) {
+        super.allocate(capacity);
+
+        mDuration = ParticleArrays.grow(mDuration, capacity);
+        mLoopCount = ParticleArrays.grow(mLoopCount, capacity);
+        mValue = ParticleArrays.grow(mValue, capacity);
+    }
+}
@@ -32,6 +32,7 @@ import org.json.JSONObject;
 import com.funzio.pure2D.Manipulatable;
 import com.funzio.pure2D.animators.AlphaAnimator;
 import com.funzio.pure2D.animators.Animator;
+import com.funzio.pure2D.particles.nova.FloatTable;
 import com.funzio.pure2D.particles.nova.NovaConfig;
 
 /**
@@ -42,6 +43,10 @@ public class AlphaAnimatorVO extends TweenAnimatorVO {
     public ArrayList<Float> from;
     public ArrayList<Float> to;
 
+    // compiled values
+    protected FloatTable mFrom;
+    protected FloatTable mTo;
+
     public AlphaAnimatorVO(final JSONObject json) throws JSONException {
         super(json);
 
@@ -51,7 +56,7 @@ public class AlphaAnimatorVO extends TweenAnimatorVO {
 
     @Override
     public Animator createAnimator(final int emitIndex, final Manipulatable target, final Animator... animators) {
-        return init(emitIndex, target, new AlphaAnimator(NovaConfig.getInterpolator(interpolation)));
+        return init(emitIndex, target, new AlphaAnimator(mInterpolator));
     }
 
     @Override
@@ -60,8 +65,28 @@ public class AlphaAnimatorVO extends TweenAnimatorVO {
 
         final AlphaAnimator alpha = (AlphaAnimator) animator;
         // if (alpha != null) {
-        alpha.setValues(NovaConfig.getFloat(from, emitIndex, 1), NovaConfig.getFloat(to, emitIndex, 0));
-        alpha.setDuration(NovaConfig.getInt(duration, emitIndex, 0));
+        alpha.setValues(getFrom(emitIndex), getTo(emitIndex));
+        alpha.setDuration(getDuration(emitIndex));
         // }
     }
+
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.particles.nova.vo.TweenAnimatorVO#compile(com.funzio.pure2D.particles.nova.vo.NovaVO)
+     */
+    @Override
+    public void compile(final NovaVO novaVO) {
+        super.compile(novaVO);
+
+        mFrom = FloatTable.create(from);
+        mTo = FloatTable.create(to);
+    }
+
+    public float getFrom(final int emitIndex) {
+        return NovaConfig.getFloat(mFrom, emitIndex, 1);
+    }
+
+    public float getTo(final int emitIndex) {
+        return NovaConfig.getFloat(mTo, emitIndex, 0);
+    }
 }
@@ -29,9 +29,11 @@ import java.util.ArrayList;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.funzio.pure2D.LoopModes;
 import com.funzio.pure2D.Manipulatable;
 import com.funzio.pure2D.animators.Animator;
 import com.funzio.pure2D.gl.gl10.textures.TextureOptions;
+import com.funzio.pure2D.particles.nova.IntTable;
 import com.funzio.pure2D.particles.nova.NovaConfig;
 
 /**
@@ -79,6 +81,14 @@ public abstract class AnimatorVO extends NovaEntryVO {
     public ArrayList<Integer> start_delay;
     public ArrayList<Integer> lifespan;
 
+    // compiled values, see compile()
+    protected IntTable mLoopCount;
+    protected IntTable mStartDelay;
+    protected IntTable mLifespan;
+    protected int mLoopMode;
+    // index in NovaVO.animators, -1 for the child animators
+    protected int mIndex = -1;
+
     public abstract Animator createAnimator(int emitIndex, Manipulatable target, Animator... animators);
 
     public AnimatorVO(final JSONObject json) throws JSONException {
@@ -121,11 +131,56 @@ public abstract class AnimatorVO extends NovaEntryVO {
     public void resetAnimator(final int emitIndex, final Manipulatable target, final Animator animator) {
         // if (animator != null) {
         animator.reset();
-        animator.setStartDelay(NovaConfig.getInt(start_delay, emitIndex, 0));
-        animator.setLifespan(NovaConfig.getInt(lifespan, emitIndex, 0));
+        animator.setStartDelay(NovaConfig.getInt(mStartDelay, emitIndex, 0));
+        animator.setLifespan(NovaConfig.getInt(mLifespan, emitIndex, 0));
         // }
     }
 
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.particles.nova.vo.NovaEntryVO#compile(com.funzio.pure2D.particles.nova.vo.NovaVO)
+     */
+    @Override
+    public void compile(final NovaVO novaVO) {
+        super.compile(novaVO);
+
+        mLoopCount = IntTable.create(loop_count);
+        mStartDelay = IntTable.create(start_delay);
+        mLifespan = IntTable.create(lifespan);
+        mLoopMode = NovaConfig.getLoopMode(loop_mode);
+    }
+
+    public boolean hasLoopCount() {
+        return mLoopCount != null;
+    }
+
+    public int getLoopCount(final int emitIndex, final int defaultValue) {
+        return NovaConfig.getInt(mLoopCount, emitIndex, defaultValue);
+    }
+
+    public int getStartDelay(final int emitIndex) {
+        return NovaConfig.getInt(mStartDelay, emitIndex, 0);
+    }
+
+    public int getLifespan(final int emitIndex) {
+        return NovaConfig.getInt(mLifespan, emitIndex, 0);
+    }
+
+    /**
+     * @return the resolved loop mode
+     * @see LoopModes
+     */
+    public int getLoopMode() {
+        return mLoopMode;
+    }
+
+    /**
+     * @return the index in {@link NovaVO#animators}, or -1 if this is not a top-level animator
+     */
+    public int getIndex() {
+        return mIndex;
+    }
+
     /**
      * @param scale
      * @see TextureOptions
@@ -34,6 +34,7 @@ import com.funzio.pure2D.animators.Animator;
 import com.funzio.pure2D.animators.ColorAnimator;
 import com.funzio.pure2D.gl.GLColor;
 import com.funzio.pure2D.particles.nova.NovaConfig;
+import com.funzio.pure2D.particles.nova.ObjectTable;
 
 /**
  * @author juni
@@ -43,6 +44,10 @@ public class ColorAnimatorVO extends TweenAnimatorVO {
     public ArrayList<GLColor> from;
     public ArrayList<GLColor> to;
 
+    // compiled values
+    protected ObjectTable<GLColor> mFrom;
+    protected ObjectTable<GLColor> mTo;
+
     public ColorAnimatorVO(final JSONObject json) throws JSONException {
         super(json);
 
@@ -52,7 +57,7 @@ public class ColorAnimatorVO extends TweenAnimatorVO {
 
     @Override
     public Animator createAnimator(final int emitIndex, final Manipulatable target, final Animator... animators) {
-        return init(emitIndex, target, new ColorAnimator(NovaConfig.getInterpolator(interpolation)));
+        return init(emitIndex, target, new ColorAnimator(mInterpolator));
     }
 
     @Override
@@ -61,9 +66,29 @@ public class ColorAnimatorVO extends TweenAnimatorVO {
 
         final ColorAnimator color = (ColorAnimator) animator;
         // if (color != null) {
-        color.setValues(NovaConfig.getColor(from, emitIndex, GLColor.WHITE), NovaConfig.getColor(to, emitIndex, GLColor.WHITE));
+        color.setValues(getFrom(emitIndex), getTo(emitIndex));
 
-        color.setDuration(NovaConfig.getInt(duration, emitIndex, 0));
+        color.setDuration(getDuration(emitIndex));
         // }
     }
+
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.particles.nova.vo.TweenAnimatorVO#compile(com.funzio.pure2D.particles.nova.vo.NovaVO)
+     */
+    @Override
+    public void compile(final NovaVO novaVO) {
+        super.compile(novaVO);
+
+        mFrom = ObjectTable.create(from);
+        mTo = ObjectTable.create(to);
+    }
+
+    public GLColor getFrom(final int emitIndex) {
+        return NovaConfig.getObject(mFrom, emitIndex, GLColor.WHITE);
+    }
+
+    public GLColor getTo(final int emitIndex) {
+        return NovaConfig.getObject(mTo, emitIndex, GLColor.WHITE);
+    }
 }
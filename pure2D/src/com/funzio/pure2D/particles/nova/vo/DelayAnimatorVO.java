@@ -32,6 +32,7 @@ import org.json.JSONObject;
 import com.funzio.pure2D.Manipulatable;
 import com.funzio.pure2D.animators.Animator;
 import com.funzio.pure2D.animators.DelayAnimator;
+import com.funzio.pure2D.particles.nova.IntTable;
 import com.funzio.pure2D.particles.nova.NovaConfig;
 
 /**
@@ -41,6 +42,9 @@ public class DelayAnimatorVO extends AnimatorVO {
 
     public ArrayList<Integer> duration;
 
+    // compiled values
+    protected IntTable mDuration;
+
     public DelayAnimatorVO(final JSONObject json) throws JSONException {
         super(json);
 
@@ -56,7 +60,25 @@ public class DelayAnimatorVO extends AnimatorVO {
     public void resetAnimator(final int emitIndex, final Manipulatable target, final Animator animator) {
         super.resetAnimator(emitIndex, target, animator);
 
-        animator.setLifespan(NovaConfig.getInt(duration, emitIndex, 0));
+        animator.setLifespan(getDuration(emitIndex));
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.particles.nova.vo.AnimatorVO#compile(com.funzio.pure2D.particles.nova.vo.NovaVO)
+     */
+    @Override
+    public void compile(final NovaVO novaVO) {
+        super.compile(novaVO);
+
+        mDuration = IntTable.create(duration);
     }
 
+    /**
+     * @param emitIndex
+     * @return the delay in ms, 0 is endless
+     */
+    public int getDuration(final int emitIndex) {
+        return NovaConfig.getInt(mDuration, emitIndex, 0);
+    }
 }
@@ -32,7 +32,6 @@ import org.json.JSONObject;
 import com.funzio.pure2D.Manipulatable;
 import com.funzio.pure2D.animators.Animator;
 import com.funzio.pure2D.animators.GroupAnimator;
-import com.funzio.pure2D.particles.nova.NovaConfig;
 
 /**
  * @author long
@@ -58,8 +57,8 @@ public abstract class GroupAnimatorVO extends AnimatorVO {
         // if (animator != null) {
         final GroupAnimator group = (GroupAnimator) animator;
 
-        if (loop_count != null) {
-            group.setLoopCount(NovaConfig.getInt(loop_count, emitIndex, 0));
+        if (mLoopCount != null) {
+            group.setLoopCount(mLoopCount.get(emitIndex));
         }
 
         Animator childAnimator;
@@ -76,6 +75,26 @@ public abstract class GroupAnimatorVO extends AnimatorVO {
         // }
     }
 
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.particles.nova.vo.AnimatorVO#compile(com.funzio.pure2D.particles.nova.vo.NovaVO)
+     */
+    @Override
+    public void compile(final NovaVO novaVO) {
+        super.compile(novaVO);
+
+        // compile all child animators
+        if (animators != null) {
+            final int size = animators.size();
+            for (int i = 0; i < size; i++) {
+                final AnimatorVO vo = animators.get(i);
+                if (vo != null) {
+                    vo.compile(novaVO);
+                }
+            }
+        }
+    }
+
     /*
      * (non-Javadoc)
      * @see com.funzio.pure2D.particles.nova.vo.AnimatorVO#applyScale(float)
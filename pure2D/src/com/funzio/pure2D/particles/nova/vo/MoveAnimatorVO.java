@@ -32,6 +32,7 @@ import org.json.JSONObject;
 import com.funzio.pure2D.Manipulatable;
 import com.funzio.pure2D.animators.Animator;
 import com.funzio.pure2D.animators.MoveAnimator;
+import com.funzio.pure2D.particles.nova.IntTable;
 import com.funzio.pure2D.particles.nova.NovaConfig;
 
 /**
@@ -47,6 +48,12 @@ public class MoveAnimatorVO extends TweenAnimatorVO {
     public ArrayList<Integer> distance;
     public ArrayList<Integer> degree;
 
+    // compiled values
+    protected IntTable mDx;
+    protected IntTable mDy;
+    protected IntTable mDistance;
+    protected IntTable mDegree;
+
     public MoveAnimatorVO(final JSONObject json) throws JSONException {
         super(json);
 
@@ -59,7 +66,7 @@ public class MoveAnimatorVO extends TweenAnimatorVO {
 
     @Override
     public Animator createAnimator(final int emitIndex, final Manipulatable target, final Animator... animators) {
-        return init(emitIndex, target, new MoveAnimator(NovaConfig.getInterpolator(interpolation)));
+        return init(emitIndex, target, new MoveAnimator(mInterpolator));
     }
 
     @Override
@@ -68,15 +75,52 @@ public class MoveAnimatorVO extends TweenAnimatorVO {
 
         final MoveAnimator move = (MoveAnimator) animator;
         // if (move != null) {
-        if (distance != null) {
-            move.setDistance(NovaConfig.getInt(distance, emitIndex, 0), NovaConfig.getInt(degree, emitIndex, 0));
+        if (mDistance != null) {
+            move.setDistance(getDistance(emitIndex), getDegree(emitIndex));
         } else {
-            move.setDelta(NovaConfig.getInt(dx, emitIndex, 0), NovaConfig.getInt(dy, emitIndex, 0));
+            move.setDelta(getDx(emitIndex), getDy(emitIndex));
         }
-        move.setDuration(NovaConfig.getInt(duration, emitIndex, 0));
+        move.setDuration(getDuration(emitIndex));
         // }
     }
 
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.particles.nova.vo.TweenAnimatorVO#compile(com.funzio.pure2D.particles.nova.vo.NovaVO)
+     */
+    @Override
+    public void compile(final NovaVO novaVO) {
+        super.compile(novaVO);
+
+        mDx = IntTable.create(dx);
+        mDy = IntTable.create(dy);
+        mDistance = IntTable.create(distance);
+        mDegree = IntTable.create(degree);
+    }
+
+    /**
+     * @return true if this moves by distance and degree instead of dx and dy
+     */
+    public boolean hasDistance() {
+        return mDistance != null;
+    }
+
+    public int getDistance(final int emitIndex) {
+        return NovaConfig.getInt(mDistance, emitIndex, 0);
+    }
+
+    public int getDegree(final int emitIndex) {
+        return NovaConfig.getInt(mDegree, emitIndex, 0);
+    }
+
+    public int getDx(final int emitIndex) {
+        return NovaConfig.getInt(mDx, emitIndex, 0);
+    }
+
+    public int getDy(final int emitIndex) {
+        return NovaConfig.getInt(mDy, emitIndex, 0);
+    }
+
     /*
      * (non-Javadoc)
      * @see com.funzio.pure2D.particles.nova.vo.AnimatorVO#applyScale(float)
@@ -52,7 +52,7 @@ public class MoveRadiusAnimatorVO extends TweenAnimatorVO {
 
     @Override
     public Animator createAnimator(final int emitIndex, final Manipulatable target, final Animator... animators) {
-        return init(emitIndex, target, new MoveRadiusAnimator(NovaConfig.getInterpolator(interpolation)));
+        return init(emitIndex, target, new MoveRadiusAnimator(mInterpolator));
     }
 
     @Override
@@ -62,7 +62,7 @@ public class MoveRadiusAnimatorVO extends TweenAnimatorVO {
         final MoveRadiusAnimator move = (MoveRadiusAnimator) animator;
         // if (move != null) {
         move.setValues(NovaConfig.getInt(distance, emitIndex, 0), NovaConfig.getInt(degree, emitIndex, 0));
-        move.setDuration(NovaConfig.getInt(duration, emitIndex, 0));
+        move.setDuration(getDuration(emitIndex));
         // }
     }
 
@@ -57,6 +57,10 @@ public class NovaEmitterVO extends NovaEntryVO {
 
     private HashSet<String> mUsedSprites;
 
+    // compiled references, see compile()
+    protected AnimatorVO mAnimatorVO;
+    protected MotionTrailVO mMotionTrailVO;
+
     public NovaEmitterVO(final JSONObject json) throws JSONException {
         super(json);
 
@@ -112,6 +116,40 @@ public class NovaEmitterVO extends NovaEntryVO {
         }
     }
 
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.particles.nova.vo.NovaEntryVO#compile(com.funzio.pure2D.particles.nova.vo.NovaVO)
+     */
+    @Override
+    public void compile(final NovaVO novaVO) {
+        super.compile(novaVO);
+
+        mAnimatorVO = animator != null && animator.length() > 0 ? novaVO.getAnimatorVO(animator) : null;
+        mMotionTrailVO = motion_trail != null && motion_trail.length() > 0 ? novaVO.getMotionTrailVO(motion_trail) : null;
+
+        // also compile all particles
+        if (particles != null) {
+            final int size = particles.size();
+            for (int i = 0; i < size; i++) {
+                particles.get(i).compile(novaVO);
+            }
+        }
+    }
+
+    /**
+     * @return the resolved animator of this emitter, or null
+     */
+    public AnimatorVO getAnimatorVO() {
+        return mAnimatorVO;
+    }
+
+    /**
+     * @return the resolved motion trail of this emitter, or null
+     */
+    public MotionTrailVO getMotionTrailVO() {
+        return mMotionTrailVO;
+    }
+
     private ArrayList<NovaParticleVO> getParticles(final JSONArray array) throws JSONException {
         final ArrayList<NovaParticleVO> list = new ArrayList<NovaParticleVO>();
         final int size = array.length();
@@ -35,4 +35,14 @@ public abstract class NovaEntryVO {
     public NovaEntryVO(final JSONObject json) throws JSONException {
     }
 
+    /**
+     * Resolve the lists and names of this entry into immutable tables and direct references, so nothing needs to be looked up at spawn time. Call this again after changing any list.
+     * 
+     * @param novaVO the owner, used to resolve the names. Can be null for the standalone animators
+     * @see NovaVO#compile()
+     */
+    public void compile(final NovaVO novaVO) {
+        // TODO
+    }
+
 }
@@ -29,9 +29,16 @@ import java.util.ArrayList;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.funzio.pure2D.LoopModes;
 import com.funzio.pure2D.Scene;
 import com.funzio.pure2D.gl.GLColor;
+import com.funzio.pure2D.gl.gl10.BlendFunc;
+import com.funzio.pure2D.gl.gl10.BlendModes;
 import com.funzio.pure2D.gl.gl10.textures.TextureOptions;
+import com.funzio.pure2D.particles.nova.FloatTable;
+import com.funzio.pure2D.particles.nova.IntTable;
+import com.funzio.pure2D.particles.nova.NovaConfig;
+import com.funzio.pure2D.particles.nova.ObjectTable;
 
 /**
  * @author long
@@ -71,6 +78,24 @@ public class NovaParticleVO extends NovaEntryVO {
     public ArrayList<Float> skew_x;
     public ArrayList<Float> skew_y;
 
+    // compiled values, see compile()
+    protected ObjectTable<String> mSprite;
+    protected IntTable mStartFrame;
+    protected IntTable mLoopMode;
+    protected IntTable mX;
+    protected IntTable mY;
+    protected FloatTable mZ;
+    protected ObjectTable<AnimatorVO> mAnimator;
+    protected ObjectTable<MotionTrailVO> mMotionTrail;
+    protected ObjectTable<BlendFunc> mBlendFunc;
+    protected FloatTable mAlpha;
+    protected ObjectTable<GLColor> mColor;
+    protected FloatTable mRotation;
+    protected FloatTable mScaleX;
+    protected FloatTable mScaleY;
+    protected FloatTable mSkewX;
+    protected FloatTable mSkewY;
+
     public NovaParticleVO(final JSONObject json) throws JSONException {
         super(json);
 
@@ -155,6 +180,154 @@ public class NovaParticleVO extends NovaEntryVO {
         }
     }
 
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.particles.nova.vo.NovaEntryVO#compile(com.funzio.pure2D.particles.nova.vo.NovaVO)
+     */
+    @Override
+    public void compile(final NovaVO novaVO) {
+        super.compile(novaVO);
+
+        mSprite = ObjectTable.create(sprite);
+        mStartFrame = IntTable.create(start_frame);
+        mX = IntTable.create(x);
+        mY = IntTable.create(y);
+        mZ = FloatTable.create(z);
+        mAlpha = FloatTable.create(alpha);
+        mColor = ObjectTable.create(color);
+        mRotation = FloatTable.create(rotation);
+        mScaleX = FloatTable.create(scale_x);
+        mScaleY = FloatTable.create(scale_y);
+        mSkewX = FloatTable.create(skew_x);
+        mSkewY = FloatTable.create(skew_y);
+
+        // resolve the names
+        mLoopMode = null;
+        if (loop_mode != null && !loop_mode.isEmpty()) {
+            final int size = loop_mode.size();
+            final int[] modes = new int[size];
+            for (int i = 0; i < size; i++) {
+                modes[i] = NovaConfig.getLoopMode(loop_mode.get(i));
+            }
+            // pick, no range
+            mLoopMode = new IntTable(false, modes);
+        }
+
+        mAnimator = null;
+        if (animator != null && !animator.isEmpty()) {
+            final int size = animator.size();
+            final Object[] animators = new Object[size];
+            for (int i = 0; i < size; i++) {
+                animators[i] = novaVO.getAnimatorVO(animator.get(i));
+            }
+            mAnimator = new ObjectTable<AnimatorVO>(animators);
+        }
+
+        mMotionTrail = null;
+        if (motion_trail != null && !motion_trail.isEmpty()) {
+            final int size = motion_trail.size();
+            final Object[] trails = new Object[size];
+            for (int i = 0; i < size; i++) {
+                trails[i] = novaVO.getMotionTrailVO(motion_trail.get(i));
+            }
+            mMotionTrail = new ObjectTable<MotionTrailVO>(trails);
+        }
+
+        mBlendFunc = null;
+        if (blend_mode != null && !blend_mode.isEmpty()) {
+            final int size = blend_mode.size();
+            final Object[] funcs = new Object[size];
+            for (int i = 0; i < size; i++) {
+                funcs[i] = BlendModes.getBlendFunc(blend_mode.get(i));
+            }
+            mBlendFunc = new ObjectTable<BlendFunc>(funcs);
+        }
+    }
+
+    public String getSprite(final int emitIndex) {
+        return NovaConfig.getObject(mSprite, emitIndex, null);
+    }
+
+    public int getStartFrame(final int emitIndex) {
+        return NovaConfig.getInt(mStartFrame, emitIndex, 0);
+    }
+
+    /**
+     * @param emitIndex
+     * @return the resolved loop mode, {@link LoopModes#LOOP_REPEAT} by default
+     */
+    public int getLoopMode(final int emitIndex) {
+        return NovaConfig.getInt(mLoopMode, emitIndex, LoopModes.LOOP_REPEAT);
+    }
+
+    public int getX(final int emitIndex) {
+        return NovaConfig.getInt(mX, emitIndex, 0);
+    }
+
+    public int getY(final int emitIndex) {
+        return NovaConfig.getInt(mY, emitIndex, 0);
+    }
+
+    public boolean hasZ() {
+        return mZ != null;
+    }
+
+    public float getZ(final int emitIndex) {
+        return NovaConfig.getFloat(mZ, emitIndex, 0);
+    }
+
+    /**
+     * @param emitIndex
+     * @return the resolved animator, or null
+     */
+    public AnimatorVO getAnimatorVO(final int emitIndex) {
+        return NovaConfig.getObject(mAnimator, emitIndex, null);
+    }
+
+    /**
+     * @param emitIndex
+     * @return the resolved motion trail, or null
+     */
+    public MotionTrailVO getMotionTrailVO(final int emitIndex) {
+        return NovaConfig.getObject(mMotionTrail, emitIndex, null);
+    }
+
+    /**
+     * @param emitIndex
+     * @return the resolved blend function, or null
+     */
+    public BlendFunc getBlendFunc(final int emitIndex) {
+        return NovaConfig.getObject(mBlendFunc, emitIndex, null);
+    }
+
+    public float getAlpha(final int emitIndex) {
+        return NovaConfig.getFloat(mAlpha, emitIndex, 1);
+    }
+
+    public GLColor getColor(final int emitIndex) {
+        return NovaConfig.getObject(mColor, emitIndex, null);
+    }
+
+    public float getRotation(final int emitIndex) {
+        return NovaConfig.getFloat(mRotation, emitIndex, 0);
+    }
+
+    public float getScaleX(final int emitIndex) {
+        return NovaConfig.getFloat(mScaleX, emitIndex, 1);
+    }
+
+    public float getScaleY(final int emitIndex) {
+        return NovaConfig.getFloat(mScaleY, emitIndex, 1);
+    }
+
+    public float getSkewX(final int emitIndex) {
+        return NovaConfig.getFloat(mSkewX, emitIndex, 0);
+    }
+
+    public float getSkewY(final int emitIndex) {
+        return NovaConfig.getFloat(mSkewY, emitIndex, 0);
+    }
+
     public boolean hasOriginAtCenter() {
         return origin_x == -1 && origin_y == -1;
     }
@@ -114,6 +114,9 @@ public class NovaVO {
                 }
             }
         }
+
+        // resolve everything up front, at load time
+        compile();
     }
 
     public NovaVO(final String json) throws JSONException {
@@ -153,6 +156,37 @@ public class NovaVO {
                 }
             }
         }
+
+        // the tables need to reflect the new values
+        compile();
+    }
+
+    /**
+     * Resolve all the lists and names into immutable tables and direct references, so spawning particles does not need any look up or unboxing. This is done when the NovaVO is loaded and
+     * scaled. Call this again after changing any list manually.
+     */
+    public void compile() {
+        // animators first, the particles refer to them
+        if (animators != null) {
+            final int size = animators.size();
+            for (int i = 0; i < size; i++) {
+                final AnimatorVO vo = animators.get(i);
+                if (vo != null) {
+                    vo.mIndex = i;
+                    vo.compile(this);
+                }
+            }
+        }
+
+        if (emitters != null) {
+            final int size = emitters.size();
+            for (int i = 0; i < size; i++) {
+                final NovaEmitterVO vo = emitters.get(i);
+                if (vo != null) {
+                    vo.compile(this);
+                }
+            }
+        }
     }
 
     public NovaEmitterVO getEmitterVO(final String name) {
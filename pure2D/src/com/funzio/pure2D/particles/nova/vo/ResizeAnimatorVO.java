@@ -56,7 +56,7 @@ public class ResizeAnimatorVO extends TweenAnimatorVO {
 
     @Override
     public Animator createAnimator(final int emitIndex, final Manipulatable target, final Animator... animators) {
-        return init(emitIndex, target, new ResizeAnimator(NovaConfig.getInterpolator(interpolation)));
+        return init(emitIndex, target, new ResizeAnimator(mInterpolator));
     }
 
     @Override
@@ -69,6 +69,6 @@ public class ResizeAnimatorVO extends TweenAnimatorVO {
                 NovaConfig.getFloat(width_to, emitIndex, 1), //
                 NovaConfig.getFloat(height_to, emitIndex, 1));
 
-        resize.setDuration(NovaConfig.getInt(duration, emitIndex, 0));
+        resize.setDuration(getDuration(emitIndex));
     }
 }
@@ -32,6 +32,8 @@ import org.json.JSONObject;
 import com.funzio.pure2D.Manipulatable;
 import com.funzio.pure2D.animators.Animator;
 import com.funzio.pure2D.animators.RotateAnimator;
+import com.funzio.pure2D.particles.nova.FloatTable;
+import com.funzio.pure2D.particles.nova.IntTable;
 import com.funzio.pure2D.particles.nova.NovaConfig;
 
 /**
@@ -45,6 +47,14 @@ public class RotateAnimatorVO extends TweenAnimatorVO {
     public ArrayList<Integer> pivot_y;
     public ArrayList<Integer> radius;
 
+    // compiled values
+    protected FloatTable mFrom;
+    protected FloatTable mTo;
+    protected FloatTable mDelta;
+    protected IntTable mPivotX;
+    protected IntTable mPivotY;
+    protected IntTable mRadius;
+
     public RotateAnimatorVO(final JSONObject json) throws JSONException {
         super(json);
 
@@ -59,7 +69,7 @@ public class RotateAnimatorVO extends TweenAnimatorVO {
 
     @Override
     public Animator createAnimator(final int emitIndex, final Manipulatable target, final Animator... animators) {
-        return init(emitIndex, target, new RotateAnimator(NovaConfig.getInterpolator(interpolation)));
+        return init(emitIndex, target, new RotateAnimator(mInterpolator));
     }
 
     @Override
@@ -67,14 +77,14 @@ public class RotateAnimatorVO extends TweenAnimatorVO {
         super.resetAnimator(emitIndex, target, animator);
 
         final RotateAnimator rotate = (RotateAnimator) animator;
-        if (delta != null) {
-            rotate.setDelta(NovaConfig.getFloat(delta, emitIndex, 0));
+        if (mDelta != null) {
+            rotate.setDelta(getDelta(emitIndex));
         } else {
-            rotate.setValues(NovaConfig.getFloat(from, emitIndex, 0), NovaConfig.getFloat(to, emitIndex, 0));
+            rotate.setValues(getFrom(emitIndex), getTo(emitIndex));
         }
 
         // check pivot
-        if (pivot_x != null && pivot_y != null) {
+        if (hasPivot()) {
             // PointF offset;
             // if (target instanceof NovaParticle) {
             // // relative to the emitter's position
@@ -84,12 +94,63 @@ public class RotateAnimatorVO extends TweenAnimatorVO {
             // offset = target.getPosition();
             // }
             // rotate.setPivot(NovaConfig.getInt(pivot_x, emitIndex, 0) + offset.x, NovaConfig.getInt(pivot_y, emitIndex, 0) + offset.y, NovaConfig.getInt(radius, emitIndex, 0));
-            rotate.setPivot(NovaConfig.getInt(pivot_x, emitIndex, 0), NovaConfig.getInt(pivot_y, emitIndex, 0), NovaConfig.getInt(radius, emitIndex, 0));
+            rotate.setPivot(getPivotX(emitIndex), getPivotY(emitIndex), getRadius(emitIndex));
 
         } else {
             rotate.clearPivot();
         }
 
-        rotate.setDuration(NovaConfig.getInt(duration, emitIndex, 0));
+        rotate.setDuration(getDuration(emitIndex));
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.particles.nova.vo.TweenAnimatorVO#compile(com.funzio.pure2D.particles.nova.vo.NovaVO)
+     */
+    @Override
+    public void compile(final NovaVO novaVO) {
+        super.compile(novaVO);
+
+        mFrom = FloatTable.create(from);
+        mTo = FloatTable.create(to);
+        mDelta = FloatTable.create(delta);
+        mPivotX = IntTable.create(pivot_x);
+        mPivotY = IntTable.create(pivot_y);
+        mRadius = IntTable.create(radius);
+    }
+
+    /**
+     * @return true if this rotates by a delta instead of from and to
+     */
+    public boolean hasDelta() {
+        return mDelta != null;
+    }
+
+    public float getDelta(final int emitIndex) {
+        return NovaConfig.getFloat(mDelta, emitIndex, 0);
+    }
+
+    public float getFrom(final int emitIndex) {
+        return NovaConfig.getFloat(mFrom, emitIndex, 0);
+    }
+
+    public float getTo(final int emitIndex) {
+        return NovaConfig.getFloat(mTo, emitIndex, 0);
+    }
+
+    public boolean hasPivot() {
+        return mPivotX != null && mPivotY != null;
+    }
+
+    public int getPivotX(final int emitIndex) {
+        return NovaConfig.getInt(mPivotX, emitIndex, 0);
+    }
+
+    public int getPivotY(final int emitIndex) {
+        return NovaConfig.getInt(mPivotY, emitIndex, 0);
+    }
+
+    public int getRadius(final int emitIndex) {
+        return NovaConfig.getInt(mRadius, emitIndex, 0);
     }
 }
@@ -32,6 +32,7 @@ import org.json.JSONObject;
 import com.funzio.pure2D.Manipulatable;
 import com.funzio.pure2D.animators.Animator;
 import com.funzio.pure2D.animators.ScaleAnimator;
+import com.funzio.pure2D.particles.nova.FloatTable;
 import com.funzio.pure2D.particles.nova.NovaConfig;
 
 /**
@@ -44,6 +45,12 @@ public class ScaleAnimatorVO extends TweenAnimatorVO {
     public ArrayList<Float> y_from;
     public ArrayList<Float> y_to;
 
+    // compiled values
+    protected FloatTable mXFrom;
+    protected FloatTable mXTo;
+    protected FloatTable mYFrom;
+    protected FloatTable mYTo;
+
     public ScaleAnimatorVO(final JSONObject json) throws JSONException {
         super(json);
 
@@ -71,7 +78,7 @@ public class ScaleAnimatorVO extends TweenAnimatorVO {
 
     @Override
     public Animator createAnimator(final int emitIndex, final Manipulatable target, final Animator... animators) {
-        return init(emitIndex, target, new ScaleAnimator(NovaConfig.getInterpolator(interpolation)));
+        return init(emitIndex, target, new ScaleAnimator(mInterpolator));
     }
 
     @Override
@@ -80,12 +87,39 @@ public class ScaleAnimatorVO extends TweenAnimatorVO {
 
         final ScaleAnimator scale = (ScaleAnimator) animator;
         // if (scale != null) {
-        scale.setValues(NovaConfig.getFloat(x_from, emitIndex, 1), //
-                NovaConfig.getFloat(y_from, emitIndex, 1), //
-                NovaConfig.getFloat(x_to, emitIndex, 1), //
-                NovaConfig.getFloat(y_to, emitIndex, 1));
+        scale.setValues(getXFrom(emitIndex), getYFrom(emitIndex), getXTo(emitIndex), getYTo(emitIndex));
 
-        scale.setDuration(NovaConfig.getInt(duration, emitIndex, 0));
+        scale.setDuration(getDuration(emitIndex));
         // }
     }
+
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.particles.nova.vo.TweenAnimatorVO#compile(com.funzio.pure2D.particles.nova.vo.NovaVO)
+     */
+    @Override
+    public void compile(final NovaVO novaVO) {
+        super.compile(novaVO);
+
+        mXFrom = FloatTable.create(x_from);
+        mXTo = FloatTable.create(x_to);
+        mYFrom = FloatTable.create(y_from);
+        mYTo = FloatTable.create(y_to);
+    }
+
+    public float getXFrom(final int emitIndex) {
+        return NovaConfig.getFloat(mXFrom, emitIndex, 1);
+    }
+
+    public float getXTo(final int emitIndex) {
+        return NovaConfig.getFloat(mXTo, emitIndex, 1);
+    }
+
+    public float getYFrom(final int emitIndex) {
+        return NovaConfig.getFloat(mYFrom, emitIndex, 1);
+    }
+
+    public float getYTo(final int emitIndex) {
+        return NovaConfig.getFloat(mYTo, emitIndex, 1);
+    }
 }
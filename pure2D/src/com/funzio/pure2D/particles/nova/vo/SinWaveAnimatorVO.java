@@ -68,7 +68,7 @@ public class SinWaveAnimatorVO extends TweenAnimatorVO {
 
     @Override
     public Animator createAnimator(final int emitIndex, final Manipulatable target, final Animator... animators) {
-        return init(emitIndex, target, new SinWaveAnimator(NovaConfig.getInterpolator(interpolation)));
+        return init(emitIndex, target, new SinWaveAnimator(mInterpolator));
     }
 
     @Override
@@ -84,7 +84,7 @@ public class SinWaveAnimatorVO extends TweenAnimatorVO {
         }
         sinWave.setWaveRadius(NovaConfig.getInt(wave_radius1, emitIndex, SinWaveAnimator.DEFAULT_RADIUS), NovaConfig.getInt(wave_radius2, emitIndex, SinWaveAnimator.DEFAULT_RADIUS));
         sinWave.setWaveNum(NovaConfig.getInt(wave_num, emitIndex, SinWaveAnimator.DEFAULT_WAVE_NUM));
-        sinWave.setDuration(NovaConfig.getInt(duration, emitIndex, 0));
+        sinWave.setDuration(getDuration(emitIndex));
         // }
     }
 
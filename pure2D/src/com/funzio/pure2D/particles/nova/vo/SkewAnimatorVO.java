@@ -55,7 +55,7 @@ public class SkewAnimatorVO extends TweenAnimatorVO {
 
     @Override
     public Animator createAnimator(final int emitIndex, final Manipulatable target, final Animator... animators) {
-        return init(emitIndex, target, new SkewAnimator(NovaConfig.getInterpolator(interpolation)));
+        return init(emitIndex, target, new SkewAnimator(mInterpolator));
     }
 
     @Override
@@ -68,6 +68,6 @@ public class SkewAnimatorVO extends TweenAnimatorVO {
                 NovaConfig.getFloat(x_to, emitIndex, 0), //
                 NovaConfig.getFloat(y_to, emitIndex, 0));
 
-        skew.setDuration(NovaConfig.getInt(duration, emitIndex, 0));
+        skew.setDuration(getDuration(emitIndex));
     }
 }
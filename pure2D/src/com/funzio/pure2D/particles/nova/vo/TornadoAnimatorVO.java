@@ -64,7 +64,7 @@ public class TornadoAnimatorVO extends TweenAnimatorVO {
 
     @Override
     public Animator createAnimator(final int emitIndex, final Manipulatable target, final Animator... animators) {
-        return init(emitIndex, target, new TornadoAnimator(NovaConfig.getInterpolator(interpolation)));
+        return init(emitIndex, target, new TornadoAnimator(mInterpolator));
     }
 
     @Override
@@ -77,7 +77,7 @@ public class TornadoAnimatorVO extends TweenAnimatorVO {
         tornado.setCircles(NovaConfig.getInt(circle_radius, emitIndex, 0), NovaConfig.getInt(circle_num, emitIndex, 0),
                 NovaConfig.getFloat(circle_ratio, emitIndex, TornadoAnimator.DEFAULT_CIRCLE_RATIO), NovaConfig.getInterpolator(NovaConfig.getString(circle_interpolation, emitIndex)));
         tornado.setCircleMultiplier(NovaConfig.getFloat(circle_multiplier, emitIndex, 1));
-        tornado.setDuration(NovaConfig.getInt(duration, emitIndex, 0));
+        tornado.setDuration(getDuration(emitIndex));
         tornado.setZEnabled(z_enabled);
         // }
     }
@@ -32,6 +32,7 @@ import org.json.JSONObject;
 import com.funzio.pure2D.Manipulatable;
 import com.funzio.pure2D.animators.Animator;
 import com.funzio.pure2D.animators.TrajectoryAnimator;
+import com.funzio.pure2D.particles.nova.FloatTable;
 import com.funzio.pure2D.particles.nova.NovaConfig;
 
 /**
@@ -44,6 +45,12 @@ public class TrajectoryAnimatorVO extends AnimatorVO {
     public ArrayList<Float> angle;
     public ArrayList<Float> gravity;
 
+    // compiled values
+    protected FloatTable mGround;
+    protected FloatTable mVelocity;
+    protected FloatTable mAngle;
+    protected FloatTable mGravity;
+
     public TrajectoryAnimatorVO(final JSONObject json) throws JSONException {
         super(json);
 
@@ -64,12 +71,42 @@ public class TrajectoryAnimatorVO extends AnimatorVO {
 
         final TrajectoryAnimator move = (TrajectoryAnimator) animator;
         // if (move != null) {
-        move.setGround(NovaConfig.getFloat(ground, emitIndex, 0));
-        move.setGravity(NovaConfig.getFloat(gravity, emitIndex, TrajectoryAnimator.DEFAULT_GRAVITY));
-        move.setValues(target.getPosition().x, target.getPosition().y, NovaConfig.getFloat(velocity, emitIndex, 0), NovaConfig.getFloat(angle, emitIndex, 0));
+        move.setGround(getGround(emitIndex));
+        move.setGravity(getGravity(emitIndex));
+        move.setValues(target.getPosition().x, target.getPosition().y, getVelocity(emitIndex), getAngle(emitIndex));
         // }
     }
 
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.particles.nova.vo.AnimatorVO#compile(com.funzio.pure2D.particles.nova.vo.NovaVO)
+     */
+    @Override
+    public void compile(final NovaVO novaVO) {
+        super.compile(novaVO);
+
+        mGround = FloatTable.create(ground);
+        mVelocity = FloatTable.create(velocity);
+        mAngle = FloatTable.create(angle);
+        mGravity = FloatTable.create(gravity);
+    }
+
+    public float getGround(final int emitIndex) {
+        return NovaConfig.getFloat(mGround, emitIndex, 0);
+    }
+
+    public float getVelocity(final int emitIndex) {
+        return NovaConfig.getFloat(mVelocity, emitIndex, 0);
+    }
+
+    public float getAngle(final int emitIndex) {
+        return NovaConfig.getFloat(mAngle, emitIndex, 0);
+    }
+
+    public float getGravity(final int emitIndex) {
+        return NovaConfig.getFloat(mGravity, emitIndex, TrajectoryAnimator.DEFAULT_GRAVITY);
+    }
+
     /*
      * (non-Javadoc)
      * @see com.funzio.pure2D.particles.nova.vo.AnimatorVO#applyScale(float)
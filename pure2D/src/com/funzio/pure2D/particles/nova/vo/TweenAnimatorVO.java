@@ -29,9 +29,12 @@ import java.util.ArrayList;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import android.view.animation.Interpolator;
+
 import com.funzio.pure2D.Manipulatable;
 import com.funzio.pure2D.animators.Animator;
 import com.funzio.pure2D.animators.TweenAnimator;
+import com.funzio.pure2D.particles.nova.IntTable;
 import com.funzio.pure2D.particles.nova.NovaConfig;
 
 /**
@@ -42,6 +45,10 @@ public abstract class TweenAnimatorVO extends AnimatorVO {
     public boolean reversed;
     public ArrayList<Integer> duration;
 
+    // compiled values
+    protected IntTable mDuration;
+    protected Interpolator mInterpolator;
+
     public TweenAnimatorVO(final JSONObject json) throws JSONException {
         super(json);
 
@@ -60,11 +67,31 @@ public abstract class TweenAnimatorVO extends AnimatorVO {
 
         // if (animator instanceof TweenAnimator) {
         ((TweenAnimator) animator).setReversed(reversed);
-        ((TweenAnimator) animator).setLoop(NovaConfig.getLoopMode(loop_mode));
+        ((TweenAnimator) animator).setLoop(mLoopMode);
 
-        if (loop_count != null) {
-            ((TweenAnimator) animator).setLoopCount(NovaConfig.getInt(loop_count, emitIndex, 0));
+        if (mLoopCount != null) {
+            ((TweenAnimator) animator).setLoopCount(mLoopCount.get(emitIndex));
         }
         // }
     }
+
+    /*
+     * (non-Javadoc)
+     * @see com.funzio.pure2D.particles.nova.vo.AnimatorVO#compile(com.funzio.pure2D.particles.nova.vo.NovaVO)
+     */
+    @Override
+    public void compile(final NovaVO novaVO) {
+        super.compile(novaVO);
+
+        mDuration = IntTable.create(duration);
+        mInterpolator = NovaConfig.getInterpolator(interpolation);
+    }
+
+    public int getDuration(final int emitIndex) {
+        return NovaConfig.getInt(mDuration, emitIndex, 0);
+    }
+
+    public Interpolator getInterpolator() {
+        return mInterpolator;
+    }
 }
@@ -73,7 +73,7 @@ public class UnstableMoveAnimatorVO extends TweenAnimatorVO {
 
     @Override
     public Animator createAnimator(final int emitIndex, final Manipulatable target, final Animator... animators) {
-        return init(emitIndex, target, new UnstableMoveAnimator(NovaConfig.getInterpolator(interpolation)));
+        return init(emitIndex, target, new UnstableMoveAnimator(mInterpolator));
     }
 
     @Override
@@ -86,7 +86,7 @@ public class UnstableMoveAnimatorVO extends TweenAnimatorVO {
         } else {
             move.setDelta(NovaConfig.getInt(dx, emitIndex, 0), NovaConfig.getInt(dy, emitIndex, 0));
         }
-        move.setDuration(NovaConfig.getInt(duration, emitIndex, 0));
+        move.setDuration(getDuration(emitIndex));
         // wind atts
         move.setSegmentDuration(NovaConfig.getInt(segment_duration, emitIndex, 0));
         move.setWindRange(NovaConfig.getFloat(wind_x1, emitIndex, 0), NovaConfig.getFloat(wind_x2, emitIndex, 0), NovaConfig.getFloat(wind_y1, emitIndex, 0),
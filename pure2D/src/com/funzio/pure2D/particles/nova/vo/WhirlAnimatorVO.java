@@ -61,7 +61,7 @@ public class WhirlAnimatorVO extends TweenAnimatorVO {
 
     @Override
     public Animator createAnimator(final int emitIndex, final Manipulatable target, final Animator... animators) {
-        return init(emitIndex, target, new WhirlAnimator(NovaConfig.getInterpolator(interpolation)));
+        return init(emitIndex, target, new WhirlAnimator(mInterpolator));
     }
 
     @Override
@@ -75,7 +75,7 @@ public class WhirlAnimatorVO extends TweenAnimatorVO {
         whirl.setCircleInterpolator(NovaConfig.getInterpolator(NovaConfig.getString(circle_interpolation, emitIndex)));
         whirl.setCircleRatio(NovaConfig.getFloat(circle_ratio, emitIndex, WhirlAnimator.DEFAULT_CIRCLE_RATIO));
         whirl.setCircleMultiplier(NovaConfig.getFloat(circle_multiplier, emitIndex, 1));
-        whirl.setDuration(NovaConfig.getInt(duration, emitIndex, 0));
+        whirl.setDuration(getDuration(emitIndex));
         // }
     }
 
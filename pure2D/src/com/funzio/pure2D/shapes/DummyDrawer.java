@@ -33,6 +33,12 @@ import com.funzio.pure2D.gl.gl10.GLState;
  */
 public class DummyDrawer extends Sprite {
 
+    @Override
+    public boolean isBatchable() {
+        // draws without transformations and colors
+        return false;
+    }
+
     @Override
     /**
      * This only draws the children without applying any transformations, colors, for drawing cache purpose
@@ -30,9 +30,11 @@ import android.view.MotionEvent;
 
 import org.xmlpull.v1.XmlPullParser;
 
+import com.funzio.pure2D.Batchable;
 import com.funzio.pure2D.Pure2D;
 import com.funzio.pure2D.gl.gl10.GLState;
 import com.funzio.pure2D.gl.gl10.QuadBuffer;
+import com.funzio.pure2D.gl.gl10.QuadCollector;
 import com.funzio.pure2D.gl.gl10.textures.TextureCoordBuffer;
 import com.funzio.pure2D.ui.TouchListener;
 import com.funzio.pure2D.ui.UIManager;
@@ -41,7 +43,7 @@ import com.funzio.pure2D.ui.UIObject;
 /**
  * @author long
  */
-public class Rectangular extends Shape implements UIObject {
+public class Rectangular extends Shape implements UIObject, Batchable {
 
     protected boolean mTouchable;
     protected boolean mModal;
@@ -70,6 +72,7 @@ public class Rectangular extends Shape implements UIObject {
     public void setRect(final RectF rect) {
         mPosition.x = rect.left;
         mPosition.y = rect.top;
+        invalidate(POSITION);
         setSize(rect.width(), rect.height());
     }
 
@@ -81,6 +84,44 @@ public class Rectangular extends Shape implements UIObject {
         }
     }
 
+    /**
+     * @see com.funzio.pure2D.Batchable#isBatchable()
+     */
+    @Override
+    public boolean isBatchable() {
+        return mVertexBuffer instanceof QuadBuffer && mColorBuffer == null && mMask == null && !mPerspectiveEnabled && mZ == 0 //
+                && (mRotation == 0 || isRotation2D()) //
+                && (Pure2D.DEBUG_FLAGS | mDebugFlags) == 0;
+    }
+
+    /**
+     * @see com.funzio.pure2D.Batchable#batch(com.funzio.pure2D.gl.gl10.QuadCollector)
+     */
+    @Override
+    public boolean batch(final QuadCollector batch) {
+        if (!isBatchable()) {
+            return false;
+        }
+
+        // texture coordinates changed?
+        if ((mInvalidateFlags & TEXTURE_COORDS) != 0) {
+            validateTextureCoordBuffer();
+        }
+
+        // texture is set but coordinates are not ready
+        if (mTexture != null && mTextureCoordBufferScaled == null) {
+            return false;
+        }
+
+        batch.add(mTexture, mTexture != null ? mTextureCoordBufferScaled.getValues() : null, ((QuadBuffer) mVertexBuffer).getValues(), getLocalMatrix(), getInheritedBlendFunc(), getInheritedColor(),
+                mAlphaTestEnabled);
+
+        // validate visual only
+        mInvalidateFlags &= ~VISUAL;
+
+        return true;
+    }
+
     /**
      * @param x
      * @param y
@@ -224,6 +224,12 @@ public class Sprite9 extends Rectangular {
         invalidate(InvalidateFlags.TEXTURE_COORDS);
     }
 
+    @Override
+    public boolean isBatchable() {
+        // patches need their own quads
+        return super.isBatchable() && (mTexture == null || !m9PatchEnabled || !mHasPatches);
+    }
+
     @Override
     protected boolean drawChildren(final GLState glState) {
         // texture check
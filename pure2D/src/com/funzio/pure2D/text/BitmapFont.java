@@ -66,7 +66,7 @@ public class BitmapFont {
 
         mFontMetrics = new BitmapFontMetrics(mTextOptions);
 
-        mRectPacker = new RectPacker(Math.min(textureMaxSize, Pure2D.GL_MAX_TEXTURE_SIZE), mTextOptions.inPo2);
+        mRectPacker = new RectPacker(Math.min(textureMaxSize, Pure2D.GL_MAX_TEXTURE_SIZE), mTextOptions.inPo2, RectPacker.STRATEGY_SKYLINE);
         mRectPacker.setQuickMode(true);
         mRectPacker.setRotationEnabled(false);
     }
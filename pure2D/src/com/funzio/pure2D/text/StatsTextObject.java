@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.text;
+
+import com.funzio.pure2D.gl.gl10.GLStats;
+
+/**
+ * An on-screen overlay showing the render statistics of the scene it is added to. The text is only rebuilt every refresh interval to keep the overhead low. Add it as the last
+ * child of the scene so it sees the whole frame.
+ * 
+ * @author long
+ * @see GLStats
+ */
+public class StatsTextObject extends BmfTextObject {
+    public static final int DEFAULT_REFRESH_INTERVAL = 500; // ms
+
+    private final StringBuilder mBuilder = new StringBuilder(128);
+    private int mRefreshInterval = DEFAULT_REFRESH_INTERVAL;
+    private int mElapsedTime = DEFAULT_REFRESH_INTERVAL;
+
+    public StatsTextObject() {
+        super();
+    }
+
+    @Override
+    public boolean update(final int deltaTime) {
+        mElapsedTime += deltaTime;
+        if (mElapsedTime >= mRefreshInterval && mScene != null && mScene.getGLState() != null) {
+            mElapsedTime = 0;
+
+            mBuilder.setLength(0);
+            setText(mScene.getGLState().getStats().appendTo(mBuilder).toString());
+        }
+
+        return super.update(deltaTime);
+    }
+
+    public int getRefreshInterval() {
+        return mRefreshInterval;
+    }
+
+    /**
+     * @param refreshInterval how often to refresh the text, in milliseconds
+     */
+    public void setRefreshInterval(final int refreshInterval) {
+        mRefreshInterval = refreshInterval;
+    }
+}
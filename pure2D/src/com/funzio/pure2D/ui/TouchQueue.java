@@ -0,0 +1,296 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.ui;
+
+import android.graphics.PointF;
+import android.view.MotionEvent;
+
+/**
+ * A single-producer single-consumer ring buffer of touch events. The UI thread offers the events, the GL thread polls and dispatches them at the start of the next frame, so neither thread has
+ * to wait for the other. Slots are preallocated and reused.
+ * <p>
+ * When the GL thread stalls and the queue fills up, the move events are dropped first: a part of the queue is reserved for the other events, and a down event is only accepted
+ * when there is room left for the up events of all the pointers that are down. So a gesture that has started always gets its ACTION_UP or ACTION_CANCEL.
+ * </p>
+ * 
+ * @author long
+ */
+public class TouchQueue {
+    public static final int DEFAULT_CAPACITY = 64;
+    public static final int MAX_POINTERS = 10;
+
+    private final TouchEvent[] mSlots;
+    private final int mMask;
+    // only written by the consumer
+    private volatile int mHead = 0;
+    // only written by the producer
+    private volatile int mTail = 0;
+    private volatile int mNumDropped = 0;
+    // producer only
+    private final int mReserve;
+    private int mNumPointersDown = 0;
+
+    // latency metrics, consumer only
+    private float mLastLatency = 0;
+    private float mAverageLatency = 0;
+    private float mMaxLatency = 0;
+    private int mNumDispatched = 0;
+
+    public TouchQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity rounded up to a power of 2
+     */
+    public TouchQueue(final int capacity) {
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+
+        mSlots = new TouchEvent[size];
+        for (int i = 0; i < size; i++) {
+            mSlots[i] = new TouchEvent();
+        }
+        mMask = size - 1;
+        // slots the move events leave for the others
+        mReserve = size / 4;
+    }
+
+    /**
+     * Copy and queue an event. Called from the UI thread.
+     * 
+     * @param event
+     * @return false if the queue is full and the event has been dropped
+     */
+    public boolean offer(final MotionEvent event) {
+        final int tail = mTail;
+        final int free = mSlots.length - (tail - mHead);
+        final int action = event.getActionMasked();
+
+        // the free slots needed to accept this event
+        final int required;
+        switch (action) {
+            case MotionEvent.ACTION_DOWN:
+                // a new gesture
+                mNumPointersDown = 0;
+                // fall through
+            case MotionEvent.ACTION_POINTER_DOWN:
+                // this event and an up event per pointer
+                required = mNumPointersDown + 2;
+                break;
+
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_POINTER_UP:
+            case MotionEvent.ACTION_CANCEL:
+                required = 1;
+                break;
+
+            default:
+                // moves can be dropped, the next one has the latest positions
+                required = Math.max(mReserve, mNumPointersDown) + 1;
+                break;
+        }
+
+        if (free < required) {
+            mNumDropped++;
+            return false;
+        }
+
+        switch (action) {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_POINTER_DOWN:
+                mNumPointersDown++;
+                break;
+
+            case MotionEvent.ACTION_POINTER_UP:
+                if (mNumPointersDown > 0) {
+                    mNumPointersDown--;
+                }
+                break;
+
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                mNumPointersDown = 0;
+                break;
+        }
+
+        final TouchEvent slot = mSlots[tail & mMask];
+        // the original event is recycled by Android, a copy is needed
+        slot.mEvent = MotionEvent.obtain(event);
+        slot.mPointerCount = Math.min(event.getPointerCount(), MAX_POINTERS);
+        for (int i = 0; i < slot.mPointerCount; i++) {
+            slot.mScreenPoints[i].set(event.getX(i), event.getY(i));
+        }
+        slot.mQueuedTime = System.nanoTime();
+
+        // publish
+        mTail = tail + 1;
+
+        return true;
+    }
+
+    /**
+     * Get the next event without removing it. Called from the GL thread.
+     * 
+     * @return null if there is no event
+     * @see #release()
+     */
+    public TouchEvent peek() {
+        final int head = mHead;
+        if (head == mTail) {
+            return null;
+        }
+
+        return mSlots[head & mMask];
+    }
+
+    /**
+     * Remove the current event and recycle its slot. Called from the GL thread after the event returned by {@link #peek()} has been dispatched.
+     */
+    public void release() {
+        final int head = mHead;
+        if (head == mTail) {
+            return;
+        }
+
+        final TouchEvent slot = mSlots[head & mMask];
+
+        // metrics
+        mLastLatency = (System.nanoTime() - slot.mQueuedTime) / 1000000f;
+        mAverageLatency = (mAverageLatency * mNumDispatched + mLastLatency) / (mNumDispatched + 1);
+        if (mLastLatency > mMaxLatency) {
+            mMaxLatency = mLastLatency;
+        }
+        mNumDispatched++;
+
+        slot.mEvent.recycle();
+        slot.mEvent = null;
+
+        mHead = head + 1;
+    }
+
+    /**
+     * Release all the pending events. Called from the GL thread.
+     */
+    public void clear() {
+        while (peek() != null) {
+            release();
+        }
+    }
+
+    public int size() {
+        return mTail - mHead;
+    }
+
+    public int getCapacity() {
+        return mSlots.length;
+    }
+
+    /**
+     * @return the number of events dropped because the queue was full, mostly moves
+     */
+    public int getNumDropped() {
+        return mNumDropped;
+    }
+
+    /**
+     * @return the time in ms between the last event being queued and being dispatched
+     */
+    public float getLastLatency() {
+        return mLastLatency;
+    }
+
+    /**
+     * @return the average latency in ms since the last reset
+     */
+    public float getAverageLatency() {
+        return mAverageLatency;
+    }
+
+    /**
+     * @return the max latency in ms since the last reset
+     */
+    public float getMaxLatency() {
+        return mMaxLatency;
+    }
+
+    public int getNumDispatched() {
+        return mNumDispatched;
+    }
+
+    public void resetMetrics() {
+        mLastLatency = 0;
+        mAverageLatency = 0;
+        mMaxLatency = 0;
+        mNumDispatched = 0;
+        mNumDropped = 0;
+    }
+
+    /**
+     * A snapshot of a touch event
+     */
+    public static class TouchEvent {
+        private MotionEvent mEvent;
+        private int mPointerCount = 0;
+        private final PointF[] mScreenPoints = new PointF[MAX_POINTERS];
+        private final PointF[] mGlobalPoints = new PointF[MAX_POINTERS];
+        private long mQueuedTime = 0;
+
+        public TouchEvent() {
+            for (int i = 0; i < MAX_POINTERS; i++) {
+                mScreenPoints[i] = new PointF();
+                mGlobalPoints[i] = new PointF();
+            }
+        }
+
+        /**
+         * @return a copy of the original event, only valid until released
+         */
+        public MotionEvent getEvent() {
+            return mEvent;
+        }
+
+        public int getPointerCount() {
+            return mPointerCount;
+        }
+
+        public PointF getScreenPoint(final int pointerIndex) {
+            return mScreenPoints[pointerIndex];
+        }
+
+        /**
+         * @return the global point, converted by the Scene before dispatching
+         */
+        public PointF getGlobalPoint(final int pointerIndex) {
+            return mGlobalPoints[pointerIndex];
+        }
+
+        public long getQueuedTime() {
+            return mQueuedTime;
+        }
+    }
+}
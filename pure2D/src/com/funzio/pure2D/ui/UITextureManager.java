@@ -176,17 +176,17 @@ public class UITextureManager extends TextureManager {
                 // load from file / sdcard
                 final int drawable = mResources.getIdentifier(actualPath, UIConfig.TYPE_DRAWABLE, mUIManager.getPackageName());
                 if (drawable > 0) {
-                    texture = createDrawableTexture(drawable, textureOptions, async);
+                    texture = acquireDrawableTexture(drawable, textureOptions, async);
                 }
             } else if (textureUri.startsWith(Pure2DURI.FILE)) {
                 // load from file / sdcard
-                texture = createFileTexture(actualPath, textureOptions, async);
+                texture = acquireFileTexture(actualPath, textureOptions, async);
             } else if (textureUri.startsWith(Pure2DURI.ASSET)) {
                 // load from bundle assets
-                texture = createAssetTexture(actualPath, textureOptions, async);
+                texture = acquireAssetTexture(actualPath, textureOptions, async);
             } else if (textureUri.startsWith(Pure2DURI.HTTP)) {
                 // load from bundle assets
-                texture = createURLTexture(actualPath, textureOptions, async);
+                texture = acquireURLTexture(actualPath, textureOptions, async);
             } else if (textureUri.startsWith(Pure2DURI.CACHE)) {
                 // load from url or cache file
                 texture = createURLCacheTexture(mUIConfigVO.texture_manager.cdn_url + actualPath, mUIConfigVO.texture_manager.cache_dir + actualPath, textureOptions, async);
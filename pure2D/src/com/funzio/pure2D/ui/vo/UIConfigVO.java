@@ -62,6 +62,7 @@ public class UIConfigVO {
             }
         }
 
+        compile();
     }
 
     /**
@@ -91,6 +92,24 @@ public class UIConfigVO {
             }
         }
 
+        // the tables need to reflect the new values
+        compile();
+    }
+
+    /**
+     * Resolve the animators' lists into immutable tables
+     * 
+     * @see AnimatorVO#compile(com.funzio.pure2D.particles.nova.vo.NovaVO)
+     */
+    public void compile() {
+        if (animators != null) {
+            for (final AnimatorVO vo : animators) {
+                if (vo != null) {
+                    // standalone, nothing to resolve by name
+                    vo.compile(null);
+                }
+            }
+        }
     }
 
     protected static ArrayList<FontVO> getFonts(final JSONArray array) throws JSONException {
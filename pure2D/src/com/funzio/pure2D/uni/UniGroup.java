@@ -131,17 +131,13 @@ public class UniGroup extends AbstractUniGroup implements StackableObject {
             return 0;
         }
 
-        final float[] vertices = mMeshBuffer.getVertices();
-        if (mMatrixForVertices != null) {
-            mMatrixForVertices.mapPoints(vertices);
-        }
-
-        ((QuadMeshBuffer) vertexBuffer).setValuesAt(index, mNumDrawingChildren, vertices);
-        ((QuadMeshColorBuffer) colorBuffer).setValuesAt(index, mNumDrawingChildren, mColorBuffer.getValues());
+        // copy buffer to buffer, transformed
+        ((QuadMeshBuffer) vertexBuffer).setValuesAt(index, mNumDrawingChildren, mMeshBuffer, mMatrixForVertices);
+        ((QuadMeshColorBuffer) colorBuffer).setValuesAt(index, mNumDrawingChildren, mColorBuffer);
 
         // optional
         if (coordBuffer != null) {
-            ((QuadMeshTextureCoordBuffer) coordBuffer).setValuesAt(index, mNumDrawingChildren, mTextureCoordBuffer.getValues());
+            ((QuadMeshTextureCoordBuffer) coordBuffer).setValuesAt(index, mNumDrawingChildren, mTextureCoordBuffer);
         }
 
         // for debugging
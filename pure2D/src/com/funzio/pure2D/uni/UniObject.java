@@ -119,10 +119,10 @@ public abstract class UniObject implements StackableObject, InvalidateFlags {
     protected void drawBounds(final GLState glState) {
         if (mBounds.width() > 0 && mBounds.height() > 0) {
             final GL10 gl = glState.mGL;
-            gl.glPushMatrix();
+            glState.pushMatrix();
             gl.glLoadIdentity();
             Pure2D.drawDebugRect(glState, mBounds.left, mBounds.bottom, mBounds.right, mBounds.top, Pure2D.DEBUG_FLAG_GLOBAL_BOUNDS);
-            gl.glPopMatrix();
+            glState.popMatrix();
         }
     }
 
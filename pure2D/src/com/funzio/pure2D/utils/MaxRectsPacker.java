@@ -0,0 +1,454 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.utils;
+
+import android.graphics.Rect;
+
+/**
+ * An online MaxRects packer for a fixed-size area that supports freeing the occupied rectangles so the space can be reused. The free rectangles are kept in a flat int array, so
+ * occupying and freeing do not allocate once the array has grown.
+ * 
+ * @author long
+ */
+public class MaxRectsPacker {
+    private static final int STRIDE = 4; // x, y, width, height
+
+    private int mWidth;
+    private int mHeight;
+
+    private int[] mFreeRects = new int[STRIDE * 16];
+    private int mNumFreeRects = 0;
+    // the pieces split by the last occupy
+    private int[] mNewRects = new int[STRIDE * 16];
+    private int mNumNewRects = 0;
+    private int mUsedArea = 0;
+    private int mBoundsWidth = 0;
+    private int mBoundsHeight = 0;
+
+    private boolean mRotationEnabled = false;
+
+    public MaxRectsPacker(final int width, final int height) {
+        mWidth = width;
+        mHeight = height;
+
+        reset();
+    }
+
+    /**
+     * Find a place for the specified size, using the Best-Short-Side-Fit rule. The size can be flipped if rotation is enabled, check the width of the output rect.
+     * 
+     * @param rectWidth
+     * @param rectHeight
+     * @param outRect the occupied rectangle
+     * @return false if the size does not fit
+     */
+    public boolean occupy(final int rectWidth, final int rectHeight, final Rect outRect) {
+        if (rectWidth <= 0 || rectHeight <= 0) {
+            return false;
+        }
+
+        int bestIndex = -1;
+        int bestWidth = 0;
+        int bestHeight = 0;
+        int bestShortSide = Integer.MAX_VALUE;
+        int bestLongSide = Integer.MAX_VALUE;
+        final int orientations = mRotationEnabled && rectWidth != rectHeight ? 2 : 1;
+        for (int i = 0; i < mNumFreeRects; i++) {
+            final int offset = i * STRIDE;
+            final int freeWidth = mFreeRects[offset + 2];
+            final int freeHeight = mFreeRects[offset + 3];
+
+            for (int r = 0; r < orientations; r++) {
+                final int w = r == 0 ? rectWidth : rectHeight;
+                final int h = r == 0 ? rectHeight : rectWidth;
+                if (freeWidth >= w && freeHeight >= h) {
+                    final int leftoverX = freeWidth - w;
+                    final int leftoverY = freeHeight - h;
+                    final int shortSide = Math.min(leftoverX, leftoverY);
+                    final int longSide = Math.max(leftoverX, leftoverY);
+                    if (shortSide < bestShortSide || (shortSide == bestShortSide && longSide < bestLongSide)) {
+                        bestIndex = i;
+                        bestWidth = w;
+                        bestHeight = h;
+                        bestShortSide = shortSide;
+                        bestLongSide = longSide;
+                    }
+                }
+            }
+        }
+
+        if (bestIndex < 0) {
+            // ran out of space
+            return false;
+        }
+
+        final int x = mFreeRects[bestIndex * STRIDE];
+        final int y = mFreeRects[bestIndex * STRIDE + 1];
+
+        // split the free rects that overlap the new one
+        mNumNewRects = 0;
+        for (int i = 0; i < mNumFreeRects;) {
+            if (splitFreeRect(i, x, y, bestWidth, bestHeight)) {
+                removeFreeRect(i);
+            } else {
+                i++;
+            }
+        }
+        addNewRects();
+
+        mUsedArea += bestWidth * bestHeight;
+        mBoundsWidth = Math.max(mBoundsWidth, x + bestWidth);
+        mBoundsHeight = Math.max(mBoundsHeight, y + bestHeight);
+        if (outRect != null) {
+            outRect.set(x, y, x + bestWidth, y + bestHeight);
+        }
+
+        return true;
+    }
+
+    /**
+     * Give back a rectangle that was returned by {@link #occupy(int, int, Rect)}.
+     * 
+     * @param rect
+     */
+    public void free(final Rect rect) {
+        free(rect.left, rect.top, rect.width(), rect.height());
+    }
+
+    public void free(final int x, final int y, final int rectWidth, final int rectHeight) {
+        mUsedArea -= rectWidth * rectHeight;
+        if (mUsedArea <= 0) {
+            // all empty, start over
+            reset();
+            return;
+        }
+
+        addFreeRect(x, y, rectWidth, rectHeight);
+
+        // grow the freed rect by merging the neighbors that share a full edge
+        int index = mNumFreeRects - 1;
+        for (int j = 0; j < mNumFreeRects; j++) {
+            if (j != index && mergeFreeRects(index, j)) {
+                removeFreeRect(j);
+                if (index == mNumFreeRects) {
+                    // the freed rect was the last one, swapped into j
+                    index = j;
+                }
+                // start over with the bigger rect
+                j = -1;
+            }
+        }
+
+        // drop the free rects that are now covered by it
+        for (int j = 0; j < mNumFreeRects; j++) {
+            if (j != index && containsFreeRect(index, j)) {
+                removeFreeRect(j);
+                if (index == mNumFreeRects) {
+                    index = j;
+                } else {
+                    j--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Extend the area to the right and bottom, keeping the occupied rects.
+     * 
+     * @param width
+     * @param height
+     */
+    public void grow(final int width, final int height) {
+        if (width < mWidth || height < mHeight || (width == mWidth && height == mHeight)) {
+            return;
+        }
+
+        // extend the free rects touching the edges
+        for (int i = 0; i < mNumFreeRects; i++) {
+            final int offset = i * STRIDE;
+            if (mFreeRects[offset] + mFreeRects[offset + 2] == mWidth) {
+                mFreeRects[offset + 2] = width - mFreeRects[offset];
+            }
+            if (mFreeRects[offset + 1] + mFreeRects[offset + 3] == mHeight) {
+                mFreeRects[offset + 3] = height - mFreeRects[offset + 1];
+            }
+        }
+
+        // and the new strips
+        addFreeRect(mWidth, 0, width - mWidth, height);
+        addFreeRect(0, mHeight, width, height - mHeight);
+        mWidth = width;
+        mHeight = height;
+
+        pruneFreeRects();
+    }
+
+    public void reset() {
+        mNumFreeRects = 0;
+        mUsedArea = 0;
+        mBoundsWidth = mBoundsHeight = 0;
+        addFreeRect(0, 0, mWidth, mHeight);
+    }
+
+    private boolean splitFreeRect(final int index, final int x, final int y, final int w, final int h) {
+        final int offset = index * STRIDE;
+        final int fx = mFreeRects[offset];
+        final int fy = mFreeRects[offset + 1];
+        final int fw = mFreeRects[offset + 2];
+        final int fh = mFreeRects[offset + 3];
+
+        // no overlap
+        if (x >= fx + fw || x + w <= fx || y >= fy + fh || y + h <= fy) {
+            return false;
+        }
+
+        if (x < fx + fw && x + w > fx) {
+            // top side
+            if (y > fy && y < fy + fh) {
+                addNewRect(fx, fy, fw, y - fy);
+            }
+            // bottom side
+            if (y + h < fy + fh) {
+                addNewRect(fx, y + h, fw, fy + fh - (y + h));
+            }
+        }
+
+        if (y < fy + fh && y + h > fy) {
+            // left side
+            if (x > fx && x < fx + fw) {
+                addNewRect(fx, fy, x - fx, fh);
+            }
+            // right side
+            if (x + w < fx + fw) {
+                addNewRect(x + w, fy, fx + fw - (x + w), fh);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Merge rect j into rect i if they line up on a full edge
+     */
+    private boolean mergeFreeRects(final int i, final int j) {
+        final int a = i * STRIDE;
+        final int b = j * STRIDE;
+        final int[] rects = mFreeRects;
+
+        if (rects[a] == rects[b] && rects[a + 2] == rects[b + 2]) {
+            // same columns, stacked vertically
+            if (rects[a + 1] + rects[a + 3] == rects[b + 1]) {
+                rects[a + 3] += rects[b + 3];
+                return true;
+            } else if (rects[b + 1] + rects[b + 3] == rects[a + 1]) {
+                rects[a + 1] = rects[b + 1];
+                rects[a + 3] += rects[b + 3];
+                return true;
+            }
+        } else if (rects[a + 1] == rects[b + 1] && rects[a + 3] == rects[b + 3]) {
+            // same rows, side by side
+            if (rects[a] + rects[a + 2] == rects[b]) {
+                rects[a + 2] += rects[b + 2];
+                return true;
+            } else if (rects[b] + rects[b + 2] == rects[a]) {
+                rects[a] = rects[b];
+                rects[a + 2] += rects[b + 2];
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Move the split pieces to the free list, except the ones fully contained by others. The old free rects cannot be contained by the pieces since the pieces are inside them.
+     */
+    private void addNewRects() {
+        final int[] rects = mNewRects;
+        for (int i = 0; i < mNumNewRects; i++) {
+            final int a = i * STRIDE;
+            boolean contained = false;
+            for (int j = 0; j < mNumFreeRects && !contained; j++) {
+                final int b = j * STRIDE;
+                contained = rects[a] >= mFreeRects[b] && rects[a + 1] >= mFreeRects[b + 1] && rects[a] + rects[a + 2] <= mFreeRects[b] + mFreeRects[b + 2] && rects[a + 1] + rects[a + 3] <= mFreeRects[b + 1] + mFreeRects[b + 3];
+            }
+            for (int j = 0; j < mNumNewRects && !contained; j++) {
+                final int b = j * STRIDE;
+                // for the equal ones, keep the first
+                contained = j != i && rects[a] >= rects[b] && rects[a + 1] >= rects[b + 1] && rects[a] + rects[a + 2] <= rects[b] + rects[b + 2] && rects[a + 1] + rects[a + 3] <= rects[b + 1] + rects[b + 3]
+                        && (j < i || rects[a + 2] != rects[b + 2] || rects[a + 3] != rects[b + 3]);
+            }
+
+            if (!contained) {
+                addFreeRect(rects[a], rects[a + 1], rects[a + 2], rects[a + 3]);
+            }
+        }
+        mNumNewRects = 0;
+    }
+
+    private void addNewRect(final int x, final int y, final int w, final int h) {
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+
+        // grow if needed
+        if ((mNumNewRects + 1) * STRIDE > mNewRects.length) {
+            final int[] rects = new int[mNewRects.length * 2];
+            System.arraycopy(mNewRects, 0, rects, 0, mNumNewRects * STRIDE);
+            mNewRects = rects;
+        }
+
+        final int offset = mNumNewRects * STRIDE;
+        mNewRects[offset] = x;
+        mNewRects[offset + 1] = y;
+        mNewRects[offset + 2] = w;
+        mNewRects[offset + 3] = h;
+        mNumNewRects++;
+    }
+
+    /**
+     * Remove the free rects that are fully contained by others
+     */
+    private void pruneFreeRects() {
+        for (int i = 0; i < mNumFreeRects; i++) {
+            for (int j = i + 1; j < mNumFreeRects; j++) {
+                if (containsFreeRect(j, i)) {
+                    removeFreeRect(i);
+                    i--;
+                    break;
+                }
+                if (containsFreeRect(i, j)) {
+                    removeFreeRect(j);
+                    j--;
+                }
+            }
+        }
+    }
+
+    private boolean containsFreeRect(final int outer, final int inner) {
+        final int a = outer * STRIDE;
+        final int b = inner * STRIDE;
+        final int[] rects = mFreeRects;
+
+        return rects[b] >= rects[a] && rects[b + 1] >= rects[a + 1] && rects[b] + rects[b + 2] <= rects[a] + rects[a + 2] && rects[b + 1] + rects[b + 3] <= rects[a + 1] + rects[a + 3];
+    }
+
+    private void addFreeRect(final int x, final int y, final int w, final int h) {
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+
+        // grow if needed
+        if ((mNumFreeRects + 1) * STRIDE > mFreeRects.length) {
+            final int[] rects = new int[mFreeRects.length * 2];
+            System.arraycopy(mFreeRects, 0, rects, 0, mNumFreeRects * STRIDE);
+            mFreeRects = rects;
+        }
+
+        final int offset = mNumFreeRects * STRIDE;
+        mFreeRects[offset] = x;
+        mFreeRects[offset + 1] = y;
+        mFreeRects[offset + 2] = w;
+        mFreeRects[offset + 3] = h;
+        mNumFreeRects++;
+    }
+
+    private void removeFreeRect(final int index) {
+        // swap with the last one
+        mNumFreeRects--;
+        if (index < mNumFreeRects) {
+            System.arraycopy(mFreeRects, mNumFreeRects * STRIDE, mFreeRects, index * STRIDE, STRIDE);
+        }
+    }
+
+    public boolean isRotationEnabled() {
+        return mRotationEnabled;
+    }
+
+    public void setRotationEnabled(final boolean rotationEnabled) {
+        mRotationEnabled = rotationEnabled;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * @return the right-most edge occupied since the last reset
+     */
+    public int getBoundsWidth() {
+        return mBoundsWidth;
+    }
+
+    /**
+     * @return the bottom-most edge occupied since the last reset
+     */
+    public int getBoundsHeight() {
+        return mBoundsHeight;
+    }
+
+    public int getUsedArea() {
+        return mUsedArea;
+    }
+
+    public int getFreeArea() {
+        return mWidth * mHeight - mUsedArea;
+    }
+
+    /**
+     * @return the area of the biggest free rectangle, which is the biggest size that can still be occupied
+     */
+    public int getLargestFreeArea() {
+        int max = 0;
+        for (int i = 0; i < mNumFreeRects; i++) {
+            final int area = mFreeRects[i * STRIDE + 2] * mFreeRects[i * STRIDE + 3];
+            if (area > max) {
+                max = area;
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * @return 0 when all the free space is in one piece, close to 1 when it is scattered into small holes
+     */
+    public float getFragmentation() {
+        final int freeArea = getFreeArea();
+        if (freeArea <= 0) {
+            return 0;
+        }
+
+        return 1f - (float) getLargestFreeArea() / freeArea;
+    }
+
+    public int getNumFreeRects() {
+        return mNumFreeRects;
+    }
+}
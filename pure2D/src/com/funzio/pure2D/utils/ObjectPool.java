@@ -24,17 +24,52 @@
  */
 package com.funzio.pure2D.utils;
 
-import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
+ * A pool of reusable objects, backed by an array stack. The last released object is the first one to be acquired, which is O(1) and keeps the recently used objects warm.
+ * <p>
+ * The pool belongs to the first thread that acquires from it, usually the GL thread, and that thread does not need any lock. Other threads, such as the loader threads, can release
+ * objects too: they collect them in thread-local caches and hand them over in batches without locking. Call {@link #flush()} on such a thread when it is done releasing. Other
+ * threads can also acquire, but they only get back the objects still in their own cache and never touch the owner's stack.
+ * <p>
+ * When the owner thread dies, such as when the GLSurfaceView re-creates its GL thread, the next thread that acquires takes the pool over. Use {@link #setOwner(Thread)} to hand it
+ * over explicitly, for example from onSurfaceCreated().
+ * <p>
+ * The hit, miss, drop and high-water-mark counters tell how well {@link #getMaxSize()} fits, for example to tune NovaVO.pool_size.
+ * 
  * @author long
  */
 public class ObjectPool<T extends Reusable> {
-    private Vector<T> mReusables = new Vector<T>();
+    public static final int DEFAULT_CACHE_SIZE = 32;
+
+    private Object[] mReusables;
+    private int mSize = 0;
     private int mMaxSize;
 
+    // the acquiring thread
+    private final AtomicReference<Thread> mOwner = new AtomicReference<Thread>();
+
+    // batches released by the other threads
+    private final AtomicReference<Batch> mIncoming = new AtomicReference<Batch>();
+    private final AtomicInteger mNumIncoming = new AtomicInteger();
+    private final ThreadLocal<Batch> mCache = new ThreadLocal<Batch>();
+    private int mCacheSize = DEFAULT_CACHE_SIZE;
+
+    // metrics, only changed by the owner
+    private int mNumHits = 0;
+    private int mNumMisses = 0;
+    private int mNumDrops = 0;
+    private int mHighWaterMark = 0;
+    // metrics changed by the other threads
+    private final AtomicInteger mNumForeignHits = new AtomicInteger();
+    private final AtomicInteger mNumForeignMisses = new AtomicInteger();
+    private final AtomicInteger mNumForeignDrops = new AtomicInteger();
+
     public ObjectPool(final int maxSize) {
         mMaxSize = maxSize;
+        mReusables = new Object[Math.max(Math.min(maxSize, 16), 1)];
     }
 
     public int getMaxSize() {
@@ -43,30 +78,276 @@ public class ObjectPool<T extends Reusable> {
 
     public void setMaxSize(final int maxSize) {
         mMaxSize = maxSize;
+
+        // trim
+        while (mSize > maxSize) {
+            mReusables[--mSize] = null;
+        }
     }
 
+    /**
+     * @return the last released object, or null if the pool is empty. On a thread other than the owner, only the objects cached by that thread are returned.
+     */
+    @SuppressWarnings("unchecked")
     public T acquire() {
-        if (mReusables.size() > 0) {
-            return mReusables.remove(0);
+        final Thread owner = mOwner.get();
+        if (owner != Thread.currentThread() && (owner == null || !owner.isAlive())) {
+            claim(owner);
+        }
+        if (mOwner.get() != Thread.currentThread()) {
+            return acquireFromCache();
+        }
+
+        if (mSize == 0 && mIncoming.get() != null) {
+            drain();
+        }
+
+        if (mSize > 0) {
+            mNumHits++;
+            final T reusable = (T) mReusables[--mSize];
+            mReusables[mSize] = null;
+            return reusable;
+        }
+
+        mNumMisses++;
+        return null;
+    }
+
+    /**
+     * The first thread that acquires becomes the owner, or the next one after the owner died
+     * 
+     * @param expected the current owner
+     */
+    private void claim(final Thread expected) {
+        // what this thread released so far was cached
+        flush();
+        mOwner.compareAndSet(expected, Thread.currentThread());
+    }
+
+    /**
+     * Hand the pool over to another thread. This MUST only be called when the current owner has stopped using the pool, such as in onSurfaceCreated() after the GL thread is
+     * re-created.
+     * 
+     * @param owner the new owner, or null to let the next acquiring thread claim the pool
+     */
+    public void setOwner(final Thread owner) {
+        mOwner.set(owner);
+    }
+
+    /**
+     * @return the thread that owns the pool, or null if nothing has acquired yet
+     */
+    public Thread getOwner() {
+        return mOwner.get();
+    }
+
+    /**
+     * Acquire on a thread other than the owner, without touching the shared stack
+     */
+    @SuppressWarnings("unchecked")
+    private T acquireFromCache() {
+        final Batch batch = mCache.get();
+        if (batch != null && batch.mSize > 0) {
+            mNumForeignHits.incrementAndGet();
+            final T reusable = (T) batch.mItems[--batch.mSize];
+            batch.mItems[batch.mSize] = null;
+            return reusable;
         }
 
+        mNumForeignMisses.incrementAndGet();
         return null;
     }
 
+    /**
+     * @param reusable
+     * @return false if the pool is full. When released from another thread, the objects waiting to be handed over count toward the max size.
+     */
     public boolean release(final T reusable) {
-        if (mReusables.size() < mMaxSize) {
-            mReusables.add(reusable);
-            return true;
+        if (Thread.currentThread() != mOwner.get()) {
+            // not the owner, use the cache
+            return releaseToCache(reusable);
+        }
+
+        return push(reusable);
+    }
+
+    private boolean push(final Object reusable) {
+        if (mSize >= mMaxSize) {
+            mNumDrops++;
+            return false;
+        }
+
+        if (mSize == mReusables.length) {
+            final Object[] reusables = new Object[Math.min(mSize * 2, mMaxSize)];
+            System.arraycopy(mReusables, 0, reusables, 0, mSize);
+            mReusables = reusables;
+        }
+
+        mReusables[mSize++] = reusable;
+        if (mSize > mHighWaterMark) {
+            mHighWaterMark = mSize;
+        }
+
+        return true;
+    }
+
+    private boolean releaseToCache(final T reusable) {
+        Batch batch = mCache.get();
+        if (batch == null) {
+            batch = new Batch(mCacheSize);
+            mCache.set(batch);
+        }
+
+        // nobody drains the hand-over while the owner is busy or gone, keep it bounded
+        if (mNumIncoming.get() + batch.mSize >= mMaxSize) {
+            mNumForeignDrops.incrementAndGet();
+            return false;
+        }
+
+        batch.mItems[batch.mSize++] = reusable;
+        if (batch.mSize == batch.mItems.length) {
+            // full, hand it over
+            handOver(batch);
+            mCache.set(new Batch(mCacheSize));
+        }
+
+        return true;
+    }
+
+    /**
+     * Hand over the objects released by the current thread. Only needed on the threads other than the acquiring one, after they are done releasing.
+     */
+    public void flush() {
+        final Batch batch = mCache.get();
+        if (batch != null && batch.mSize > 0) {
+            handOver(batch);
+            mCache.set(null);
         }
+    }
+
+    private void handOver(final Batch batch) {
+        mNumIncoming.addAndGet(batch.mSize);
 
-        return false;
+        Batch head;
+        do {
+            head = mIncoming.get();
+            batch.mNext = head;
+        } while (!mIncoming.compareAndSet(head, batch));
+    }
+
+    /**
+     * Move the handed-over objects into the stack, on the owner thread
+     */
+    private void drain() {
+        Batch batch = mIncoming.getAndSet(null);
+        while (batch != null) {
+            mNumIncoming.addAndGet(-batch.mSize);
+            for (int i = 0; i < batch.mSize; i++) {
+                push(batch.mItems[i]);
+            }
+            batch = batch.mNext;
+        }
+    }
+
+    /**
+     * Fill the pool up to a number of objects. This MUST be called on the acquiring thread.
+     * 
+     * @param targetSize capped by the max size
+     * @param factory
+     * @return the number of created objects
+     * @throws IllegalStateException if another thread owns the pool
+     */
+    public int prewarm(final int targetSize, final Factory<T> factory) {
+        final Thread owner = mOwner.get();
+        if (owner != Thread.currentThread() && (owner == null || !owner.isAlive())) {
+            claim(owner);
+        }
+        if (mOwner.get() != Thread.currentThread()) {
+            throw new IllegalStateException("prewarm() must be called on the thread that owns the pool: " + mOwner.get());
+        }
+
+        final int target = Math.min(targetSize, mMaxSize);
+        int created = 0;
+        while (mSize < target) {
+            push(factory.create());
+            created++;
+        }
+
+        return created;
     }
 
     public void clear() {
-        mReusables.clear();
+        for (int i = 0; i < mSize; i++) {
+            mReusables[i] = null;
+        }
+        mSize = 0;
+        mIncoming.set(null);
+        mNumIncoming.set(0);
     }
 
     public int size() {
-        return mReusables.size();
+        return mSize;
+    }
+
+    /**
+     * @param cacheSize the number of objects a thread other than the owner collects before handing them over
+     */
+    public void setCacheSize(final int cacheSize) {
+        mCacheSize = Math.max(cacheSize, 1);
+    }
+
+    /**
+     * @return number of acquisitions that returned an object
+     */
+    public int getNumHits() {
+        return mNumHits + mNumForeignHits.get();
+    }
+
+    /**
+     * @return number of acquisitions that returned null, the caller had to create a new object
+     */
+    public int getNumMisses() {
+        return mNumMisses + mNumForeignMisses.get();
+    }
+
+    /**
+     * @return number of released objects that did not fit, the max size might be too small
+     */
+    public int getNumDrops() {
+        return mNumDrops + mNumForeignDrops.get();
+    }
+
+    /**
+     * @return the most objects this pool has held at once
+     */
+    public int getHighWaterMark() {
+        return mHighWaterMark;
+    }
+
+    public void resetStats() {
+        mNumHits = mNumMisses = mNumDrops = 0;
+        mNumForeignHits.set(0);
+        mNumForeignMisses.set(0);
+        mNumForeignDrops.set(0);
+        mHighWaterMark = mSize;
+    }
+
+    @Override
+    public String toString() {
+        return "size: " + mSize + "/" + mMaxSize + ", hits: " + getNumHits() + ", misses: " + getNumMisses() + ", drops: " + getNumDrops() + ", high: " + mHighWaterMark;
+    }
+
+    public static interface Factory<T> {
+        public T create();
+    }
+
+    private static class Batch {
+        final Object[] mItems;
+        int mSize = 0;
+        Batch mNext;
+
+        Batch(final int size) {
+            mItems = new Object[size];
+        }
     }
 }
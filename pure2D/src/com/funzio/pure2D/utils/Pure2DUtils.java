@@ -324,7 +324,8 @@ public class Pure2DUtils {
             }
         }
 
-        if (options.inPo2) {
+        // the padding can be done on GL upload instead, see Texture.load()
+        if (options.inPo2 && (Pure2D.GL_NPOT_TEXTURE_SUPPORTED || !options.inPo2Padding)) {
             bitmap = scaleBitmapToPo2(bitmap, outDimensions);
         } else {
             // also output the original width and height
@@ -39,6 +39,13 @@ import android.util.Log;
 public class RectPacker {
     private static final String TAG = RectPacker.class.getSimpleName();
 
+    // the original packer, grows around the hot points
+    public static final int STRATEGY_HOT_POINTS = 0;
+    // lowest place first, best for many rects of similar heights such as glyphs
+    public static final int STRATEGY_SKYLINE = 1;
+    // best short side fit, best for rects of different sizes such as sprites
+    public static final int STRATEGY_MAX_RECTS = 2;
+
     private static final Comparator<Point> COMPARATOR = new Comparator<Point>() {
         public int compare(final Point left, final Point right) {
             return (left.x * left.x + left.y + left.y) - (right.x * right.x + right.y * right.y); // square
@@ -56,6 +63,16 @@ public class RectPacker {
     private int mWidth = 0;
     private int mHeight = 0;
 
+    private int mStrategy = STRATEGY_HOT_POINTS;
+    private SkylinePacker mSkylinePacker;
+    private MaxRectsPacker mMaxRectsPacker;
+    private int mBinWidth = 0;
+    private int mBinHeight = 0;
+
+    // metrics
+    private long mUsedArea = 0;
+    private long mPackingTime = 0;
+
     // for sorting the lines
     private final TreeSet<Integer> mHLines = new TreeSet<Integer>();
     private final TreeSet<Integer> mVLines = new TreeSet<Integer>();
@@ -69,12 +86,42 @@ public class RectPacker {
         mForcePO2 = forcePO2;
     }
 
+    public RectPacker(final int maxWidth, final boolean forcePO2, final int strategy) {
+        mMaxWidth = maxWidth;
+        mForcePO2 = forcePO2;
+        mStrategy = strategy;
+    }
+
+    public int getStrategy() {
+        return mStrategy;
+    }
+
+    /**
+     * Switch the packing strategy. This also resets the packer.
+     * 
+     * @param strategy
+     * @see #STRATEGY_HOT_POINTS
+     * @see #STRATEGY_SKYLINE
+     * @see #STRATEGY_MAX_RECTS
+     */
+    public void setStrategy(final int strategy) {
+        mStrategy = strategy;
+        reset();
+    }
+
     public boolean isRotationEnabled() {
         return mRotationEnabled;
     }
 
     public void setRotationEnabled(final boolean rotationEnabled) {
         mRotationEnabled = rotationEnabled;
+
+        if (mSkylinePacker != null) {
+            mSkylinePacker.setRotationEnabled(rotationEnabled);
+        }
+        if (mMaxRectsPacker != null) {
+            mMaxRectsPacker.setRotationEnabled(rotationEnabled);
+        }
     }
 
     public boolean isQuickMode() {
@@ -87,9 +134,18 @@ public class RectPacker {
 
     public Rect occupy(final int rectWidth, final int rectHeight) {
         // Log.e("long", "occupy() " + rectWidth + " x " + rectHeight);
+        final long startTime = System.nanoTime();
 
         Rect newRect;
-        if (mWidth == 0) {
+        if (mStrategy != STRATEGY_HOT_POINTS && (rectWidth <= 0 || rectHeight <= 0)) {
+            // takes no space
+            newRect = new Rect(0, 0, Math.max(rectWidth, 0), Math.max(rectHeight, 0));
+        } else if (mStrategy == STRATEGY_SKYLINE || mStrategy == STRATEGY_MAX_RECTS) {
+            newRect = new Rect();
+            if (!occupyBin(rectWidth, rectHeight, newRect)) {
+                newRect = null;
+            }
+        } else if (mWidth == 0) {
             mHLines.add(0);
             mVLines.add(0);
             newRect = new Rect(0, 0, rectWidth, rectHeight);
@@ -98,18 +154,24 @@ public class RectPacker {
         }
 
         if (newRect != null) {
-            // find the new points
-            for (Integer hline : mHLines) {
-                if (hline < newRect.bottom && !isOccupied(newRect.right, hline)) {
-                    mHotPoints.add(new Point(newRect.right, hline));
-                    // break; // wrong
+            if (mStrategy == STRATEGY_HOT_POINTS) {
+                // find the new points
+                for (Integer hline : mHLines) {
+                    if (hline < newRect.bottom && !isOccupied(newRect.right, hline)) {
+                        mHotPoints.add(new Point(newRect.right, hline));
+                        // break; // wrong
+                    }
                 }
-            }
-            for (Integer vline : mVLines) {
-                if (vline < newRect.right && !isOccupied(vline, newRect.bottom)) {
-                    mHotPoints.add(new Point(vline, newRect.bottom));
-                    // break; // wrong
+                for (Integer vline : mVLines) {
+                    if (vline < newRect.right && !isOccupied(vline, newRect.bottom)) {
+                        mHotPoints.add(new Point(vline, newRect.bottom));
+                        // break; // wrong
+                    }
                 }
+
+                // add the lines
+                mHLines.add(newRect.bottom);
+                mVLines.add(newRect.right);
             }
 
             // update the bounds
@@ -117,10 +179,7 @@ public class RectPacker {
             // add the rect to the list
             mRects.add(newRect);
             mRectNum++;
-
-            // add the lines
-            mHLines.add(newRect.bottom);
-            mVLines.add(newRect.right);
+            mUsedArea += newRect.width() * newRect.height();
 
             // Log.e("long", mHotPoints.toString());
 
@@ -131,6 +190,8 @@ public class RectPacker {
             Log.e(TAG, "Error: ran out of space!", new Exception());
         }
 
+        mPackingTime += System.nanoTime() - startTime;
+
         return newRect;
     }
 
@@ -146,6 +207,53 @@ public class RectPacker {
 
         mPoints2Remove.clear();
         mWidth = mHeight = 0;
+
+        // start over from a small bin
+        mSkylinePacker = null;
+        mMaxRectsPacker = null;
+        mBinWidth = mBinHeight = 0;
+
+        mUsedArea = 0;
+        mPackingTime = 0;
+    }
+
+    /**
+     * Occupy with the skyline or max-rects packer, doubling the bin until the rect fits, so the output stays compact
+     */
+    private boolean occupyBin(final int rectWidth, final int rectHeight, final Rect outRect) {
+        if (mBinWidth == 0) {
+            // start with the first rect
+            mBinWidth = mBinHeight = Math.min(Pure2DUtils.getNextPO2(Math.max(rectWidth, rectHeight)), mMaxWidth);
+            if (mStrategy == STRATEGY_SKYLINE) {
+                mSkylinePacker = new SkylinePacker(mBinWidth, mBinHeight);
+                mSkylinePacker.setRotationEnabled(mRotationEnabled);
+            } else {
+                mMaxRectsPacker = new MaxRectsPacker(mBinWidth, mBinHeight);
+                mMaxRectsPacker.setRotationEnabled(mRotationEnabled);
+            }
+        }
+
+        while (!(mSkylinePacker != null ? mSkylinePacker.occupy(rectWidth, rectHeight, outRect) : mMaxRectsPacker.occupy(rectWidth, rectHeight, outRect))) {
+            // grow the shorter side
+            if (mBinWidth <= mBinHeight && mBinWidth < mMaxWidth) {
+                mBinWidth = Math.min(mBinWidth * 2, mMaxWidth);
+            } else if (mBinHeight < mMaxWidth) {
+                mBinHeight = Math.min(mBinHeight * 2, mMaxWidth);
+            } else if (mBinWidth < mMaxWidth) {
+                mBinWidth = Math.min(mBinWidth * 2, mMaxWidth);
+            } else {
+                // full
+                return false;
+            }
+
+            if (mSkylinePacker != null) {
+                mSkylinePacker.grow(mBinWidth, mBinHeight);
+            } else {
+                mMaxRectsPacker.grow(mBinWidth, mBinHeight);
+            }
+        }
+
+        return true;
     }
 
     private Rect getNextRect(final int rectWidth, final int rectHeight) {
@@ -284,6 +392,25 @@ public class RectPacker {
         return mHeight;
     }
 
+    public int getNumRects() {
+        return mRectNum;
+    }
+
+    /**
+     * @return the ratio of the occupied area over the output size, from 0 to 1
+     */
+    public float getOccupancy() {
+        final long area = (long) mWidth * mHeight;
+        return area == 0 ? 0 : (float) mUsedArea / area;
+    }
+
+    /**
+     * @return the total time spent in {@link #occupy(int, int)} since the last reset, in ms
+     */
+    public float getPackingTime() {
+        return mPackingTime / 1000000f;
+    }
+
     public TreeSet<Point> getHotPoints() {
         return mHotPoints;
     }
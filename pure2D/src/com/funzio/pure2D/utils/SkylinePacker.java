@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright (C) 2012-2014 GREE, Inc.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ******************************************************************************/
+/**
+ * 
+ */
+package com.funzio.pure2D.utils;
+
+import android.graphics.Rect;
+
+/**
+ * An online Skyline Bottom-Left packer for a fixed-size area. The skyline is kept in flat int arrays, so occupying does not allocate once the arrays have grown. Best for many
+ * rects of similar heights such as font glyphs.
+ * 
+ * @author long
+ */
+public class SkylinePacker {
+    private int mWidth;
+    private int mHeight;
+
+    // the skyline segments, sorted by x
+    private int[] mNodeX = new int[32];
+    private int[] mNodeY = new int[32];
+    private int[] mNodeWidth = new int[32];
+    private int mNumNodes = 0;
+
+    private int mUsedArea = 0;
+    private int mBoundsWidth = 0;
+    private int mBoundsHeight = 0;
+
+    private boolean mRotationEnabled = false;
+
+    public SkylinePacker(final int width, final int height) {
+        mWidth = width;
+        mHeight = height;
+
+        reset();
+    }
+
+    /**
+     * Find the lowest place for the specified size, left-most first. The size can be flipped if rotation is enabled, check the width of the output rect.
+     * 
+     * @param rectWidth
+     * @param rectHeight
+     * @param outRect the occupied rectangle
+     * @return false if the size does not fit
+     */
+    public boolean occupy(final int rectWidth, final int rectHeight, final Rect outRect) {
+        if (rectWidth <= 0 || rectHeight <= 0) {
+            return false;
+        }
+
+        int bestIndex = -1;
+        int bestX = 0;
+        int bestY = 0;
+        int bestWidth = 0;
+        int bestHeight = 0;
+        int bestTop = Integer.MAX_VALUE;
+        final int orientations = mRotationEnabled && rectWidth != rectHeight ? 2 : 1;
+        for (int i = 0; i < mNumNodes; i++) {
+            for (int r = 0; r < orientations; r++) {
+                final int w = r == 0 ? rectWidth : rectHeight;
+                final int h = r == 0 ? rectHeight : rectWidth;
+                final int y = getFitY(i, w, h);
+                if (y >= 0) {
+                    final int x = mNodeX[i];
+                    if (y + h < bestTop) {
+                        bestIndex = i;
+                        bestX = x;
+                        bestY = y;
+                        bestWidth = w;
+                        bestHeight = h;
+                        bestTop = y + h;
+                    }
+                }
+            }
+        }
+
+        if (bestIndex < 0) {
+            // ran out of space
+            return false;
+        }
+
+        addNode(bestIndex, bestX, bestY + bestHeight, bestWidth);
+
+        mUsedArea += bestWidth * bestHeight;
+        mBoundsWidth = Math.max(mBoundsWidth, bestX + bestWidth);
+        mBoundsHeight = Math.max(mBoundsHeight, bestY + bestHeight);
+        if (outRect != null) {
+            outRect.set(bestX, bestY, bestX + bestWidth, bestY + bestHeight);
+        }
+
+        return true;
+    }
+
+    /**
+     * Extend the area to the right and bottom, keeping the occupied rects.
+     * 
+     * @param width
+     * @param height
+     */
+    public void grow(final int width, final int height) {
+        if (width < mWidth || height < mHeight) {
+            return;
+        }
+
+        if (width > mWidth) {
+            final int last = mNumNodes - 1;
+            if (mNodeY[last] == 0) {
+                mNodeWidth[last] += width - mWidth;
+            } else {
+                addNode(mNumNodes, mWidth, 0, width - mWidth);
+            }
+        }
+        mWidth = width;
+        mHeight = height;
+    }
+
+    public void reset() {
+        mNumNodes = 1;
+        mNodeX[0] = 0;
+        mNodeY[0] = 0;
+        mNodeWidth[0] = mWidth;
+
+        mUsedArea = 0;
+        mBoundsWidth = mBoundsHeight = 0;
+    }
+
+    /**
+     * @return the y position where the rect fits when starting at the specified node, -1 if it does not fit
+     */
+    private int getFitY(final int index, final int w, final int h) {
+        if (mNodeX[index] + w > mWidth) {
+            return -1;
+        }
+
+        int y = 0;
+        int widthLeft = w;
+        for (int i = index; widthLeft > 0; i++) {
+            if (mNodeY[i] > y) {
+                y = mNodeY[i];
+            }
+            if (y + h > mHeight) {
+                return -1;
+            }
+            widthLeft -= mNodeWidth[i];
+        }
+
+        return y;
+    }
+
+    private void addNode(final int index, final int x, final int y, final int w) {
+        // grow if needed
+        if (mNumNodes == mNodeX.length) {
+            final int size = mNumNodes * 2;
+            final int[] nodeX = new int[size];
+            final int[] nodeY = new int[size];
+            final int[] nodeWidth = new int[size];
+            System.arraycopy(mNodeX, 0, nodeX, 0, mNumNodes);
+            System.arraycopy(mNodeY, 0, nodeY, 0, mNumNodes);
+            System.arraycopy(mNodeWidth, 0, nodeWidth, 0, mNumNodes);
+            mNodeX = nodeX;
+            mNodeY = nodeY;
+            mNodeWidth = nodeWidth;
+        }
+
+        // insert
+        System.arraycopy(mNodeX, index, mNodeX, index + 1, mNumNodes - index);
+        System.arraycopy(mNodeY, index, mNodeY, index + 1, mNumNodes - index);
+        System.arraycopy(mNodeWidth, index, mNodeWidth, index + 1, mNumNodes - index);
+        mNodeX[index] = x;
+        mNodeY[index] = y;
+        mNodeWidth[index] = w;
+        mNumNodes++;
+
+        // shrink or remove the nodes now covered by the new one
+        final int right = x + w;
+        for (int i = index + 1; i < mNumNodes;) {
+            if (mNodeX[i] >= right) {
+                break;
+            }
+
+            final int shrink = right - mNodeX[i];
+            if (mNodeWidth[i] <= shrink) {
+                removeNode(i);
+            } else {
+                mNodeX[i] += shrink;
+                mNodeWidth[i] -= shrink;
+                break;
+            }
+        }
+
+        // merge the neighbors at the same level
+        for (int i = 0; i < mNumNodes - 1;) {
+            if (mNodeY[i] == mNodeY[i + 1]) {
+                mNodeWidth[i] += mNodeWidth[i + 1];
+                removeNode(i + 1);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private void removeNode(final int index) {
+        mNumNodes--;
+        System.arraycopy(mNodeX, index + 1, mNodeX, index, mNumNodes - index);
+        System.arraycopy(mNodeY, index + 1, mNodeY, index, mNumNodes - index);
+        System.arraycopy(mNodeWidth, index + 1, mNodeWidth, index, mNumNodes - index);
+    }
+
+    public boolean isRotationEnabled() {
+        return mRotationEnabled;
+    }
+
+    public void setRotationEnabled(final boolean rotationEnabled) {
+        mRotationEnabled = rotationEnabled;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * @return the right-most edge occupied since the last reset
+     */
+    public int getBoundsWidth() {
+        return mBoundsWidth;
+    }
+
+    /**
+     * @return the bottom-most edge occupied since the last reset
+     */
+    public int getBoundsHeight() {
+        return mBoundsHeight;
+    }
+
+    public int getUsedArea() {
+        return mUsedArea;
+    }
+
+    public int getNumNodes() {
+        return mNumNodes;
+    }
+}